@@ -0,0 +1,99 @@
+package rs.dobrosav.targetmaster.bench;
+
+import org.openjdk.jmh.annotations.*;
+import rs.dobrosav.targetmaster.sim.Collision;
+import rs.dobrosav.targetmaster.sim.Impact;
+import rs.dobrosav.targetmaster.sim.SpatialGrid;
+import rs.dobrosav.targetmaster.sim.Target;
+import rs.dobrosav.targetmaster.sim.World;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bullet-versus-target tests for a batch of bullet steps, through the spatial grid
+ * and, as a baseline, against every target.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BroadPhaseBenchmark {
+
+    private static final int STEPS = 1024;
+    private static final double STEP_LENGTH = World.BULLET_SPEED / World.DEFAULT_TICK_RATE;
+
+    @Param({"100", "1000", "10000"})
+    public int targets;
+
+    private double[] tx, ty, tz;
+    private double[] segments;
+    private SpatialGrid grid;
+    private int[] candidates;
+    private final Impact impact = new Impact();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        tx = new double[targets];
+        ty = new double[targets];
+        tz = new double[targets];
+        grid = new SpatialGrid(World.GRID_CELL_SIZE, targets * 2);
+        candidates = new int[targets];
+        for (int i = 0; i < targets; i++) {
+            tx[i] = (random.nextDouble() - 0.5) * 400;
+            ty[i] = (random.nextDouble() * -50) - 10;
+            tz[i] = -(random.nextDouble() * 500 + 400);
+            grid.insert(i, tx[i], tz[i]);
+        }
+        segments = new double[STEPS * 6];
+        for (int s = 0; s < STEPS; s++) {
+            double x = (random.nextDouble() - 0.5) * 400;
+            double y = (random.nextDouble() * -50) - 10;
+            double z = -(random.nextDouble() * 500 + 400);
+            int o = s * 6;
+            segments[o] = x;
+            segments[o + 1] = y;
+            segments[o + 2] = z + STEP_LENGTH / 2;
+            segments[o + 3] = x;
+            segments[o + 4] = y;
+            segments[o + 5] = z - STEP_LENGTH / 2;
+        }
+    }
+
+    @Benchmark
+    public int grid() {
+        int hits = 0;
+        double r = Target.OUTER_RADIUS;
+        for (int o = 0; o < segments.length; o += 6) {
+            int n = grid.query(
+                    Math.min(segments[o], segments[o + 3]) - r, Math.min(segments[o + 2], segments[o + 5]) - r,
+                    Math.max(segments[o], segments[o + 3]) + r, Math.max(segments[o + 2], segments[o + 5]) + r,
+                    candidates);
+            for (int c = 0; c < n; c++) {
+                int id = candidates[c];
+                if (Collision.sweepDisc(segments[o], segments[o + 1], segments[o + 2],
+                        segments[o + 3], segments[o + 4], segments[o + 5], tx[id], ty[id], tz[id], impact)) {
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int bruteForce() {
+        int hits = 0;
+        for (int o = 0; o < segments.length; o += 6) {
+            for (int id = 0; id < targets; id++) {
+                if (Collision.sweepDisc(segments[o], segments[o + 1], segments[o + 2],
+                        segments[o + 3], segments[o + 4], segments[o + 5], tx[id], ty[id], tz[id], impact)) {
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,45 @@
+package rs.dobrosav.targetmaster.bench;
+
+import org.openjdk.jmh.annotations.*;
+import rs.dobrosav.targetmaster.sim.ParticleSystem;
+import rs.dobrosav.targetmaster.sim.World;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@link ParticleSystem#step()} over a full set of live particles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParticleBenchmark {
+
+    @Param({"15", "1000", "8192"})
+    public int particles;
+
+    private ParticleSystem system;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        system = new ParticleSystem(particles, 1.0 / World.DEFAULT_TICK_RATE);
+        for (int i = 0; i < particles; i++) {
+            // Lifetime long enough that nothing expires during the run
+            system.spawn(0, -20, -500,
+                    (random.nextDouble() - 0.5) * 2 * World.PARTICLE_SPEED,
+                    (random.nextDouble() - 0.5) * 2 * World.PARTICLE_SPEED,
+                    (random.nextDouble() - 0.5) * 2 * World.PARTICLE_SPEED,
+                    1e9);
+        }
+    }
+
+    @Benchmark
+    public int step() {
+        system.step();
+        return system.size();
+    }
+}
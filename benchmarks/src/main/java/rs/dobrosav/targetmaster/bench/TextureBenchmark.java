@@ -0,0 +1,63 @@
+package rs.dobrosav.targetmaster.bench;
+
+import javafx.scene.image.WritableImage;
+import org.openjdk.jmh.annotations.*;
+import rs.dobrosav.targetmaster.render.TextureCache;
+import rs.dobrosav.targetmaster.render.Textures;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Procedural texture generation, with and without the on-disk cache. The cached variants
+ * measure a warm cache, i.e. the cost of a later launch. Needs the JavaFX graphics module
+ * on the class path but no running application.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextureBenchmark {
+
+    @Param({"256", "1024", "2048"})
+    public int size;
+
+    private TextureCache cache;
+
+    @Setup
+    public void setUp() throws IOException {
+        cache = new TextureCache(Files.createTempDirectory("texture-bench"));
+        Textures.floor(size, size, cache);
+        Textures.sky(size, size, cache);
+    }
+
+    @Benchmark
+    public WritableImage floor() {
+        return Textures.floor(size, size);
+    }
+
+    @Benchmark
+    public WritableImage sky() {
+        return Textures.sky(size, size);
+    }
+
+    @Benchmark
+    public int[] floorPixels() {
+        int[] pixels = new int[size * size];
+        Textures.fillFloor(pixels, size, size);
+        return pixels;
+    }
+
+    @Benchmark
+    public WritableImage floorCached() {
+        return Textures.floor(size, size, cache);
+    }
+
+    @Benchmark
+    public WritableImage skyCached() {
+        return Textures.sky(size, size, cache);
+    }
+}
@@ -0,0 +1,59 @@
+package rs.dobrosav.targetmaster.bench;
+
+import org.openjdk.jmh.annotations.*;
+import rs.dobrosav.targetmaster.sim.World;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one {@link World#step()} with a steady number of bullets in flight.
+ * <p>
+ * The world runs at a high tick rate so bullets stay in flight for thousands of ticks;
+ * the few bullets that leave the range or hit a target are replaced every tick, which
+ * keeps the population constant at a negligible firing cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorldTickBenchmark {
+
+    private static final int TICK_RATE = 6000;
+
+    @Param({"1", "100", "10000"})
+    public int bullets;
+
+    @Param({"1", "100"})
+    public int targets;
+
+    @Param({"false", "true"})
+    public boolean waves;
+
+    private World world;
+    private Random random;
+
+    @Setup
+    public void setup() {
+        random = new Random(42);
+        world = new World(new Random(42), TICK_RATE, targets, waves);
+        refill();
+    }
+
+    @Benchmark
+    public long tick() {
+        world.step();
+        world.getTargetField().clearDirty();
+        refill();
+        return world.getTick();
+    }
+
+    private void refill() {
+        while (world.getBullets().size() < bullets) {
+            world.getAim().setAngles(random.nextDouble() * 10 - 8, 180 + random.nextDouble() * 50 - 25);
+            world.fire();
+        }
+    }
+}
@@ -1,10 +1,22 @@
 module rs.dobrosav.targetmaster {
     requires javafx.controls;
     requires java.desktop;
+    requires jdk.jfr;
     requires mp3spi;
 
     requires org.controlsfx.controls;
     requires org.kordamp.ikonli.javafx;
 
     exports rs.dobrosav.targetmaster;
+    exports rs.dobrosav.targetmaster.assets;
+    exports rs.dobrosav.targetmaster.audio;
+    exports rs.dobrosav.targetmaster.batch;
+    exports rs.dobrosav.targetmaster.input;
+    exports rs.dobrosav.targetmaster.net;
+    exports rs.dobrosav.targetmaster.render;
+    exports rs.dobrosav.targetmaster.replay;
+    exports rs.dobrosav.targetmaster.sim;
+    exports rs.dobrosav.targetmaster.snapshot;
+    exports rs.dobrosav.targetmaster.stats;
+    exports rs.dobrosav.targetmaster.telemetry;
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+package rs.dobrosav.targetmaster;
+
+import rs.dobrosav.targetmaster.batch.AimBot;
+import rs.dobrosav.targetmaster.batch.BatchStats;
+import rs.dobrosav.targetmaster.batch.Session;
+import rs.dobrosav.targetmaster.sim.Ring;
+import rs.dobrosav.targetmaster.sim.World;
+import rs.dobrosav.targetmaster.telemetry.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays many headless sessions with an {@link AimBot} on all cores and reports hit rates,
+ * time-to-kill percentiles and simulation speed, for checking balance changes without
+ * playing by hand. Every session gets its own seed derived from {@code --seed}, so a run
+ * is reproducible whatever the thread count.
+ * <pre>
+ * java -cp ... rs.dobrosav.targetmaster.BatchRunner --sessions=10000 --waves --jitter=0.3
+ * </pre>
+ */
+public class BatchRunner {
+
+    private static final String USAGE = """
+            Usage: BatchRunner [options]
+              --sessions=1000     sessions to play
+              --duration=60       simulated seconds per session
+              --targets=1         targets on the range at once
+              --waves             targets move (default: static)
+              --tickRate=60       simulation ticks per second
+              --reaction=0.25     bot reaction time mean, seconds
+              --reactionSd=0.05   reaction time standard deviation, seconds
+              --jitter=0.3        aim error standard deviation, degrees
+              --turnRate=360      fastest bot turn, degrees per second
+              --noLead            do not lead moving targets
+              --seed=1            root seed
+              --threads=N         worker threads (default: all cores)
+            """;
+
+    private static final Set<String> OPTIONS = Set.of("sessions", "duration", "targets", "waves", "tickRate",
+            "reaction", "reactionSd", "jitter", "turnRate", "noLead", "seed", "threads");
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = parse(args);
+        if (options == null) {
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+        int sessions = Integer.parseInt(options.getOrDefault("sessions", "1000"));
+        double duration = Double.parseDouble(options.getOrDefault("duration", "60"));
+        int targets = Integer.parseInt(options.getOrDefault("targets", "1"));
+        boolean waves = options.containsKey("waves");
+        int tickRate = Integer.parseInt(options.getOrDefault("tickRate", String.valueOf(World.DEFAULT_TICK_RATE)));
+        double reaction = Double.parseDouble(options.getOrDefault("reaction", "0.25"));
+        double reactionSd = Double.parseDouble(options.getOrDefault("reactionSd", "0.05"));
+        double jitter = Double.parseDouble(options.getOrDefault("jitter", "0.3"));
+        double turnRate = Double.parseDouble(options.getOrDefault("turnRate", "360"));
+        boolean lead = !options.containsKey("noLead");
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        long ticks = Math.round(duration * tickRate);
+
+        System.out.printf("%d sessions of %.0f s, %d target%s%s, %d Hz, on %d threads%n",
+                sessions, duration, targets, targets == 1 ? "" : "s", waves ? " in waves" : "", tickRate, threads);
+        System.out.printf("Bot: reaction %.0f +- %.0f ms, jitter %.2f deg, turn %.0f deg/s, %s%n",
+                reaction * 1e3, reactionSd * 1e3, jitter, turnRate, lead ? "leads targets" : "no lead");
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<BatchStats>> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(() -> {
+                BatchStats stats = new BatchStats();
+                for (int s = next.getAndIncrement(); s < sessions; s = next.getAndIncrement()) {
+                    SplittableRandom seeds = new SplittableRandom(seed + s * 0x9E3779B97F4A7C15L);
+                    World world = new World(seeds.nextLong(), tickRate, targets, waves);
+                    AimBot bot = new AimBot(reaction, reactionSd, jitter, turnRate, lead, new Random(seeds.nextLong()));
+                    new Session(world, bot, stats).run(ticks);
+                }
+                return stats;
+            }));
+        }
+        BatchStats total = new BatchStats();
+        try {
+            for (Future<BatchStats> worker : workers) {
+                total.add(worker.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Session failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.print(report(total, elapsed));
+    }
+
+    private static String report(BatchStats stats, long elapsedNanos) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%nShots %d, hits %d, hit rate %.1f%%, %.2f points per shot%n",
+                stats.getShots(), stats.getHits(), stats.getHitRate() * 100,
+                stats.getShots() == 0 ? 0 : (double) stats.getScore() / stats.getShots()));
+        sb.append("Rings:");
+        for (Ring ring : Ring.values()) {
+            sb.append(String.format(" %s %.1f%%", ring.name().toLowerCase(),
+                    stats.getHits() == 0 ? 0 : stats.getRingHits(ring) * 100.0 / stats.getHits()));
+        }
+        sb.append(String.format("%n"));
+        LatencyHistogram ttk = stats.getTimeToKill();
+        sb.append(String.format("Time to kill (%d kills, %.1f per minute): mean %s, p50 %s, p90 %s, p99 %s, max %s%n",
+                ttk.getCount(), ttk.getCount() * 60 / Math.max(1e-9, stats.getSimulatedSeconds()),
+                seconds(ttk.getMean()), seconds(ttk.percentile(50)), seconds(ttk.percentile(90)),
+                seconds(ttk.percentile(99)), seconds(ttk.getMax())));
+        double wall = elapsedNanos / 1e9;
+        sb.append(String.format("Simulated %.0f s (%d ticks) in %.2f s: %.0f ticks/s, %.0fx real time, %.0f shots/s%n",
+                stats.getSimulatedSeconds(), stats.getTicks(), wall, stats.getTicks() / wall,
+                stats.getSimulatedSeconds() / wall, stats.getShots() / wall));
+        return sb.toString();
+    }
+
+    private static String seconds(double nanos) {
+        return String.format("%.3f s", nanos / 1e9);
+    }
+
+    /** {@code --name=value} and {@code --flag} arguments, or {@code null} if malformed or unknown. */
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.length() == 2) {
+                return null;
+            }
+            int eq = arg.indexOf('=');
+            String name = eq < 0 ? arg.substring(2) : arg.substring(2, eq);
+            if (!OPTIONS.contains(name)) {
+                return null;
+            }
+            options.put(name, eq < 0 ? "" : arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
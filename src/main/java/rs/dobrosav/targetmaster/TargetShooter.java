@@ -2,12 +2,10 @@ package rs.dobrosav.targetmaster;
 
 import javafx.animation.*;
 import javafx.application.Application;
-import javafx.geometry.Point3D;
+import javafx.application.Platform;
 import javafx.scene.*;
+import javafx.scene.input.KeyCode;
 import javafx.scene.input.MouseButton;
-import javafx.scene.image.Image;
-import javafx.scene.image.PixelWriter;
-import javafx.scene.image.WritableImage;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.PhongMaterial;
@@ -17,19 +15,76 @@ import javafx.scene.shape.Line;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 import javafx.scene.transform.Rotate;
+import javafx.scene.transform.Scale;
 import javafx.stage.Stage;
 import javafx.util.Duration;
+import rs.dobrosav.targetmaster.assets.AssetLoader;
+import rs.dobrosav.targetmaster.audio.AudioMixer;
+import rs.dobrosav.targetmaster.audio.PcmSound;
+import rs.dobrosav.targetmaster.audio.Sounds;
+import rs.dobrosav.targetmaster.input.InputBuffer;
+import rs.dobrosav.targetmaster.render.AnalyticsHud;
+import rs.dobrosav.targetmaster.render.LodPolicy;
+import rs.dobrosav.targetmaster.render.ModelBaker;
+import rs.dobrosav.targetmaster.render.MuzzleFlashPool;
+import rs.dobrosav.targetmaster.render.NodePool;
+import rs.dobrosav.targetmaster.render.ParticleMesh;
+import rs.dobrosav.targetmaster.render.QualityController;
+import rs.dobrosav.targetmaster.render.QualityLevel;
+import rs.dobrosav.targetmaster.render.Rasterizer;
+import rs.dobrosav.targetmaster.render.Registry;
+import rs.dobrosav.targetmaster.render.TargetLayer;
+import rs.dobrosav.targetmaster.render.TelemetryHud;
+import rs.dobrosav.targetmaster.render.TextureCache;
+import rs.dobrosav.targetmaster.render.Textures;
+import rs.dobrosav.targetmaster.replay.InputRecorder;
+import rs.dobrosav.targetmaster.replay.InputReplay;
+import rs.dobrosav.targetmaster.sim.Aim;
+import rs.dobrosav.targetmaster.sim.Bullet;
+import rs.dobrosav.targetmaster.sim.FixedStepClock;
+import rs.dobrosav.targetmaster.sim.Impact;
+import rs.dobrosav.targetmaster.sim.Ring;
+import rs.dobrosav.targetmaster.sim.Scope;
+import rs.dobrosav.targetmaster.sim.Target;
+import rs.dobrosav.targetmaster.sim.TargetField;
+import rs.dobrosav.targetmaster.sim.TickInput;
+import rs.dobrosav.targetmaster.sim.World;
+import rs.dobrosav.targetmaster.sim.WorldListener;
+import rs.dobrosav.targetmaster.snapshot.CrashRecorder;
+import rs.dobrosav.targetmaster.stats.Leaderboard;
+import rs.dobrosav.targetmaster.stats.ShotAnalytics;
+import rs.dobrosav.targetmaster.stats.ShotRecord;
+import rs.dobrosav.targetmaster.stats.ShotStore;
+import rs.dobrosav.targetmaster.telemetry.FrameTelemetry;
 
-import javax.sound.sampled.*;
 import java.io.IOException;
-import java.net.URL;
-import java.util.ArrayList;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static rs.dobrosav.targetmaster.render.ModelBaker.at;
 
 public class TargetShooter extends Application {
 
     private static final int WIDTH = 1280;
     private static final int HEIGHT = 720;
+    private static final int TICK_RATE = Integer.getInteger("targetmaster.tickRate", World.DEFAULT_TICK_RATE);
+    private static final int TARGET_COUNT = Integer.getInteger("targetmaster.targets", 1);
+    private static final boolean WAVES = Boolean.getBoolean("targetmaster.waves");
+    /** Projected bullet size in pixels from which each sphere tessellation is used. */
+    private static final double[] BULLET_LOD_PIXELS = {8, 3};
+    private static final double TARGET_FPS = Integer.getInteger("targetmaster.targetFps", 60);
+    private static final boolean ADAPTIVE_QUALITY =
+            Boolean.parseBoolean(System.getProperty("targetmaster.adaptiveQuality", "true"));
+    private static final int MAX_CATCH_UP_STEPS = Integer.getInteger("targetmaster.maxCatchUpSteps", FixedStepClock.DEFAULT_MAX_STEPS);
+    private static final long SEED = Long.getLong("targetmaster.seed", System.nanoTime());
+    private static final String RECORD_FILE = System.getProperty("targetmaster.record");
+    private static final String REPLAY_FILE = System.getProperty("targetmaster.replay");
+    private static final int CRASH_SECONDS = Integer.getInteger("targetmaster.crashSeconds", 5);
+    private static final String CRASH_DIR = System.getProperty("targetmaster.crashDir",
+            Paths.get(System.getProperty("user.home"), ".targetmaster", "crash").toString());
 
     private Group root3D;
     private PerspectiveCamera camera;
@@ -41,25 +96,49 @@ public class TargetShooter extends Application {
     private double mouseX = 0;
     private double mouseY = 0;
 
-    private List<Node> bullets = new ArrayList<>();
-    private List<Node> particles = new ArrayList<>();
-    private Group target;
+    // Kod reprodukcije svet i ulaz dolaze iz snimka, mis se ignorise
+    private final InputReplay replay = openReplay();
+    private final World world = replay != null
+            ? replay.createWorld()
+            : new World(SEED, TICK_RATE, TARGET_COUNT, WAVES);
+    private final FixedStepClock clock = new FixedStepClock(world.getTickRate(), MAX_CATCH_UP_STEPS);
+    private InputRecorder recorder;
+    // Poslednjih nekoliko sekundi stanja, upisuju se na disk ako igra pukne
+    private final CrashRecorder crashRecorder = CRASH_SECONDS > 0
+            ? new CrashRecorder(CRASH_SECONDS * world.getTickRate())
+            : null;
+    private boolean crashDumped;
+    // Svaki pogodak i promasaj ide u bazu statistike; pise se u pozadini
+    private ShotStore shotStore;
+    private long session;
+    // Grupisanje i toplotne mape; ukupne vrijednosti svih sesija se ucitavaju u pozadini
+    private final ShotAnalytics analytics = new ShotAnalytics(world.getTargets().size());
+    private ShotAnalytics allTimeAnalytics;
+    private AnalyticsHud analyticsHud;
+    private final FrameTelemetry telemetry = new FrameTelemetry();
+    private final TextureCache textureCache = TextureCache.defaultCache();
+    private final AssetLoader assets = new AssetLoader();
+    private TelemetryHud telemetryHud;
+    private NodePool<MeshView> bulletNodes;
+    private ParticleMesh particleMesh;
+    private MuzzleFlashPool muzzleFlashes;
+    private final InputBuffer input = new InputBuffer();
+    private final TickInput tickInput = new TickInput();
+    private final LodPolicy lod = new LodPolicy(HEIGHT, 45);
+    private final QualityController quality = new QualityController(TARGET_FPS, QualityLevel.HIGH);
+    private SubScene subScene;
+    private Pane mainPane;
+    private TargetLayer targetLayer;
+    private TriangleMesh[] bulletMeshes;
     private Text missedText;
-    private int score = 0;
     private Text scoreText;
-    private double targetSpeed = 2.0;
-    private double targetDirection = 1.0;
-    private double targetBoundsX = 200;
-    private double targetInitialX = 0;
 
-     private Clip fireClip;
+     private AudioMixer audio;
+     private int fireSound = -1;
+     private int hitSound = -1;
      private Pane simpleCrosshair;
      private Group detailedScopeOverlay;
      private boolean isScoped = false;
-     private double breathingOffset = 0;
-     private boolean breathingIn = true;
-     private double scopeRecoilX = 0;
-     private double scopeRecoilY = 0;
      private Text ammoCountText;
 
     @Override
@@ -67,8 +146,12 @@ public class TargetShooter extends Application {
         root3D = new Group();
 
         Box floor = new Box(1000, 1, 1000);
-        PhongMaterial floorMaterial = new PhongMaterial();
-        floorMaterial.setDiffuseMap(createFloorTexture());
+        PhongMaterial floorMaterial = new PhongMaterial(Color.SADDLEBROWN);
+        assets.load("floor texture", () -> Textures.floor(Textures.DEFAULT_SIZE, Textures.DEFAULT_SIZE, textureCache))
+                .thenAcceptAsync(image -> {
+                    floorMaterial.setDiffuseColor(Color.WHITE);
+                    floorMaterial.setDiffuseMap(image);
+                }, Platform::runLater);
         floor.setMaterial(floorMaterial);
         floor.setTranslateY(50);
         root3D.getChildren().add(floor);
@@ -77,11 +160,54 @@ public class TargetShooter extends Application {
         root3D.getChildren().add(skybox);
 
 
-        target = createNewTarget();
-        targetInitialX = target.getTranslateX();
-        root3D.getChildren().add(target);
+        // Meshe se prave u pozadini, cvorovi na FX niti iz trenutnog stanja mete
+        targetLayer = new TargetLayer(lod);
+        assets.load("target meshes", () -> {
+            TargetLayer.prepareMeshes();
+            return null;
+        }).thenRunAsync(() -> {
+            for (Target state : world.getTargets()) {
+                targetLayer.add(state, 0, Aim.EYE_Y, 0);
+            }
+        }, Platform::runLater);
+        root3D.getChildren().add(targetLayer.getLayer());
+        world.setListener(new WorldListener() {
+            @Override
+            public void shotFired(Bullet bullet) {
+                playFireEffects();
+            }
+
+            @Override
+            public void targetHit(Target hit, Impact impact) {
+                recordShot(impact.getRing(), hit, impact.getX(), impact.getY(), impact.getZ());
+                double reaction = sinceSpawn(hit);
+                analytics.hit(hit, impact, reaction);
+                if (allTimeAnalytics != null) {
+                    allTimeAnalytics.hit(hit, impact, reaction);
+                }
+                scoreText.setText("Score: " + world.getScore());
+                if (audio != null) {
+                    audio.play(hitSound, 0.8f);
+                }
+            }
+
+            @Override
+            public void bulletMissed(Bullet bullet) {
+                Target closest = closestTarget(bullet);
+                if (closest != null) {
+                    recordShot(null, closest, closest.getX(), closest.getY(), closest.getZ());
+                }
+                analytics.miss(bullet);
+                if (allTimeAnalytics != null) {
+                    allTimeAnalytics.miss(bullet);
+                }
+                showMissed();
+            }
+        });
 
-        sniperModel = createSniperModel();
+        sniperModel = new Group();
+        assets.load("sniper model", this::createSniperModel)
+                .thenAcceptAsync(model -> sniperModel.getChildren().add(model), Platform::runLater);
 
         camera = new PerspectiveCamera(true);
         camera.setNearClip(0.1);
@@ -99,8 +225,15 @@ public class TargetShooter extends Application {
         pointLight.setTranslateY(-200);
         root3D.getChildren().add(pointLight);
 
+        bulletMeshes = new TriangleMesh[] {Registry.sphere(0.5), Registry.sphere(0.5, 6), Registry.sphere(0.5, 4)};
+        bulletNodes = new NodePool<>(() -> Registry.view(bulletMeshes[0], Color.BLACK),
+                16, World.BULLET_POOL_SIZE);
+        particleMesh = new ParticleMesh(World.MAX_PARTICLES, 1.0, Color.ORANGERED);
+        muzzleFlashes = new MuzzleFlashPool(4);
+        root3D.getChildren().addAll(bulletNodes.getLayer(), particleMesh.getView(), muzzleFlashes.getLayer());
 
-        SubScene subScene = new SubScene(root3D, WIDTH, HEIGHT, true, SceneAntialiasing.BALANCED);
+
+        subScene = new SubScene(root3D, WIDTH, HEIGHT, true, SceneAntialiasing.BALANCED);
         subScene.setCamera(camera);
 
         missedText = new Text("Missed!");
@@ -117,10 +250,24 @@ public class TargetShooter extends Application {
         scoreText.setY(40);
 
          simpleCrosshair = createCustomCrosshair();
-         detailedScopeOverlay = createDetailedScopeOverlay();
+         detailedScopeOverlay = new Group();
          detailedScopeOverlay.setVisible(false); // Vidljivo samo pri zoom-u
+         detailedScopeOverlay.setMouseTransparent(true);
+         // Staticni dio se rasterizuje jednom; ammoCountText ostaje ziv iznad slike
+         assets.load("scope overlay", this::createDetailedScopeOverlay)
+                 .thenAcceptAsync(reticle -> detailedScopeOverlay.getChildren().addAll(
+                         Rasterizer.rasterize(reticle, WIDTH, HEIGHT, stage.getOutputScaleX()), ammoCountText),
+                         Platform::runLater);
+
+         telemetryHud = new TelemetryHud(telemetry, 20, 70);
+         analyticsHud = new AnalyticsHud(analytics, WIDTH - 400, 70);
+
+         mainPane = new Pane(subScene, missedText, scoreText, simpleCrosshair, detailedScopeOverlay,
+                 telemetryHud.getNode(), analyticsHud.getNode());
 
-         Pane mainPane = new Pane(subScene, missedText, scoreText, simpleCrosshair, detailedScopeOverlay);
+        quality.setEnabled(ADAPTIVE_QUALITY);
+        quality.addListener(change -> applyQuality(change.to()));
+        telemetryHud.setQuality(quality);
 
         Scene scene = new Scene(mainPane, WIDTH, HEIGHT);
         scene.setCursor(Cursor.NONE);
@@ -131,305 +278,346 @@ public class TargetShooter extends Application {
         stage.setScene(scene);
         stage.show();
 
+        if (RECORD_FILE != null && replay == null) {
+            try {
+                recorder = new InputRecorder(Paths.get(RECORD_FILE), world);
+            } catch (IOException e) {
+                System.err.println("Cannot record to " + RECORD_FILE + ": " + e.getMessage());
+            }
+        }
+
+        if (crashRecorder != null) {
+            Thread fxThread = Thread.currentThread();
+            Thread.UncaughtExceptionHandler handler = fxThread.getUncaughtExceptionHandler();
+            fxThread.setUncaughtExceptionHandler((thread, failure) -> {
+                dumpCrash();
+                handler.uncaughtException(thread, failure);
+            });
+        }
+
         AnimationTimer timer = new AnimationTimer() {
+            private boolean firstFrame = true;
+
             @Override
             public void handle(long now) {
-                update();
+                if (firstFrame) {
+                    firstFrame = false;
+                    assets.mark("first frame");
+                }
+                long start = System.nanoTime();
+                int steps = clock.advance(now);
+                for (int i = 0; i < steps; i++) {
+                    nextInput();
+                    world.step(tickInput);
+                    recordInput();
+                    if (crashRecorder != null) {
+                        crashRecorder.record(world);
+                    }
+                    telemetry.recordTick(world);
+                }
+                long simulated = System.nanoTime();
+                render(clock.alpha());
+                long rendered = System.nanoTime();
+                input.frameShown(rendered, telemetry);
+                telemetry.recordPulse(now, simulated - start, rendered - simulated, steps);
+                telemetryHud.update(now);
+                analyticsHud.update();
+                quality.recordFrame(now);
             }
         };
         timer.start();
 
-        // Load sounds
+        // Linija i dekodiranje paralelno; zvuci se registruju kada su oba spremna
+        CompletableFuture<AudioMixer> mixer = assets.load("audio mixer", AudioMixer::new);
+        CompletableFuture<PcmSound> gunshot = assets.load("gunshot sound",
+                () -> Sounds.load("/sound/shot-and-reload-6158.mp3"));
+        mixer.thenAcceptAsync(m -> {
+            audio = m;
+            hitSound = m.register(PcmSound.tone("hit", 1200, 0.12, 0.4));
+            telemetryHud.setAudio(m);
+        }, Platform::runLater);
+        mixer.thenAcceptBothAsync(gunshot, (m, sound) -> fireSound = m.register(sound), Platform::runLater)
+                .exceptionally(failure -> {
+                    System.err.println("Error loading sounds: " + failure.getCause());
+                    return null;
+                });
+
+        if (replay == null) {
+            assets.load("shot stats",
+                            () -> ShotStore.open(ShotStore.defaultDirectory(), ShotStore.DEFAULT_LEADERBOARD_SIZE))
+                    .thenAcceptAsync(this::statsOpened, Platform::runLater)
+                    .exceptionally(failure -> {
+                        System.err.println("Shot stats unavailable: " + failure.getCause());
+                        return null;
+                    });
+            assets.load("shot analytics", () -> ShotAnalytics.load(ShotAnalytics.defaultFile()))
+                    .thenAcceptAsync(this::analyticsLoaded, Platform::runLater)
+                    .exceptionally(failure -> {
+                        System.err.println("Shot analytics unavailable: " + failure.getCause());
+                        return null;
+                    });
+        }
+
+        assets.whenAllLoaded().thenRun(() -> System.out.print(assets.report()));
+    }
+
+    private static InputReplay openReplay() {
+        if (REPLAY_FILE == null) {
+            return null;
+        }
         try {
-            URL url = getClass().getResource("/sound/shot-and-reload-6158.mp3");
-            if (url != null) {
-                AudioInputStream audioIn = AudioSystem.getAudioInputStream(url);
-                AudioFormat baseFormat = audioIn.getFormat();
-                AudioFormat decodedFormat = new AudioFormat(
-                        AudioFormat.Encoding.PCM_SIGNED,
-                        baseFormat.getSampleRate(),
-                        16,
-                        baseFormat.getChannels(),
-                        baseFormat.getChannels() * 2,
-                        baseFormat.getSampleRate(),
-                        false
-                );
-                AudioInputStream decodedAudioIn = AudioSystem.getAudioInputStream(decodedFormat, audioIn);
-                fireClip = AudioSystem.getClip();
-                fireClip.open(decodedAudioIn);
-            } else {
-                System.err.println("Sound file not found!");
+            return InputReplay.open(Paths.get(REPLAY_FILE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open replay " + REPLAY_FILE, e);
+        }
+    }
+
+    private void nextInput() {
+        if (replay == null) {
+            input.drainInto(tickInput);
+            return;
+        }
+        if (replay.isFinished()) {
+            tickInput.clear();
+            return;
+        }
+        try {
+            if (!replay.next(tickInput)) {
+                System.out.println(!replay.isVerifiable() ? "Replay finished, recording was cut off"
+                        : replay.matches(world) ? "Replay finished, matches the recording"
+                        : "Replay finished, DIVERGED from the recording");
             }
-//            hitSound = new AudioClip(getClass().getResource("/sounds/hit.wav").toExternalForm());
-        } catch (Exception e) {
-            System.err.println("Error loading sounds: " + e.getMessage());
-            e.printStackTrace();
+        } catch (IOException e) {
+            System.err.println("Replay stopped: " + e.getMessage());
         }
     }
 
-    private Image createFloorTexture() {
-        int width = 256;
-        int height = 256;
-        WritableImage image = new WritableImage(width, height);
-        PixelWriter writer = image.getPixelWriter();
-
-        Color color1 = Color.web("#8B4513"); // SaddleBrown
-        Color color2 = Color.web("#A0522D"); // Sienna
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int tileX = x / 32;
-                int tileY = y / 32;
-                Color color = (tileX + tileY) % 2 == 0 ? color1 : color2;
-                writer.setColor(x, y, color);
+    private void recordInput() {
+        if (recorder == null) {
+            return;
+        }
+        try {
+            recorder.record(world.getTick(), tickInput);
+        } catch (IOException e) {
+            System.err.println("Recording stopped: " + e.getMessage());
+            try {
+                recorder.close();
+            } catch (IOException ignored) {
             }
+            recorder = null;
+        }
+    }
+
+    private void statsOpened(ShotStore store) {
+        shotStore = store;
+        session = store.startSession();
+        List<Leaderboard.Entry> best = store.getLeaderboard().top(5);
+        StringBuilder sb = new StringBuilder("Session " + session + ", " + store.getShots() + " shots on record");
+        for (int i = 0; i < best.size(); i++) {
+            Leaderboard.Entry entry = best.get(i);
+            sb.append(String.format("%n  %d. %d points, %d/%d hits", i + 1, entry.score(), entry.hits(), entry.shots()));
+        }
+        System.out.println(sb);
+        if (store.getDamagedCopy() != null) {
+            System.err.println("Shot log was damaged, shots after the damage are only in " + store.getDamagedCopy());
+        }
+    }
+
+    /** Ranije sesije, plus pucnji ove sesije ispaljeni dok se fajl ucitavao. */
+    private void analyticsLoaded(ShotAnalytics loaded) {
+        loaded.add(analytics);
+        allTimeAnalytics = loaded;
+        analyticsHud.setAllTime(loaded);
+    }
+
+    /** Udaljenost se mjeri od oka do tacke pogotka, odnosno do mete kod promasaja. */
+    private void recordShot(Ring ring, Target target, double x, double y, double z) {
+        if (shotStore != null) {
+            double distance = Math.sqrt(x * x + (y - Aim.EYE_Y) * (y - Aim.EYE_Y) + z * z);
+            shotStore.record(new ShotRecord(System.currentTimeMillis(), session, ring, (float) distance,
+                    (float) sinceSpawn(target)));
+        }
+    }
+
+    /** Koliko je meta vec stajala na svom mjestu, u sekundama. */
+    private double sinceSpawn(Target target) {
+        return (world.getTick() - target.getSpawnTick()) * world.getTimeStep();
+    }
+
+    /** Meta cijem je centru metak prosao najblize, za promasaje; {@code null} ako nema nijedne. */
+    private Target closestTarget(Bullet bullet) {
+        Target closest = null;
+        double best = Double.MAX_VALUE;
+        for (Target target : world.getTargets()) {
+            if (!target.isUp()) {
+                continue;
+            }
+            double dx = target.getX();
+            double dy = target.getY() - Aim.EYE_Y;
+            double dz = target.getZ();
+            double along = dx * bullet.getDirX() + dy * bullet.getDirY() + dz * bullet.getDirZ();
+            double off = dx * dx + dy * dy + dz * dz - along * along;
+            if (along > 0 && off < best) {
+                best = off;
+                closest = target;
+            }
+        }
+        return closest;
+    }
+
+    private void dumpCrash() {
+        if (crashDumped) {
+            return;
+        }
+        crashDumped = true;
+        Path file = Paths.get(CRASH_DIR, "crash-" + System.currentTimeMillis() + ".tms");
+        try {
+            int count = crashRecorder.dump(file);
+            System.err.println("Wrote the last " + count + " ticks to " + file);
+        } catch (IOException e) {
+            System.err.println("Cannot write crash dump " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void closeReplay() {
+        try {
+            replay.close();
+        } catch (IOException ignored) {
         }
-        return image;
     }
 
     private Box createSkybox() {
         Box skybox = new Box(5000, 5000, 5000);
-        PhongMaterial skyMaterial = new PhongMaterial();
-        skyMaterial.setDiffuseMap(createSkyTexture());
+        PhongMaterial skyMaterial = new PhongMaterial(Color.LIGHTBLUE);
+        assets.load("sky texture", () -> Textures.sky(Textures.DEFAULT_SIZE, Textures.DEFAULT_SIZE, textureCache))
+                .thenAcceptAsync(image -> {
+                    skyMaterial.setDiffuseColor(Color.WHITE);
+                    skyMaterial.setDiffuseMap(image);
+                }, Platform::runLater);
         skybox.setMaterial(skyMaterial);
         skybox.setCullFace(CullFace.NONE);
         return skybox;
     }
 
-    private Image createSkyTexture() {
-        int width = 256;
-        int height = 256;
-        WritableImage image = new WritableImage(width, height);
-        PixelWriter writer = image.getPixelWriter();
-
-        Color topColor = Color.DEEPSKYBLUE;
-        Color bottomColor = Color.LIGHTBLUE;
-
-        for (int y = 0; y < height; y++) {
-            double ratio = (double) y / height;
-            Color interpolatedColor = topColor.interpolate(bottomColor, ratio);
-            for (int x = 0; x < width; x++) {
-                writer.setColor(x, y, interpolatedColor);
+    private void setupMouseControl(Scene scene) {
+        scene.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.F3) {
+                telemetryHud.toggle();
+            } else if (event.getCode() == KeyCode.F4) {
+                analyticsHud.toggle();
             }
+        });
+        if (replay != null) {
+            return;
         }
-        return image;
-    }
 
-    private void setupMouseControl(Scene scene) {
         scene.setOnMouseMoved(event -> {
             double dx = event.getSceneX() - mouseX;
             double dy = event.getSceneY() - mouseY;
-            double newAngleX = cameraRotateX.getAngle() - dy * 0.2;
-            double newAngleY = cameraRotateY.getAngle() + dx * 0.2;
-            if (newAngleX > 45) newAngleX = 45;
-            if (newAngleX < -45) newAngleX = -45;
-            cameraRotateX.setAngle(newAngleX);
-            cameraRotateY.setAngle(newAngleY);
+            input.look(-dy * 0.2, dx * 0.2, System.nanoTime());
             mouseX = event.getSceneX();
             mouseY = event.getSceneY();
         });
 
         scene.setOnMouseClicked(event -> {
             if (event.getButton() == MouseButton.PRIMARY) {
-                fire();
+                input.fire(System.nanoTime());
             } else if (event.getButton() == MouseButton.SECONDARY) {
-                toggleScope();
+                input.toggleScope(System.nanoTime());
             }
         });
     }
 
      private Group createSniperModel() {
-         Group sniper = new Group();
-         PhongMaterial blackMetal = new PhongMaterial(Color.web("#1a1a1a"));
-         PhongMaterial gunMetal = new PhongMaterial(Color.web("#444444"));
-         PhongMaterial darkGray = new PhongMaterial(Color.web("#333333"));
-         PhongMaterial polymerBlack = new PhongMaterial(Color.web("#2a2a2a"));
-         PhongMaterial steelGray = new PhongMaterial(Color.web("#505050"));
-         
+         // Svi dijelovi jednog materijala se spajaju u jedan mesh
+         String blackMetal = "#1a1a1a";
+         String gunMetal = "#444444";
+         String darkGray = "#333333";
+         String polymerBlack = "#2a2a2a";
+         String steelGray = "#505050";
+         ModelBaker rifle = new ModelBaker();
+
          // MAIN BARREL - Dulji, tanji
-         Cylinder barrel = new Cylinder(0.15, 50);
-         barrel.setMaterial(gunMetal);
-         barrel.setRotationAxis(Rotate.X_AXIS);
-         barrel.setRotate(90);
-         barrel.setTranslateZ(-20);
-         
+         rifle.cylinder(gunMetal, 0.15, 50, at(0, 0, -20, 90, Rotate.X_AXIS));
+
          // MUZZLE BRAKE - mali sa linijama
-         Cylinder muzzleBrake = new Cylinder(0.25, 4);
-         muzzleBrake.setMaterial(darkGray);
-         muzzleBrake.setRotationAxis(Rotate.X_AXIS);
-         muzzleBrake.setRotate(90);
-         muzzleBrake.setTranslateZ(-44);
-         
+         rifle.cylinder(darkGray, 0.25, 4, at(0, 0, -44, 90, Rotate.X_AXIS));
+
          // GAS TUBE - mali cylinder ispod cijevi
-         Cylinder gasTube = new Cylinder(0.08, 45);
-         gasTube.setMaterial(steelGray);
-         gasTube.setRotationAxis(Rotate.X_AXIS);
-         gasTube.setRotate(90);
-         gasTube.setTranslateZ(-20);
-         gasTube.setTranslateY(0.25);
-         
+         rifle.cylinder(steelGray, 0.08, 45, at(0, 0.25, -20, 90, Rotate.X_AXIS));
+
          // RECEIVER - manji
-         Box receiver = new Box(0.8, 1.5, 8);
-         receiver.setMaterial(blackMetal);
-         receiver.setTranslateZ(0);
-         
+         rifle.box(blackMetal, 0.8, 1.5, 8, at(0, 0, 0));
+
          // MAGAZINE - ispod receivera
-         Box magazine = new Box(0.5, 0.8, 3);
-         magazine.setMaterial(blackMetal);
-         magazine.setTranslateZ(-1);
-         magazine.setTranslateY(1.1);
-         
+         rifle.box(blackMetal, 0.5, 0.8, 3, at(0, 1.1, -1));
+
          // TRIGGER GUARD
-         Box triggerGuard = new Box(0.5, 0.8, 2.5);
-         triggerGuard.setMaterial(darkGray);
-         triggerGuard.setTranslateZ(1);
-         triggerGuard.setTranslateY(0.8);
-         
+         rifle.box(darkGray, 0.5, 0.8, 2.5, at(0, 0.8, 1));
+
          // BOLT HANDLE
-         Cylinder boltHandle = new Cylinder(0.08, 3);
-         boltHandle.setMaterial(gunMetal);
-         boltHandle.setRotationAxis(Rotate.Z_AXIS);
-         boltHandle.setRotate(45);
-         boltHandle.setTranslateX(0.8);
-         boltHandle.setTranslateY(-0.4);
-         boltHandle.setTranslateZ(-2);
-         
+         rifle.cylinder(gunMetal, 0.08, 3, at(0.8, -0.4, -2, 45, Rotate.Z_AXIS));
+
          // SAFETY LEVER - mali detaljčić
-         Box safetyLever = new Box(0.15, 0.4, 0.6);
-         safetyLever.setMaterial(steelGray);
-         safetyLever.setTranslateX(-0.5);
-         safetyLever.setTranslateY(0.3);
-         safetyLever.setTranslateZ(-3);
-         
+         rifle.box(steelGray, 0.15, 0.4, 0.6, at(-0.5, 0.3, -3));
+
          // STOCK - manji, jednostavniji
-         Box stock = new Box(0.9, 1.5, 12);
-         stock.setMaterial(polymerBlack);
-         stock.setTranslateZ(10);
-         
+         rifle.box(polymerBlack, 0.9, 1.5, 12, at(0, 0, 10));
+
          // STOCK VENTILATION LINES - vizuelni detalj
-         Box ventLeft = new Box(0.2, 1.4, 8);
-         ventLeft.setMaterial(darkGray);
-         ventLeft.setTranslateZ(8);
-         ventLeft.setTranslateX(-0.35);
-         ventLeft.setTranslateY(0.8);
-         
-         Box ventRight = new Box(0.2, 1.4, 8);
-         ventRight.setMaterial(darkGray);
-         ventRight.setTranslateZ(8);
-         ventRight.setTranslateX(0.35);
-         ventRight.setTranslateY(0.8);
-         
+         rifle.box(darkGray, 0.2, 1.4, 8, at(-0.35, 0.8, 8));
+         rifle.box(darkGray, 0.2, 1.4, 8, at(0.35, 0.8, 8));
+
          // GRIP
-         Box grip = new Box(0.7, 2.5, 1.5);
-         grip.setMaterial(polymerBlack);
-         grip.setRotationAxis(Rotate.X_AXIS);
-         grip.setRotate(12);
-         grip.setTranslateZ(4);
-         grip.setTranslateY(2);
-         
+         rifle.box(polymerBlack, 0.7, 2.5, 1.5, at(0, 2, 4, 12, Rotate.X_AXIS));
+
          // CHEEK REST
-         Box cheekRest = new Box(0.8, 0.6, 3);
-         cheekRest.setMaterial(polymerBlack);
-         cheekRest.setTranslateZ(8);
-         cheekRest.setTranslateY(-1.2);
-         
+         rifle.box(polymerBlack, 0.8, 0.6, 3, at(0, -1.2, 8));
+
          // SCOPE RAIL
-         Box scopeRail = new Box(0.3, 0.3, 8);
-         scopeRail.setMaterial(darkGray);
-         scopeRail.setTranslateY(-1.2);
-         scopeRail.setTranslateZ(2);
-         
+         rifle.box(darkGray, 0.3, 0.3, 8, at(0, -1.2, 2));
+
          // SCOPE - manji, minimalistički
-         Cylinder scopeTube = new Cylinder(0.35, 10);
-         scopeTube.setMaterial(blackMetal);
-         scopeTube.setRotationAxis(Rotate.X_AXIS);
-         scopeTube.setRotate(90);
-         scopeTube.setTranslateY(-1.8);
-         scopeTube.setTranslateZ(2);
-         
+         rifle.cylinder(blackMetal, 0.35, 10, at(0, -1.8, 2, 90, Rotate.X_AXIS));
+
          // SCOPE EYEPIECE - detalj
-         Cylinder scopeEye = new Cylinder(0.42, 1.5);
-         scopeEye.setMaterial(darkGray);
-         scopeEye.setRotationAxis(Rotate.X_AXIS);
-         scopeEye.setRotate(90);
-         scopeEye.setTranslateY(-1.8);
-         scopeEye.setTranslateZ(8);
-         
-         Cylinder scopeFront = new Cylinder(0.5, 2);
-         scopeFront.setMaterial(darkGray);
-         scopeFront.setRotationAxis(Rotate.X_AXIS);
-         scopeFront.setRotate(90);
-         scopeFront.setTranslateY(-1.8);
-         scopeFront.setTranslateZ(-3);
-         
-         Cylinder scopeBack = new Cylinder(0.45, 2);
-         scopeBack.setMaterial(darkGray);
-         scopeBack.setRotationAxis(Rotate.X_AXIS);
-         scopeBack.setRotate(90);
-         scopeBack.setTranslateY(-1.8);
-         scopeBack.setTranslateZ(6);
-         
+         rifle.cylinder(darkGray, 0.42, 1.5, at(0, -1.8, 8, 90, Rotate.X_AXIS));
+         rifle.cylinder(darkGray, 0.5, 2, at(0, -1.8, -3, 90, Rotate.X_AXIS));
+         rifle.cylinder(darkGray, 0.45, 2, at(0, -1.8, 6, 90, Rotate.X_AXIS));
+
          // SCOPE RINGS - male kutije za montažu
-         Box scopeRingL = new Box(0.25, 0.4, 1);
-         scopeRingL.setMaterial(steelGray);
-         scopeRingL.setTranslateX(-0.5);
-         scopeRingL.setTranslateY(-1.6);
-         scopeRingL.setTranslateZ(0);
-         
-         Box scopeRingR = new Box(0.25, 0.4, 1);
-         scopeRingR.setMaterial(steelGray);
-         scopeRingR.setTranslateX(0.5);
-         scopeRingR.setTranslateY(-1.6);
-         scopeRingR.setTranslateZ(0);
-         
+         rifle.box(steelGray, 0.25, 0.4, 1, at(-0.5, -1.6, 0));
+         rifle.box(steelGray, 0.25, 0.4, 1, at(0.5, -1.6, 0));
+
          // BIPOD - minimalist
-         Cylinder bipodL = new Cylinder(0.1, 5);
-         bipodL.setMaterial(darkGray);
-         bipodL.setTranslateZ(-8);
-         bipodL.setTranslateX(-0.9);
-         bipodL.setTranslateY(2);
-         bipodL.setRotationAxis(Rotate.Z_AXIS);
-         bipodL.setRotate(30);
-         
-         Cylinder bipodR = new Cylinder(0.1, 5);
-         bipodR.setMaterial(darkGray);
-         bipodR.setTranslateZ(-8);
-         bipodR.setTranslateX(0.9);
-         bipodR.setTranslateY(2);
-         bipodR.setRotationAxis(Rotate.Z_AXIS);
-         bipodR.setRotate(-30);
-         
+         rifle.cylinder(darkGray, 0.1, 5, at(-0.9, 2, -8, 30, Rotate.Z_AXIS));
+         rifle.cylinder(darkGray, 0.1, 5, at(0.9, 2, -8, -30, Rotate.Z_AXIS));
+
          // REAR SIGHT - mali detaljčić
-         Box rearSight = new Box(0.15, 0.6, 0.4);
-         rearSight.setMaterial(steelGray);
-         rearSight.setTranslateZ(4);
-         rearSight.setTranslateY(-0.85);
-         
-         // Assemble
-         sniper.getChildren().addAll(
-                 barrel, gasTube, muzzleBrake,
-                 receiver, magazine, triggerGuard,
-                 boltHandle, safetyLever,
-                 stock, ventLeft, ventRight, grip, cheekRest,
-                 scopeRail, scopeTube, scopeEye, scopeFront, scopeBack, scopeRingL, scopeRingR,
-                 bipodL, bipodR, rearSight
-         );
-         
+         rifle.box(steelGray, 0.15, 0.6, 0.4, at(0, -0.85, 4));
+
+         Group sniper = rifle.bake();
          sniper.setTranslateZ(10);
          sniper.setTranslateY(4);
          return sniper;
      }
 
-     private void toggleScope() {
-         isScoped = !isScoped;
+     /** Switches overlay, model and FOV once a tick has toggled the scope. */
+     private void updateScopeView() {
+         if (isScoped == world.getScope().isScoped()) {
+             return;
+         }
+         isScoped = world.getScope().isScoped();
          if (isScoped) {
              detailedScopeOverlay.setVisible(true);
              sniperModel.setVisible(false);
              camera.setFieldOfView(8); // Jaće zoom (5-8 stupnjeva)
+             lod.setFieldOfView(8);
          } else {
              detailedScopeOverlay.setVisible(false);
              sniperModel.setVisible(true);
              camera.setFieldOfView(45); // Default FOV
+             lod.setFieldOfView(45);
          }
      }
 
@@ -592,7 +780,7 @@ public class TargetShooter extends Application {
          readyText.setFill(Color.web("#44dd44"));
          readyText.setOpacity(0.7);
 
-         // Ammo counter (desno, dolje)
+         // Ammo counter (desno, dolje) - ne ulazi u grupu, ostaje ziv iznad rasterizovanog reticle-a
          ammoCountText = new Text(cx + r - 60, cy + r - 20, "20 / 5");
          ammoCountText.setFont(new Font("Arial", 11));
          ammoCountText.setFill(Color.web("#777777"));
@@ -613,7 +801,7 @@ public class TargetShooter extends Application {
 
          group.getChildren().addAll(mask, scopeCircle, innerCircle, gridLines, 
                                       hLine, vLine, thickL, thickR, thickT, thickB, 
-                                      centerDot, breathingText, readyText, ammoCountText, zoomText, stabilityText);
+                                      centerDot, breathingText, readyText, zoomText, stabilityText);
          group.setMouseTransparent(true);
          return group;
      }
@@ -681,227 +869,116 @@ public class TargetShooter extends Application {
 
     private void createMuzzleFlash() {
         Group cameraPivot = (Group) camera.getParent();
-        Point3D flashPosition = cameraPivot.localToScene(new Point3D(0, 2.5, 25));
-
-        Group flashGroup = new Group();
-        flashGroup.setTranslateX(flashPosition.getX());
-        flashGroup.setTranslateY(flashPosition.getY());
-        flashGroup.setTranslateZ(flashPosition.getZ());
-
-        Sphere core = new Sphere(1.5);
-        core.setMaterial(new PhongMaterial(Color.LIGHTYELLOW));
-
-        Sphere outer = new Sphere(4.0);
-        outer.setMaterial(new PhongMaterial(Color.ORANGERED));
-
-        PointLight light = new PointLight(Color.ORANGE);
-        light.setMaxRange(150);
-
-        flashGroup.getChildren().addAll(outer, core, light);
-        root3D.getChildren().add(flashGroup);
-
-        ScaleTransition st = new ScaleTransition(Duration.millis(50), flashGroup);
-        st.setFromX(0.1);
-        st.setFromY(0.1);
-        st.setFromZ(0.1);
-        st.setToX(1.0);
-        st.setToY(1.0);
-        st.setToZ(1.0);
-
-        FadeTransition ft = new FadeTransition(Duration.millis(100), flashGroup);
-        ft.setFromValue(1.0);
-        ft.setToValue(0.0);
-
-        ParallelTransition pt = new ParallelTransition(st, ft);
-        pt.setOnFinished(e -> root3D.getChildren().remove(flashGroup));
-        pt.play();
+        muzzleFlashes.play(cameraPivot.localToScene(0, 2.5, 25));
     }
 
-     private void fire() {
-         if (fireClip != null) {
-             if (fireClip.isRunning()) {
-                 fireClip.stop(); // Stop if already playing
-             }
-             fireClip.setFramePosition(0); // Rewind
-             fireClip.start(); // Play
+     private void playFireEffects() {
+         if (audio != null && fireSound >= 0) {
+             audio.play(fireSound, 1f); // Preklapa se sa prethodnim pucnjem
          }
-         Group cameraPivot = (Group) camera.getParent();
          createMuzzleFlash();
+     }
 
-         // Bullet
-         Sphere bullet = new Sphere(0.5);
-         bullet.setMaterial(new PhongMaterial(Color.BLACK));
-
-         Point3D origin = camera.localToScene(0, 0, 0);
-         Point3D target = camera.localToScene(0, 0, 1);
-         Point3D direction = target.subtract(origin).normalize();
-
-         bullet.setTranslateX(origin.getX());
-         bullet.setTranslateY(origin.getY());
-         bullet.setTranslateZ(origin.getZ());
-         bullet.setUserData(direction);
-         bullets.add(bullet);
-         root3D.getChildren().add(bullet);
-
-         // Recoil Animation - jaći ako je zoomed
-         double recoilAmount = isScoped ? 3.0 : 2.0; // Veći recoil pri zoom-u
-         Rotate recoilRotate = new Rotate(-recoilAmount, Rotate.X_AXIS); // Kickback rotation
-         cameraPivot.getTransforms().add(recoilRotate);
-
-         // Scope recoil vizuelni efekt
-         if (isScoped) {
-             scopeRecoilX = -5;
-             scopeRecoilY = -3;
+     private void showMissed() {
+         if (!missedText.isVisible()) {
+             missedText.setVisible(true);
+             PauseTransition missVanish = new PauseTransition(Duration.seconds(2));
+             missVanish.setOnFinished(e -> missedText.setVisible(false));
+             missVanish.play();
          }
-
-         PauseTransition recoilEnd = new PauseTransition(Duration.millis(60));
-         recoilEnd.setOnFinished(e -> {
-             cameraPivot.getTransforms().remove(recoilRotate);
-             scopeRecoilX = 0;
-             scopeRecoilY = 0;
-         });
-         recoilEnd.play();
      }
 
-    private void playHitEffect(Point3D position) {
-        List<Sphere> newParticles = new ArrayList<>();
-        for (int i = 0; i < 15; i++) {
-            Sphere particle = new Sphere(0.5);
-            particle.setMaterial(new PhongMaterial(Color.ORANGERED));
-            particle.setTranslateX(position.getX());
-            particle.setTranslateY(position.getY());
-            particle.setTranslateZ(position.getZ());
-
-            Point3D velocity = new Point3D(
-                    (Math.random() - 0.5) * 5,
-                    (Math.random() - 0.5) * 5,
-                    (Math.random() - 0.5) * 5
-            );
-            particle.setUserData(velocity);
-            newParticles.add(particle);
-            particles.add(particle);
-            root3D.getChildren().add(particle);
+    private void applyQuality(QualityLevel level) {
+        SceneAntialiasing antialiasing = level.isAntialiased() ? SceneAntialiasing.BALANCED : SceneAntialiasing.DISABLED;
+        if (subScene.getAntiAliasing() != antialiasing) {
+            // Antialiasing se ne moze mijenjati na postojecoj SubScene, pravi se nova
+            subScene.setCamera(null);
+            subScene.setRoot(new Group());
+            subScene = new SubScene(root3D, WIDTH, HEIGHT, true, antialiasing);
+            subScene.setCamera(camera);
+            mainPane.getChildren().set(0, subScene);
         }
-
-        PauseTransition removeParticles = new PauseTransition(Duration.seconds(1));
-        removeParticles.setOnFinished(e -> {
-            root3D.getChildren().removeAll(newParticles);
-            particles.removeAll(newParticles);
-        });
-        removeParticles.play();
-    }
-
-    private Group createNewTarget() {
-        Group targetGroup = new Group();
-
-        Cylinder whitePart = new Cylinder(15, 2.5);
-        whitePart.setMaterial(new PhongMaterial(Color.WHITE));
-
-        Cylinder bluePart = new Cylinder(10, 2.6);
-        bluePart.setMaterial(new PhongMaterial(Color.BLUE));
-
-        Cylinder redPart = new Cylinder(5, 2.7);
-        redPart.setMaterial(new PhongMaterial(Color.RED));
-
-        targetGroup.getChildren().addAll(whitePart, bluePart, redPart);
-        targetGroup.setRotationAxis(Rotate.X_AXIS);
-        targetGroup.setRotate(90);
-
-        double x = (Math.random() - 0.5) * 400;
-        double y = (Math.random() * -50) - 10;
-        double z = -(Math.random() * 500 + 400);
-        targetGroup.setTranslateX(x);
-        targetGroup.setTranslateY(y);
-        targetGroup.setTranslateZ(z);
-        return targetGroup;
+        double scale = level.getRenderScale();
+        subScene.setWidth(Math.round(WIDTH * scale));
+        subScene.setHeight(Math.round(HEIGHT * scale));
+        subScene.getTransforms().setAll(new Scale(1 / scale, 1 / scale, 0, 0));
+        lod.setViewportHeight(Math.round(HEIGHT * scale));
+        lod.setBias(level.getLodBias());
+        particleMesh.setDrawFraction(level.getParticleFraction());
     }
 
-     private void update() {
-         // Breathing efekt kada je scoped
-         if (isScoped) {
-             if (breathingIn) {
-                 breathingOffset += 0.01;
-                 if (breathingOffset >= 2) {
-                     breathingIn = false;
-                 }
-             } else {
-                 breathingOffset -= 0.01;
-                 if (breathingOffset <= 0) {
-                     breathingIn = true;
-                 }
+     private void render(double alpha) {
+         // Kamera odmah prikazuje i pomjeraj misa koji jos nije usao u tick
+         Aim aim = world.getAim();
+         double recoil = aim.getPitch() - aim.getEffectivePitch();
+         double pitch = Math.max(-Aim.MAX_PITCH, Math.min(Aim.MAX_PITCH, aim.getPitch() + input.getPendingPitch()));
+         cameraRotateX.setAngle(pitch - recoil);
+         cameraRotateY.setAngle(aim.getYaw() + input.getPendingYaw());
+         updateScopeView();
+
+         // Breathing efekt kada je scoped - mali zoom, centriran
+         Scope scope = world.getScope();
+         double breathingScale = scope.getBreathingScale();
+         detailedScopeOverlay.setScaleX(breathingScale);
+         detailedScopeOverlay.setScaleY(breathingScale);
+         detailedScopeOverlay.setTranslateX((breathingScale - 1) * (-WIDTH / 2) + scope.getRecoilX());
+         detailedScopeOverlay.setTranslateY((breathingScale - 1) * (-HEIGHT / 2) + scope.getRecoilY());
+
+         // Samo mete koje su se pomjerile (i sve kada se promijeni zoom)
+         TargetField field = world.getTargetField();
+         if (targetLayer.size() > 0) {
+             targetLayer.sync(world.getTargets(), field, 0, Aim.EYE_Y, 0);
+         }
+         field.clearDirty();
+
+         List<Bullet> bullets = world.getBullets();
+         int shownBullets = bulletNodes.show(bullets.size());
+         for (int i = 0; i < shownBullets; i++) {
+             Bullet bullet = bullets.get(i);
+             MeshView node = bulletNodes.get(i);
+             node.setTranslateX(bullet.getX(alpha));
+             node.setTranslateY(bullet.getY(alpha));
+             node.setTranslateZ(bullet.getZ(alpha));
+             double dx = bullet.getX(alpha), dy = bullet.getY(alpha) - Aim.EYE_Y, dz = bullet.getZ(alpha);
+             double pixels = lod.pixels(1.0, Math.sqrt(dx * dx + dy * dy + dz * dz));
+             TriangleMesh mesh = bulletMeshes[lod.select(pixels, BULLET_LOD_PIXELS, -1)];
+             if (node.getMesh() != mesh) {
+                 node.setMesh(mesh);
              }
-             
-             // Primijeni breathing efekt na scope - mali zoom
-             double breathingScale = 1.0 + (breathingOffset - 1) * 0.02;
-             detailedScopeOverlay.setScaleX(breathingScale);
-             detailedScopeOverlay.setScaleY(breathingScale);
-             
-             // Reset na centar
-             double offsetX = (breathingScale - 1) * (-WIDTH / 2) + scopeRecoilX;
-             double offsetY = (breathingScale - 1) * (-HEIGHT / 2) + scopeRecoilY;
-             detailedScopeOverlay.setTranslateX(offsetX);
-             detailedScopeOverlay.setTranslateY(offsetY);
-             
-             // Lagano smanjivanje recoil offset-a
-             scopeRecoilX *= 0.92;
-             scopeRecoilY *= 0.92;
-         } else {
-             // Resetuj breathing efekt kada nije zoomed
-             detailedScopeOverlay.setScaleX(1.0);
-             detailedScopeOverlay.setScaleY(1.0);
-             detailedScopeOverlay.setTranslateX(0);
-             detailedScopeOverlay.setTranslateY(0);
-             scopeRecoilX = 0;
-             scopeRecoilY = 0;
          }
 
-         for (Node bullet : new ArrayList<>(bullets)) {
-            Point3D direction = (Point3D) bullet.getUserData();
-            Point3D prevPos = new Point3D(bullet.getTranslateX(), bullet.getTranslateY(), bullet.getTranslateZ());
-
-            bullet.setTranslateX(bullet.getTranslateX() + direction.getX() * 20);
-            bullet.setTranslateY(bullet.getTranslateY() + direction.getY() * 20);
-            bullet.setTranslateZ(bullet.getTranslateZ() + direction.getZ() * 20);
-
-            Point3D currPos = new Point3D(bullet.getTranslateX(), bullet.getTranslateY(), bullet.getTranslateZ());
-            Point3D targetPos = new Point3D(target.getTranslateX(), target.getTranslateY(), target.getTranslateZ());
-
-            Point3D V = currPos.subtract(prevPos);
-            Point3D L = targetPos.subtract(prevPos);
-
-            double t = L.dotProduct(V) / V.dotProduct(V);
-            t = Math.max(0, Math.min(1, t));
-
-            Point3D closestPoint = prevPos.add(V.multiply(t));
-            double distance = closestPoint.distance(targetPos);
-
-            if (distance < 15) { // 15 is the radius of the largest target cylinder
-                System.out.println("Target Hit!");
-                score++;
-                scoreText.setText("Score: " + score);
-                root3D.getChildren().remove(target);
-                target = createNewTarget();
-                targetInitialX = target.getTranslateX();
-                root3D.getChildren().add(target);
-                root3D.getChildren().remove(bullet);
-                bullets.remove(bullet);
-            } else if (Math.abs(bullet.getTranslateZ()) > 1000 || Math.abs(bullet.getTranslateX()) > 1000) {
-                root3D.getChildren().remove(bullet);
-                bullets.remove(bullet);
-                if (!missedText.isVisible()) {
-                    missedText.setVisible(true);
-                    PauseTransition missVanish = new PauseTransition(Duration.seconds(2));
-                    missVanish.setOnFinished(e -> missedText.setVisible(false));
-                    missVanish.play();
-                }
+         particleMesh.update(world.getParticles(), alpha, cameraRotateY.getAngle(), cameraRotateX.getAngle());
+     }
+
+    @Override
+    public void stop() {
+        if (audio != null) {
+            audio.close();
+        }
+        assets.close();
+        if (recorder != null) {
+            try {
+                recorder.close(world);
+            } catch (IOException e) {
+                System.err.println("Error finishing recording: " + e.getMessage());
             }
         }
-
-        for (Node particle : particles) {
-            Point3D velocity = (Point3D) particle.getUserData();
-            particle.setTranslateX(particle.getTranslateX() + velocity.getX());
-            particle.setTranslateY(particle.getTranslateY() + velocity.getY());
-            particle.setTranslateZ(particle.getTranslateZ() + velocity.getZ());
+        if (replay != null) {
+            closeReplay();
+        }
+        if (shotStore != null) {
+            try {
+                shotStore.close();
+            } catch (IOException e) {
+                System.err.println("Error saving shot stats: " + e.getMessage());
+            }
+        }
+        if (allTimeAnalytics != null) {
+            try {
+                allTimeAnalytics.save(ShotAnalytics.defaultFile());
+            } catch (IOException e) {
+                System.err.println("Error saving shot analytics: " + e.getMessage());
+            }
         }
     }
 
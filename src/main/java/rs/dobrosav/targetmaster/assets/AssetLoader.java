@@ -0,0 +1,122 @@
+package rs.dobrosav.targetmaster.assets;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads assets on a pool of background threads. Each asset is returned as a future the
+ * caller binds to, so the first frame can be shown before decoding and generation finish.
+ * The loader keeps a timeline of when every asset was queued, started and finished,
+ * plus named milestones such as the first frame, and formats it as a startup report.
+ * <p>
+ * All times are measured from the creation of the loader.
+ */
+public final class AssetLoader implements AutoCloseable {
+
+    private final long originNanos = System.nanoTime();
+    private final ExecutorService executor;
+    private final List<Entry> entries = new ArrayList<>();
+    private final List<CompletableFuture<?>> futures = new ArrayList<>();
+
+    public AssetLoader() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    public AssetLoader(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "asset-loader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Schedules {@code task} and returns a future completed with its result or failure. */
+    public <T> CompletableFuture<T> load(String name, Callable<T> task) {
+        Entry entry = new Entry(name, System.nanoTime());
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+            entry.thread = Thread.currentThread().getName();
+            entry.startNanos = System.nanoTime();
+            try {
+                return task.call();
+            } catch (Exception e) {
+                entry.failure = e.toString();
+                throw new IllegalStateException("Could not load " + name, e);
+            } finally {
+                entry.endNanos = System.nanoTime();
+            }
+        }, executor);
+        synchronized (this) {
+            entries.add(entry);
+            futures.add(future);
+        }
+        return future;
+    }
+
+    /** Records a point on the startup timeline, e.g. the first rendered frame. */
+    public synchronized void mark(String milestone) {
+        Entry entry = new Entry(milestone, System.nanoTime());
+        entry.startNanos = entry.queuedNanos;
+        entry.endNanos = entry.queuedNanos;
+        entry.milestone = true;
+        entries.add(entry);
+    }
+
+    /** Completes when every asset scheduled so far has finished, successfully or not. */
+    public synchronized CompletableFuture<Void> whenAllLoaded() {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .handle((ignored, failure) -> null);
+    }
+
+    /** Startup timeline in milliseconds, ordered by start time. */
+    public synchronized String report() {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingLong(e -> e.startNanos == 0 ? Long.MAX_VALUE : e.startNanos));
+        StringBuilder sb = new StringBuilder("Startup timeline (ms since launch):\n");
+        sb.append(String.format("  %-22s %8s %8s %8s  %s%n", "asset", "queued", "started", "took", "thread"));
+        for (Entry e : sorted) {
+            if (e.milestone) {
+                sb.append(String.format("  %-22s %8.1f%n", "* " + e.name, millis(e.queuedNanos)));
+            } else if (e.endNanos == 0) {
+                sb.append(String.format("  %-22s %8.1f %8s %8s  %s%n", e.name, millis(e.queuedNanos),
+                        e.startNanos == 0 ? "-" : String.format("%.1f", millis(e.startNanos)), "pending",
+                        e.thread == null ? "-" : e.thread));
+            } else {
+                sb.append(String.format("  %-22s %8.1f %8.1f %8.1f  %s%s%n", e.name, millis(e.queuedNanos),
+                        millis(e.startNanos), (e.endNanos - e.startNanos) / 1e6, e.thread,
+                        e.failure == null ? "" : "  FAILED: " + e.failure));
+            }
+        }
+        return sb.toString();
+    }
+
+    private double millis(long nanos) {
+        return (nanos - originNanos) / 1e6;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static final class Entry {
+        final String name;
+        final long queuedNanos;
+        volatile long startNanos;
+        volatile long endNanos;
+        volatile String thread;
+        volatile String failure;
+        boolean milestone;
+
+        Entry(String name, long queuedNanos) {
+            this.name = name;
+            this.queuedNanos = queuedNanos;
+        }
+    }
+}
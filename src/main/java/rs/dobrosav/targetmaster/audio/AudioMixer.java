@@ -0,0 +1,227 @@
+package rs.dobrosav.targetmaster.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Software mixer feeding one {@link SourceDataLine} from a dedicated high-priority thread.
+ * <p>
+ * Sounds are registered once as decoded {@link PcmSound}s and played by id. A fixed set
+ * of voices is mixed into a reusable buffer one short period at a time, so the line never
+ * holds more than a few milliseconds of audio and new sounds start on the next period.
+ * When every voice is busy, the voice that has played the longest is taken over.
+ * <p>
+ * {@link #play} may be called from any thread. Commands go through a bounded lock-free
+ * queue of preallocated slots, so playing a sound never blocks and never allocates.
+ */
+public final class AudioMixer implements AutoCloseable {
+
+    public static final float SAMPLE_RATE = 44100;
+    public static final int CHANNELS = 2;
+    public static final int DEFAULT_VOICES = 16;
+    /** Frames mixed per write, about 5.8 ms. */
+    public static final int DEFAULT_PERIOD_FRAMES = 256;
+    /** Periods the line may buffer ahead of playback. */
+    private static final int LINE_PERIODS = 4;
+    private static final int QUEUE_SIZE = 64;
+
+    private static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+
+    private final SourceDataLine line;
+    private final Thread thread;
+    private final int periodFrames;
+    private volatile boolean running = true;
+
+    private volatile PcmSound[] sounds = new PcmSound[0];
+
+    // Voices, touched only by the mixer thread
+    private final PcmSound[] voiceSound;
+    private final int[] voicePosition;
+    private final float[] voiceGain;
+
+    // Bounded multi-producer, single-consumer queue (Vyukov): a slot is free for the
+    // producer at sequence == position, and ready for the consumer at position + 1
+    private final AtomicLongArray sequence = new AtomicLongArray(QUEUE_SIZE);
+    private final int[] commandSound = new int[QUEUE_SIZE];
+    private final float[] commandGain = new float[QUEUE_SIZE];
+    private final long[] commandNanos = new long[QUEUE_SIZE];
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    private final AtomicLong droppedCommands = new AtomicLong();
+    private final AtomicLong maxStartLatencyNanos = new AtomicLong();
+    private volatile long lastStartLatencyNanos;
+    private volatile int activeVoices;
+    private volatile long stolenVoices;
+
+    public AudioMixer() throws LineUnavailableException {
+        this(DEFAULT_VOICES, DEFAULT_PERIOD_FRAMES);
+    }
+
+    public AudioMixer(int voices, int periodFrames) throws LineUnavailableException {
+        this.periodFrames = periodFrames;
+        voiceSound = new PcmSound[voices];
+        voicePosition = new int[voices];
+        voiceGain = new float[voices];
+        for (int i = 0; i < QUEUE_SIZE; i++) {
+            sequence.set(i, i);
+        }
+        line = AudioSystem.getSourceDataLine(FORMAT);
+        line.open(FORMAT, periodFrames * FORMAT.getFrameSize() * LINE_PERIODS);
+        line.start();
+        thread = new Thread(this::run, "audio-mixer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    /** Adds a sound and returns the id to play it with. */
+    public synchronized int register(PcmSound sound) {
+        PcmSound[] next = Arrays.copyOf(sounds, sounds.length + 1);
+        next[sounds.length] = sound;
+        sounds = next;
+        return sounds.length - 1;
+    }
+
+    /**
+     * Queues sound {@code id} to start on the next period. Returns {@code false} when the
+     * command queue is full and the request was dropped.
+     */
+    public boolean play(int id, float gain) {
+        long now = System.nanoTime();
+        long pos = tail.get();
+        while (true) {
+            int slot = (int) (pos & (QUEUE_SIZE - 1));
+            long seq = sequence.get(slot);
+            if (seq == pos) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    commandSound[slot] = id;
+                    commandGain[slot] = gain;
+                    commandNanos[slot] = now;
+                    sequence.set(slot, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (seq < pos) {
+                droppedCommands.incrementAndGet();
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    private void run() {
+        int[] mix = new int[periodFrames * CHANNELS];
+        byte[] out = new byte[periodFrames * FORMAT.getFrameSize()];
+        while (running) {
+            drainCommands();
+            Arrays.fill(mix, 0);
+            int active = 0;
+            for (int v = 0; v < voiceSound.length; v++) {
+                PcmSound sound = voiceSound[v];
+                if (sound == null) {
+                    continue;
+                }
+                ShortBuffer samples = sound.samples();
+                int pos = voicePosition[v];
+                int n = Math.min(mix.length, samples.limit() - pos);
+                float gain = voiceGain[v];
+                for (int i = 0; i < n; i++) {
+                    mix[i] += (int) (samples.get(pos + i) * gain);
+                }
+                pos += n;
+                if (pos >= samples.limit()) {
+                    voiceSound[v] = null;
+                } else {
+                    voicePosition[v] = pos;
+                    active++;
+                }
+            }
+            activeVoices = active;
+            for (int i = 0; i < mix.length; i++) {
+                int s = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+                out[2 * i] = (byte) s;
+                out[2 * i + 1] = (byte) (s >> 8);
+            }
+            // Blocks while the line is full, which paces the loop to the playback rate
+            line.write(out, 0, out.length);
+        }
+    }
+
+    private void drainCommands() {
+        while (true) {
+            int slot = (int) (head & (QUEUE_SIZE - 1));
+            if (sequence.get(slot) != head + 1) {
+                return;
+            }
+            int id = commandSound[slot];
+            float gain = commandGain[slot];
+            long submitted = commandNanos[slot];
+            sequence.set(slot, head + QUEUE_SIZE);
+            head++;
+
+            PcmSound[] registered = sounds;
+            if (id < 0 || id >= registered.length) {
+                continue;
+            }
+            startVoice(registered[id], gain);
+            // Time until the first sample is heard: queueing plus audio already in the line
+            int queuedFrames = (line.getBufferSize() - line.available()) / FORMAT.getFrameSize();
+            long latency = System.nanoTime() - submitted
+                    + (long) ((queuedFrames + periodFrames) * 1e9 / SAMPLE_RATE);
+            lastStartLatencyNanos = latency;
+            maxStartLatencyNanos.accumulateAndGet(latency, Math::max);
+        }
+    }
+
+    private void startVoice(PcmSound sound, float gain) {
+        int voice = -1;
+        int oldest = -1;
+        for (int v = 0; v < voiceSound.length; v++) {
+            if (voiceSound[v] == null) {
+                voice = v;
+                break;
+            }
+            if (oldest < 0 || voicePosition[v] > voicePosition[oldest]) {
+                oldest = v;
+            }
+        }
+        if (voice < 0) {
+            voice = oldest;
+            stolenVoices++;
+        }
+        voiceSound[voice] = sound;
+        voicePosition[voice] = 0;
+        voiceGain[voice] = gain;
+    }
+
+    /** Estimated time from {@link #play} to the sound being heard, for the latest sound. */
+    public long getLastStartLatencyNanos() { return lastStartLatencyNanos; }
+
+    /** Largest start latency since the previous call. */
+    public long takeMaxStartLatencyNanos() { return maxStartLatencyNanos.getAndSet(0); }
+
+    public int getActiveVoices() { return activeVoices; }
+    public int getVoiceCount() { return voiceSound.length; }
+    public long getStolenVoices() { return stolenVoices; }
+    public long getDroppedCommands() { return droppedCommands.get(); }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            thread.join(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        line.stop();
+        line.close();
+    }
+}
@@ -0,0 +1,65 @@
+package rs.dobrosav.targetmaster.audio;
+
+import java.nio.ShortBuffer;
+
+/**
+ * A fully decoded sound as interleaved signed 16-bit stereo samples at the mixer rate,
+ * ready to be mixed without any further conversion. The samples live either on the heap
+ * or in a memory-mapped {@link SoundBank}.
+ */
+public final class PcmSound {
+
+    private final String name;
+    private final ShortBuffer samples;
+
+    PcmSound(String name, ShortBuffer samples) {
+        this.name = name;
+        this.samples = samples;
+    }
+
+    /**
+     * Converts interleaved 16-bit samples of any rate and channel count to the mixer
+     * format. Mono is duplicated to both channels; other rates are resampled linearly.
+     */
+    public static PcmSound convert(String name, short[] source, float sampleRate, int channels) {
+        int sourceFrames = source.length / channels;
+        double step = sampleRate / AudioMixer.SAMPLE_RATE;
+        int frames = (int) Math.floor(sourceFrames / step);
+        short[] samples = new short[frames * AudioMixer.CHANNELS];
+        for (int f = 0; f < frames; f++) {
+            double pos = f * step;
+            int i0 = (int) pos;
+            int i1 = Math.min(i0 + 1, sourceFrames - 1);
+            double frac = pos - i0;
+            for (int c = 0; c < AudioMixer.CHANNELS; c++) {
+                int sc = Math.min(c, channels - 1);
+                double s0 = source[i0 * channels + sc];
+                double s1 = source[i1 * channels + sc];
+                samples[f * AudioMixer.CHANNELS + c] = (short) Math.round(s0 + (s1 - s0) * frac);
+            }
+        }
+        return new PcmSound(name, ShortBuffer.wrap(samples));
+    }
+
+    /** Short decaying sine, used for sounds that have no recording. */
+    public static PcmSound tone(String name, double frequency, double seconds, double volume) {
+        int frames = (int) (seconds * AudioMixer.SAMPLE_RATE);
+        short[] samples = new short[frames * AudioMixer.CHANNELS];
+        for (int f = 0; f < frames; f++) {
+            double t = (double) f / AudioMixer.SAMPLE_RATE;
+            double envelope = Math.exp(-6 * t / seconds);
+            short s = (short) Math.round(Math.sin(2 * Math.PI * frequency * t) * envelope * volume * Short.MAX_VALUE);
+            for (int c = 0; c < AudioMixer.CHANNELS; c++) {
+                samples[f * AudioMixer.CHANNELS + c] = s;
+            }
+        }
+        return new PcmSound(name, ShortBuffer.wrap(samples));
+    }
+
+    public String getName() { return name; }
+    public int getFrames() { return samples.limit() / AudioMixer.CHANNELS; }
+    public double getSeconds() { return (double) getFrames() / AudioMixer.SAMPLE_RATE; }
+
+    /** Read with absolute gets only, the buffer is shared between threads. */
+    ShortBuffer samples() { return samples; }
+}
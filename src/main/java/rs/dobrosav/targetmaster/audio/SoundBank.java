@@ -0,0 +1,241 @@
+package rs.dobrosav.targetmaster.audio;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Sound bank holding already decoded 16-bit PCM for all game sounds, so a launch maps one
+ * file instead of decoding MP3s. The bank is generated at build time by {@link #main}
+ * and read through a memory-mapped {@link FileChannel}; sounds are views onto the
+ * mapping and are paged in by the OS as they are first played.
+ * <p>
+ * Layout, header fields big-endian: magic {@code TMSB}, version, sample rate, channels,
+ * sound count and a CRC-32 of everything after the header. Then one index entry per
+ * sound: the UTF-8 name as a short length and bytes, the byte offset of its samples and
+ * its frame count. Samples follow as little-endian shorts in the mixer format, each
+ * sound starting on a four-byte boundary.
+ */
+public final class SoundBank {
+
+    /** Class path location the build writes the bank to. */
+    public static final String RESOURCE = "/sound/sounds.bank";
+
+    private static final int MAGIC = 0x544D5342; // "TMSB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+
+    private final Map<String, PcmSound> sounds;
+
+    private SoundBank(Map<String, PcmSound> sounds) {
+        this.sounds = sounds;
+    }
+
+    /**
+     * Maps the bank in {@code file}, checking its checksum and that every sound lies
+     * within the file.
+     */
+    public static SoundBank open(Path file) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException("Not a sound bank: " + file);
+        }
+        if (data.getInt(8) != (int) AudioMixer.SAMPLE_RATE || data.getInt(12) != AudioMixer.CHANNELS) {
+            throw new IOException("Sound bank " + file + " was built for another mixer format");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data.duplicate().position(HEADER_SIZE));
+        if ((int) crc.getValue() != data.getInt(20)) {
+            throw new IOException("Sound bank " + file + " fails its checksum");
+        }
+        int count = data.getInt(16);
+        if (count < 0) {
+            throw new IOException("Sound bank " + file + " is corrupt");
+        }
+        Map<String, PcmSound> sounds = new LinkedHashMap<>();
+        int capacity = data.capacity();
+        int pos = HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            int nameLength = pos + 2 <= capacity ? data.getShort(pos) : -1;
+            if (nameLength < 0 || (long) pos + 2 + nameLength + 8 > capacity) {
+                throw new IOException("Sound bank " + file + " has a corrupt index");
+            }
+            byte[] name = new byte[nameLength];
+            data.get(pos + 2, name);
+            pos += 2 + name.length;
+            int offset = data.getInt(pos);
+            int frames = data.getInt(pos + 4);
+            pos += 8;
+            String key = new String(name, StandardCharsets.UTF_8);
+            if (offset < 0 || frames < 0 || offset + (long) frames * AudioMixer.CHANNELS * 2 > capacity) {
+                throw new IOException("Sound " + key + " lies outside sound bank " + file);
+            }
+            ShortBuffer samples = data.slice(offset, frames * AudioMixer.CHANNELS * 2)
+                    .order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+            sounds.put(key, new PcmSound(key, samples));
+        }
+        return new SoundBank(Collections.unmodifiableMap(sounds));
+    }
+
+    /**
+     * Opens the bank shipped on the class path, or returns {@code null} when the build did
+     * not generate one. A bank inside a jar is first copied to {@code cacheDir}, since
+     * only real files can be mapped; the copy is reused while its header matches and it
+     * passes its checksum, and written again otherwise.
+     */
+    public static SoundBank openDefault(Path cacheDir) throws IOException {
+        var url = SoundBank.class.getResource(RESOURCE);
+        if (url == null) {
+            return null;
+        }
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return open(Paths.get(url.toURI()));
+            } catch (java.net.URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        Path file = cacheDir.resolve("sounds.bank");
+        byte[] header;
+        try (InputStream in = url.openStream()) {
+            header = in.readNBytes(HEADER_SIZE);
+        }
+        if (Files.isRegularFile(file) && Arrays.equals(header, readHeader(file))) {
+            try {
+                return open(file);
+            } catch (IOException e) {
+                // A damaged copy; replaced below
+            }
+        }
+        Files.createDirectories(cacheDir);
+        Path tmp = Files.createTempFile(cacheDir, "sounds", ".tmp");
+        try {
+            try (InputStream in = url.openStream()) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return open(file);
+    }
+
+    private static byte[] readHeader(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.readNBytes(HEADER_SIZE);
+        }
+    }
+
+    /** The sound stored under the resource name it was built from, or {@code null}. */
+    public PcmSound get(String name) {
+        return sounds.get(name);
+    }
+
+    public Set<String> getNames() {
+        return sounds.keySet();
+    }
+
+    /** Writes {@code sounds} as a bank, keyed by their names. */
+    public static void write(Path file, List<PcmSound> sounds) throws IOException {
+        List<byte[]> names = new ArrayList<>();
+        int indexSize = 0;
+        for (PcmSound sound : sounds) {
+            byte[] name = sound.getName().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            indexSize += 2 + name.length + 8;
+        }
+        int dataStart = align(HEADER_SIZE + indexSize);
+        int[] offsets = new int[sounds.size()];
+        int end = dataStart;
+        for (int i = 0; i < sounds.size(); i++) {
+            offsets[i] = end;
+            end = align(end + sounds.get(i).getFrames() * AudioMixer.CHANNELS * 2);
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(end - HEADER_SIZE);
+        for (int i = 0; i < sounds.size(); i++) {
+            body.putShort((short) names.get(i).length).put(names.get(i));
+            body.putInt(offsets[i]).putInt(sounds.get(i).getFrames());
+        }
+        for (int i = 0; i < sounds.size(); i++) {
+            ShortBuffer samples = sounds.get(i).samples();
+            ByteBuffer out = body.duplicate().position(offsets[i] - HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (int s = 0; s < samples.limit(); s++) {
+                out.putShort(samples.get(s));
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body.array());
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (OutputStream os = Files.newOutputStream(file); DataOutputStream out = new DataOutputStream(os)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt((int) AudioMixer.SAMPLE_RATE);
+            out.writeInt(AudioMixer.CHANNELS);
+            out.writeInt(sounds.size());
+            out.writeInt((int) crc.getValue());
+            out.write(body.array());
+        }
+    }
+
+    private static int align(int offset) {
+        return (offset + 3) & ~3;
+    }
+
+    /**
+     * Build step: decodes every MP3 and WAV file under {@code args[0]} and writes the bank
+     * to {@code args[1]}. Sounds are named {@code args[2]} (default {@code /sound/}) plus
+     * their path relative to the source directory, matching their class path resource.
+     */
+    public static void main(String[] args) throws IOException, UnsupportedAudioFileException {
+        if (args.length < 2) {
+            System.err.println("Usage: SoundBank <source dir> <output file> [resource prefix]");
+            System.exit(2);
+        }
+        Path source = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+        String prefix = args.length > 2 ? args[2] : "/sound/";
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(source)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(p -> p.toString().endsWith(".mp3") || p.toString().endsWith(".wav"))
+                    .sorted()
+                    .toList();
+        }
+        List<PcmSound> sounds = new ArrayList<>();
+        for (Path file : files) {
+            String name = prefix + source.relativize(file).toString().replace('\\', '/');
+            PcmSound sound = Sounds.decode(file.toUri().toURL(), name);
+            sounds.add(sound);
+            System.out.printf("  %-40s %6.2f s%n", name, sound.getSeconds());
+        }
+        write(output, sounds);
+        System.out.println("Wrote " + sounds.size() + " sounds to " + output);
+    }
+}
@@ -0,0 +1,84 @@
+package rs.dobrosav.targetmaster.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Paths;
+
+/**
+ * Loading of the game sounds. Sounds come from the pre-decoded {@link SoundBank} when the
+ * build generated one; otherwise compressed resources such as MP3 are decoded through
+ * mp3spi to signed 16-bit little-endian PCM.
+ */
+public final class Sounds {
+
+    private static SoundBank bank;
+    private static boolean bankOpened;
+
+    private Sounds() {
+    }
+
+    /**
+     * Returns the class path sound {@code name} in the mixer format, from the sound bank
+     * if it contains it, decoded from the resource otherwise.
+     */
+    public static PcmSound load(String name) throws IOException, UnsupportedAudioFileException {
+        SoundBank soundBank = bank();
+        PcmSound sound = soundBank == null ? null : soundBank.get(name);
+        if (sound != null) {
+            return sound;
+        }
+        URL url = Sounds.class.getResource(name);
+        if (url == null) {
+            throw new FileNotFoundException("Sound file not found: " + name);
+        }
+        return decode(url, name);
+    }
+
+    private static synchronized SoundBank bank() {
+        if (!bankOpened) {
+            bankOpened = true;
+            String dir = System.getProperty("targetmaster.cacheDir",
+                    Paths.get(System.getProperty("user.home"), ".targetmaster", "cache").toString());
+            try {
+                bank = SoundBank.openDefault(Paths.get(dir));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Sound bank unavailable, decoding sounds instead: " + e);
+            }
+        }
+        return bank;
+    }
+
+    /** Decodes {@code url} into memory in the mixer format. */
+    public static PcmSound decode(URL url, String name) throws IOException, UnsupportedAudioFileException {
+        try (AudioInputStream pcm = decodeStream(url)) {
+            AudioFormat format = pcm.getFormat();
+            byte[] bytes = pcm.readAllBytes();
+            short[] samples = new short[bytes.length / 2];
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(samples);
+            return PcmSound.convert(name, samples, format.getSampleRate(), format.getChannels());
+        }
+    }
+
+    /** Opens {@code url} as a 16-bit PCM stream. */
+    public static AudioInputStream decodeStream(URL url) throws IOException, UnsupportedAudioFileException {
+        AudioInputStream audioIn = AudioSystem.getAudioInputStream(url);
+        AudioFormat baseFormat = audioIn.getFormat();
+        AudioFormat decodedFormat = new AudioFormat(
+                AudioFormat.Encoding.PCM_SIGNED,
+                baseFormat.getSampleRate(),
+                16,
+                baseFormat.getChannels(),
+                baseFormat.getChannels() * 2,
+                baseFormat.getSampleRate(),
+                false
+        );
+        return AudioSystem.getAudioInputStream(decodedFormat, audioIn);
+    }
+}
@@ -0,0 +1,168 @@
+package rs.dobrosav.targetmaster.batch;
+
+import rs.dobrosav.targetmaster.sim.Aim;
+import rs.dobrosav.targetmaster.sim.Command;
+import rs.dobrosav.targetmaster.sim.Target;
+import rs.dobrosav.targetmaster.sim.TickInput;
+import rs.dobrosav.targetmaster.sim.World;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Scripted player that drives a {@link World} through the same {@link TickInput}s as the
+ * mouse. It engages one target at a time: after picking the target closest to its
+ * crosshair it waits out its reaction time, turns towards it at a limited rate, and fires
+ * once on target and steady. Each shot is aimed at a point off the target center by
+ * normally distributed jitter, and the bot waits for the shot to land before the next one.
+ * Moving targets are led by their velocity over the last tick and the bullet flight time.
+ */
+public final class AimBot {
+
+    private final double reactionMean;
+    private final double reactionDeviation;
+    private final double jitter;
+    private final double turnRate;
+    private final boolean lead;
+    private final Random random;
+
+    private int target = -1;
+    private long engagedTick;
+    private int waitTicks;
+    private boolean shotInFlight;
+    private double jitterPitch;
+    private double jitterYaw;
+    private double lastX;
+    private double lastY;
+    private double lastZ;
+
+    /**
+     * @param reactionMean      mean delay in seconds from picking a target to starting to turn
+     * @param reactionDeviation standard deviation of that delay
+     * @param jitter            standard deviation of the aim error per shot, in degrees
+     * @param turnRate          fastest turn, in degrees per second
+     * @param lead              whether to aim where a moving target will be when the bullet arrives
+     */
+    public AimBot(double reactionMean, double reactionDeviation, double jitter, double turnRate,
+                  boolean lead, Random random) {
+        this.reactionMean = reactionMean;
+        this.reactionDeviation = reactionDeviation;
+        this.jitter = jitter;
+        this.turnRate = turnRate;
+        this.lead = lead;
+        this.random = random;
+    }
+
+    /** Fills {@code out} with the input for the next tick of {@code world}. */
+    public void think(World world, TickInput out) {
+        out.clear();
+        List<Target> targets = world.getTargets();
+        if (shotInFlight) {
+            track(targets);
+            return;
+        }
+        if (target < 0 || !targets.get(target).isUp()) {
+            target = pick(world);
+            if (target < 0) {
+                return;
+            }
+            engagedTick = world.getTick();
+            waitTicks = (int) Math.round(Math.max(0, reactionMean + random.nextGaussian() * reactionDeviation)
+                    * world.getTickRate());
+            aimNextShot();
+            track(targets);
+        }
+        if (waitTicks > 0) {
+            waitTicks--;
+            track(targets);
+            return;
+        }
+
+        Target t = targets.get(target);
+        double x = t.getX();
+        double y = t.getY();
+        double z = t.getZ();
+        if (lead) {
+            double flight = Math.sqrt(x * x + (y - Aim.EYE_Y) * (y - Aim.EYE_Y) + z * z) / World.BULLET_SPEED;
+            double ticks = flight * world.getTickRate();
+            x += (x - lastX) * ticks;
+            y += (y - lastY) * ticks;
+            z += (z - lastZ) * ticks;
+        }
+        track(targets);
+
+        Aim aim = world.getAim();
+        double dPitch = Aim.pitchTo(x, y, z) + jitterPitch - aim.getPitch();
+        double dYaw = Aim.wrap(Aim.yawTo(x, z) + jitterYaw - aim.getYaw());
+        double distance = Math.hypot(dPitch, dYaw);
+        double maxTurn = turnRate / world.getTickRate();
+        if (distance > maxTurn) {
+            out.look(dPitch * maxTurn / distance, dYaw * maxTurn / distance);
+        } else {
+            out.look(dPitch, dYaw);
+            // Waits for the recoil to settle, like a player would
+            if (aim.getEffectivePitch() == aim.getPitch()) {
+                out.command(Command.FIRE);
+                shotInFlight = true;
+            }
+        }
+    }
+
+    private void track(List<Target> targets) {
+        if (target >= 0) {
+            Target t = targets.get(target);
+            lastX = t.getX();
+            lastY = t.getY();
+            lastZ = t.getZ();
+        }
+    }
+
+    /** The shot fired last landed; {@code killed} if it hit the engaged target. */
+    public void shotLanded(boolean killed) {
+        shotInFlight = false;
+        if (killed) {
+            target = -1;
+        } else {
+            aimNextShot();
+        }
+    }
+
+    /** Target {@code index} left its position without being hit by this bot, e.g. it respawned. */
+    public void targetMoved(int index) {
+        if (index == target && !shotInFlight) {
+            target = -1;
+        }
+    }
+
+    /** Index of the target being engaged, or -1. */
+    public int getTarget() { return target; }
+
+    /** Tick on which the current target was picked. */
+    public long getEngagedTick() { return engagedTick; }
+
+    private void aimNextShot() {
+        jitterPitch = random.nextGaussian() * jitter;
+        jitterYaw = random.nextGaussian() * jitter;
+    }
+
+    private int pick(World world) {
+        Aim aim = world.getAim();
+        List<Target> targets = world.getTargets();
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int i = 0; i < targets.size(); i++) {
+            Target t = targets.get(i);
+            if (!t.isUp()) {
+                continue;
+            }
+            double dPitch = Aim.pitchTo(t.getX(), t.getY(), t.getZ()) - aim.getPitch();
+            double dYaw = Aim.wrap(Aim.yawTo(t.getX(), t.getZ()) - aim.getYaw());
+            double distance = dPitch * dPitch + dYaw * dYaw;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,67 @@
+package rs.dobrosav.targetmaster.batch;
+
+import rs.dobrosav.targetmaster.sim.Ring;
+import rs.dobrosav.targetmaster.telemetry.LatencyHistogram;
+
+/**
+ * Totals over any number of {@link Session}s. Each worker thread fills its own instance;
+ * they are {@link #add(BatchStats) added} up at the end. Not thread-safe.
+ */
+public final class BatchStats {
+
+    private static final Ring[] RINGS = Ring.values();
+
+    private long sessions;
+    private long ticks;
+    private double simulatedSeconds;
+    private long shots;
+    private long hits;
+    private long score;
+    private final long[] ringHits = new long[RINGS.length];
+    private final LatencyHistogram timeToKill = new LatencyHistogram();
+
+    void sessionDone(long ticks, double seconds) {
+        sessions++;
+        this.ticks += ticks;
+        simulatedSeconds += seconds;
+    }
+
+    void shot() {
+        shots++;
+    }
+
+    void hit(Ring ring) {
+        hits++;
+        score += ring.getPoints();
+        ringHits[ring.ordinal()]++;
+    }
+
+    void kill(long nanos) {
+        timeToKill.record(nanos);
+    }
+
+    public void add(BatchStats other) {
+        sessions += other.sessions;
+        ticks += other.ticks;
+        simulatedSeconds += other.simulatedSeconds;
+        shots += other.shots;
+        hits += other.hits;
+        score += other.score;
+        for (int i = 0; i < ringHits.length; i++) {
+            ringHits[i] += other.ringHits[i];
+        }
+        timeToKill.add(other.timeToKill);
+    }
+
+    public long getSessions() { return sessions; }
+    public long getTicks() { return ticks; }
+    public double getSimulatedSeconds() { return simulatedSeconds; }
+    public long getShots() { return shots; }
+    public long getHits() { return hits; }
+    public long getScore() { return score; }
+    public long getRingHits(Ring ring) { return ringHits[ring.ordinal()]; }
+    public double getHitRate() { return shots == 0 ? 0 : (double) hits / shots; }
+
+    /** From picking a target to the hit that destroyed it, including reaction time and misses. */
+    public LatencyHistogram getTimeToKill() { return timeToKill; }
+}
@@ -0,0 +1,60 @@
+package rs.dobrosav.targetmaster.batch;
+
+import rs.dobrosav.targetmaster.sim.Bullet;
+import rs.dobrosav.targetmaster.sim.Impact;
+import rs.dobrosav.targetmaster.sim.Target;
+import rs.dobrosav.targetmaster.sim.TickInput;
+import rs.dobrosav.targetmaster.sim.World;
+import rs.dobrosav.targetmaster.sim.WorldListener;
+
+/**
+ * One headless game played by an {@link AimBot} for a fixed number of ticks, with its
+ * shots, hits and kill times added to a {@link BatchStats}.
+ */
+public final class Session implements WorldListener {
+
+    private final World world;
+    private final AimBot bot;
+    private final BatchStats stats;
+    private final TickInput input = new TickInput();
+
+    public Session(World world, AimBot bot, BatchStats stats) {
+        this.world = world;
+        this.bot = bot;
+        this.stats = stats;
+        world.setListener(this);
+    }
+
+    public void run(long ticks) {
+        for (long i = 0; i < ticks; i++) {
+            bot.think(world, input);
+            world.step(input);
+        }
+        stats.sessionDone(world.getTick(), world.getTick() * world.getTimeStep());
+    }
+
+    @Override
+    public void shotFired(Bullet bullet) {
+        stats.shot();
+    }
+
+    @Override
+    public void targetHit(Target target, Impact impact) {
+        stats.hit(impact.getRing());
+        boolean killed = target.getIndex() == bot.getTarget();
+        if (killed) {
+            stats.kill(Math.round((world.getTick() - bot.getEngagedTick()) * world.getTimeStep() * 1e9));
+        }
+        bot.shotLanded(killed);
+    }
+
+    @Override
+    public void targetSpawned(Target target) {
+        bot.targetMoved(target.getIndex());
+    }
+
+    @Override
+    public void bulletMissed(Bullet bullet) {
+        bot.shotLanded(false);
+    }
+}
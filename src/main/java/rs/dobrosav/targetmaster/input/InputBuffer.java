@@ -0,0 +1,124 @@
+package rs.dobrosav.targetmaster.input;
+
+import rs.dobrosav.targetmaster.sim.Command;
+import rs.dobrosav.targetmaster.sim.TickInput;
+import rs.dobrosav.targetmaster.telemetry.FrameTelemetry;
+import rs.dobrosav.targetmaster.telemetry.Phase;
+
+/**
+ * Buffers raw input events with their {@link System#nanoTime()} timestamps between ticks.
+ * Mouse movement is coalesced as it arrives, so however fast the mouse polls, the buffer
+ * only grows with clicks; at the start of a tick everything is folded into one
+ * {@link TickInput}.
+ * <p>
+ * The buffer also measures input latency: the time from each event to the end of the
+ * first pulse that renders its effect. Movement takes effect in the next pulse, which
+ * previews the {@link #getPendingPitch() pending} movement on the camera; a click in the
+ * pulse that runs the tick firing the shot. Presenting the frame on the display adds
+ * a further, unmeasured delay.
+ * <p>
+ * Meant to be used from the FX application thread only.
+ */
+public final class InputBuffer {
+
+    private static final int CAPACITY = 256;
+
+    private final Command[] commands = new Command[CAPACITY];
+    private final long[] commandNanos = new long[CAPACITY];
+    private final double[] pitchBefore = new double[CAPACITY];
+    private final double[] yawBefore = new double[CAPACITY];
+    private int count;
+    private double pitch;
+    private double yaw;
+    private long dropped;
+
+    // nanoTime may be negative, so no timestamp value can mean "no look pending"
+    private boolean hasUnshownLook;
+    private long oldestUnshownLook;
+    private final long[] unshownShots = new long[CAPACITY];
+    private int unshownShotCount;
+
+    public void look(double dPitch, double dYaw, long nanos) {
+        pitch += dPitch;
+        yaw += dYaw;
+        if (!hasUnshownLook) {
+            hasUnshownLook = true;
+            oldestUnshownLook = nanos;
+        }
+    }
+
+    public void fire(long nanos) {
+        command(Command.FIRE, nanos);
+    }
+
+    public void toggleScope(long nanos) {
+        command(Command.TOGGLE_SCOPE, nanos);
+    }
+
+    private void command(Command command, long nanos) {
+        if (count == CAPACITY) {
+            dropped++;
+            return;
+        }
+        commands[count] = command;
+        commandNanos[count] = nanos;
+        pitchBefore[count] = pitch;
+        yawBefore[count] = yaw;
+        count++;
+        pitch = 0;
+        yaw = 0;
+    }
+
+    /** Moves everything buffered so far into {@code out}, which is cleared first. */
+    public void drainInto(TickInput out) {
+        out.clear();
+        for (int i = 0; i < count; i++) {
+            out.look(pitchBefore[i], yawBefore[i]);
+            out.command(commands[i]);
+            if (commands[i] == Command.FIRE && unshownShotCount < unshownShots.length) {
+                unshownShots[unshownShotCount++] = commandNanos[i];
+            }
+        }
+        out.look(pitch, yaw);
+        count = 0;
+        pitch = 0;
+        yaw = 0;
+    }
+
+    /** Aim movement not yet handed to a tick, in degrees; previewed on the camera. */
+    public double getPendingPitch() {
+        double total = pitch;
+        for (int i = 0; i < count; i++) {
+            total += pitchBefore[i];
+        }
+        return total;
+    }
+
+    public double getPendingYaw() {
+        double total = yaw;
+        for (int i = 0; i < count; i++) {
+            total += yawBefore[i];
+        }
+        return total;
+    }
+
+    /**
+     * Called at the end of each pulse, after rendering: records the latency of every
+     * event whose effect this frame is the first to show.
+     */
+    public void frameShown(long nanos, FrameTelemetry telemetry) {
+        if (hasUnshownLook) {
+            telemetry.recordLatency(Phase.LOOK_LATENCY, nanos - oldestUnshownLook);
+            hasUnshownLook = false;
+        }
+        for (int i = 0; i < unshownShotCount; i++) {
+            telemetry.recordLatency(Phase.SHOT_LATENCY, nanos - unshownShots[i]);
+        }
+        unshownShotCount = 0;
+    }
+
+    /** Clicks lost because more than the buffer capacity arrived between two ticks. */
+    public long getDroppedEvents() {
+        return dropped;
+    }
+}
@@ -0,0 +1,258 @@
+package rs.dobrosav.targetmaster.net;
+
+import rs.dobrosav.targetmaster.sim.Ring;
+import rs.dobrosav.targetmaster.sim.TickInput;
+import rs.dobrosav.targetmaster.snapshot.Snapshot;
+import rs.dobrosav.targetmaster.snapshot.SnapshotCodec;
+import rs.dobrosav.targetmaster.snapshot.SnapshotHistory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+/**
+ * Client side of a {@link GameServer} connection. Non-blocking: the game loop calls
+ * {@link #poll()} once per tick to take in everything the server sent, and
+ * {@link #send(TickInput)} with the tick's input. The latest world snapshot is kept for
+ * rendering; shot outcomes go to the {@link Listener}. Every input sent acknowledges the
+ * newest snapshot, which the server then encodes the following ones against, so a
+ * spectator should send empty input each tick to keep snapshots small.
+ * <p>
+ * For testing over loopback, {@link #setSimulatedLatency(long)} holds every message back
+ * for half the given round trip in each direction. Not thread-safe.
+ */
+public final class GameClient implements AutoCloseable {
+
+    public interface Listener {
+
+        /**
+         * The server decided the shot numbered {@code shot}, counting this client's
+         * FIRE commands from 0.
+         *
+         * @param target the target hit, or -1 on a miss
+         * @param ring   the ring hit, {@code null} unless the hit counted
+         * @param late   whether the target had already been destroyed by someone else
+         */
+        void shot(int shot, int target, Ring ring, boolean late, int score);
+    }
+
+    private static final Ring[] RINGS = Ring.values();
+
+    private final SocketChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocateDirect(1 << 20);
+    private final ByteBuffer out = ByteBuffer.allocateDirect(64 * 1024);
+    private final ArrayDeque<Delayed> incoming = new ArrayDeque<>();
+    private final ArrayDeque<Delayed> outgoing = new ArrayDeque<>();
+    private Listener listener = (shot, target, ring, late, score) -> { };
+    private long latencyNanos;
+
+    private int playerId;
+    private int tickRate;
+    private int maxRewindTicks;
+    private int targetCount;
+    private long targetTick = -1;
+    private final SnapshotHistory snapshots = new SnapshotHistory(GameServer.SNAPSHOT_HISTORY);
+    private final SnapshotCodec codec = new SnapshotCodec();
+    private Snapshot snapshot;
+    private int score;
+
+    private GameClient(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    /** Connects, says hello and waits for the server's welcome. */
+    public static GameClient connect(InetSocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        GameClient client = new GameClient(channel);
+        try {
+            int start = Protocol.begin(client.out, Protocol.HELLO);
+            client.out.putInt(Protocol.VERSION);
+            Protocol.end(client.out, start);
+            client.out.flip();
+            while (client.out.hasRemaining()) {
+                channel.write(client.out);
+            }
+            client.out.clear();
+            while (client.tickRate == 0) {
+                if (channel.read(client.in) < 0) {
+                    throw new IOException("Server closed the connection");
+                }
+                client.receive();
+            }
+            channel.configureBlocking(false);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return client;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Delays every message by half of {@code roundTripNanos} in each direction. */
+    public void setSimulatedLatency(long roundTripNanos) {
+        this.latencyNanos = roundTripNanos / 2;
+    }
+
+    /** Takes in everything the server sent so far and sends out delayed messages that are due. */
+    public void poll() throws IOException {
+        if (channel.read(in) < 0) {
+            throw new IOException("Server closed the connection");
+        }
+        receive();
+        long now = System.nanoTime();
+        while (!incoming.isEmpty() && now - incoming.peekFirst().due >= 0) {
+            ByteBuffer frame = ByteBuffer.wrap(incoming.pollFirst().bytes);
+            handle(frame.get(), frame);
+        }
+        while (!outgoing.isEmpty() && now - outgoing.peekFirst().due >= 0) {
+            byte[] bytes = outgoing.pollFirst().bytes;
+            if (out.remaining() < bytes.length) {
+                flush();
+            }
+            out.put(bytes);
+        }
+        flush();
+    }
+
+    /** Sends {@code input}, stamped with the tick of the target state it was based on. */
+    public void send(TickInput input) throws IOException {
+        int size = 4 + 1 + 8 + Protocol.inputSize(input);
+        if (latencyNanos > 0) {
+            ByteBuffer frame = ByteBuffer.allocate(size);
+            int start = Protocol.begin(frame, Protocol.INPUT);
+            frame.putLong(targetTick);
+            Protocol.putInput(frame, input);
+            Protocol.end(frame, start);
+            outgoing.addLast(new Delayed(frame.array(), System.nanoTime() + latencyNanos));
+            return;
+        }
+        if (out.remaining() < size) {
+            flush();
+            if (out.remaining() < size) {
+                throw new IOException("Send buffer full");
+            }
+        }
+        int start = Protocol.begin(out, Protocol.INPUT);
+        out.putLong(targetTick);
+        Protocol.putInput(out, input);
+        Protocol.end(out, start);
+        flush();
+    }
+
+    private void flush() throws IOException {
+        out.flip();
+        channel.write(out);
+        out.compact();
+    }
+
+    private void receive() throws IOException {
+        in.flip();
+        while (in.remaining() >= 4) {
+            int length = in.getInt(in.position());
+            if (length <= 0 || length > in.capacity() - 4) {
+                throw new IOException("Bad frame length " + length);
+            }
+            if (in.remaining() < 4 + length) {
+                break;
+            }
+            in.position(in.position() + 4);
+            if (latencyNanos > 0 && tickRate != 0) {
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                incoming.addLast(new Delayed(bytes, System.nanoTime() + latencyNanos));
+            } else {
+                int end = in.position() + length;
+                handle(in.get(), in);
+                in.position(end);
+            }
+        }
+        in.compact();
+    }
+
+    private void handle(byte type, ByteBuffer buf) throws IOException {
+        switch (type) {
+            case Protocol.WELCOME -> {
+                playerId = buf.getInt();
+                tickRate = buf.getInt();
+                targetCount = buf.getInt();
+                buf.getLong(); // server tick; the first SNAPSHOT sets the view tick
+                maxRewindTicks = buf.getInt();
+            }
+            case Protocol.SNAPSHOT -> {
+                long tick = SnapshotCodec.tick(buf);
+                long baselineTick = codec.baselineTick(buf);
+                Snapshot baseline = snapshots.get(baselineTick);
+                if (baselineTick >= 0 && baseline == null) {
+                    throw new IOException("Snapshot " + tick + " refers to unknown baseline " + baselineTick);
+                }
+                Snapshot decoded = snapshots.slot(tick);
+                try {
+                    codec.decode(buf, baseline, decoded);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Bad snapshot: " + e.getMessage(), e);
+                }
+                if (decoded.getTargetCount() != targetCount) {
+                    throw new IOException("Snapshot has " + decoded.getTargetCount() + " targets, expected "
+                            + targetCount);
+                }
+                snapshot = decoded;
+                targetTick = tick;
+            }
+            case Protocol.SHOT -> {
+                int shot = buf.getInt();
+                byte outcome = buf.get();
+                int target = buf.getInt();
+                int ring = buf.get();
+                score = buf.getInt();
+                listener.shot(shot, target, ring < 0 ? null : RINGS[ring], outcome == Protocol.LATE, score);
+            }
+            case Protocol.PING -> {
+                long serverTime = buf.getLong();
+                if (latencyNanos > 0) {
+                    ByteBuffer frame = ByteBuffer.allocate(13);
+                    int start = Protocol.begin(frame, Protocol.PONG);
+                    frame.putLong(serverTime);
+                    Protocol.end(frame, start);
+                    outgoing.addLast(new Delayed(frame.array(), System.nanoTime() + latencyNanos));
+                } else {
+                    if (out.remaining() < 13) {
+                        flush();
+                    }
+                    int start = Protocol.begin(out, Protocol.PONG);
+                    out.putLong(serverTime);
+                    Protocol.end(out, start);
+                }
+            }
+            default -> throw new IOException("Unknown message type " + type);
+        }
+    }
+
+    public int getPlayerId() { return playerId; }
+    public int getTickRate() { return tickRate; }
+    public int getMaxRewindTicks() { return maxRewindTicks; }
+    /** Server tick of the target state below, -1 before the first one arrived. */
+    public long getTargetTick() { return targetTick; }
+    /** The latest world state, {@code null} before the first one arrived; the target getters read it. */
+    public Snapshot getSnapshot() { return snapshot; }
+    public int getTargetCount() { return targetCount; }
+    public float getTargetX(int i) { return (float) snapshot.getTargetX(i); }
+    public float getTargetY(int i) { return (float) snapshot.getTargetY(i); }
+    public float getTargetZ(int i) { return (float) snapshot.getTargetZ(i); }
+    public boolean isTargetUp(int i) { return snapshot.isTargetUp(i); }
+    /** Score as last confirmed by the server. */
+    public int getScore() { return score; }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private record Delayed(byte[] bytes, long due) { }
+}
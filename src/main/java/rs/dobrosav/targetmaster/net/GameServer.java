@@ -0,0 +1,572 @@
+package rs.dobrosav.targetmaster.net;
+
+import rs.dobrosav.targetmaster.sim.Aim;
+import rs.dobrosav.targetmaster.sim.Impact;
+import rs.dobrosav.targetmaster.sim.LagCompensator;
+import rs.dobrosav.targetmaster.sim.Shooter;
+import rs.dobrosav.targetmaster.sim.Target;
+import rs.dobrosav.targetmaster.sim.TickInput;
+import rs.dobrosav.targetmaster.sim.World;
+import rs.dobrosav.targetmaster.snapshot.Snapshot;
+import rs.dobrosav.targetmaster.snapshot.SnapshotCodec;
+import rs.dobrosav.targetmaster.snapshot.SnapshotHistory;
+import rs.dobrosav.targetmaster.telemetry.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Authoritative range server. It owns the targets and decides every shot: clients only
+ * send their input, and the server turns it into aim and shots of its own, validated by
+ * a {@link LagCompensator} against the targets as each client saw them.
+ * <p>
+ * A single thread runs a non-blocking selector loop and the fixed-rate simulation. Input
+ * arriving between two ticks is folded into one {@link TickInput} per client and applied
+ * at the start of the next tick; after the tick, every client gets a snapshot of the
+ * world and the outcome of its resolved shots. Snapshots are deltas against the newest
+ * one the client acknowledged, so targets that did not move cost nothing; clients with
+ * the same baseline share one encoding. The rewind of a shot is the age of the target
+ * state the client was looking at, capped by the round-trip time the server measures
+ * with pings, so a client cannot claim to have seen older state than its latency allows.
+ * Only pongs answering a ping the server sent count, and the client is taken to have had
+ * every snapshot the server had written to it a round trip before, whatever it reports.
+ */
+public final class GameServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 7777;
+    /** Largest lag compensated, in seconds. */
+    public static final double MAX_REWIND = 0.5;
+
+    private static final int IN_BUFFER_SIZE = 64 * 1024;
+    private static final int OUT_BUFFER_SIZE = 256 * 1024;
+    private static final int MAX_COMMANDS_PER_TICK = 16;
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    /** Weight of a new round-trip sample in the smoothed estimate. */
+    private static final double RTT_SMOOTHING = 0.125;
+    /** Unanswered pings remembered per client; older ones can no longer be answered. */
+    private static final int MAX_PENDING_PINGS = 4;
+    /** Snapshots kept as baselines; clients must keep at least as many. */
+    static final int SNAPSHOT_HISTORY = 64;
+    /** Oldest acknowledged snapshot still used as a baseline, in ticks. */
+    private static final int MAX_BASELINE_AGE = SNAPSHOT_HISTORY / 2;
+
+    private final World world;
+    private final LagCompensator compensator;
+    private final boolean lagCompensation;
+    private final int maxRewindTicks;
+    private final long tickNanos;
+    private final int pingInterval;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final List<Connection> connections = new ArrayList<>();
+    private final Map<Integer, Connection> players = new HashMap<>();
+    private final SnapshotHistory snapshots = new SnapshotHistory(SNAPSHOT_HISTORY);
+    private final SnapshotCodec codec = new SnapshotCodec();
+    /** This tick's encoded SNAPSHOT frames, one per baseline in use. */
+    private ByteBuffer frames = ByteBuffer.allocateDirect(64 * 1024);
+    private final List<ByteBuffer> frameCache = new ArrayList<>();
+    private final List<Snapshot> frameBaselines = new ArrayList<>();
+    private final Outcomes outcomes = new Outcomes();
+    private final LatencyHistogram tickTimes = new LatencyHistogram();
+    private final LatencyHistogram rewinds = new LatencyHistogram();
+    private Thread thread;
+    private volatile boolean running;
+    private int nextPlayerId = 1;
+
+    private volatile long shots;
+    private volatile long hits;
+    private volatile long misses;
+    private volatile long late;
+    private volatile long peakClients;
+    private volatile long busyNanos;
+    private volatile long snapshotBytes;
+
+    /**
+     * @param lagCompensation {@code false} tests every shot against the current targets,
+     *                        as if all clients had no latency
+     */
+    public GameServer(World world, InetSocketAddress address, boolean lagCompensation) throws IOException {
+        this.world = world;
+        this.lagCompensation = lagCompensation;
+        this.maxRewindTicks = (int) Math.ceil(MAX_REWIND * world.getTickRate());
+        this.compensator = new LagCompensator(world, maxRewindTicks);
+        this.tickNanos = 1_000_000_000L / world.getTickRate();
+        this.pingInterval = Math.max(1, world.getTickRate() / 2);
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /** Starts the server thread. */
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "game-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        long nextTick = System.nanoTime() + tickNanos;
+        try {
+            while (running) {
+                long wait = nextTick - System.nanoTime();
+                if (wait > 0) {
+                    selector.select(Math.max(1, wait / 1_000_000));
+                } else {
+                    selector.selectNow();
+                }
+                long busyStart = System.nanoTime();
+                handleKeys();
+                int steps = 0;
+                while (System.nanoTime() - nextTick >= 0) {
+                    if (steps++ == MAX_CATCH_UP_TICKS) {
+                        // Stalled: drop the backlog instead of spiraling
+                        nextTick = System.nanoTime() + tickNanos;
+                        break;
+                    }
+                    long start = System.nanoTime();
+                    tick();
+                    tickTimes.record(System.nanoTime() - start);
+                    nextTick += tickNanos;
+                }
+                busyNanos += System.nanoTime() - busyStart;
+            }
+        } catch (ClosedSelectorException e) {
+            // closed
+        } catch (IOException e) {
+            System.err.println("Game server stopped: " + e);
+        }
+    }
+
+    private void handleKeys() throws IOException {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isReadable() && !connection.read()) {
+                    disconnect(connection);
+                    continue;
+                }
+                if (key.isWritable()) {
+                    connection.flush();
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Dropping player " + connection.playerId + ": " + e);
+                disconnect(connection);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(channel, nextPlayerId++);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            connections.add(connection);
+            players.put(connection.playerId, connection);
+            peakClients = Math.max(peakClients, connections.size());
+        }
+    }
+
+    private void disconnect(Connection connection) {
+        if (connections.remove(connection)) {
+            players.remove(connection.playerId);
+            connection.key.cancel();
+            try {
+                connection.channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void tick() {
+        for (int i = 0; i < connections.size(); i++) {
+            Connection connection = connections.get(i);
+            if (connection.welcomed) {
+                apply(connection);
+            }
+        }
+        world.step();
+        for (int i = 0; i < connections.size(); i++) {
+            connections.get(i).shooter.step();
+        }
+        compensator.record();
+        compensator.step(outcomes);
+
+        long tick = world.getTick();
+        Snapshot snapshot = snapshots.slot(tick);
+        snapshot.capture(world, snapshots.get(tick - 1));
+        frames.clear();
+        frameCache.clear();
+        frameBaselines.clear();
+        boolean ping = world.getTick() % pingInterval == 0;
+        for (int i = connections.size() - 1; i >= 0; i--) {
+            Connection connection = connections.get(i);
+            if (!connection.welcomed) {
+                continue;
+            }
+            try {
+                ByteBuffer frame = snapshotFrame(snapshot, connection.baseline(snapshots));
+                connection.reserve(frame.remaining());
+                connection.out.put(frame.duplicate());
+                connection.queuedTick = tick;
+                snapshotBytes += frame.remaining();
+                if (ping) {
+                    connection.reserve(13);
+                    int start = Protocol.begin(connection.out, Protocol.PING);
+                    connection.out.putLong(connection.ping(System.nanoTime()));
+                    Protocol.end(connection.out, start);
+                }
+                connection.flush();
+            } catch (IOException e) {
+                disconnect(connection);
+            }
+        }
+    }
+
+    private void apply(Connection connection) {
+        TickInput input = connection.pending;
+        Aim aim = connection.shooter.getAim();
+        int rewind = lagCompensation ? connection.rewindTicks() : 0;
+        for (int i = 0; i < input.getCommandCount(); i++) {
+            aim.rotate(input.getPitchBefore(i), input.getYawBefore(i));
+            switch (input.getCommand(i)) {
+                case FIRE -> {
+                    compensator.fire(connection.shooter, rewind, connection.playerId, connection.nextShot++);
+                    rewinds.record(rewind * tickNanos);
+                    shots++;
+                }
+                case TOGGLE_SCOPE -> connection.shooter.toggleScope();
+            }
+        }
+        aim.rotate(input.getPitch(), input.getYaw());
+        input.clear();
+    }
+
+    /** The SNAPSHOT frame of {@code snapshot} against {@code baseline}, encoded once per tick and baseline. */
+    private ByteBuffer snapshotFrame(Snapshot snapshot, Snapshot baseline) {
+        for (int i = 0; i < frameCache.size(); i++) {
+            if (frameBaselines.get(i) == baseline) {
+                return frameCache.get(i);
+            }
+        }
+        int size = 5 + SnapshotCodec.maxSize(snapshot, baseline);
+        if (frames.remaining() < size) {
+            // Frames cached this tick stay valid, they keep the old buffer alive
+            frames = ByteBuffer.allocateDirect(Math.max(frames.capacity() * 2, size));
+        }
+        int start = Protocol.begin(frames, Protocol.SNAPSHOT);
+        codec.encode(snapshot, baseline, frames);
+        Protocol.end(frames, start);
+        ByteBuffer frame = frames.slice(start, frames.position() - start);
+        frameCache.add(frame);
+        frameBaselines.add(baseline);
+        return frame;
+    }
+
+    /** Sends shot outcomes to their shooters; runs inside {@link LagCompensator#step}. */
+    private final class Outcomes implements LagCompensator.Listener {
+
+        @Override
+        public void hit(int shooter, int shot, Target target, Impact impact) {
+            hits++;
+            Connection connection = players.get(shooter);
+            if (connection != null) {
+                connection.score += impact.getRing().getPoints();
+                send(connection, shot, Protocol.HIT, target.getIndex(), impact.getRing().ordinal());
+            }
+        }
+
+        @Override
+        public void missed(int shooter, int shot) {
+            misses++;
+            Connection connection = players.get(shooter);
+            if (connection != null) {
+                send(connection, shot, Protocol.MISS, -1, -1);
+            }
+        }
+
+        @Override
+        public void late(int shooter, int shot, Target target) {
+            late++;
+            Connection connection = players.get(shooter);
+            if (connection != null) {
+                send(connection, shot, Protocol.LATE, target.getIndex(), -1);
+            }
+        }
+
+        private void send(Connection connection, int shot, byte outcome, int target, int ring) {
+            try {
+                connection.reserve(19);
+                ByteBuffer out = connection.out;
+                int start = Protocol.begin(out, Protocol.SHOT);
+                out.putInt(shot);
+                out.put(outcome);
+                out.putInt(target);
+                out.put((byte) ring);
+                out.putInt(connection.score);
+                Protocol.end(out, start);
+            } catch (IOException e) {
+                disconnect(connection);
+            }
+        }
+    }
+
+    private final class Connection {
+
+        final SocketChannel channel;
+        final int playerId;
+        final ByteBuffer in = ByteBuffer.allocateDirect(IN_BUFFER_SIZE);
+        final ByteBuffer out = ByteBuffer.allocateDirect(OUT_BUFFER_SIZE);
+        final Shooter shooter = new Shooter(world.getTickRate());
+        final TickInput pending = new TickInput();
+        SelectionKey key;
+        boolean welcomed;
+        long viewTick;
+        /** Newest snapshot tick the client reported having, -1 before the first. */
+        long ackTick = -1;
+        int nextShot;
+        int score;
+        /** Smoothed round-trip time, 0 until the first pong. */
+        double rttNanos;
+        /** Send times of the unanswered pings, oldest first. */
+        final long[] pings = new long[MAX_PENDING_PINGS];
+        int pingCount;
+        /** Newest snapshot tick put into {@link #out}. */
+        long queuedTick;
+        /** Ring of snapshot ticks fully written to the socket and when, one entry per write. */
+        final long[] writtenTicks = new long[maxRewindTicks + 2];
+        final long[] writtenNanos = new long[maxRewindTicks + 2];
+        int writes;
+
+        Connection(SocketChannel channel, int playerId) {
+            this.channel = channel;
+            this.playerId = playerId;
+        }
+
+        /** Reads and handles all complete frames; returns {@code false} once the client closed. */
+        boolean read() throws IOException {
+            if (channel.read(in) < 0) {
+                return false;
+            }
+            in.flip();
+            while (in.remaining() >= 4) {
+                int length = in.getInt(in.position());
+                if (length <= 0 || length > Protocol.MAX_FRAME - 4 || length > in.capacity() - 4) {
+                    throw new IOException("bad frame length " + length);
+                }
+                if (in.remaining() < 4 + length) {
+                    break;
+                }
+                int end = in.position() + 4 + length;
+                in.position(in.position() + 4);
+                handle(in.get(), end);
+                if (in.position() != end) {
+                    throw new IOException("frame size mismatch");
+                }
+            }
+            in.compact();
+            return true;
+        }
+
+        private void handle(byte type, int end) throws IOException {
+            if (!welcomed && type != Protocol.HELLO) {
+                throw new IOException("expected HELLO, got message type " + type);
+            }
+            switch (type) {
+                case Protocol.HELLO -> {
+                    int version = in.getInt();
+                    if (version != Protocol.VERSION) {
+                        throw new IOException("unsupported protocol version " + version);
+                    }
+                    reserve(29);
+                    int start = Protocol.begin(out, Protocol.WELCOME);
+                    out.putInt(playerId);
+                    out.putInt(world.getTickRate());
+                    out.putInt(world.getTargetCount());
+                    out.putLong(world.getTick());
+                    out.putInt(maxRewindTicks);
+                    Protocol.end(out, start);
+                    welcomed = true;
+                    viewTick = world.getTick();
+                    flush();
+                }
+                case Protocol.INPUT -> {
+                    long seen = in.getLong();
+                    viewTick = Math.min(world.getTick(), Math.max(viewTick, seen));
+                    if (seen > ackTick && seen <= world.getTick()) {
+                        ackTick = seen;
+                    }
+                    Protocol.getInput(in, pending, MAX_COMMANDS_PER_TICK);
+                }
+                case Protocol.PONG -> {
+                    long sent = in.getLong();
+                    if (answered(sent)) {
+                        double sample = Math.max(0, System.nanoTime() - sent);
+                        rttNanos = rttNanos == 0 ? sample : rttNanos + (sample - rttNanos) * RTT_SMOOTHING;
+                    }
+                }
+                default -> throw new IOException("unknown message type " + type);
+            }
+        }
+
+        /** Remembers a ping sent at {@code nanos}, forgetting the oldest if too many are unanswered; returns {@code nanos}. */
+        long ping(long nanos) {
+            if (pingCount == pings.length) {
+                System.arraycopy(pings, 1, pings, 0, --pingCount);
+            }
+            pings[pingCount++] = nanos;
+            return nanos;
+        }
+
+        /**
+         * Whether a pong echoing {@code sent} answers an outstanding ping. Pongs come back
+         * in order, so the pings before it will not be answered any more and are dropped too.
+         */
+        boolean answered(long sent) {
+            for (int i = 0; i < pingCount; i++) {
+                if (pings[i] == sent) {
+                    pingCount -= i + 1;
+                    System.arraycopy(pings, i + 1, pings, 0, pingCount);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Rewind for shots fired now: the age of the state the client saw, capped by its latency.
+         * Whatever view tick it reports, the client had every snapshot written to it a round
+         * trip ago when it fired; one tick older still covers its interpolation.
+         */
+        int rewindTicks() {
+            long view = viewTick;
+            long before = System.nanoTime() - (long) rttNanos;
+            for (int k = 1; k <= Math.min(writes, writtenTicks.length); k++) {
+                int i = Math.floorMod(writes - k, writtenTicks.length);
+                if (before - writtenNanos[i] >= 0) {
+                    view = Math.max(view, writtenTicks[i] - 1);
+                    break;
+                }
+            }
+            int claimed = (int) (world.getTick() - view);
+            int latency = (int) Math.ceil(rttNanos / tickNanos) + 1;
+            return Math.max(0, Math.min(claimed, Math.min(latency, maxRewindTicks)));
+        }
+
+        /** The acknowledged snapshot to encode against, or {@code null} for a key frame. */
+        Snapshot baseline(SnapshotHistory history) {
+            return world.getTick() - ackTick <= MAX_BASELINE_AGE ? history.get(ackTick) : null;
+        }
+
+        void reserve(int bytes) throws IOException {
+            if (out.remaining() < bytes) {
+                flush();
+                if (out.remaining() < bytes) {
+                    throw new IOException("client too slow, send buffer full");
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            if (out.position() == 0 && queuedTick > 0
+                    && (writes == 0 || writtenTicks[Math.floorMod(writes - 1, writtenTicks.length)] != queuedTick)) {
+                int i = Math.floorMod(writes++, writtenTicks.length);
+                writtenTicks[i] = queuedTick;
+                writtenNanos[i] = System.nanoTime();
+            }
+            int ops = out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+            if (key.interestOps() != ops) {
+                key.interestOps(ops);
+            }
+        }
+    }
+
+    public int getClientCount() { return connections.size(); }
+    public long getPeakClients() { return peakClients; }
+    public long getShots() { return shots; }
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getLateHits() { return late; }
+
+    /** Time spent per tick; read it only after {@link #close()}. */
+    public LatencyHistogram getTickTimes() { return tickTimes; }
+
+    /** Lag compensation given to each shot; read it only after {@link #close()}. */
+    public LatencyHistogram getRewinds() { return rewinds; }
+
+    /** Time the server thread spent working rather than waiting in the selector. */
+    public long getBusyNanos() { return busyNanos; }
+
+    /** Bytes of SNAPSHOT frames sent to all clients so far. */
+    public long getSnapshotBytes() { return snapshotBytes; }
+
+    public Thread getThread() { return thread; }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        if (thread != null) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Connection connection : new ArrayList<>(connections)) {
+            disconnect(connection);
+        }
+        serverChannel.close();
+        selector.close();
+    }
+
+    /**
+     * Runs a standalone server until killed.
+     * <pre>
+     * java -cp ... rs.dobrosav.targetmaster.net.GameServer [port] [targets] [waves]
+     * </pre>
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int targets = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        boolean waves = args.length > 2 && Boolean.parseBoolean(args[2]);
+        World world = new World(System.nanoTime(), World.DEFAULT_TICK_RATE, targets, waves);
+        GameServer server = new GameServer(world, new InetSocketAddress(port), true);
+        server.start();
+        System.out.println("Range server on port " + server.getPort() + " with " + targets + " targets");
+        server.getThread().join();
+    }
+}
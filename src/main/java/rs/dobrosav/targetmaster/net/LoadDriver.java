@@ -0,0 +1,121 @@
+package rs.dobrosav.targetmaster.net;
+
+import rs.dobrosav.targetmaster.sim.World;
+import rs.dobrosav.targetmaster.telemetry.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load driver for {@link GameServer} over loopback: starts a server, connects a number of
+ * {@link ScriptedClient}s with a simulated network latency, lets them shoot at the
+ * targets they are sent, and reports what the server decided and what it cost. Running
+ * it with and without lag compensation shows its effect on moving targets.
+ * <pre>
+ * java -cp ... rs.dobrosav.targetmaster.net.LoadDriver [clients] [seconds] [latencyMs] [lagCompensation]
+ * </pre>
+ * Exits with status 1 if any shot outcome was lost between server and client.
+ */
+public final class LoadDriver {
+
+    static final int TARGETS = 20;
+    /** Time left at the end without shooting, on top of the latency, for the last shots to resolve. */
+    private static final long QUIET_NANOS = 1_500_000_000L;
+
+    private LoadDriver() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int clientCount = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 10;
+        long latencyNanos = (args.length > 2 ? Long.parseLong(args[2]) : 100) * 1_000_000;
+        boolean lagCompensation = args.length <= 3 || Boolean.parseBoolean(args[3]);
+
+        GameServer server = startServer(lagCompensation);
+        List<ScriptedClient> bots = new ArrayList<>();
+        long elapsed;
+        try {
+            elapsed = play(server, bots, clientCount, latencyNanos, seconds);
+        } finally {
+            server.close();
+            for (ScriptedClient bot : bots) {
+                bot.client.close();
+            }
+        }
+
+        long fired = 0;
+        long resolved = 0;
+        long hits = 0;
+        for (ScriptedClient bot : bots) {
+            fired += bot.fired;
+            resolved += bot.resolved;
+            hits += bot.hits;
+        }
+        LatencyHistogram ticks = server.getTickTimes();
+        System.out.printf("%d clients for %.0f s, %d ms round trip, lag compensation %s, %d moving targets%n",
+                clientCount, elapsed / 1e9, latencyNanos / 1_000_000, lagCompensation ? "on" : "off", TARGETS);
+        System.out.printf("Server: %d shots, %d hits (%.1f%%), %d too late, %d misses%n",
+                server.getShots(), server.getHits(), server.getHits() * 100.0 / Math.max(1, server.getShots()),
+                server.getLateHits(), server.getMisses());
+        System.out.printf("Clients: %d fired, %d outcomes received, %d hits%n", fired, resolved, hits);
+        System.out.printf("Tick: %d ticks, p50 %.1f us, p99 %.1f us, max %.1f us%n", ticks.getCount(),
+                ticks.percentile(50) / 1e3, ticks.percentile(99) / 1e3, ticks.getMax() / 1e3);
+        LatencyHistogram rewinds = server.getRewinds();
+        System.out.printf("Rewind: p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+                rewinds.percentile(50) / 1e6, rewinds.percentile(99) / 1e6, rewinds.getMax() / 1e6);
+        System.out.printf("Snapshots: %.0f bytes per client and tick, %.1f KB/s per client%n",
+                server.getSnapshotBytes() / (double) Math.max(1, ticks.getCount() * clientCount),
+                server.getSnapshotBytes() / 1024.0 / clientCount / (elapsed / 1e9));
+        double busy = server.getBusyNanos() / (double) elapsed;
+        System.out.printf("Server thread busy %.1f%% of one core, about %.0f clients per core at this load%n",
+                busy * 100, clientCount / Math.max(busy, 1e-9));
+        if (fired != server.getShots() || resolved != server.getHits() + server.getLateHits() + server.getMisses()) {
+            System.out.println("MISMATCH between client and server shot counts");
+            System.exit(1);
+        }
+    }
+
+    /** Starts a server on a free loopback port for a world of {@link #TARGETS} moving targets. */
+    static GameServer startServer(boolean lagCompensation) throws IOException {
+        World world = new World(42L, World.DEFAULT_TICK_RATE, TARGETS, true);
+        GameServer server = new GameServer(world, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                lagCompensation);
+        server.start();
+        return server;
+    }
+
+    /**
+     * Connects {@code clientCount} scripted clients to {@code server}, adding them to
+     * {@code bots}, and plays for {@code seconds} in real time. The clients stop shooting
+     * early enough for every shot to be resolved by the end.
+     *
+     * @return nanoseconds played
+     */
+    static long play(GameServer server, List<ScriptedClient> bots, int clientCount, long latencyNanos,
+                     double seconds) throws IOException {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        for (int i = 0; i < clientCount; i++) {
+            GameClient client = GameClient.connect(address);
+            client.setSimulatedLatency(latencyNanos);
+            bots.add(new ScriptedClient(client, new Random(i)));
+        }
+
+        long tickNanos = 1_000_000_000L / World.DEFAULT_TICK_RATE;
+        long start = System.nanoTime();
+        long end = start + (long) (seconds * 1e9);
+        long next = start;
+        while (next - end < 0) {
+            for (ScriptedClient bot : bots) {
+                bot.tick(next - end < -(latencyNanos + QUIET_NANOS));
+            }
+            next += tickNanos;
+            LockSupport.parkNanos(next - System.nanoTime());
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,173 @@
+package rs.dobrosav.targetmaster.net;
+
+import rs.dobrosav.targetmaster.sim.Command;
+import rs.dobrosav.targetmaster.sim.TickInput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format between {@link GameClient} and {@link GameServer}. Every message is a frame:
+ * an int length of the rest of the frame, a type byte, then the payload; all numbers
+ * big-endian.
+ * <pre>
+ * client to server
+ *   HELLO    int version
+ *   INPUT    long view tick (newest SNAPSHOT tick the client had when sampling the input,
+ *            -1 before the first; also acknowledges that snapshot as a baseline), then the tick input as in replay files: varint (commands &lt;&lt; 1 | trailing
+ *            look flag), per command byte (ordinal | look flag &lt;&lt; 7) and the look before
+ *            it if flagged, the trailing look if flagged; a look is double pitch, double yaw
+ *   PONG     long the PING's server time
+ * server to client
+ *   WELCOME  int player id, int tick rate, int target count, long server tick,
+ *            int max rewind ticks
+ *   SNAPSHOT the world as encoded by {@link rs.dobrosav.targetmaster.snapshot.SnapshotCodec},
+ *            a delta against the newest snapshot the client acknowledged, if still recent
+ *   SHOT     int shot number (the client's FIRE commands count from 0), byte outcome,
+ *            int target or -1, byte ring ordinal or -1, int player score
+ *   PING     long server time in nanoseconds
+ * </pre>
+ */
+final class Protocol {
+
+    static final int VERSION = 3;
+    /** Largest frame accepted, length field included. */
+    static final int MAX_FRAME = 1 << 20;
+
+    static final byte HELLO = 1;
+    static final byte INPUT = 2;
+    static final byte PONG = 3;
+    static final byte WELCOME = 10;
+    static final byte SNAPSHOT = 11;
+    static final byte SHOT = 12;
+    static final byte PING = 13;
+
+    static final byte MISS = 0;
+    static final byte HIT = 1;
+    /** The shot hit a target someone else had already destroyed. */
+    static final byte LATE = 2;
+
+    /**
+     * Largest pitch or yaw change accepted in one look, in degrees. A mouse turns the view
+     * by far less between two samples; anything larger, or not finite, comes from a broken
+     * or cheating client.
+     */
+    static final double MAX_LOOK = 360;
+
+    private static final int LOOK_FLAG = 0x80;
+
+    private Protocol() {
+    }
+
+    /** Starts a frame of {@code type}; returns the position to pass to {@link #end}. */
+    static int begin(ByteBuffer buf, byte type) {
+        int start = buf.position();
+        buf.putInt(0);
+        buf.put(type);
+        return start;
+    }
+
+    static void end(ByteBuffer buf, int start) {
+        buf.putInt(start, buf.position() - start - 4);
+    }
+
+    /** Size of the INPUT payload after the view tick. */
+    static int inputSize(TickInput input) {
+        int size = varintSize(input.getCommandCount() << 1 | 1);
+        for (int i = 0; i < input.getCommandCount(); i++) {
+            size += 1 + (input.getPitchBefore(i) != 0 || input.getYawBefore(i) != 0 ? 16 : 0);
+        }
+        return size + (input.getPitch() != 0 || input.getYaw() != 0 ? 16 : 0);
+    }
+
+    static void putInput(ByteBuffer buf, TickInput input) {
+        int count = input.getCommandCount();
+        boolean trailing = input.getPitch() != 0 || input.getYaw() != 0;
+        putVarint(buf, count << 1 | (trailing ? 1 : 0));
+        for (int i = 0; i < count; i++) {
+            double pitch = input.getPitchBefore(i);
+            double yaw = input.getYawBefore(i);
+            boolean look = pitch != 0 || yaw != 0;
+            buf.put((byte) (input.getCommand(i).ordinal() | (look ? LOOK_FLAG : 0)));
+            if (look) {
+                buf.putDouble(pitch);
+                buf.putDouble(yaw);
+            }
+        }
+        if (trailing) {
+            buf.putDouble(input.getPitch());
+            buf.putDouble(input.getYaw());
+        }
+    }
+
+    /**
+     * Appends the input in {@code buf} to {@code out}, so inputs of several frames fold
+     * into one tick. Commands beyond {@code maxCommands} in {@code out} are dropped.
+     *
+     * @throws IOException on an unknown command or a look that is not finite or larger
+     *                     than {@link #MAX_LOOK}
+     */
+    static void getInput(ByteBuffer buf, TickInput out, int maxCommands) throws IOException {
+        int head = getVarint(buf);
+        int count = head >>> 1;
+        for (int i = 0; i < count; i++) {
+            int command = buf.get() & 0xFF;
+            if ((command & LOOK_FLAG) != 0) {
+                getLook(buf, out);
+            }
+            int ordinal = command & ~LOOK_FLAG;
+            if (ordinal >= Command.VALUES.length) {
+                throw new IOException("unknown command " + ordinal);
+            }
+            if (out.getCommandCount() < maxCommands) {
+                out.command(Command.VALUES[ordinal]);
+            }
+        }
+        if ((head & 1) != 0) {
+            getLook(buf, out);
+        }
+    }
+
+    /** Unsigned, 7 bits per byte, least significant first, the high bit set on all but the last byte. */
+    private static void putVarint(ByteBuffer buf, int value) {
+        while ((value & ~0x7F) != 0) {
+            buf.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buf.put((byte) value);
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int getVarint(ByteBuffer buf) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = buf.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IOException("bad varint");
+    }
+
+    private static void getLook(ByteBuffer buf, TickInput out) throws IOException {
+        double pitch = buf.getDouble();
+        double yaw = buf.getDouble();
+        // Negated so that NaN fails too
+        if (!(Math.abs(pitch) <= MAX_LOOK && Math.abs(yaw) <= MAX_LOOK)) {
+            throw new IOException("bad look " + pitch + ", " + yaw);
+        }
+        out.look(pitch, yaw);
+    }
+}
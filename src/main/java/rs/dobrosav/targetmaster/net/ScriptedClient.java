@@ -0,0 +1,113 @@
+package rs.dobrosav.targetmaster.net;
+
+import rs.dobrosav.targetmaster.sim.Aim;
+import rs.dobrosav.targetmaster.sim.Command;
+import rs.dobrosav.targetmaster.sim.Ring;
+import rs.dobrosav.targetmaster.sim.TargetField;
+import rs.dobrosav.targetmaster.sim.TickInput;
+import rs.dobrosav.targetmaster.sim.World;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Scripted client for {@link LoadDriver} and the loopback tests: picks a target, leads it
+ * by the bullet flight time and fires every so often, once the outcome of its previous
+ * shot is known. Counts the outcomes the server sends back.
+ */
+final class ScriptedClient implements GameClient.Listener {
+
+    /** Minimum ticks between two shots of one client. */
+    private static final int FIRE_INTERVAL = 30;
+    /** Larger moves between two ticks than a target can make mean it respawned. */
+    private static final double MAX_TARGET_STEP = 2 * TargetField.MAX_SPEED / World.DEFAULT_TICK_RATE;
+
+    final GameClient client;
+    final Random random;
+    final TickInput input = new TickInput();
+    double pitch;
+    double yaw;
+    int target = -1;
+    long lastTick = -1;
+    float lastX, lastY, lastZ;
+    double vx, vy, vz;
+    int cooldown;
+    long fired;
+    long resolved;
+    long hits;
+    long late;
+    long misses;
+
+    ScriptedClient(GameClient client, Random random) {
+        this.client = client;
+        this.random = random;
+        this.cooldown = random.nextInt(FIRE_INTERVAL);
+        client.setListener(this);
+    }
+
+    /** @param shoot {@code false} near the end, so every shot fired is resolved before the server stops */
+    void tick(boolean shoot) throws IOException {
+        client.poll();
+        long tick = client.getTargetTick();
+        if (tick < 0) {
+            return;
+        }
+        if (target < 0 || !client.isTargetUp(target)) {
+            target = random.nextInt(client.getTargetCount());
+            lastTick = -1;
+        }
+        float x = client.getTargetX(target);
+        float y = client.getTargetY(target);
+        float z = client.getTargetZ(target);
+        if (lastTick >= 0 && tick != lastTick) {
+            vx = (x - lastX) / (tick - lastTick);
+            vy = (y - lastY) / (tick - lastTick);
+            vz = (z - lastZ) / (tick - lastTick);
+            if (Math.abs(vx) + Math.abs(vy) + Math.abs(vz) > MAX_TARGET_STEP) {
+                // Respawned elsewhere, hit by someone else
+                vx = vy = vz = 0;
+            }
+        } else if (lastTick < 0) {
+            vx = vy = vz = 0;
+        }
+        if (tick != lastTick) {
+            lastTick = tick;
+            lastX = x;
+            lastY = y;
+            lastZ = z;
+        }
+        double flightTicks = Math.sqrt(x * x + (y - Aim.EYE_Y) * (y - Aim.EYE_Y) + z * z)
+                / World.BULLET_SPEED * client.getTickRate();
+        double aimX = x + vx * flightTicks;
+        double aimY = y + vy * flightTicks;
+        double aimZ = z + vz * flightTicks;
+
+        input.clear();
+        double newPitch = Math.max(-Aim.MAX_PITCH, Math.min(Aim.MAX_PITCH, Aim.pitchTo(aimX, aimY, aimZ)));
+        double dYaw = Aim.wrap(Aim.yawTo(aimX, aimZ) - yaw);
+        input.look(newPitch - pitch, dYaw);
+        pitch = newPitch;
+        yaw += dYaw;
+        if (shoot && --cooldown <= 0 && fired == resolved && client.isTargetUp(target)) {
+            input.command(Command.FIRE);
+            fired++;
+            cooldown = FIRE_INTERVAL;
+        }
+        client.send(input);
+    }
+
+    @Override
+    public void shot(int shot, int target, Ring ring, boolean late, int score) {
+        resolved++;
+        if (late) {
+            this.late++;
+        } else if (ring != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        if (target == this.target) {
+            this.target = -1;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package rs.dobrosav.targetmaster.render;
+
+import javafx.scene.Group;
+import javafx.scene.image.ImageView;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import rs.dobrosav.targetmaster.sim.Ring;
+import rs.dobrosav.targetmaster.stats.GroupMoments;
+import rs.dobrosav.targetmaster.stats.ShotAnalytics;
+import rs.dobrosav.targetmaster.telemetry.LatencyHistogram;
+
+/**
+ * On-screen shot analytics: a heatmap of the session's hits and near misses on the target
+ * face with the rings drawn over it, a heatmap of where its misses went across the range,
+ * and the group size, bias and reaction times of the session and of all sessions. The
+ * heatmaps are brought up to date every pulse, which only touches bins that changed; the
+ * text is rebuilt only after new shots.
+ */
+public final class AnalyticsHud {
+
+    private static final double FACE_SIZE = 180;
+    private static final double RANGE_WIDTH = 360;
+    private static final double RANGE_HEIGHT = RANGE_WIDTH * ShotAnalytics.RANGE_PITCH / ShotAnalytics.RANGE_YAW;
+
+    private final ShotAnalytics session;
+    private ShotAnalytics allTime;
+    private final HeatmapImage face;
+    private final HeatmapImage range;
+    private final Group group = new Group();
+    private final Text text = new Text();
+    private final StringBuilder sb = new StringBuilder(256);
+    private long shownShots = -1;
+
+    public AnalyticsHud(ShotAnalytics session, double x, double y) {
+        this.session = session;
+        face = new HeatmapImage(session.getFace());
+        range = new HeatmapImage(session.getRange());
+
+        Rectangle faceBack = new Rectangle(x, y, FACE_SIZE, FACE_SIZE);
+        faceBack.setFill(Color.rgb(0, 0, 0, 0.5));
+        ImageView faceView = view(face, x, y, FACE_SIZE, FACE_SIZE);
+        group.getChildren().addAll(faceBack, faceView);
+        double unit = FACE_SIZE / (2 * ShotAnalytics.FACE_EXTENT);
+        for (Ring ring : Ring.values()) {
+            Circle circle = new Circle(x + FACE_SIZE / 2, y + FACE_SIZE / 2, ring.getRadius() * unit);
+            circle.setFill(null);
+            circle.setStroke(Color.rgb(255, 255, 255, 0.6));
+            group.getChildren().add(circle);
+        }
+
+        double rangeY = y + FACE_SIZE + 10;
+        Rectangle rangeBack = new Rectangle(x, rangeY, RANGE_WIDTH, RANGE_HEIGHT);
+        rangeBack.setFill(Color.rgb(0, 0, 0, 0.5));
+        Line downRange = new Line(x + RANGE_WIDTH / 2, rangeY, x + RANGE_WIDTH / 2, rangeY + RANGE_HEIGHT);
+        Line horizon = new Line(x, rangeY + RANGE_HEIGHT / 2, x + RANGE_WIDTH, rangeY + RANGE_HEIGHT / 2);
+        downRange.setStroke(Color.rgb(255, 255, 255, 0.3));
+        horizon.setStroke(Color.rgb(255, 255, 255, 0.3));
+        group.getChildren().addAll(rangeBack, view(range, x, rangeY, RANGE_WIDTH, RANGE_HEIGHT), downRange, horizon);
+
+        text.setFont(Font.font("Monospaced", 12));
+        text.setFill(Color.WHITE);
+        text.setX(x);
+        text.setY(rangeY + RANGE_HEIGHT + 18);
+        group.getChildren().add(text);
+
+        group.setMouseTransparent(true);
+        group.setVisible(false);
+    }
+
+    private static ImageView view(HeatmapImage heatmap, double x, double y, double width, double height) {
+        ImageView view = new ImageView(heatmap.getImage());
+        view.setX(x);
+        view.setY(y);
+        view.setFitWidth(width);
+        view.setFitHeight(height);
+        view.setSmooth(false);
+        return view;
+    }
+
+    public Group getNode() {
+        return group;
+    }
+
+    /** Adds a line with the totals of all sessions, which must include this one. */
+    public void setAllTime(ShotAnalytics allTime) {
+        this.allTime = allTime;
+        shownShots = -1;
+    }
+
+    public void toggle() {
+        group.setVisible(!group.isVisible());
+    }
+
+    /** Called once per pulse. */
+    public void update() {
+        if (!group.isVisible()) {
+            return;
+        }
+        face.update();
+        range.update();
+        if (session.getShots() != shownShots) {
+            shownShots = session.getShots();
+            text.setText(format());
+        }
+    }
+
+    private String format() {
+        sb.setLength(0);
+        sb.append(String.format("%-9s %7s %5s %6s %-14s %-11s %s%n",
+                "", "shots", "hits", "group", "  axes @deg", "   bias", "reaction p50/p90"));
+        append("session", session);
+        if (allTime != null) {
+            append("all time", allTime);
+        }
+        return sb.toString();
+    }
+
+    private void append(String label, ShotAnalytics analytics) {
+        GroupMoments moments = analytics.getGroup();
+        LatencyHistogram reaction = analytics.getReaction();
+        long shots = analytics.getShots();
+        // Bias is shown with up positive, as a shooter would call it
+        sb.append(String.format("%-9s %7d %4.0f%% %6.1f %5.1fx%-4.1f@%3.0f %+5.1f,%+5.1f %5.2f/%.2f s%n", label,
+                shots, shots == 0 ? 0 : 100.0 * analytics.getHits() / shots,
+                moments.getRadius(), moments.getMajorSigma(), moments.getMinorSigma(), -moments.getMajorAngle(),
+                moments.getMeanX(), -moments.getMeanY(),
+                reaction.percentile(50) / 1e9, reaction.percentile(90) / 1e9));
+    }
+}
@@ -0,0 +1,94 @@
+package rs.dobrosav.targetmaster.render;
+
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import rs.dobrosav.targetmaster.stats.Histogram2D;
+
+/**
+ * A {@link Histogram2D} drawn as an image, one pixel per bin, colored on a log scale from
+ * transparent for empty bins through blue to red for the fullest. Each {@link #update()}
+ * writes only the bins changed since the last one. The color scale is a power of two
+ * above the fullest bin, so the whole image is redrawn only when that bin doubles, and
+ * the cost of keeping the image current does not grow with the number of points.
+ * <p>
+ * Takes over the histogram's list of changed bins, so a histogram can have only one view.
+ * Must be used on the FX application thread.
+ */
+public final class HeatmapImage {
+
+    private static final int LEVELS = 256;
+    private static final int[] RAMP = ramp();
+
+    private final Histogram2D histogram;
+    private final WritableImage image;
+    private final PixelWriter writer;
+    private int scale = 1;
+    private double levelsPerLog;
+
+    public HeatmapImage(Histogram2D histogram) {
+        this.histogram = histogram;
+        image = new WritableImage(histogram.getWidth(), histogram.getHeight());
+        writer = image.getPixelWriter();
+        levelsPerLog = levelsPerLog(scale);
+        redraw();
+    }
+
+    private static int[] ramp() {
+        int[] ramp = new int[LEVELS];
+        for (int i = 1; i < LEVELS; i++) {
+            double level = (double) i / (LEVELS - 1);
+            Color color = Color.hsb(240 * (1 - level), 1, 1, 0.45 + 0.5 * level);
+            ramp[i] = (int) Math.round(color.getOpacity() * 255) << 24
+                    | (int) Math.round(color.getRed() * 255) << 16
+                    | (int) Math.round(color.getGreen() * 255) << 8
+                    | (int) Math.round(color.getBlue() * 255);
+        }
+        return ramp;
+    }
+
+    private static double levelsPerLog(int scale) {
+        return (LEVELS - 1) / Math.log1p(scale);
+    }
+
+    public WritableImage getImage() {
+        return image;
+    }
+
+    /**
+     * Draws the bins changed since the last call.
+     *
+     * @return the number of pixels written
+     */
+    public int update() {
+        int max = histogram.getMax();
+        if (max > scale) {
+            while (scale < max) {
+                scale <<= 1;
+            }
+            levelsPerLog = levelsPerLog(scale);
+            return redraw();
+        }
+        int changed = histogram.getDirtyCount();
+        int width = histogram.getWidth();
+        for (int i = 0; i < changed; i++) {
+            int bin = histogram.getDirty(i);
+            writer.setArgb(bin % width, bin / width, color(histogram.get(bin)));
+        }
+        histogram.clearDirty();
+        return changed;
+    }
+
+    private int redraw() {
+        int width = histogram.getWidth();
+        for (int bin = 0; bin < histogram.getBins(); bin++) {
+            writer.setArgb(bin % width, bin / width, color(histogram.get(bin)));
+        }
+        histogram.clearDirty();
+        return histogram.getBins();
+    }
+
+    private int color(int count) {
+        return count == 0 ? 0 : RAMP[Math.max(1, (int) (Math.log1p(count) * levelsPerLog))];
+    }
+}
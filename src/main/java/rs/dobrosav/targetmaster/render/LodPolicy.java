@@ -0,0 +1,84 @@
+package rs.dobrosav.targetmaster.render;
+
+/**
+ * Chooses levels of detail from the projected screen size of objects. The projection
+ * follows the camera's vertical field of view, so zooming in through the scope raises the
+ * detail of the same far objects. A bias scales every projected size, which trades detail
+ * for speed globally.
+ * <p>
+ * Consumers cache their chosen levels and re-evaluate them all when {@link #getVersion()}
+ * changes, i.e. when the field of view, viewport or bias did.
+ */
+public final class LodPolicy {
+
+    /** Relative margin a size must pass a threshold by before the level changes back. */
+    private static final double HYSTERESIS = 0.15;
+
+    private double viewportHeight;
+    private double fieldOfView;
+    private double bias = 1;
+    private double pixelsPerUnit;
+    private int version;
+
+    public LodPolicy(double viewportHeight, double fieldOfView) {
+        this.viewportHeight = viewportHeight;
+        this.fieldOfView = fieldOfView;
+        update();
+    }
+
+    public void setFieldOfView(double degrees) {
+        if (degrees != fieldOfView) {
+            fieldOfView = degrees;
+            update();
+        }
+    }
+
+    public void setViewportHeight(double height) {
+        if (height != viewportHeight) {
+            viewportHeight = height;
+            update();
+        }
+    }
+
+    /** Multiplier on all projected sizes; below 1 picks coarser levels. */
+    public void setBias(double bias) {
+        if (bias != this.bias) {
+            this.bias = bias;
+            update();
+        }
+    }
+
+    private void update() {
+        pixelsPerUnit = bias * viewportHeight / (2 * Math.tan(Math.toRadians(fieldOfView) / 2));
+        version++;
+    }
+
+    /** Approximate on-screen size in pixels of an object of {@code size} at {@code distance}. */
+    public double pixels(double size, double distance) {
+        return size * pixelsPerUnit / Math.max(distance, 1e-6);
+    }
+
+    /**
+     * Picks a level for an object covering {@code pixels}: level {@code i} is the first
+     * with {@code pixels >= minPixels[i]} ({@code minPixels} descending), and
+     * {@code minPixels.length} when none is. Starting from {@code current} (negative if
+     * none yet), the level only changes once the size is clearly past the threshold.
+     */
+    public int select(double pixels, double[] minPixels, int current) {
+        int level = 0;
+        while (level < minPixels.length && pixels < minPixels[level]) {
+            level++;
+        }
+        if (current < 0 || level == current) {
+            return level;
+        }
+        if (level < current) {
+            return pixels >= minPixels[current - 1] * (1 + HYSTERESIS) ? level : current;
+        }
+        return pixels < minPixels[current] * (1 - HYSTERESIS) ? level : current;
+    }
+
+    public double getFieldOfView() { return fieldOfView; }
+    public double getBias() { return bias; }
+    public int getVersion() { return version; }
+}
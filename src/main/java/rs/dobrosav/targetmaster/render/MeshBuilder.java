@@ -0,0 +1,194 @@
+package rs.dobrosav.targetmaster.render;
+
+import javafx.geometry.Point3D;
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.transform.Transform;
+
+import java.util.Arrays;
+
+/**
+ * Builds {@link TriangleMesh}es for the primitives the game uses. Shapes are generated
+ * with the same orientation and size conventions as the JavaFX {@code Box},
+ * {@code Cylinder} and {@code Sphere} (centered at the origin, axis along Y) and with
+ * counter-clockwise front faces, so they render identically under the default back-face
+ * culling. Several shapes can be merged into one mesh by placing each with
+ * {@link #setTransform}, the same way a node's transforms would place the primitive.
+ * <p>
+ * Unless texture coordinates are added, the meshes carry a single one and are meant for
+ * flat-colored materials.
+ */
+public final class MeshBuilder {
+
+    private float[] points = new float[96];
+    private int pointCount;
+    private int[] faces = new int[192];
+    private int faceCount;
+    private int[] smoothing = new int[32];
+    private Transform transform;
+    private float[] texCoords = new float[8];
+    private int texCoordCount;
+    private int texCoord;
+
+    public static TriangleMesh cylinder(float radius, float height, int divisions) {
+        return new MeshBuilder().addCylinder(radius, height, divisions).build();
+    }
+
+    public static TriangleMesh sphere(float radius, int divisions) {
+        return new MeshBuilder().addSphere(radius, divisions).build();
+    }
+
+    /**
+     * Applies {@code transform} to the points of the shapes added from now on, or none
+     * when {@code null}. It must not mirror, which would turn the faces inside out.
+     */
+    public MeshBuilder setTransform(Transform transform) {
+        this.transform = transform;
+        return this;
+    }
+
+    public MeshBuilder addBox(float width, float height, float depth) {
+        float x = width / 2, y = height / 2, z = depth / 2;
+        // Corner index bits: 1 = +x, 2 = +y, 4 = +z
+        int first = pointCount;
+        for (int i = 0; i < 8; i++) {
+            addPoint((i & 1) != 0 ? x : -x, (i & 2) != 0 ? y : -y, (i & 4) != 0 ? z : -z);
+        }
+        // One smoothing group per side keeps the sides flat-shaded
+        addQuad(first, 1, 3, 7, 5, 1);  // +x
+        addQuad(first, 0, 4, 6, 2, 2);  // -x
+        addQuad(first, 2, 6, 7, 3, 4);  // +y
+        addQuad(first, 0, 1, 5, 4, 8);  // -y
+        addQuad(first, 4, 5, 7, 6, 16); // +z
+        addQuad(first, 0, 2, 3, 1, 32); // -z
+        return this;
+    }
+
+    private void addQuad(int base, int a, int b, int c, int d, int smoothingGroup) {
+        addFace(base + a, base + b, base + c, smoothingGroup);
+        addFace(base + a, base + c, base + d, smoothingGroup);
+    }
+
+    public MeshBuilder addCylinder(float radius, float height, int divisions) {
+        float top = -height / 2;
+        float bottom = height / 2;
+        int topCenter = addPoint(0, top, 0);
+        int bottomCenter = addPoint(0, bottom, 0);
+        int firstRing = pointCount;
+        for (int i = 0; i < divisions; i++) {
+            double angle = 2 * Math.PI * i / divisions;
+            float x = (float) (radius * Math.cos(angle));
+            float z = (float) (radius * Math.sin(angle));
+            addPoint(x, top, z);
+            addPoint(x, bottom, z);
+        }
+        for (int i = 0; i < divisions; i++) {
+            int t0 = firstRing + 2 * i;
+            int b0 = t0 + 1;
+            int t1 = firstRing + 2 * ((i + 1) % divisions);
+            int b1 = t1 + 1;
+            addFace(t0, b0, t1, 1);
+            addFace(t1, b0, b1, 1);
+            addFace(topCenter, t0, t1, 2);
+            addFace(bottomCenter, b1, b0, 4);
+        }
+        return this;
+    }
+
+    public MeshBuilder addSphere(float radius, int divisions) {
+        int stacks = Math.max(2, divisions / 2);
+        int slices = Math.max(3, divisions);
+        int top = addPoint(0, -radius, 0);
+        int bottom = addPoint(0, radius, 0);
+        int firstRing = pointCount;
+        for (int j = 1; j < stacks; j++) {
+            double phi = Math.PI * j / stacks;
+            float y = (float) (-radius * Math.cos(phi));
+            double ring = radius * Math.sin(phi);
+            for (int i = 0; i < slices; i++) {
+                double angle = 2 * Math.PI * i / slices;
+                addPoint((float) (ring * Math.cos(angle)), y, (float) (ring * Math.sin(angle)));
+            }
+        }
+        for (int i = 0; i < slices; i++) {
+            int next = (i + 1) % slices;
+            addFace(top, firstRing + i, firstRing + next, 1);
+            for (int j = 0; j < stacks - 2; j++) {
+                int u0 = firstRing + j * slices + i;
+                int u1 = firstRing + j * slices + next;
+                int l0 = u0 + slices;
+                int l1 = u1 + slices;
+                addFace(u0, l0, u1, 1);
+                addFace(u1, l0, l1, 1);
+            }
+            int lastRing = firstRing + (stacks - 2) * slices;
+            addFace(bottom, lastRing + next, lastRing + i, 1);
+        }
+        return this;
+    }
+
+    /** Adds a texture coordinate; see {@link #setTexCoord}. */
+    public int addTexCoord(float u, float v) {
+        if (texCoordCount * 2 + 2 > texCoords.length) {
+            texCoords = Arrays.copyOf(texCoords, texCoords.length * 2);
+        }
+        texCoords[texCoordCount * 2] = u;
+        texCoords[texCoordCount * 2 + 1] = v;
+        return texCoordCount++;
+    }
+
+    /** Texture coordinate used by all three corners of the faces added from now on. */
+    public MeshBuilder setTexCoord(int index) {
+        this.texCoord = index;
+        return this;
+    }
+
+    public int addPoint(float x, float y, float z) {
+        if (pointCount * 3 + 3 > points.length) {
+            points = Arrays.copyOf(points, points.length * 2);
+        }
+        if (transform != null) {
+            Point3D p = transform.transform(x, y, z);
+            x = (float) p.getX();
+            y = (float) p.getY();
+            z = (float) p.getZ();
+        }
+        points[pointCount * 3] = x;
+        points[pointCount * 3 + 1] = y;
+        points[pointCount * 3 + 2] = z;
+        return pointCount++;
+    }
+
+    /** Adds a triangle; {@code (b - a) x (c - a)} must point out of the surface. */
+    public void addFace(int a, int b, int c, int smoothingGroup) {
+        if (faceCount * 6 + 6 > faces.length) {
+            faces = Arrays.copyOf(faces, faces.length * 2);
+        }
+        if (faceCount + 1 > smoothing.length) {
+            smoothing = Arrays.copyOf(smoothing, smoothing.length * 2);
+        }
+        int f = faceCount * 6;
+        faces[f] = a;
+        faces[f + 1] = texCoord;
+        faces[f + 2] = b;
+        faces[f + 3] = texCoord;
+        faces[f + 4] = c;
+        faces[f + 5] = texCoord;
+        smoothing[faceCount++] = smoothingGroup;
+    }
+
+    public int getPointCount() { return pointCount; }
+    public int getFaceCount() { return faceCount; }
+
+    public TriangleMesh build() {
+        TriangleMesh mesh = new TriangleMesh();
+        mesh.getPoints().setAll(points, 0, pointCount * 3);
+        if (texCoordCount == 0) {
+            mesh.getTexCoords().setAll(0, 0);
+        } else {
+            mesh.getTexCoords().setAll(texCoords, 0, texCoordCount * 2);
+        }
+        mesh.getFaces().setAll(faces, 0, faceCount * 6);
+        mesh.getFaceSmoothingGroups().setAll(smoothing, 0, faceCount);
+        return mesh;
+    }
+}
@@ -0,0 +1,66 @@
+package rs.dobrosav.targetmaster.render;
+
+import javafx.geometry.Point3D;
+import javafx.scene.Group;
+import javafx.scene.shape.MeshView;
+import javafx.scene.transform.Rotate;
+import javafx.scene.transform.Transform;
+import javafx.scene.transform.Translate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Merges the primitives of a static model into one mesh per material. A model described
+ * as dozens of {@code Box} and {@code Cylinder} nodes becomes a handful of
+ * {@link MeshView}s, one draw call each, with nothing to propagate per part when the
+ * model moves. Each part is placed with the transform its node would have had.
+ */
+public final class ModelBaker {
+
+    private final Map<String, MeshBuilder> parts = new LinkedHashMap<>();
+    private int primitiveCount;
+
+    /** Placement of a node translated to {@code (x, y, z)}. */
+    public static Transform at(double x, double y, double z) {
+        return new Translate(x, y, z);
+    }
+
+    /**
+     * Placement of a node translated to {@code (x, y, z)} and rotated by {@code angle}
+     * degrees about {@code axis}, as set through {@code setRotationAxis}/{@code setRotate}.
+     */
+    public static Transform at(double x, double y, double z, double angle, Point3D axis) {
+        return new Translate(x, y, z).createConcatenation(new Rotate(angle, axis));
+    }
+
+    /** Adds a box in the material {@code color}, a web color string. */
+    public ModelBaker box(String color, double width, double height, double depth, Transform placement) {
+        part(color, placement).addBox((float) width, (float) height, (float) depth);
+        return this;
+    }
+
+    public ModelBaker cylinder(String color, double radius, double height, Transform placement) {
+        part(color, placement).addCylinder((float) radius, (float) height, Registry.CYLINDER_DIVISIONS);
+        return this;
+    }
+
+    private MeshBuilder part(String color, Transform placement) {
+        primitiveCount++;
+        return parts.computeIfAbsent(color, c -> new MeshBuilder()).setTransform(placement);
+    }
+
+    public int getPrimitiveCount() { return primitiveCount; }
+    public int getMaterialCount() { return parts.size(); }
+
+    /** Builds one {@link MeshView} per material with the shared material from {@link Registry}. */
+    public Group bake() {
+        Group group = new Group();
+        for (Map.Entry<String, MeshBuilder> part : parts.entrySet()) {
+            MeshView view = new MeshView(part.getValue().build());
+            view.setMaterial(Registry.material(part.getKey()));
+            group.getChildren().add(view);
+        }
+        return group;
+    }
+}
@@ -0,0 +1,83 @@
+package rs.dobrosav.targetmaster.render;
+
+import javafx.animation.FadeTransition;
+import javafx.animation.ParallelTransition;
+import javafx.animation.ScaleTransition;
+import javafx.geometry.Point3D;
+import javafx.scene.Group;
+import javafx.scene.PointLight;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.MeshView;
+import javafx.util.Duration;
+
+/**
+ * Fixed set of pre-built muzzle flashes. Each flash keeps its spheres, light and
+ * transitions for the lifetime of the game and is replayed on every shot. When all
+ * flashes are still animating, the one started longest ago is restarted.
+ */
+public final class MuzzleFlashPool {
+
+    private final Group layer = new Group();
+    private final Flash[] flashes;
+    private int next;
+
+    public MuzzleFlashPool(int size) {
+        flashes = new Flash[size];
+        for (int i = 0; i < size; i++) {
+            flashes[i] = new Flash();
+            layer.getChildren().add(flashes[i].group);
+        }
+    }
+
+    public Group getLayer() {
+        return layer;
+    }
+
+    public void play(Point3D position) {
+        Flash flash = flashes[next];
+        next = (next + 1) % flashes.length;
+        flash.play(position);
+    }
+
+    private static final class Flash {
+        final Group group = new Group();
+        final PointLight light = new PointLight(Color.ORANGE);
+        final ParallelTransition animation;
+
+        Flash() {
+            MeshView core = Registry.view(Registry.sphere(1.5), Color.LIGHTYELLOW);
+            MeshView outer = Registry.view(Registry.sphere(4.0, 16), Color.ORANGERED);
+            light.setMaxRange(150);
+            light.setLightOn(false);
+            group.getChildren().addAll(outer, core, light);
+            group.setVisible(false);
+
+            ScaleTransition st = new ScaleTransition(Duration.millis(50), group);
+            st.setFromX(0.1);
+            st.setFromY(0.1);
+            st.setFromZ(0.1);
+            st.setToX(1.0);
+            st.setToY(1.0);
+            st.setToZ(1.0);
+
+            FadeTransition ft = new FadeTransition(Duration.millis(100), group);
+            ft.setFromValue(1.0);
+            ft.setToValue(0.0);
+
+            animation = new ParallelTransition(st, ft);
+            animation.setOnFinished(e -> {
+                group.setVisible(false);
+                light.setLightOn(false);
+            });
+        }
+
+        void play(Point3D position) {
+            group.setTranslateX(position.getX());
+            group.setTranslateY(position.getY());
+            group.setTranslateZ(position.getZ());
+            group.setVisible(true);
+            light.setLightOn(true);
+            animation.playFromStart();
+        }
+    }
+}
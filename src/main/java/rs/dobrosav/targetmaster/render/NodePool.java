@@ -0,0 +1,68 @@
+package rs.dobrosav.targetmaster.render;
+
+import javafx.scene.Group;
+import javafx.scene.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A layer of interchangeable nodes that mirrors a variable-length list from the simulation.
+ * Nodes are created up front and stay attached to the layer; unused ones are hidden instead
+ * of being removed, so drawing a changing number of objects does not touch the scene graph
+ * structure or allocate once the pool has warmed up.
+ */
+public final class NodePool<T extends Node> {
+
+    private final Group layer = new Group();
+    private final Supplier<T> factory;
+    private final List<T> nodes = new ArrayList<>();
+    private final int capacity;
+    private int active;
+
+    public NodePool(Supplier<T> factory, int prewarm, int capacity) {
+        if (capacity <= 0 || prewarm < 0 || prewarm > capacity) {
+            throw new IllegalArgumentException("Invalid pool size: prewarm=" + prewarm + ", capacity=" + capacity);
+        }
+        this.factory = factory;
+        this.capacity = capacity;
+        grow(prewarm);
+    }
+
+    public Group getLayer() {
+        return layer;
+    }
+
+    /**
+     * Makes the first {@code count} nodes visible and hides the rest. Returns the number of
+     * nodes actually shown, which is capped at the pool capacity.
+     */
+    public int show(int count) {
+        count = Math.min(count, capacity);
+        if (count > nodes.size()) {
+            grow(count - nodes.size());
+        }
+        for (int i = count; i < active; i++) {
+            nodes.get(i).setVisible(false);
+        }
+        for (int i = active; i < count; i++) {
+            nodes.get(i).setVisible(true);
+        }
+        active = count;
+        return count;
+    }
+
+    public T get(int index) {
+        return nodes.get(index);
+    }
+
+    private void grow(int n) {
+        for (int i = 0; i < n; i++) {
+            T node = factory.get();
+            node.setVisible(false);
+            nodes.add(node);
+            layer.getChildren().add(node);
+        }
+    }
+}
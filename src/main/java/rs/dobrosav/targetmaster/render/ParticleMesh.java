@@ -0,0 +1,110 @@
+package rs.dobrosav.targetmaster.render;
+
+import javafx.scene.paint.Color;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+import rs.dobrosav.targetmaster.sim.ParticleSystem;
+
+/**
+ * Draws every live particle of a {@link ParticleSystem} as a camera-facing quad in one
+ * dynamic {@link TriangleMesh}, so any number of particles costs a single node and a
+ * single draw call. The point array is rewritten in place each frame; the face array
+ * only changes when the number of live particles does.
+ */
+public final class ParticleMesh {
+
+    private static final int FLOATS_PER_QUAD = 12;
+    private static final int INTS_PER_QUAD = 12;
+
+    private final TriangleMesh mesh = new TriangleMesh();
+    private final MeshView view = new MeshView(mesh);
+    private final float[] points;
+    private final int[] faces;
+    private final float halfSize;
+    private int quadCount = -1;
+    private double drawFraction = 1;
+
+    public ParticleMesh(int capacity, double size, Color color) {
+        this.halfSize = (float) (size / 2);
+        this.points = new float[capacity * FLOATS_PER_QUAD];
+        this.faces = new int[capacity * INTS_PER_QUAD];
+        for (int q = 0; q < capacity; q++) {
+            int p = q * 4;
+            int f = q * INTS_PER_QUAD;
+            // Corners: 0 top-left, 1 top-right, 2 bottom-right, 3 bottom-left, as seen by the camera
+            faces[f] = p;
+            faces[f + 2] = p + 2;
+            faces[f + 4] = p + 1;
+            faces[f + 6] = p;
+            faces[f + 8] = p + 3;
+            faces[f + 10] = p + 2;
+        }
+        mesh.getTexCoords().setAll(0, 0);
+        mesh.getPoints().setAll(points);
+        view.setMaterial(Registry.material(color));
+        view.setMouseTransparent(true);
+        setQuadCount(0);
+    }
+
+    public MeshView getView() {
+        return view;
+    }
+
+    /**
+     * Draws only this fraction of the live particles, in {@code (0, 1]}. The simulation
+     * keeps all of them, so this only changes what is seen, never the game state.
+     */
+    public void setDrawFraction(double fraction) {
+        this.drawFraction = fraction;
+    }
+
+    /**
+     * Rebuilds the quads from the particle state. {@code yaw} and {@code pitch} are the
+     * camera angles in degrees, used to orient the quads towards the viewer.
+     */
+    public void update(ParticleSystem particles, double alpha, double yaw, double pitch) {
+        double yawRad = Math.toRadians(yaw);
+        double pitchRad = Math.toRadians(pitch);
+        float sinYaw = (float) Math.sin(yawRad);
+        float cosYaw = (float) Math.cos(yawRad);
+        float sinPitch = (float) Math.sin(pitchRad);
+        float cosPitch = (float) Math.cos(pitchRad);
+        // Camera right and down axes in scene space, scaled to half the quad size
+        float rx = cosYaw * halfSize, ry = 0, rz = -sinYaw * halfSize;
+        float dx = sinPitch * sinYaw * halfSize, dy = cosPitch * halfSize, dz = sinPitch * cosYaw * halfSize;
+
+        int count = Math.min((int) Math.ceil(particles.size() * drawFraction), points.length / FLOATS_PER_QUAD);
+        float a = (float) alpha;
+        for (int i = 0; i < count; i++) {
+            float cx = particles.getX(i, a);
+            float cy = particles.getY(i, a);
+            float cz = particles.getZ(i, a);
+            int o = i * FLOATS_PER_QUAD;
+            points[o] = cx - rx - dx;
+            points[o + 1] = cy - ry - dy;
+            points[o + 2] = cz - rz - dz;
+            points[o + 3] = cx + rx - dx;
+            points[o + 4] = cy + ry - dy;
+            points[o + 5] = cz + rz - dz;
+            points[o + 6] = cx + rx + dx;
+            points[o + 7] = cy + ry + dy;
+            points[o + 8] = cz + rz + dz;
+            points[o + 9] = cx - rx + dx;
+            points[o + 10] = cy - ry + dy;
+            points[o + 11] = cz - rz + dz;
+        }
+        if (count > 0) {
+            mesh.getPoints().set(0, points, 0, count * FLOATS_PER_QUAD);
+        }
+        setQuadCount(count);
+    }
+
+    private void setQuadCount(int count) {
+        if (count == quadCount) {
+            return;
+        }
+        quadCount = count;
+        mesh.getFaces().setAll(faces, 0, count * INTS_PER_QUAD);
+        view.setVisible(count > 0);
+    }
+}
@@ -0,0 +1,18 @@
+package rs.dobrosav.targetmaster.render;
+
+/**
+ * A step of the {@link QualityController}: the level it left, the level it chose, and
+ * the 90th percentile frame time of the window that triggered it against the budget.
+ */
+public record QualityChange(QualityLevel from, QualityLevel to, long frameTimeNanos, long budgetNanos) {
+
+    public boolean isDowngrade() {
+        return to.ordinal() > from.ordinal();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Quality %s -> %s (p90 frame %.1f ms, budget %.1f ms)",
+                from, to, frameTimeNanos / 1e6, budgetNanos / 1e6);
+    }
+}
@@ -0,0 +1,147 @@
+package rs.dobrosav.targetmaster.render;
+
+import rs.dobrosav.targetmaster.telemetry.LatencyHistogram;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Adapts the {@link QualityLevel} to the frame rate the machine sustains. Frame times are
+ * collected in half-second windows; the 90th percentile of each window is compared with
+ * the frame budget.
+ * <p>
+ * Quality drops one step after two consecutive windows over budget by more than 20%, and
+ * rises one step after a longer run of windows within budget. An upgrade that is undone
+ * soon after doubles the run required for the next one, so a machine sitting at the
+ * boundary does not oscillate. The window after a change is ignored while it settles.
+ * <p>
+ * Every change is delivered to the listeners and recorded as a JDK Flight Recorder event
+ * ({@code rs.dobrosav.targetmaster.QualityChange}). Meant to be used from the FX thread.
+ */
+public final class QualityController {
+
+    private static final long WINDOW_NANOS = 500_000_000L;
+    private static final double DOWNGRADE_RATIO = 1.2;
+    private static final double UPGRADE_RATIO = 1.05;
+    private static final int DOWNGRADE_WINDOWS = 2;
+    private static final int UPGRADE_WINDOWS = 10;
+    private static final int MAX_UPGRADE_WINDOWS = 240;
+    /** An upgrade reverted within this many windows counts as failed. */
+    private static final int FAILED_UPGRADE_WINDOWS = 6;
+
+    private final long budgetNanos;
+    private final LatencyHistogram frames = new LatencyHistogram();
+    private final List<Consumer<QualityChange>> listeners = new CopyOnWriteArrayList<>();
+    private QualityLevel level;
+    private boolean enabled = true;
+
+    // Pulse times come from nanoTime and may be negative, so they cannot mark "not started"
+    private boolean started;
+    private long lastPulse;
+    private long windowStart;
+    private int overBudget;
+    private int withinBudget;
+    private int upgradeWindows = UPGRADE_WINDOWS;
+    private int windowsSinceChange;
+    private boolean lastChangeWasUpgrade;
+    private boolean settling;
+
+    public QualityController(double targetFps, QualityLevel initial) {
+        this.budgetNanos = Math.round(1e9 / targetFps);
+        this.level = initial;
+    }
+
+    public void addListener(Consumer<QualityChange> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<QualityChange> listener) {
+        listeners.remove(listener);
+    }
+
+    /** Called once per pulse with the pulse timestamp. */
+    public void recordFrame(long pulseNanos) {
+        if (!started) {
+            started = true;
+            lastPulse = pulseNanos;
+            windowStart = pulseNanos;
+            return;
+        }
+        frames.record(pulseNanos - lastPulse);
+        lastPulse = pulseNanos;
+        if (pulseNanos - windowStart < WINDOW_NANOS) {
+            return;
+        }
+        windowStart = pulseNanos;
+        long p90 = frames.percentile(90);
+        frames.reset();
+        windowsSinceChange++;
+        if (settling) {
+            settling = false;
+            return;
+        }
+        if (!enabled) {
+            return;
+        }
+        evaluate(p90);
+    }
+
+    private void evaluate(long p90) {
+        if (p90 > budgetNanos * DOWNGRADE_RATIO) {
+            withinBudget = 0;
+            if (++overBudget >= DOWNGRADE_WINDOWS && level != level.lower()) {
+                if (lastChangeWasUpgrade && windowsSinceChange <= FAILED_UPGRADE_WINDOWS) {
+                    upgradeWindows = Math.min(upgradeWindows * 2, MAX_UPGRADE_WINDOWS);
+                }
+                change(level.lower(), p90);
+            }
+        } else if (p90 <= budgetNanos * UPGRADE_RATIO) {
+            overBudget = 0;
+            if (++withinBudget >= upgradeWindows && level != level.higher()) {
+                change(level.higher(), p90);
+            }
+        } else {
+            overBudget = 0;
+            withinBudget = 0;
+        }
+    }
+
+    private void change(QualityLevel next, long p90) {
+        QualityChange change = new QualityChange(level, next, p90, budgetNanos);
+        lastChangeWasUpgrade = !change.isDowngrade();
+        level = next;
+        overBudget = 0;
+        withinBudget = 0;
+        windowsSinceChange = 0;
+        settling = true;
+
+        QualityEvent event = new QualityEvent();
+        if (event.shouldCommit()) {
+            event.from = change.from().name();
+            event.to = change.to().name();
+            event.frameTime = p90;
+            event.budget = budgetNanos;
+            event.commit();
+        }
+        for (Consumer<QualityChange> listener : listeners) {
+            listener.accept(change);
+        }
+    }
+
+    /** Switches to {@code level} directly, e.g. from a settings menu, notifying listeners. */
+    public void setLevel(QualityLevel level) {
+        if (level != this.level) {
+            change(level, 0);
+        }
+    }
+
+    /** When disabled, frame times are still measured but the level is left alone. */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public QualityLevel getLevel() { return level; }
+    public long getBudgetNanos() { return budgetNanos; }
+    public boolean isEnabled() { return enabled; }
+}
@@ -0,0 +1,32 @@
+package rs.dobrosav.targetmaster.render;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("rs.dobrosav.targetmaster.QualityChange")
+@Label("Quality Change")
+@Description("The adaptive quality controller switched the rendering quality level")
+@Category("TargetMaster")
+@StackTrace(false)
+final class QualityEvent extends Event {
+
+    @Label("From")
+    String from;
+
+    @Label("To")
+    String to;
+
+    @Label("Frame Time")
+    @Description("90th percentile frame time of the triggering window")
+    @Timespan(Timespan.NANOSECONDS)
+    long frameTime;
+
+    @Label("Budget")
+    @Timespan(Timespan.NANOSECONDS)
+    long budget;
+}
@@ -0,0 +1,38 @@
+package rs.dobrosav.targetmaster.render;
+
+/**
+ * Rendering quality steps used by the {@link QualityController}, from the full-quality
+ * default down to the cheapest setting. Each step scales the 3D render resolution, turns
+ * antialiasing on or off, thins out drawn particles and biases the level of detail.
+ */
+public enum QualityLevel {
+    HIGH(1.0, true, 1.0, 1.0),
+    MEDIUM(0.85, true, 0.6, 0.8),
+    LOW(0.7, false, 0.35, 0.6),
+    MINIMUM(0.5, false, 0.15, 0.4);
+
+    static final QualityLevel[] VALUES = values();
+
+    private final double renderScale;
+    private final boolean antialiased;
+    private final double particleFraction;
+    private final double lodBias;
+
+    QualityLevel(double renderScale, boolean antialiased, double particleFraction, double lodBias) {
+        this.renderScale = renderScale;
+        this.antialiased = antialiased;
+        this.particleFraction = particleFraction;
+        this.lodBias = lodBias;
+    }
+
+    /** Fraction of the window resolution the 3D scene is rendered at before scaling up. */
+    public double getRenderScale() { return renderScale; }
+    public boolean isAntialiased() { return antialiased; }
+    /** Fraction of the live particles that are drawn. */
+    public double getParticleFraction() { return particleFraction; }
+    /** {@link LodPolicy#setBias LOD bias}. */
+    public double getLodBias() { return lodBias; }
+
+    QualityLevel lower() { return VALUES[Math.min(ordinal() + 1, VALUES.length - 1)]; }
+    QualityLevel higher() { return VALUES[Math.max(ordinal() - 1, 0)]; }
+}
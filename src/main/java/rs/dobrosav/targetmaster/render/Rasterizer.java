@@ -0,0 +1,42 @@
+package rs.dobrosav.targetmaster.render;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Scale;
+
+/**
+ * Renders static 2D node trees into a bitmap once, so that drawing them afterwards, and
+ * scaling or moving them, costs a single textured quad instead of re-rendering every
+ * path. Must be called on the FX application thread.
+ */
+public final class Rasterizer {
+
+    private Rasterizer() {
+    }
+
+    /**
+     * Rasterizes the area {@code [0, width] x [0, height]} of {@code node} at
+     * {@code outputScale} device pixels per unit and returns it as an image view of size
+     * {@code width x height} placed at the origin. Transparent areas stay transparent.
+     */
+    public static ImageView rasterize(Node node, double width, double height, double outputScale) {
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        params.setTransform(new Scale(outputScale, outputScale));
+        params.setViewport(new Rectangle2D(0, 0, width * outputScale, height * outputScale));
+        WritableImage image = new WritableImage((int) Math.ceil(width * outputScale),
+                (int) Math.ceil(height * outputScale));
+        node.snapshot(params, image);
+
+        ImageView view = new ImageView(image);
+        view.setFitWidth(width);
+        view.setFitHeight(height);
+        view.setSmooth(true);
+        view.setMouseTransparent(true);
+        return view;
+    }
+}
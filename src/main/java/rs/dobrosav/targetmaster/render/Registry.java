@@ -0,0 +1,69 @@
+package rs.dobrosav.targetmaster.render;
+
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Central cache of materials and meshes shared by all nodes in the scene. Each distinct
+ * color or geometry is created and uploaded once; nodes reference the shared instance.
+ * <p>
+ * Returned objects are shared and must be treated as immutable: never change a material's
+ * color or a mesh's arrays in place.
+ */
+public final class Registry {
+
+    public static final int CYLINDER_DIVISIONS = 64;
+    public static final int SPHERE_DIVISIONS = 12;
+
+    private static final Map<Color, PhongMaterial> MATERIALS = new ConcurrentHashMap<>();
+    private static final Map<MeshKey, TriangleMesh> MESHES = new ConcurrentHashMap<>();
+
+    private Registry() {
+    }
+
+    public static PhongMaterial material(Color color) {
+        return MATERIALS.computeIfAbsent(color, PhongMaterial::new);
+    }
+
+    public static PhongMaterial material(String webColor) {
+        return material(Color.web(webColor));
+    }
+
+    public static TriangleMesh cylinder(double radius, double height) {
+        return cylinder(radius, height, CYLINDER_DIVISIONS);
+    }
+
+    public static TriangleMesh cylinder(double radius, double height, int divisions) {
+        return MESHES.computeIfAbsent(new MeshKey(MeshKey.CYLINDER, radius, height, divisions),
+                k -> MeshBuilder.cylinder((float) radius, (float) height, divisions));
+    }
+
+    public static TriangleMesh sphere(double radius) {
+        return sphere(radius, SPHERE_DIVISIONS);
+    }
+
+    public static TriangleMesh sphere(double radius, int divisions) {
+        return MESHES.computeIfAbsent(new MeshKey(MeshKey.SPHERE, radius, 0, divisions),
+                k -> MeshBuilder.sphere((float) radius, divisions));
+    }
+
+    /** Creates a node that draws a shared mesh with a shared material. */
+    public static MeshView view(TriangleMesh mesh, Color color) {
+        MeshView view = new MeshView(mesh);
+        view.setMaterial(material(color));
+        return view;
+    }
+
+    public static int materialCount() { return MATERIALS.size(); }
+    public static int meshCount() { return MESHES.size(); }
+
+    private record MeshKey(int type, double a, double b, int divisions) {
+        static final int CYLINDER = 0;
+        static final int SPHERE = 1;
+    }
+}
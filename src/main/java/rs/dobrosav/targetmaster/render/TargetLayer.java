@@ -0,0 +1,212 @@
+package rs.dobrosav.targetmaster.render;
+
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.transform.Rotate;
+import rs.dobrosav.targetmaster.sim.Target;
+import rs.dobrosav.targetmaster.sim.TargetField;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scene nodes for the targets, with distance- and zoom-dependent level of detail. Near
+ * targets are drawn as three stacked ring cylinders whose tessellation drops with their
+ * projected size; far ones switch to a flat impostor, a single 16-sided disc carrying all
+ * three ring colors in one mesh and one draw call. Meshes are shared through the
+ * {@link Registry}, so a level change only swaps mesh references.
+ * <p>
+ * Levels are re-evaluated for targets that moved, and for all targets when the
+ * {@link LodPolicy} changes, e.g. on zooming through the scope.
+ */
+public final class TargetLayer {
+
+    /** Ring tessellation per level; the level after the last is the impostor. */
+    private static final int[] RING_DIVISIONS = {64, 32, 16};
+    /** Projected target diameter in pixels from which each level is used. */
+    private static final double[] MIN_PIXELS = {200, 80, 35};
+    private static final int IMPOSTOR = RING_DIVISIONS.length;
+    private static final int IMPOSTOR_DIVISIONS = 16;
+
+    private final LodPolicy lod;
+    private final Group layer = new Group();
+    private final List<TargetNode> nodes = new ArrayList<>();
+    private final int[] levelCounts = new int[IMPOSTOR + 1];
+    private final PhongMaterial impostorMaterial = new PhongMaterial();
+    private final TriangleMesh impostorMesh = impostorMesh();
+    private int lodVersion;
+
+    public TargetLayer(LodPolicy lod) {
+        this.lod = lod;
+        this.lodVersion = lod.getVersion();
+        impostorMaterial.setDiffuseMap(Textures.palette(Color.WHITE, Color.BLUE, Color.RED));
+    }
+
+    /** Builds the shared ring meshes of every level ahead of time; safe off the FX thread. */
+    public static void prepareMeshes() {
+        for (int divisions : RING_DIVISIONS) {
+            ringMesh(0, divisions);
+            ringMesh(1, divisions);
+            ringMesh(2, divisions);
+        }
+    }
+
+    public Group getLayer() {
+        return layer;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /** Number of targets currently drawn at {@code level}; the last level is the impostor. */
+    public int getLevelCount(int level) {
+        return levelCounts[level];
+    }
+
+    public int getLevelCount() {
+        return levelCounts.length;
+    }
+
+    /** Adds the node for {@code target}, which must be the next index. */
+    public void add(Target target, double eyeX, double eyeY, double eyeZ) {
+        TargetNode node = new TargetNode();
+        nodes.add(node);
+        layer.getChildren().add(node.root);
+        place(target, node, eyeX, eyeY, eyeZ);
+    }
+
+    /**
+     * Pushes the targets listed dirty in {@code field} to their nodes, and re-evaluates
+     * every level when the LOD policy changed. Does not clear the dirty list.
+     */
+    public void sync(List<Target> targets, TargetField field, double eyeX, double eyeY, double eyeZ) {
+        if (lodVersion != lod.getVersion()) {
+            lodVersion = lod.getVersion();
+            for (int i = 0; i < nodes.size(); i++) {
+                Target target = targets.get(i);
+                updateLevel(nodes.get(i), distance(target, eyeX, eyeY, eyeZ));
+            }
+        }
+        for (int k = 0; k < field.getDirtyCount(); k++) {
+            int index = field.getDirty(k);
+            place(targets.get(index), nodes.get(index), eyeX, eyeY, eyeZ);
+        }
+    }
+
+    private void place(Target target, TargetNode node, double eyeX, double eyeY, double eyeZ) {
+        node.root.setTranslateX(target.getX());
+        node.root.setTranslateY(target.getY());
+        node.root.setTranslateZ(target.getZ());
+        node.root.setVisible(target.isUp());
+        updateLevel(node, distance(target, eyeX, eyeY, eyeZ));
+    }
+
+    private static double distance(Target target, double eyeX, double eyeY, double eyeZ) {
+        double dx = target.getX() - eyeX;
+        double dy = target.getY() - eyeY;
+        double dz = target.getZ() - eyeZ;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    private void updateLevel(TargetNode node, double distance) {
+        int level = lod.select(lod.pixels(2 * Target.OUTER_RADIUS, distance), MIN_PIXELS, node.level);
+        if (level == node.level) {
+            return;
+        }
+        if (node.level >= 0) {
+            levelCounts[node.level]--;
+        }
+        levelCounts[level]++;
+        node.level = level;
+        if (level == IMPOSTOR) {
+            node.showImpostor();
+        } else {
+            node.showRings(RING_DIVISIONS[level]);
+        }
+    }
+
+    private static TriangleMesh ringMesh(int ring, int divisions) {
+        return switch (ring) {
+            case 0 -> Registry.cylinder(Target.OUTER_RADIUS, Target.THICKNESS, divisions);
+            case 1 -> Registry.cylinder(Target.MIDDLE_RADIUS, Target.THICKNESS + 0.1, divisions);
+            default -> Registry.cylinder(Target.INNER_RADIUS, Target.THICKNESS + 0.2, divisions);
+        };
+    }
+
+    /** Flat disc in the XY plane facing the shooter (+Z), textured from the ring palette. */
+    private static TriangleMesh impostorMesh() {
+        MeshBuilder mb = new MeshBuilder();
+        int white = mb.addTexCoord(0.5f / 3, 0.5f);
+        int blue = mb.addTexCoord(1.5f / 3, 0.5f);
+        int red = mb.addTexCoord(2.5f / 3, 0.5f);
+        float[] radii = {(float) Target.INNER_RADIUS, (float) Target.MIDDLE_RADIUS, (float) Target.OUTER_RADIUS};
+        int center = mb.addPoint(0, 0, 0);
+        int[] rings = new int[radii.length];
+        for (int r = 0; r < radii.length; r++) {
+            rings[r] = mb.getPointCount();
+            for (int i = 0; i < IMPOSTOR_DIVISIONS; i++) {
+                double angle = 2 * Math.PI * i / IMPOSTOR_DIVISIONS;
+                mb.addPoint((float) (radii[r] * Math.cos(angle)), (float) (radii[r] * Math.sin(angle)), 0);
+            }
+        }
+        for (int i = 0; i < IMPOSTOR_DIVISIONS; i++) {
+            int next = (i + 1) % IMPOSTOR_DIVISIONS;
+            mb.setTexCoord(red);
+            mb.addFace(center, rings[0] + i, rings[0] + next, 1);
+            for (int r = 1; r < radii.length; r++) {
+                mb.setTexCoord(r == 1 ? blue : white);
+                int i0 = rings[r - 1] + i, n0 = rings[r - 1] + next;
+                int i1 = rings[r] + i, n1 = rings[r] + next;
+                mb.addFace(i0, i1, n1, 1);
+                mb.addFace(i0, n1, n0, 1);
+            }
+        }
+        return mb.build();
+    }
+
+    private final class TargetNode {
+        final Group root = new Group();
+        Group rings;
+        MeshView[] ringViews;
+        MeshView impostor;
+        int level = -1;
+
+        void showRings(int divisions) {
+            if (rings == null) {
+                rings = new Group();
+                ringViews = new MeshView[] {
+                        Registry.view(ringMesh(0, divisions), Color.WHITE),
+                        Registry.view(ringMesh(1, divisions), Color.BLUE),
+                        Registry.view(ringMesh(2, divisions), Color.RED)};
+                rings.getChildren().addAll(ringViews);
+                rings.setRotationAxis(Rotate.X_AXIS);
+                rings.setRotate(90);
+                root.getChildren().add(rings);
+            } else {
+                for (int r = 0; r < ringViews.length; r++) {
+                    ringViews[r].setMesh(ringMesh(r, divisions));
+                }
+            }
+            rings.setVisible(true);
+            if (impostor != null) {
+                impostor.setVisible(false);
+            }
+        }
+
+        void showImpostor() {
+            if (impostor == null) {
+                impostor = new MeshView(impostorMesh);
+                impostor.setMaterial(impostorMaterial);
+                root.getChildren().add(impostor);
+            }
+            impostor.setVisible(true);
+            if (rings != null) {
+                rings.setVisible(false);
+            }
+        }
+    }
+}
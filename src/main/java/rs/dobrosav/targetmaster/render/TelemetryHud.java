@@ -0,0 +1,98 @@
+package rs.dobrosav.targetmaster.render;
+
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import rs.dobrosav.targetmaster.audio.AudioMixer;
+import rs.dobrosav.targetmaster.telemetry.FrameTelemetry;
+import rs.dobrosav.targetmaster.telemetry.LatencyHistogram;
+import rs.dobrosav.targetmaster.telemetry.Phase;
+
+/**
+ * On-screen table of p50/p99/max timings per phase. The numbers cover the last
+ * completed one-second window; the text is rebuilt once per window, and the telemetry
+ * is reset for the next one.
+ */
+public final class TelemetryHud {
+
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private final FrameTelemetry telemetry;
+    private final Text text = new Text();
+    private final StringBuilder sb = new StringBuilder(512);
+    // Pulse times come from nanoTime and may be negative, so they cannot mark "not started"
+    private boolean started;
+    private long windowStart;
+    private AudioMixer audio;
+    private QualityController quality;
+    private QualityChange lastQualityChange;
+
+    public TelemetryHud(FrameTelemetry telemetry, double x, double y) {
+        this.telemetry = telemetry;
+        text.setFont(Font.font("Monospaced", 12));
+        text.setFill(Color.LIME);
+        text.setX(x);
+        text.setY(y);
+        text.setMouseTransparent(true);
+        text.setVisible(false);
+    }
+
+    public Text getNode() {
+        return text;
+    }
+
+    /** Adds a line with the mixer's voice usage and sound start latency. */
+    public void setAudio(AudioMixer audio) {
+        this.audio = audio;
+    }
+
+    /** Adds a line with the current adaptive quality level and the last change of it. */
+    public void setQuality(QualityController quality) {
+        this.quality = quality;
+        quality.addListener(change -> lastQualityChange = change);
+    }
+
+    public void toggle() {
+        text.setVisible(!text.isVisible());
+    }
+
+    /** Called once per pulse with the pulse timestamp. */
+    public void update(long now) {
+        if (!started) {
+            started = true;
+            windowStart = now;
+            return;
+        }
+        if (now - windowStart < WINDOW_NANOS) {
+            return;
+        }
+        windowStart = now;
+        if (text.isVisible()) {
+            text.setText(format());
+        }
+        telemetry.reset();
+    }
+
+    private String format() {
+        sb.setLength(0);
+        LatencyHistogram frames = telemetry.get(Phase.FRAME);
+        sb.append(String.format("%-10s %8s %8s %8s  ms   %d fps%n", "", "p50", "p99", "max", frames.getCount()));
+        for (Phase phase : Phase.VALUES) {
+            LatencyHistogram h = telemetry.get(phase);
+            sb.append(String.format("%-10s %8.3f %8.3f %8.3f%n", phase.getLabel(),
+                    h.percentile(50) / 1e6, h.percentile(99) / 1e6, h.getMax() / 1e6));
+        }
+        if (audio != null) {
+            sb.append(String.format("%-10s %8.3f %8s %8.3f  voices %d/%d%n", "audio",
+                    audio.getLastStartLatencyNanos() / 1e6, "", audio.takeMaxStartLatencyNanos() / 1e6,
+                    audio.getActiveVoices(), audio.getVoiceCount()));
+        }
+        if (quality != null) {
+            sb.append(String.format("%-10s %s%s%n", "quality", quality.getLevel(), quality.isEnabled() ? "" : " (fixed)"));
+            if (lastQualityChange != null) {
+                sb.append(String.format("%-10s %s%n", "", lastQualityChange));
+            }
+        }
+        return sb.toString();
+    }
+}
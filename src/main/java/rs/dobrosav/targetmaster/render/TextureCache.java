@@ -0,0 +1,138 @@
+package rs.dobrosav.targetmaster.render;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * On-disk cache of generated ARGB pixel buffers. Each texture is stored in its own file
+ * named after its key, which must encode every parameter that affects the pixels.
+ * <p>
+ * File format: the magic {@code TMTX}, a format version, width and height as big-endian
+ * ints, followed by the deflate-compressed pixels. Unreadable or mismatching files are
+ * treated as a miss and regenerated; failures to write only cost the next launch a miss.
+ * <p>
+ * Thread-safe without locking, so textures load in parallel: files are written under a
+ * temporary name and moved into place, and two threads missing the same key at once
+ * both generate it, the second file replacing the identical first.
+ */
+public final class TextureCache {
+
+    private static final int MAGIC = 0x544D5458; // "TMTX"
+    private static final int VERSION = 1;
+    private static final String EXTENSION = ".tex";
+
+    private final Path directory;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public TextureCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /** Cache under {@code targetmaster.cacheDir}, by default {@code ~/.targetmaster/cache/textures}. */
+    public static TextureCache defaultCache() {
+        String dir = System.getProperty("targetmaster.cacheDir",
+                Paths.get(System.getProperty("user.home"), ".targetmaster", "cache").toString());
+        return new TextureCache(Paths.get(dir, "textures"));
+    }
+
+    /**
+     * Returns the pixels stored under {@code key}, or fills a new buffer with
+     * {@code generator} and stores it.
+     */
+    public int[] get(String key, int width, int height, Consumer<int[]> generator) {
+        Path file = directory.resolve(sanitize(key) + EXTENSION);
+        int[] pixels = new int[width * height];
+        if (read(file, width, height, pixels)) {
+            hits.incrementAndGet();
+            return pixels;
+        }
+        misses.incrementAndGet();
+        generator.accept(pixels);
+        write(file, width, height, pixels);
+        return pixels;
+    }
+
+    private static boolean read(Path file, int width, int height, int[] pixels) {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || in.readInt() != width || in.readInt() != height) {
+                return false;
+            }
+            byte[] bytes = new byte[pixels.length * 4];
+            try (InputStream data = new InflaterInputStream(in)) {
+                if (data.readNBytes(bytes, 0, bytes.length) != bytes.length) {
+                    return false;
+                }
+            }
+            ByteBuffer.wrap(bytes).asIntBuffer().get(pixels);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable texture cache file " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void write(Path file, int width, int height, int[] pixels) {
+        Path tmp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(width);
+                out.writeInt(height);
+                ByteBuffer bytes = ByteBuffer.allocate(pixels.length * 4);
+                bytes.asIntBuffer().put(pixels);
+                Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+                try (OutputStream data = new DeflaterOutputStream(out, deflater, 1 << 16)) {
+                    data.write(bytes.array());
+                } finally {
+                    deflater.end();
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not write texture cache file " + file + ": " + e.getMessage());
+        } finally {
+            deleteTemp(tmp);
+        }
+    }
+
+    /** Removes {@code tmp} if a failed write left it behind; after the move it is gone already. */
+    private static void deleteTemp(Path tmp) {
+        if (tmp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tmp);
+        } catch (IOException e) {
+            System.err.println("Could not delete " + tmp + ": " + e.getMessage());
+        }
+    }
+
+    private static String sanitize(String key) {
+        return key.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    public Path getDirectory() { return directory; }
+    public int getHits() { return hits.get(); }
+    public int getMisses() { return misses.get(); }
+}
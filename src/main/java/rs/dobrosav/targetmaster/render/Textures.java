@@ -0,0 +1,133 @@
+package rs.dobrosav.targetmaster.render;
+
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Procedural textures for the floor and the sky. Pixels are generated into plain
+ * {@code int[]} ARGB buffers, row bands in parallel, and copied into the image with a
+ * single bulk write. With a {@link TextureCache} the buffers are generated once and
+ * loaded from disk on later launches.
+ */
+public final class Textures {
+
+    public static final int DEFAULT_SIZE = 1024;
+    /** Checkerboard tiles along each edge of the floor texture. */
+    public static final int FLOOR_TILES = 8;
+
+    private static final Color FLOOR_COLOR_1 = Color.web("#8B4513"); // SaddleBrown
+    private static final Color FLOOR_COLOR_2 = Color.web("#A0522D"); // Sienna
+    private static final Color SKY_TOP = Color.DEEPSKYBLUE;
+    private static final Color SKY_BOTTOM = Color.LIGHTBLUE;
+    /** Rows per parallel task; small textures are filled on the calling thread. */
+    private static final int ROWS_PER_TASK = 64;
+
+    private Textures() {
+    }
+
+    /** Checkerboard of {@value #FLOOR_TILES} by {@value #FLOOR_TILES} brown tiles. */
+    public static WritableImage floor(int width, int height) {
+        return floor(width, height, null);
+    }
+
+    public static WritableImage floor(int width, int height, TextureCache cache) {
+        String key = "floor-v1-" + width + "x" + height + "-" + FLOOR_TILES
+                + "-" + FLOOR_COLOR_1 + "-" + FLOOR_COLOR_2;
+        return image(width, height, cache, key, pixels -> fillFloor(pixels, width, height));
+    }
+
+    /** Vertical gradient from deep sky blue at the top to light blue at the bottom. */
+    public static WritableImage sky(int width, int height) {
+        return sky(width, height, null);
+    }
+
+    public static WritableImage sky(int width, int height, TextureCache cache) {
+        String key = "sky-v1-" + width + "x" + height + "-" + SKY_TOP + "-" + SKY_BOTTOM;
+        return image(width, height, cache, key, pixels -> fillSky(pixels, width, height));
+    }
+
+    /**
+     * One pixel per color in a row. Faces textured at {@code (i + 0.5) / n, 0.5} come out
+     * in exactly color {@code i}, which lets one mesh with one material carry several
+     * flat colors.
+     */
+    public static WritableImage palette(Color... colors) {
+        int[] pixels = new int[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            pixels[i] = argb(colors[i]);
+        }
+        WritableImage image = new WritableImage(colors.length, 1);
+        image.getPixelWriter().setPixels(0, 0, colors.length, 1, PixelFormat.getIntArgbPreInstance(), pixels, 0, colors.length);
+        return image;
+    }
+
+    public static void fillFloor(int[] pixels, int width, int height) {
+        int tileW = Math.max(1, width / FLOOR_TILES);
+        int tileH = Math.max(1, height / FLOOR_TILES);
+        int color1 = argb(FLOOR_COLOR_1);
+        int color2 = argb(FLOOR_COLOR_2);
+        // Only two distinct rows exist; build them once and copy them down
+        int[] evenRow = new int[width];
+        int[] oddRow = new int[width];
+        for (int x = 0; x < width; x++) {
+            boolean even = (x / tileW) % 2 == 0;
+            evenRow[x] = even ? color1 : color2;
+            oddRow[x] = even ? color2 : color1;
+        }
+        forEachRowBand(height, (from, to) -> {
+            for (int y = from; y < to; y++) {
+                System.arraycopy((y / tileH) % 2 == 0 ? evenRow : oddRow, 0, pixels, y * width, width);
+            }
+        });
+    }
+
+    public static void fillSky(int[] pixels, int width, int height) {
+        forEachRowBand(height, (from, to) -> {
+            for (int y = from; y < to; y++) {
+                int color = argb(SKY_TOP.interpolate(SKY_BOTTOM, (double) y / height));
+                Arrays.fill(pixels, y * width, (y + 1) * width, color);
+            }
+        });
+    }
+
+    private static WritableImage image(int width, int height, TextureCache cache, String key,
+                                       Consumer<int[]> generator) {
+        int[] pixels;
+        if (cache != null) {
+            pixels = cache.get(key, width, height, generator);
+        } else {
+            pixels = new int[width * height];
+            generator.accept(pixels);
+        }
+        WritableImage image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), pixels, 0, width);
+        return image;
+    }
+
+    private interface RowBand {
+        void fill(int from, int to);
+    }
+
+    private static void forEachRowBand(int height, RowBand band) {
+        int bands = (height + ROWS_PER_TASK - 1) / ROWS_PER_TASK;
+        if (bands <= 1) {
+            band.fill(0, height);
+            return;
+        }
+        IntStream.range(0, bands).parallel()
+                .forEach(b -> band.fill(b * ROWS_PER_TASK, Math.min(height, (b + 1) * ROWS_PER_TASK)));
+    }
+
+    /** Opaque colors are the same in premultiplied and straight ARGB. */
+    private static int argb(Color color) {
+        return 0xFF000000
+                | (int) Math.round(color.getRed() * 255) << 16
+                | (int) Math.round(color.getGreen() * 255) << 8
+                | (int) Math.round(color.getBlue() * 255);
+    }
+}
@@ -0,0 +1,104 @@
+package rs.dobrosav.targetmaster.replay;
+
+import rs.dobrosav.targetmaster.sim.TickInput;
+import rs.dobrosav.targetmaster.sim.World;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Appends the per-tick input of a session to a replay file (see {@link ReplayFormat}).
+ * Together with the seed and configuration in the header, that is all a {@link World}
+ * needs to go through the session again. Writes are buffered; the file is complete once
+ * {@link #close(World)} has appended the end record.
+ */
+public final class InputRecorder implements AutoCloseable {
+
+    private final DataOutputStream out;
+    private long lastTick;
+    private boolean closed;
+
+    /** Creates {@code file}, replacing an existing one, and writes the header for {@code world}. */
+    public InputRecorder(Path file, World world) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.writeInt(ReplayFormat.MAGIC);
+        out.writeShort(ReplayFormat.VERSION);
+        out.writeLong(world.getSeed());
+        out.writeInt(world.getTickRate());
+        out.writeInt(world.getTargetCount());
+        out.writeBoolean(world.isWaves());
+        lastTick = world.getTick();
+    }
+
+    /** Records {@code input} as the input of tick {@code tick}; empty input is skipped. */
+    public void record(long tick, TickInput input) throws IOException {
+        if (input.isEmpty()) {
+            return;
+        }
+        writeTick(tick, ReplayFormat.KIND_INPUT);
+        int count = input.getCommandCount();
+        boolean trailing = input.getPitch() != 0 || input.getYaw() != 0;
+        writeVarint((long) count << 1 | (trailing ? 1 : 0));
+        for (int i = 0; i < count; i++) {
+            double pitch = input.getPitchBefore(i);
+            double yaw = input.getYawBefore(i);
+            boolean look = pitch != 0 || yaw != 0;
+            out.writeByte(input.getCommand(i).ordinal() | (look ? ReplayFormat.LOOK_FLAG : 0));
+            if (look) {
+                out.writeDouble(pitch);
+                out.writeDouble(yaw);
+            }
+        }
+        if (trailing) {
+            out.writeDouble(input.getPitch());
+            out.writeDouble(input.getYaw());
+        }
+    }
+
+    private void writeTick(long tick, int kind) throws IOException {
+        if (tick < lastTick) {
+            throw new IllegalArgumentException("Tick " + tick + " recorded after tick " + lastTick);
+        }
+        writeVarint(tick - lastTick);
+        lastTick = tick;
+        out.writeByte(kind);
+    }
+
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /** Appends the end record with the final state of {@code world} and closes the file. */
+    public void close(World world) throws IOException {
+        if (closed) {
+            return;
+        }
+        writeTick(world.getTick(), ReplayFormat.KIND_END);
+        out.writeLong(world.getTick());
+        out.writeInt(world.getScore());
+        out.writeInt(world.getHits());
+        out.writeInt(world.getMisses());
+        out.writeLong(world.checksum());
+        close();
+    }
+
+    /** Closes the file without an end record; a replay of it cannot be verified. */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package rs.dobrosav.targetmaster.replay;
+
+import rs.dobrosav.targetmaster.sim.Command;
+import rs.dobrosav.targetmaster.sim.TickInput;
+import rs.dobrosav.targetmaster.sim.World;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads a replay file written by {@link InputRecorder} back one tick at a time. Feeding
+ * the inputs to a world made by {@link #createWorld()} reproduces the recorded session;
+ * whether that worked can be checked against the end record with {@link #matches(World)}.
+ */
+public final class InputReplay implements AutoCloseable {
+
+    private final DataInputStream in;
+    private final short version;
+    private final long seed;
+    private final int tickRate;
+    private final int targetCount;
+    private final boolean waves;
+
+    private long tick;
+    private long nextTick;
+    private int nextKind = -1;
+    private boolean finished;
+    private boolean ended;
+    private long endTick;
+    private int endScore;
+    private int endHits;
+    private int endMisses;
+    private long endChecksum;
+
+    private InputReplay(DataInputStream in) throws IOException {
+        this.in = in;
+        if (in.readInt() != ReplayFormat.MAGIC) {
+            throw new IOException("Not a replay file");
+        }
+        version = in.readShort();
+        if (version < ReplayFormat.MIN_VERSION || version > ReplayFormat.VERSION) {
+            throw new IOException("Unsupported replay version " + version);
+        }
+        seed = in.readLong();
+        tickRate = in.readInt();
+        targetCount = in.readInt();
+        waves = in.readBoolean();
+        readRecordHead();
+    }
+
+    public static InputReplay open(Path file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        try {
+            return new InputReplay(in);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /** A fresh world with the seed and configuration of the recorded one. */
+    public World createWorld() {
+        return new World(seed, tickRate, targetCount, waves);
+    }
+
+    /**
+     * Fills {@code out} with the input of the next tick, empty if none was recorded.
+     *
+     * @return {@code false} once the recording is over; {@code out} is then left empty
+     * @throws IOException if the file is corrupt; the replay is then finished
+     */
+    public boolean next(TickInput out) throws IOException {
+        out.clear();
+        if (finished) {
+            return false;
+        }
+        tick++;
+        if (nextKind == -1) {
+            finished = true;
+            return false;
+        }
+        try {
+            if (nextKind == ReplayFormat.KIND_END && tick > nextTick) {
+                readEnd();
+                return false;
+            }
+            if (nextKind == ReplayFormat.KIND_INPUT && tick == nextTick) {
+                readInput(out);
+                readRecordHead();
+            }
+        } catch (EOFException e) {
+            // Cut off in the middle of a record
+            finished = true;
+            out.clear();
+            return false;
+        } catch (IOException e) {
+            finished = true;
+            out.clear();
+            throw e;
+        }
+        return true;
+    }
+
+    private void readInput(TickInput out) throws IOException {
+        long head = version == 1 ? in.readUnsignedByte() : readVarint();
+        long count = head >>> 1;
+        for (long i = 0; i < count; i++) {
+            int command = in.readUnsignedByte();
+            if ((command & ReplayFormat.LOOK_FLAG) != 0) {
+                out.look(in.readDouble(), in.readDouble());
+            }
+            int ordinal = command & ~ReplayFormat.LOOK_FLAG;
+            if (ordinal >= Command.VALUES.length) {
+                throw new IOException("Corrupt replay: command " + ordinal);
+            }
+            out.command(Command.VALUES[ordinal]);
+        }
+        if ((head & 1) != 0) {
+            out.look(in.readDouble(), in.readDouble());
+        }
+    }
+
+    private void readEnd() throws IOException {
+        endTick = in.readLong();
+        endScore = in.readInt();
+        endHits = in.readInt();
+        endMisses = in.readInt();
+        endChecksum = in.readLong();
+        ended = true;
+        finished = true;
+    }
+
+    private void readRecordHead() throws IOException {
+        long delta;
+        try {
+            delta = readVarint();
+            nextKind = in.readUnsignedByte();
+        } catch (EOFException e) {
+            // Cut off without an end record, e.g. the game was killed: replay what is there.
+            nextKind = -1;
+            return;
+        }
+        nextTick += delta;
+        if (nextKind != ReplayFormat.KIND_INPUT && nextKind != ReplayFormat.KIND_END) {
+            throw new IOException("Corrupt replay: record kind " + nextKind);
+        }
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 63) {
+                throw new IOException("Corrupt replay: varint too long");
+            }
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /** Whether all recorded ticks have been returned by {@link #next(TickInput)}. */
+    public boolean isFinished() { return finished; }
+
+    /** Whether the file has an end record to verify the replay against; known once finished. */
+    public boolean isVerifiable() { return ended; }
+
+    /**
+     * Whether {@code world} ended up where the recorded one did: same tick, score, hits,
+     * misses and {@link World#checksum() checksum}. Only meaningful once the replay
+     * {@link #isFinished() finished} and {@link #isVerifiable() is verifiable}.
+     */
+    public boolean matches(World world) {
+        return ended
+                && world.getTick() == endTick
+                && world.getScore() == endScore
+                && world.getHits() == endHits
+                && world.getMisses() == endMisses
+                && world.checksum() == endChecksum;
+    }
+
+    public long getSeed() { return seed; }
+    public int getTickRate() { return tickRate; }
+    public int getTargetCount() { return targetCount; }
+    public boolean isWaves() { return waves; }
+    /** Recorded length in ticks; 0 until a verifiable replay has finished. */
+    public long getEndTick() { return endTick; }
+    public int getEndScore() { return endScore; }
+    public int getEndHits() { return endHits; }
+    public int getEndMisses() { return endMisses; }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
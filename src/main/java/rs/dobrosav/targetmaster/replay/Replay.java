@@ -0,0 +1,73 @@
+package rs.dobrosav.targetmaster.replay;
+
+import rs.dobrosav.targetmaster.sim.TickInput;
+import rs.dobrosav.targetmaster.sim.World;
+import rs.dobrosav.targetmaster.snapshot.Snapshot;
+import rs.dobrosav.targetmaster.snapshot.SnapshotWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Replays a recorded session headless, as fast as the simulation runs, and checks that it
+ * ends in the recorded state. Useful for reproducing bugs and as a realistic workload for
+ * profiling the simulation. To watch a replay in real time, start the game with
+ * {@code -Dtargetmaster.replay=<file>} instead.
+ * <p>
+ * Given a second file, the replay also writes the world state of every tick there as
+ * delta-encoded snapshots with a key frame every ten seconds, for viewers that want to
+ * show or seek through a session without simulating it.
+ * <pre>
+ * java -cp ... rs.dobrosav.targetmaster.replay.Replay session.tmr [states.tms]
+ * </pre>
+ * Exits with status 1 if the replay diverged from the recording.
+ */
+public final class Replay {
+
+    private Replay() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: Replay <replay file> [snapshot file]");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[0]);
+        try (InputReplay replay = InputReplay.open(file);
+             SnapshotWriter states = args.length > 1 ? new SnapshotWriter(Paths.get(args[1]), 10 * replay.getTickRate()) : null) {
+            World world = replay.createWorld();
+            TickInput input = new TickInput();
+            Snapshot[] snapshots = {new Snapshot(), new Snapshot()};
+            long start = System.nanoTime();
+            while (replay.next(input)) {
+                world.step(input);
+                if (states != null) {
+                    Snapshot snapshot = snapshots[(int) (world.getTick() & 1)];
+                    snapshot.capture(world, snapshots[(int) (world.getTick() + 1 & 1)]);
+                    states.write(snapshot);
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("%s: seed %d, %d targets%s, %d ticks at %d Hz (%.1f s of play)%n",
+                    file, replay.getSeed(), replay.getTargetCount(), replay.isWaves() ? " in waves" : "",
+                    world.getTick(), world.getTickRate(), world.getTick() / (double) world.getTickRate());
+            System.out.printf("Replayed in %.1f ms, %.0f ticks/s%n",
+                    elapsed / 1e6, world.getTick() * 1e9 / Math.max(1, elapsed));
+            System.out.printf("Score %d, hits %d, misses %d%n", world.getScore(), world.getHits(), world.getMisses());
+            if (states != null) {
+                System.out.printf("Wrote %d snapshots to %s, %d bytes%n", world.getTick(), args[1], states.size());
+            }
+            if (!replay.isVerifiable()) {
+                System.out.println("No end record, the recording was cut off: not verified");
+            } else if (replay.matches(world)) {
+                System.out.println("Matches the recording");
+            } else {
+                System.out.printf("DIVERGED: recorded %d ticks, score %d, hits %d, misses %d%n",
+                        replay.getEndTick(), replay.getEndScore(), replay.getEndHits(), replay.getEndMisses());
+                System.exit(1);
+            }
+        }
+    }
+}
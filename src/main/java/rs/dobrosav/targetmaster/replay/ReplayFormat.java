@@ -0,0 +1,37 @@
+package rs.dobrosav.targetmaster.replay;
+
+/**
+ * Layout of a replay file. All numbers are big-endian.
+ * <pre>
+ * header:  int magic "TMRP", short version, long seed, int tickRate, int targetCount,
+ *          byte waves
+ * records: varint ticks since the previous record (the first counts from tick 0),
+ *          byte kind, then the payload
+ *   INPUT  varint (commands &lt;&lt; 1 | trailing look flag); per command a byte
+ *          (ordinal | look flag &lt;&lt; 7) followed by the look before it if flagged;
+ *          the trailing look if flagged. A look is double pitch, double yaw.
+ *   END    long tick, int score, int hits, int misses, long world checksum
+ * </pre>
+ * Varints are unsigned, 7 bits per byte, least significant first, the high bit set on
+ * all but the last byte. Version 1 stored the command count as a single byte instead,
+ * which a tick of more than 127 commands overflowed; it is still read.
+ * <p>
+ * Ticks without input have no record, so an idle session costs nothing; a typical tick
+ * with mouse movement costs 19 bytes. Looks are stored as raw doubles because the
+ * simulation must see exactly the values it saw when recording.
+ */
+final class ReplayFormat {
+
+    static final int MAGIC = 0x544D5250; // "TMRP"
+    static final short VERSION = 2;
+    /** Oldest version still read. */
+    static final short MIN_VERSION = 1;
+
+    static final int KIND_INPUT = 0;
+    static final int KIND_END = 1;
+
+    static final int LOOK_FLAG = 0x80;
+
+    private ReplayFormat() {
+    }
+}
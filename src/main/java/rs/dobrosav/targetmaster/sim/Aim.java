@@ -0,0 +1,80 @@
+package rs.dobrosav.targetmaster.sim;
+
+/**
+ * Camera orientation of the shooter. Angles are in degrees and match the
+ * pitch/yaw {@code Rotate} transforms applied to the camera pivot.
+ */
+public final class Aim {
+
+    public static final double MAX_PITCH = 45;
+    public static final double EYE_Y = -20;
+
+    private double pitch;
+    private double yaw;
+    private double recoil;
+    private int recoilTicks;
+
+    public void rotate(double dPitch, double dYaw) {
+        setAngles(pitch + dPitch, yaw + dYaw);
+    }
+
+    public void setAngles(double pitch, double yaw) {
+        this.pitch = Math.max(-MAX_PITCH, Math.min(MAX_PITCH, pitch));
+        this.yaw = yaw;
+    }
+
+    void kick(double amount, int ticks) {
+        recoil = amount;
+        recoilTicks = ticks;
+    }
+
+    /** Returns {@code true} on the tick the recoil kick wears off. */
+    boolean step() {
+        if (recoilTicks > 0 && --recoilTicks == 0) {
+            recoil = 0;
+            return true;
+        }
+        return false;
+    }
+
+    public double getPitch() { return pitch; }
+    public double getYaw() { return yaw; }
+
+    /** Pitch including the temporary recoil kick, as seen by the camera. */
+    public double getEffectivePitch() { return pitch - recoil; }
+
+    /** Pitch that looks from the eye at {@code (0, EYE_Y, 0)} towards the point {@code (x, y, z)}. */
+    public static double pitchTo(double x, double y, double z) {
+        return -Math.toDegrees(Math.atan2(y - EYE_Y, Math.sqrt(x * x + z * z)));
+    }
+
+    /** Yaw that looks from the eye towards the point {@code (x, z)}. */
+    public static double yawTo(double x, double z) {
+        return Math.toDegrees(Math.atan2(x, z));
+    }
+
+    /** {@code degrees} wrapped into [-180, 180], for turning the short way round. */
+    public static double wrap(double degrees) {
+        degrees %= 360;
+        if (degrees > 180) {
+            degrees -= 360;
+        } else if (degrees < -180) {
+            degrees += 360;
+        }
+        return degrees;
+    }
+
+    double dirX() {
+        double p = Math.toRadians(getEffectivePitch());
+        return Math.cos(p) * Math.sin(Math.toRadians(yaw));
+    }
+
+    double dirY() {
+        return -Math.sin(Math.toRadians(getEffectivePitch()));
+    }
+
+    double dirZ() {
+        double p = Math.toRadians(getEffectivePitch());
+        return Math.cos(p) * Math.cos(Math.toRadians(yaw));
+    }
+}
@@ -0,0 +1,71 @@
+package rs.dobrosav.targetmaster.sim;
+
+/**
+ * A bullet in flight. Position is in scene units, direction is normalized.
+ */
+public final class Bullet {
+
+    double x, y, z;
+    double prevX, prevY, prevZ;
+    double dirX, dirY, dirZ;
+    /** Serial number within its world, for telling bullets apart across ticks. */
+    int id;
+    /** Target whose face plane this bullet crossed closest to its disc without hitting it, or -1. */
+    int nearTarget;
+    double nearDx, nearDy, nearR2;
+
+    Bullet() {
+    }
+
+    void set(double x, double y, double z, double dirX, double dirY, double dirZ) {
+        this.x = this.prevX = x;
+        this.y = this.prevY = y;
+        this.z = this.prevZ = z;
+        this.dirX = dirX;
+        this.dirY = dirY;
+        this.dirZ = dirZ;
+        nearTarget = -1;
+    }
+
+    /** Keeps the crossing in {@code impact} of target {@code index}'s face plane if it is the closest yet. */
+    void nearMiss(int index, double cx, double cy, Impact impact) {
+        if (nearTarget < 0 || impact.r2 < nearR2) {
+            nearTarget = index;
+            nearDx = impact.x - cx;
+            nearDy = impact.y - cy;
+            nearR2 = impact.r2;
+        }
+    }
+
+    void advance(double distance) {
+        prevX = x;
+        prevY = y;
+        prevZ = z;
+        x += dirX * distance;
+        y += dirY * distance;
+        z += dirZ * distance;
+    }
+
+    /** Position interpolated between the previous and the current tick, {@code alpha} in [0, 1]. */
+    public double getX(double alpha) { return prevX + (x - prevX) * alpha; }
+    public double getY(double alpha) { return prevY + (y - prevY) * alpha; }
+    public double getZ(double alpha) { return prevZ + (z - prevZ) * alpha; }
+
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public double getZ() { return z; }
+    public double getDirX() { return dirX; }
+    public double getDirY() { return dirY; }
+    public double getDirZ() { return dirZ; }
+    public int getId() { return id; }
+
+    /**
+     * Index of the target whose face this bullet passed closest to without hitting it, or
+     * -1 if it did not pass near any. Only targets near the bullet's path are considered,
+     * about one {@link Target#OUTER_RADIUS} around it.
+     */
+    public int getNearTarget() { return nearTarget; }
+    /** Offset from that target's center to where the bullet crossed its face plane. */
+    public double getNearDx() { return nearDx; }
+    public double getNearDy() { return nearDy; }
+}
@@ -0,0 +1,55 @@
+package rs.dobrosav.targetmaster.sim;
+
+/**
+ * Swept intersection tests on primitive coordinates. Nothing here allocates.
+ */
+public final class Collision {
+
+    private Collision() {
+    }
+
+    /**
+     * Tests the segment from {@code (x0, y0, z0)} to {@code (x1, y1, z1)} against the face,
+     * pointing towards the segment start, of the target centered at {@code (cx, cy, cz)}.
+     * Targets are discs of radius
+     * {@link Target#OUTER_RADIUS} lying in the XY plane, so a bullet travelling parallel to
+     * the face never hits it. On a hit, fills {@code out} with the impact point on the face
+     * and the ring it lies in, and returns {@code true}.
+     */
+    public static boolean sweepDisc(double x0, double y0, double z0,
+                                    double x1, double y1, double z1,
+                                    double cx, double cy, double cz, Impact out) {
+        return sweepFacePlane(x0, y0, z0, x1, y1, z1, cx, cy, cz, out) && out.ring != null;
+    }
+
+    /**
+     * Like {@link #sweepDisc}, but for the whole plane of the face: returns whether the
+     * segment crosses it, and fills {@code out} with the crossing point and the ring it
+     * lies in, {@code null} when it passes outside the disc.
+     */
+    public static boolean sweepFacePlane(double x0, double y0, double z0,
+                                         double x1, double y1, double z1,
+                                         double cx, double cy, double cz, Impact out) {
+        double vz = z1 - z0;
+        if (vz == 0) {
+            return false;
+        }
+        double faceZ = vz < 0 ? cz + Target.THICKNESS / 2 : cz - Target.THICKNESS / 2;
+        double t = (faceZ - z0) / vz;
+        if (t < 0 || t > 1) {
+            return false;
+        }
+        double ix = x0 + (x1 - x0) * t;
+        double iy = y0 + (y1 - y0) * t;
+        double dx = ix - cx;
+        double dy = iy - cy;
+        double r2 = dx * dx + dy * dy;
+        out.t = t;
+        out.x = ix;
+        out.y = iy;
+        out.z = faceZ;
+        out.r2 = r2;
+        out.ring = Ring.at(r2);
+        return true;
+    }
+}
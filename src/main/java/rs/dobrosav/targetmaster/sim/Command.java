@@ -0,0 +1,9 @@
+package rs.dobrosav.targetmaster.sim;
+
+/** Discrete player actions carried by a {@link TickInput}. */
+public enum Command {
+    FIRE,
+    TOGGLE_SCOPE;
+
+    public static final Command[] VALUES = values();
+}
@@ -0,0 +1,71 @@
+package rs.dobrosav.targetmaster.sim;
+
+/**
+ * Accumulator for a fixed-timestep loop. Fed with a monotonic nanosecond clock
+ * (such as the {@code now} passed to {@code AnimationTimer.handle}), it tells the
+ * caller how many simulation ticks are due and how far the render time lies
+ * between the last two ticks.
+ * <p>
+ * The number of catch-up ticks per frame is capped; time beyond the cap is
+ * dropped, so one slow frame cannot snowball into ever longer frames.
+ */
+public final class FixedStepClock {
+
+    public static final int DEFAULT_MAX_STEPS = 5;
+
+    private final long stepNanos;
+    private final int maxSteps;
+    // nanoTime may be negative, so no value of lastNanos can mean "not started"
+    private boolean started;
+    private long lastNanos;
+    private long accumulator;
+    private long droppedTicks;
+
+    public FixedStepClock(int tickRate) {
+        this(tickRate, DEFAULT_MAX_STEPS);
+    }
+
+    public FixedStepClock(int tickRate, int maxSteps) {
+        if (tickRate <= 0 || maxSteps <= 0) {
+            throw new IllegalArgumentException("tickRate and maxSteps must be positive");
+        }
+        this.stepNanos = 1_000_000_000L / tickRate;
+        this.maxSteps = maxSteps;
+    }
+
+    /**
+     * Accumulates the time elapsed since the previous call and returns the number
+     * of ticks to run now, between 0 and the catch-up cap.
+     */
+    public int advance(long nowNanos) {
+        if (!started) {
+            started = true;
+            lastNanos = nowNanos;
+            return 0;
+        }
+        accumulator += Math.max(0, nowNanos - lastNanos);
+        lastNanos = nowNanos;
+
+        long due = accumulator / stepNanos;
+        int steps = (int) Math.min(due, maxSteps);
+        accumulator -= steps * stepNanos;
+        if (due > maxSteps) {
+            droppedTicks += due - maxSteps;
+            accumulator %= stepNanos;
+        }
+        return steps;
+    }
+
+    /** Fraction of a tick elapsed since the last simulated tick, for render interpolation. */
+    public double alpha() {
+        return (double) accumulator / stepNanos;
+    }
+
+    public void reset() {
+        started = false;
+        accumulator = 0;
+    }
+
+    public long getStepNanos() { return stepNanos; }
+    public long getDroppedTicks() { return droppedTicks; }
+}
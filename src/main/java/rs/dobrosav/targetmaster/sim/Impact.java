@@ -0,0 +1,32 @@
+package rs.dobrosav.targetmaster.sim;
+
+/**
+ * Result of a swept bullet test. Instances are mutable and reused by the caller,
+ * so a test does not allocate.
+ */
+public final class Impact {
+
+    double t;
+    double x, y, z;
+    double r2;
+    Ring ring;
+
+    void copyFrom(Impact other) {
+        t = other.t;
+        x = other.x;
+        y = other.y;
+        z = other.z;
+        r2 = other.r2;
+        ring = other.ring;
+    }
+
+    /** Fraction of the swept segment travelled before the impact, in [0, 1]. */
+    public double getT() { return t; }
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public double getZ() { return z; }
+    public Ring getRing() { return ring; }
+
+    /** Distance of the impact point from the target center, on the target face. */
+    public double getRadius() { return Math.sqrt(r2); }
+}
@@ -0,0 +1,163 @@
+package rs.dobrosav.targetmaster.sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Server-side shot validation with lag compensation. Keeps the target positions of the
+ * last few ticks and flies each player's shots against the targets as that player saw
+ * them: a shot fired with a rewind of {@code n} ticks is tested, on every tick of its
+ * flight, against the targets as they were {@code n} ticks earlier. A hit only counts if
+ * the target has not been destroyed by someone else in the meantime.
+ * <p>
+ * Call {@link #record()} after every {@link World#step()} and then {@link #step}.
+ * Not thread-safe.
+ */
+public final class LagCompensator {
+
+    /** Outcome of the shots resolved in one {@link #step}. */
+    public interface Listener {
+
+        /** A shot hit; {@code target} has already been respawned in the world. */
+        void hit(int shooter, int shot, Target target, Impact impact);
+
+        /** A shot left the range without hitting anything. */
+        void missed(int shooter, int shot);
+
+        /** A shot hit a target that, meanwhile, had been destroyed by someone else. */
+        void late(int shooter, int shot, Target target);
+    }
+
+    private final World world;
+    private final TargetField field;
+    private final int depth;
+    private final int count;
+    private final double[][] x, y, z;
+    private final boolean[][] up;
+    private final int[][] generation;
+    private final int[] currentGeneration;
+    private final long[] recordedTick;
+    private final List<Shot> shots = new ArrayList<>();
+    private final Pool<Shot> shotPool = new Pool<>(Shot::new, 16, 1024);
+    private final Impact impact = new Impact();
+    private final Impact probe = new Impact();
+
+    /** @param maxRewindTicks largest rewind a shot may ask for */
+    public LagCompensator(World world, int maxRewindTicks) {
+        this.world = world;
+        this.field = world.getTargetField();
+        this.depth = maxRewindTicks + 1;
+        this.count = field.size();
+        x = new double[depth][count];
+        y = new double[depth][count];
+        z = new double[depth][count];
+        up = new boolean[depth][count];
+        generation = new int[depth][count];
+        currentGeneration = new int[count];
+        recordedTick = new long[depth];
+        Arrays.fill(recordedTick, -1);
+        record();
+    }
+
+    /** Remembers the target state of the current world tick. */
+    public void record() {
+        long tick = world.getTick();
+        int slot = (int) (tick % depth);
+        System.arraycopy(field.x, 0, x[slot], 0, count);
+        System.arraycopy(field.y, 0, y[slot], 0, count);
+        System.arraycopy(field.z, 0, z[slot], 0, count);
+        System.arraycopy(field.up, 0, up[slot], 0, count);
+        System.arraycopy(currentGeneration, 0, generation[slot], 0, count);
+        recordedTick[slot] = tick;
+    }
+
+    /**
+     * Fires a shot along {@code shooter}'s aim and kicks its recoil, like {@link World#fire()}.
+     *
+     * @param rewindTicks how many ticks behind the server the player saw the targets;
+     *                    clamped to the recorded history
+     * @param playerId    reported back to the {@link Listener} with the outcome
+     * @param shotId      likewise
+     */
+    public void fire(Shooter shooter, int rewindTicks, int playerId, int shotId) {
+        Aim aim = shooter.getAim();
+        Shot shot = shotPool.acquire();
+        shot.bullet.set(0, Aim.EYE_Y, 0, aim.dirX(), aim.dirY(), aim.dirZ());
+        shot.rewind = Math.max(0, Math.min(depth - 1, rewindTicks));
+        shot.shooter = playerId;
+        shot.id = shotId;
+        shots.add(shot);
+        shooter.recoil();
+    }
+
+    /** Advances all shots by one tick and reports those that hit or left the range. */
+    public void step(Listener listener) {
+        double distance = World.BULLET_SPEED * world.getTimeStep();
+        long tick = world.getTick();
+        for (int i = 0; i < shots.size(); i++) {
+            Shot shot = shots.get(i);
+            Bullet bullet = shot.bullet;
+            bullet.advance(distance);
+            int slot = slot(tick - shot.rewind);
+            int hit = sweep(bullet, slot);
+            if (hit >= 0) {
+                Target target = world.getTargets().get(hit);
+                if (generation[slot][hit] == currentGeneration[hit]) {
+                    currentGeneration[hit]++;
+                    world.respawn(target);
+                    listener.hit(shot.shooter, shot.id, target, impact);
+                } else {
+                    listener.late(shot.shooter, shot.id, target);
+                }
+            } else if (!(Math.abs(bullet.z) <= World.BULLET_RANGE && Math.abs(bullet.x) <= World.BULLET_RANGE)) {
+                // Negated so that a bullet gone NaN is retired as a miss too
+                listener.missed(shot.shooter, shot.id);
+            } else {
+                continue;
+            }
+            shotPool.release(shot);
+            int last = shots.size() - 1;
+            shots.set(i, shots.get(last));
+            shots.remove(last);
+            i--;
+        }
+    }
+
+    /** History slot for {@code tick}, or the oldest one recorded if it is not in the history. */
+    private int slot(long tick) {
+        for (long t = Math.max(0, tick); ; t++) {
+            int slot = (int) (t % depth);
+            if (recordedTick[slot] == t) {
+                return slot;
+            }
+        }
+    }
+
+    private int sweep(Bullet bullet, int slot) {
+        double[] sx = x[slot];
+        double[] sy = y[slot];
+        double[] sz = z[slot];
+        boolean[] sup = up[slot];
+        int first = -1;
+        for (int i = 0; i < count; i++) {
+            if (sup[i]
+                    && Collision.sweepDisc(bullet.prevX, bullet.prevY, bullet.prevZ,
+                            bullet.x, bullet.y, bullet.z, sx[i], sy[i], sz[i], probe)
+                    && (first < 0 || probe.t < impact.t)) {
+                first = i;
+                impact.copyFrom(probe);
+            }
+        }
+        return first;
+    }
+
+    public int getShotsInFlight() { return shots.size(); }
+
+    private static final class Shot {
+        final Bullet bullet = new Bullet();
+        int rewind;
+        int shooter;
+        int id;
+    }
+}
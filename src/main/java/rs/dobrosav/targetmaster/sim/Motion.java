@@ -0,0 +1,17 @@
+package rs.dobrosav.targetmaster.sim;
+
+/**
+ * Patrol pattern of a target.
+ */
+public enum Motion {
+    /** Stands still. */
+    STATIC,
+    /** Moves sideways at constant speed, turning around at the edge of its patrol band. */
+    SWEEP,
+    /** Sways sideways along a sine curve around its spawn point. */
+    SINE,
+    /** Stands still but repeatedly drops out of sight and pops up again. */
+    POPUP;
+
+    static final Motion[] VALUES = values();
+}
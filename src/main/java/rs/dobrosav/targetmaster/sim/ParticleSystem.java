@@ -0,0 +1,86 @@
+package rs.dobrosav.targetmaster.sim;
+
+/**
+ * Impact particles stored as a structure of arrays. Live particles occupy indices
+ * {@code [0, size())}; dead ones are removed by moving the last particle into their
+ * slot, so stepping is a single linear pass over primitive arrays and spawning or
+ * expiring particles never allocates.
+ */
+public final class ParticleSystem {
+
+    private final float dt;
+    private final float[] x, y, z;
+    private final float[] vx, vy, vz;
+    private final float[] life;
+    private int count;
+
+    public ParticleSystem(int capacity, double dt) {
+        this.dt = (float) dt;
+        x = new float[capacity];
+        y = new float[capacity];
+        z = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        vz = new float[capacity];
+        life = new float[capacity];
+    }
+
+    /** Adds a particle; returns {@code false} and drops it when the system is full. */
+    public boolean spawn(double px, double py, double pz, double velX, double velY, double velZ, double lifetime) {
+        if (count == x.length) {
+            return false;
+        }
+        int i = count++;
+        x[i] = (float) px;
+        y[i] = (float) py;
+        z[i] = (float) pz;
+        vx[i] = (float) velX;
+        vy[i] = (float) velY;
+        vz[i] = (float) velZ;
+        life[i] = (float) lifetime;
+        return true;
+    }
+
+    /** Advances all particles by one tick and drops the expired ones. */
+    public void step() {
+        int i = 0;
+        while (i < count) {
+            float remaining = life[i] - dt;
+            if (remaining <= 0) {
+                moveLastInto(i);
+                continue;
+            }
+            life[i] = remaining;
+            x[i] += vx[i] * dt;
+            y[i] += vy[i] * dt;
+            z[i] += vz[i] * dt;
+            i++;
+        }
+    }
+
+    private void moveLastInto(int i) {
+        int last = --count;
+        x[i] = x[last];
+        y[i] = y[last];
+        z[i] = z[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        vz[i] = vz[last];
+        life[i] = life[last];
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public int size() { return count; }
+    public int capacity() { return x.length; }
+
+    /**
+     * Position of particle {@code i} interpolated between the previous and the current tick,
+     * {@code alpha} in [0, 1].
+     */
+    public float getX(int i, float alpha) { return x[i] - vx[i] * dt * (1 - alpha); }
+    public float getY(int i, float alpha) { return y[i] - vy[i] * dt * (1 - alpha); }
+    public float getZ(int i, float alpha) { return z[i] - vz[i] * dt * (1 - alpha); }
+}
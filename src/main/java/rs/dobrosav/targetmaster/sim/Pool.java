@@ -0,0 +1,55 @@
+package rs.dobrosav.targetmaster.sim;
+
+import java.util.function.Supplier;
+
+/**
+ * Bounded free list of reusable objects. The pool is pre-warmed with {@code prewarm}
+ * instances and keeps at most {@code capacity} idle ones; {@link #acquire()} only
+ * allocates when the free list is empty, so a steady workload stops allocating once
+ * the pool has grown to its working size.
+ * <p>
+ * Not thread-safe.
+ */
+public final class Pool<T> {
+
+    private final Supplier<T> factory;
+    private final Object[] free;
+    private int freeCount;
+    private long created;
+
+    public Pool(Supplier<T> factory, int prewarm, int capacity) {
+        if (capacity <= 0 || prewarm < 0 || prewarm > capacity) {
+            throw new IllegalArgumentException("Invalid pool size: prewarm=" + prewarm + ", capacity=" + capacity);
+        }
+        this.factory = factory;
+        this.free = new Object[capacity];
+        for (int i = 0; i < prewarm; i++) {
+            free[freeCount++] = factory.get();
+            created++;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if (freeCount > 0) {
+            T obj = (T) free[--freeCount];
+            free[freeCount] = null;
+            return obj;
+        }
+        created++;
+        return factory.get();
+    }
+
+    /** Returns an object to the pool. Objects beyond the capacity are left to the GC. */
+    public void release(T obj) {
+        if (freeCount < free.length) {
+            free[freeCount++] = obj;
+        }
+    }
+
+    public int getFreeCount() { return freeCount; }
+    public int getCapacity() { return free.length; }
+
+    /** Total number of instances this pool has allocated, including the pre-warmed ones. */
+    public long getCreatedCount() { return created; }
+}
@@ -0,0 +1,34 @@
+package rs.dobrosav.targetmaster.sim;
+
+/**
+ * Scoring rings of a target, from the outside in.
+ */
+public enum Ring {
+    WHITE(Target.OUTER_RADIUS, 1),
+    BLUE(Target.MIDDLE_RADIUS, 2),
+    RED(Target.INNER_RADIUS, 3);
+
+    private static final Ring[] VALUES = values();
+
+    private final double radius;
+    private final int points;
+
+    Ring(double radius, int points) {
+        this.radius = radius;
+        this.points = points;
+    }
+
+    public double getRadius() { return radius; }
+    public int getPoints() { return points; }
+
+    /** Innermost ring containing a point at squared distance {@code r2} from the center, or {@code null}. */
+    public static Ring at(double r2) {
+        for (int i = VALUES.length - 1; i >= 0; i--) {
+            double r = VALUES[i].radius;
+            if (r2 <= r * r) {
+                return VALUES[i];
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,70 @@
+package rs.dobrosav.targetmaster.sim;
+
+/**
+ * Scope state: zoom toggle, breathing sway and the visual recoil offset of the overlay.
+ */
+public final class Scope {
+
+    /** Breathing phase change per second; one full in/out cycle takes about 6.7 s. */
+    private static final double BREATHING_RATE = 0.6;
+    /** Fraction of the overlay recoil left after one second. */
+    private static final double RECOIL_DECAY = Math.pow(0.92, 60);
+
+    private double breathingStep = BREATHING_RATE / World.DEFAULT_TICK_RATE;
+    private double recoilDecay = 0.92;
+    private boolean scoped;
+    private double breathingOffset;
+    private boolean breathingIn = true;
+    private double recoilX;
+    private double recoilY;
+
+    void setTimeStep(double dt) {
+        breathingStep = BREATHING_RATE * dt;
+        recoilDecay = Math.pow(RECOIL_DECAY, dt);
+    }
+
+    void toggle() {
+        scoped = !scoped;
+    }
+
+    void kick() {
+        if (scoped) {
+            recoilX = -5;
+            recoilY = -3;
+        }
+    }
+
+    void clearRecoil() {
+        recoilX = 0;
+        recoilY = 0;
+    }
+
+    void step() {
+        if (!scoped) {
+            clearRecoil();
+            return;
+        }
+        if (breathingIn) {
+            breathingOffset += breathingStep;
+            if (breathingOffset >= 2) {
+                breathingIn = false;
+            }
+        } else {
+            breathingOffset -= breathingStep;
+            if (breathingOffset <= 0) {
+                breathingIn = true;
+            }
+        }
+        recoilX *= recoilDecay;
+        recoilY *= recoilDecay;
+    }
+
+    public boolean isScoped() { return scoped; }
+    public double getRecoilX() { return recoilX; }
+    public double getRecoilY() { return recoilY; }
+
+    /** Overlay scale for the current breathing phase, 1.0 when not scoped. */
+    public double getBreathingScale() {
+        return scoped ? 1.0 + (breathingOffset - 1) * 0.02 : 1.0;
+    }
+}
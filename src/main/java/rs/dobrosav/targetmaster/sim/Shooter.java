@@ -0,0 +1,38 @@
+package rs.dobrosav.targetmaster.sim;
+
+/**
+ * Aim and scope of one player, plus the recoil a shot kicks into both. A {@link World}
+ * has one for the local player; a server keeps one per connected player.
+ */
+public final class Shooter {
+
+    private final Aim aim = new Aim();
+    private final Scope scope = new Scope();
+    private final int recoilTicks;
+
+    public Shooter(int tickRate) {
+        this.recoilTicks = Math.max(1, (int) Math.round(World.RECOIL_DURATION * tickRate));
+        scope.setTimeStep(1.0 / tickRate);
+    }
+
+    /** Kicks the recoil of a shot fired now. */
+    void recoil() {
+        aim.kick(scope.isScoped() ? 3.0 : 2.0, recoilTicks);
+        scope.kick();
+    }
+
+    public void toggleScope() {
+        scope.toggle();
+    }
+
+    /** Advances recoil and scope breathing by one tick. */
+    public void step() {
+        if (aim.step()) {
+            scope.clearRecoil();
+        }
+        scope.step();
+    }
+
+    public Aim getAim() { return aim; }
+    public Scope getScope() { return scope; }
+}
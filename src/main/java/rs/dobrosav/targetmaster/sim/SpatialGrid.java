@@ -0,0 +1,148 @@
+package rs.dobrosav.targetmaster.sim;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid over the XZ ground plane used as the broad phase for bullet-target tests.
+ * Objects are identified by a dense integer id and filed under the cell containing their
+ * center; cells are hashed into a fixed bucket table, so the grid covers an unbounded
+ * area with constant memory. Each bucket is an intrusive doubly linked list kept in
+ * primitive arrays, so moving an object between cells is O(1) and allocation-free.
+ * <p>
+ * Queries return every object whose center lies in a cell overlapping the query box;
+ * callers widen the box by the object radius and run the exact test on the candidates.
+ */
+public final class SpatialGrid {
+
+    private static final int NONE = -1;
+
+    private final double cellSize;
+    private final int mask;
+    private final int[] heads;
+    private int[] next = new int[0];
+    private int[] prev = new int[0];
+    private int[] bucketOf = new int[0];
+    private long[] cellOf = new long[0];
+    private int[] visited = new int[0];
+    private int stamp;
+
+    /** {@code buckets} is rounded up to a power of two. */
+    public SpatialGrid(double cellSize, int buckets) {
+        this.cellSize = cellSize;
+        int size = Integer.highestOneBit(Math.max(1, buckets - 1)) << 1;
+        this.mask = size - 1;
+        this.heads = new int[size];
+        Arrays.fill(heads, NONE);
+    }
+
+    public void insert(int id, double x, double z) {
+        ensureCapacity(id + 1);
+        long cell = cellKey(x, z);
+        link(id, cell);
+    }
+
+    /** Updates the position of {@code id}; only re-links it when it crosses into another cell. */
+    public void move(int id, double x, double z) {
+        long cell = cellKey(x, z);
+        if (cell != cellOf[id]) {
+            unlink(id);
+            link(id, cell);
+        }
+    }
+
+    public void remove(int id) {
+        unlink(id);
+        bucketOf[id] = NONE;
+    }
+
+    /**
+     * Collects the ids of all objects filed in cells overlapping the box into {@code out}
+     * and returns how many were written. Each id is reported at most once.
+     */
+    public int query(double minX, double minZ, double maxX, double maxZ, int[] out) {
+        int cx0 = cellCoord(minX), cx1 = cellCoord(maxX);
+        int cz0 = cellCoord(minZ), cz1 = cellCoord(maxZ);
+        if (++stamp == 0) {
+            Arrays.fill(visited, 0);
+            stamp = 1;
+        }
+        int count = 0;
+        for (int cx = cx0; cx <= cx1; cx++) {
+            for (int cz = cz0; cz <= cz1; cz++) {
+                long cell = pack(cx, cz);
+                for (int id = heads[bucket(cell)]; id != NONE; id = next[id]) {
+                    if (cellOf[id] != cell || visited[id] == stamp) {
+                        continue;
+                    }
+                    visited[id] = stamp;
+                    if (count == out.length) {
+                        return count;
+                    }
+                    out[count++] = id;
+                }
+            }
+        }
+        return count;
+    }
+
+    private void link(int id, long cell) {
+        int b = bucket(cell);
+        cellOf[id] = cell;
+        bucketOf[id] = b;
+        prev[id] = NONE;
+        next[id] = heads[b];
+        if (heads[b] != NONE) {
+            prev[heads[b]] = id;
+        }
+        heads[b] = id;
+    }
+
+    private void unlink(int id) {
+        int b = bucketOf[id];
+        if (b == NONE) {
+            return;
+        }
+        if (prev[id] != NONE) {
+            next[prev[id]] = next[id];
+        } else {
+            heads[b] = next[id];
+        }
+        if (next[id] != NONE) {
+            prev[next[id]] = prev[id];
+        }
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= next.length) {
+            return;
+        }
+        int old = next.length;
+        int size = Math.max(n, old * 2);
+        next = Arrays.copyOf(next, size);
+        prev = Arrays.copyOf(prev, size);
+        cellOf = Arrays.copyOf(cellOf, size);
+        visited = Arrays.copyOf(visited, size);
+        bucketOf = Arrays.copyOf(bucketOf, size);
+        Arrays.fill(bucketOf, old, size, NONE);
+    }
+
+    private int cellCoord(double v) {
+        return (int) Math.floor(v / cellSize);
+    }
+
+    private long cellKey(double x, double z) {
+        return pack(cellCoord(x), cellCoord(z));
+    }
+
+    private static long pack(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+
+    private int bucket(long cell) {
+        int cx = (int) (cell >> 32);
+        int cz = (int) cell;
+        return (cx * 73856093 ^ cz * 19349663) & mask;
+    }
+
+    public double getCellSize() { return cellSize; }
+}
@@ -0,0 +1,34 @@
+package rs.dobrosav.targetmaster.sim;
+
+/**
+ * A round target facing the shooter. The face lies in the XY plane at {@link #getZ()}.
+ * This is a handle onto one slot of the {@link TargetField}, which keeps the actual state.
+ */
+public final class Target {
+
+    public static final double OUTER_RADIUS = 15;
+    public static final double MIDDLE_RADIUS = 10;
+    public static final double INNER_RADIUS = 5;
+    public static final double THICKNESS = 2.5;
+
+    private final TargetField field;
+    final int index;
+
+    Target(TargetField field, int index) {
+        this.field = field;
+        this.index = index;
+    }
+
+    /** Position of this target in {@link World#getTargets()}, stable for the life of the world. */
+    public int getIndex() { return index; }
+
+    public double getX() { return field.x[index]; }
+    public double getY() { return field.y[index]; }
+    public double getZ() { return field.z[index]; }
+    public Motion getMotion() { return Motion.VALUES[field.motion[index]]; }
+    /** World tick at which this target appeared at its current spawn point. */
+    public long getSpawnTick() { return field.spawnTick[index]; }
+
+    /** {@code false} while a pop-up target is down; such a target is hidden and cannot be hit. */
+    public boolean isUp() { return field.up[index]; }
+}
@@ -0,0 +1,201 @@
+package rs.dobrosav.targetmaster.sim;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * State of all targets as parallel primitive arrays, advanced in one pass per tick.
+ * With many targets the pass is split across the common fork/join pool.
+ * <p>
+ * Targets whose position or visibility changed are collected in a dirty list, so the
+ * view only has to push those transforms to the scene graph.
+ */
+public final class TargetField {
+
+    /** Half-width of the band a sweeping target patrols around its spawn point. */
+    public static final double PATROL_BOUNDS_X = 200;
+    public static final double MIN_SPEED = 60;
+    public static final double MAX_SPEED = 180;
+    public static final double MIN_AMPLITUDE = 50;
+    public static final double MAX_AMPLITUDE = 200;
+    public static final double POPUP_UP_TIME = 2.5;
+    public static final double POPUP_DOWN_TIME = 1.5;
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 4096;
+
+    private static final int CHUNK = 1024;
+    // Ordinals of Motion, as stored in the motion array
+    private static final int SWEEP = 1;
+    private static final int SINE = 2;
+    private static final int POPUP = 3;
+
+    final int count;
+    final double[] x, y, z;
+    final byte[] motion;
+    final double[] originX;
+    /** Signed speed for sweeps, angular frequency for sines. */
+    final double[] rate;
+    final double[] amplitude;
+    final double[] phase;
+    /** Field time at which each target's motion was set, so a sine starts from its spawn point. */
+    final double[] motionStart;
+    /** Time left in the current pop-up state. */
+    final double[] timer;
+    final boolean[] up;
+    /** World tick at which each target was last placed. */
+    final long[] spawnTick;
+    private final boolean[] moved;
+    private final boolean[] dirty;
+    private final int[] dirtyList;
+    private int dirtyCount;
+    private double time;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    TargetField(int count) {
+        this.count = count;
+        x = new double[count];
+        y = new double[count];
+        z = new double[count];
+        motion = new byte[count];
+        originX = new double[count];
+        rate = new double[count];
+        amplitude = new double[count];
+        phase = new double[count];
+        motionStart = new double[count];
+        timer = new double[count];
+        up = new boolean[count];
+        spawnTick = new long[count];
+        moved = new boolean[count];
+        dirty = new boolean[count];
+        dirtyList = new int[count];
+    }
+
+    void place(int i, double px, double py, double pz) {
+        x[i] = px;
+        y[i] = py;
+        z[i] = pz;
+        originX[i] = px;
+        up[i] = true;
+        markDirty(i);
+    }
+
+    /** Sets the motion of target {@code i}, which starts from where it was placed. */
+    void setMotion(int i, Motion m, double rate, double amplitude, double phase, double timer) {
+        this.motion[i] = (byte) m.ordinal();
+        this.rate[i] = rate;
+        this.amplitude[i] = amplitude;
+        this.phase[i] = phase;
+        this.timer[i] = timer;
+        motionStart[i] = time;
+        if (m == Motion.SINE) {
+            // Center the swing so that it passes through the spawn point at the start
+            originX[i] = x[i] - amplitude * Math.sin(phase);
+        }
+    }
+
+    void step(double dt) {
+        time += dt;
+        if (count >= parallelThreshold) {
+            ForkJoinPool.commonPool().invoke(new Advance(0, count, dt));
+        } else {
+            advance(0, count, dt);
+        }
+    }
+
+    private void advance(int from, int to, double dt) {
+        double t = time;
+        for (int i = from; i < to; i++) {
+            switch (motion[i]) {
+                case SWEEP -> {
+                    double nx = x[i] + rate[i] * dt;
+                    if (nx > originX[i] + PATROL_BOUNDS_X) {
+                        nx = originX[i] + PATROL_BOUNDS_X;
+                        rate[i] = -Math.abs(rate[i]);
+                    } else if (nx < originX[i] - PATROL_BOUNDS_X) {
+                        nx = originX[i] - PATROL_BOUNDS_X;
+                        rate[i] = Math.abs(rate[i]);
+                    }
+                    x[i] = nx;
+                    moved[i] = true;
+                }
+                case SINE -> {
+                    x[i] = originX[i] + amplitude[i] * Math.sin(rate[i] * (t - motionStart[i]) + phase[i]);
+                    moved[i] = true;
+                }
+                case POPUP -> {
+                    double left = timer[i] - dt;
+                    if (left <= 0) {
+                        up[i] = !up[i];
+                        left += up[i] ? POPUP_UP_TIME : POPUP_DOWN_TIME;
+                        moved[i] = true;
+                    }
+                    timer[i] = left;
+                }
+                default -> { }
+            }
+        }
+    }
+
+    /**
+     * Moves the targets that changed in the last {@link #step(double)} within the grid
+     * and queues them for the view. Runs on the simulation thread only.
+     */
+    void commit(SpatialGrid grid) {
+        for (int i = 0; i < count; i++) {
+            if (moved[i]) {
+                moved[i] = false;
+                grid.move(i, x[i], z[i]);
+                markDirty(i);
+            }
+        }
+    }
+
+    private void markDirty(int i) {
+        if (!dirty[i]) {
+            dirty[i] = true;
+            dirtyList[dirtyCount++] = i;
+        }
+    }
+
+    /** Number of targets changed since the last {@link #clearDirty()}. */
+    public int getDirtyCount() { return dirtyCount; }
+
+    /** Index of the {@code k}-th changed target, {@code k < getDirtyCount()}. */
+    public int getDirty(int k) { return dirtyList[k]; }
+
+    public void clearDirty() {
+        for (int k = 0; k < dirtyCount; k++) {
+            dirty[dirtyList[k]] = false;
+        }
+        dirtyCount = 0;
+    }
+
+    public int size() { return count; }
+
+    /** Target count from which a tick is split across the fork/join pool; 0 forces, MAX_VALUE disables. */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    private final class Advance extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to;
+        private final double dt;
+
+        Advance(int from, int to, double dt) {
+            this.from = from;
+            this.to = to;
+            this.dt = dt;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                advance(from, to, dt);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Advance(from, mid, dt), new Advance(mid, to, dt));
+        }
+    }
+}
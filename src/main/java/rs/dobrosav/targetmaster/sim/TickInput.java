@@ -0,0 +1,59 @@
+package rs.dobrosav.targetmaster.sim;
+
+import java.util.Arrays;
+
+/**
+ * Player input applied at the start of one tick: an ordered list of {@link Command}s and
+ * the aim movement around them. All movement between two commands is folded into one
+ * rotation, so a tick normally carries a single look update followed by its shots in the
+ * order they were made. Reused from tick to tick.
+ */
+public final class TickInput {
+
+    private Command[] commands = new Command[8];
+    private double[] pitchBefore = new double[8];
+    private double[] yawBefore = new double[8];
+    private int count;
+    private double pitch;
+    private double yaw;
+
+    public void clear() {
+        count = 0;
+        pitch = 0;
+        yaw = 0;
+    }
+
+    /** Adds aim movement in degrees after the commands added so far. */
+    public void look(double dPitch, double dYaw) {
+        pitch += dPitch;
+        yaw += dYaw;
+    }
+
+    /** Adds a command, performed after the aim movement added before it. */
+    public void command(Command command) {
+        if (count == commands.length) {
+            commands = Arrays.copyOf(commands, count * 2);
+            pitchBefore = Arrays.copyOf(pitchBefore, count * 2);
+            yawBefore = Arrays.copyOf(yawBefore, count * 2);
+        }
+        commands[count] = command;
+        pitchBefore[count] = pitch;
+        yawBefore[count] = yaw;
+        count++;
+        pitch = 0;
+        yaw = 0;
+    }
+
+    public boolean isEmpty() {
+        return count == 0 && pitch == 0 && yaw == 0;
+    }
+
+    public int getCommandCount() { return count; }
+    public Command getCommand(int i) { return commands[i]; }
+    /** Aim movement performed just before command {@code i}. */
+    public double getPitchBefore(int i) { return pitchBefore[i]; }
+    public double getYawBefore(int i) { return yawBefore[i]; }
+    /** Aim movement after the last command. */
+    public double getPitch() { return pitch; }
+    public double getYaw() { return yaw; }
+}
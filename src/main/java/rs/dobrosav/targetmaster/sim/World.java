@@ -0,0 +1,341 @@
+package rs.dobrosav.targetmaster.sim;
+
+import rs.dobrosav.targetmaster.telemetry.Phase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Headless game state: bullets, targets, impact particles and score.
+ * Has no JavaFX dependencies, so it can be stepped without a Stage; the view only
+ * reads the state after each {@link #step()} and draws it.
+ * <p>
+ * Given the same seed, configuration and per-tick {@link TickInput}s, a world goes
+ * through exactly the same states: every random choice comes from a generator derived
+ * from the seed, one per subsystem, so adding draws in one subsystem does not shift the
+ * others.
+ */
+public final class World {
+
+    public static final int DEFAULT_TICK_RATE = 60;
+    /** Scene units per second. */
+    public static final double BULLET_SPEED = 1200;
+    public static final double BULLET_RANGE = 1000;
+    public static final int PARTICLES_PER_HIT = 15;
+    /** Maximum particle speed along each axis, in scene units per second. */
+    public static final double PARTICLE_SPEED = 150;
+    public static final double PARTICLE_LIFETIME = 1.0;
+    public static final double RECOIL_DURATION = 0.06;
+    public static final int BULLET_POOL_SIZE = 64;
+    public static final int MAX_PARTICLES = 8192;
+    /** Grid cell edge, a little over the target diameter so a bullet step touches few cells. */
+    public static final double GRID_CELL_SIZE = 32;
+
+    private final long seed;
+    private final Random targetRandom;
+    private final Random particleRandom;
+    private final int tickRate;
+    private final double dt;
+    private final Shooter shooter;
+    private final Aim aim;
+    private final Scope scope;
+    private final List<Bullet> bullets = new ArrayList<>();
+    private final Pool<Bullet> bulletPool = new Pool<>(Bullet::new, 16, BULLET_POOL_SIZE);
+    private final List<Bullet> bulletsView = Collections.unmodifiableList(bullets);
+    private final ParticleSystem particles;
+    private WorldListener listener = WorldListener.NONE;
+    private final TargetField field;
+    private final List<Target> targets = new ArrayList<>();
+    private final List<Target> targetsView = Collections.unmodifiableList(targets);
+    private final boolean waves;
+    private final SpatialGrid grid;
+    private final int[] candidates;
+    private final Impact impact = new Impact();
+    private final Impact probe = new Impact();
+    private int score;
+    private int hits;
+    private int misses;
+    private long tick;
+    private int nextBulletId;
+    private final long[] phaseNanos = new long[Phase.VALUES.length];
+
+    public World() {
+        this(new Random(), DEFAULT_TICK_RATE);
+    }
+
+    public World(Random random, int tickRate) {
+        this(random, tickRate, 1);
+    }
+
+    public World(Random random, int tickRate, int targetCount) {
+        this(random, tickRate, targetCount, false);
+    }
+
+    /** Seeds the world from {@code random}; see {@link #World(long, int, int, boolean)}. */
+    public World(Random random, int tickRate, int targetCount, boolean waves) {
+        this(random.nextLong(), tickRate, targetCount, waves);
+    }
+
+    /**
+     * @param seed  root seed the per-subsystem generators are derived from
+     * @param waves if {@code true}, every target patrols with a random {@link Motion};
+     *              otherwise all targets stand still
+     */
+    public World(long seed, int tickRate, int targetCount, boolean waves) {
+        if (tickRate <= 0) {
+            throw new IllegalArgumentException("tickRate must be positive: " + tickRate);
+        }
+        if (targetCount <= 0) {
+            throw new IllegalArgumentException("targetCount must be positive: " + targetCount);
+        }
+        SplittableRandom seeds = new SplittableRandom(seed);
+        this.seed = seed;
+        this.targetRandom = new Random(seeds.nextLong());
+        this.particleRandom = new Random(seeds.nextLong());
+        this.tickRate = tickRate;
+        this.dt = 1.0 / tickRate;
+        this.shooter = new Shooter(tickRate);
+        this.aim = shooter.getAim();
+        this.scope = shooter.getScope();
+        this.particles = new ParticleSystem(MAX_PARTICLES, dt);
+        this.waves = waves;
+        this.field = new TargetField(targetCount);
+        this.grid = new SpatialGrid(GRID_CELL_SIZE, targetCount * 2);
+        this.candidates = new int[targetCount];
+        for (int i = 0; i < targetCount; i++) {
+            targets.add(new Target(field, i));
+            placeTarget(i);
+            grid.insert(i, field.x[i], field.z[i]);
+        }
+    }
+
+    public void setListener(WorldListener listener) {
+        this.listener = listener == null ? WorldListener.NONE : listener;
+    }
+
+    public void fire() {
+        Bullet bullet = bulletPool.acquire();
+        bullet.set(0, Aim.EYE_Y, 0, aim.dirX(), aim.dirY(), aim.dirZ());
+        bullet.id = nextBulletId++;
+        bullets.add(bullet);
+        shooter.recoil();
+        listener.shotFired(bullet);
+    }
+
+    public void toggleScope() {
+        shooter.toggleScope();
+    }
+
+    /** Applies {@code input} and advances the simulation by one tick. */
+    public void step(TickInput input) {
+        for (int i = 0; i < input.getCommandCount(); i++) {
+            aim.rotate(input.getPitchBefore(i), input.getYawBefore(i));
+            switch (input.getCommand(i)) {
+                case FIRE -> fire();
+                case TOGGLE_SCOPE -> toggleScope();
+            }
+        }
+        aim.rotate(input.getPitch(), input.getYaw());
+        step();
+    }
+
+    /** Advances the simulation by one fixed tick of {@link #getTimeStep()} seconds. */
+    public void step() {
+        tick++;
+        long t0 = System.nanoTime();
+        shooter.step();
+        long t1 = System.nanoTime();
+        field.step(dt);
+        field.commit(grid);
+        long t2 = System.nanoTime();
+        advanceBullets();
+        long t3 = System.nanoTime();
+        collideBullets();
+        long t4 = System.nanoTime();
+        particles.step();
+        long t5 = System.nanoTime();
+
+        phaseNanos[Phase.SCOPE.ordinal()] = t1 - t0;
+        phaseNanos[Phase.TARGETS.ordinal()] = t2 - t1;
+        phaseNanos[Phase.BULLETS.ordinal()] = t3 - t2;
+        phaseNanos[Phase.COLLISION.ordinal()] = t4 - t3;
+        phaseNanos[Phase.PARTICLES.ordinal()] = t5 - t4;
+    }
+
+    private void advanceBullets() {
+        double distance = BULLET_SPEED * dt;
+        for (int i = 0, n = bullets.size(); i < n; i++) {
+            bullets.get(i).advance(distance);
+        }
+    }
+
+    private void collideBullets() {
+        for (int i = bullets.size() - 1; i >= 0; i--) {
+            Bullet bullet = bullets.get(i);
+            Target hitTarget = sweep(bullet);
+            if (hitTarget != null) {
+                removeBullet(i);
+                hit(hitTarget);
+            } else if (Math.abs(bullet.z) > BULLET_RANGE || Math.abs(bullet.x) > BULLET_RANGE) {
+                misses++;
+                listener.bulletMissed(bullet);
+                removeBullet(i);
+            }
+        }
+    }
+
+    /**
+     * Finds the first target crossed by the bullet's last step, using the grid to limit
+     * the exact test to targets near the step. Leaves the impact in {@link #impact}, and
+     * notes on the bullet the faces it passed beside.
+     */
+    private Target sweep(Bullet bullet) {
+        double r = Target.OUTER_RADIUS;
+        int n = grid.query(
+                Math.min(bullet.prevX, bullet.x) - r, Math.min(bullet.prevZ, bullet.z) - r,
+                Math.max(bullet.prevX, bullet.x) + r, Math.max(bullet.prevZ, bullet.z) + r,
+                candidates);
+        int first = -1;
+        for (int c = 0; c < n; c++) {
+            int id = candidates[c];
+            if (!field.up[id]
+                    || !Collision.sweepFacePlane(bullet.prevX, bullet.prevY, bullet.prevZ,
+                            bullet.x, bullet.y, bullet.z, field.x[id], field.y[id], field.z[id], probe)) {
+                continue;
+            }
+            if (probe.ring == null) {
+                bullet.nearMiss(id, field.x[id], field.y[id], probe);
+            } else if (first < 0 || probe.t < impact.t) {
+                first = id;
+                impact.copyFrom(probe);
+            }
+        }
+        return first < 0 ? null : targets.get(first);
+    }
+
+    /**
+     * Moves {@code target} to a new spawn point, as after a hit, without scoring. For hits
+     * decided outside this world, such as shots validated by a server.
+     */
+    public void respawn(Target target) {
+        placeTarget(target.index);
+        grid.move(target.index, field.x[target.index], field.z[target.index]);
+        listener.targetSpawned(target);
+    }
+
+    private void removeBullet(int i) {
+        bulletPool.release(swapRemove(bullets, i));
+    }
+
+    /** Removes element {@code i} by moving the last element into its slot; order is not preserved. */
+    private static <T> T swapRemove(List<T> list, int i) {
+        int last = list.size() - 1;
+        T removed = list.get(i);
+        list.set(i, list.get(last));
+        list.remove(last);
+        return removed;
+    }
+
+    private void hit(Target target) {
+        hits++;
+        score += impact.ring.getPoints();
+        spawnParticles(impact.x, impact.y, impact.z);
+        listener.targetHit(target, impact);
+        respawn(target);
+    }
+
+    private void spawnParticles(double x, double y, double z) {
+        for (int i = 0; i < PARTICLES_PER_HIT; i++) {
+            particles.spawn(x, y, z,
+                    (particleRandom.nextDouble() - 0.5) * 2 * PARTICLE_SPEED,
+                    (particleRandom.nextDouble() - 0.5) * 2 * PARTICLE_SPEED,
+                    (particleRandom.nextDouble() - 0.5) * 2 * PARTICLE_SPEED,
+                    PARTICLE_LIFETIME);
+        }
+    }
+
+    private void placeTarget(int i) {
+        field.place(i,
+                (targetRandom.nextDouble() - 0.5) * 400,
+                (targetRandom.nextDouble() * -50) - 10,
+                -(targetRandom.nextDouble() * 500 + 400));
+        field.spawnTick[i] = tick;
+        if (!waves) {
+            return;
+        }
+        Motion motion = Motion.VALUES[1 + targetRandom.nextInt(Motion.VALUES.length - 1)];
+        double speed = TargetField.MIN_SPEED + targetRandom.nextDouble() * (TargetField.MAX_SPEED - TargetField.MIN_SPEED);
+        double amplitude = TargetField.MIN_AMPLITUDE
+                + targetRandom.nextDouble() * (TargetField.MAX_AMPLITUDE - TargetField.MIN_AMPLITUDE);
+        switch (motion) {
+            case SWEEP -> field.setMotion(i, motion, targetRandom.nextBoolean() ? speed : -speed, 0, 0, 0);
+            case SINE -> field.setMotion(i, motion, speed / amplitude, amplitude, targetRandom.nextDouble() * 2 * Math.PI, 0);
+            default -> field.setMotion(i, motion, 0, 0, 0, targetRandom.nextDouble() * TargetField.POPUP_UP_TIME);
+        }
+    }
+
+    /**
+     * Hash of the simulation state: tick, aim, score, targets, bullets and particles.
+     * Two worlds that went through the same ticks have the same checksum; replays use it
+     * to verify that they reproduced a session exactly.
+     */
+    public long checksum() {
+        long h = tick;
+        h = mix(h, Double.doubleToLongBits(aim.getPitch()));
+        h = mix(h, Double.doubleToLongBits(aim.getEffectivePitch()));
+        h = mix(h, Double.doubleToLongBits(aim.getYaw()));
+        h = mix(h, scope.isScoped() ? 1 : 0);
+        h = mix(h, score);
+        h = mix(h, hits);
+        h = mix(h, misses);
+        for (int i = 0; i < field.size(); i++) {
+            h = mix(h, Double.doubleToLongBits(field.x[i]));
+            h = mix(h, Double.doubleToLongBits(field.y[i]));
+            h = mix(h, Double.doubleToLongBits(field.z[i]));
+            h = mix(h, field.up[i] ? 1 : 0);
+        }
+        for (Bullet bullet : bullets) {
+            h = mix(h, Double.doubleToLongBits(bullet.x));
+            h = mix(h, Double.doubleToLongBits(bullet.y));
+            h = mix(h, Double.doubleToLongBits(bullet.z));
+        }
+        h = mix(h, particles.size());
+        for (int i = 0; i < particles.size(); i++) {
+            h = mix(h, Float.floatToIntBits(particles.getX(i, 1)));
+            h = mix(h, Float.floatToIntBits(particles.getY(i, 1)));
+            h = mix(h, Float.floatToIntBits(particles.getZ(i, 1)));
+        }
+        return h;
+    }
+
+    private static long mix(long h, long v) {
+        h ^= v;
+        h *= 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /** Root seed of the random generators, needed to replay this world. */
+    public long getSeed() { return seed; }
+    public boolean isWaves() { return waves; }
+
+    public Aim getAim() { return aim; }
+    public Scope getScope() { return scope; }
+    public List<Target> getTargets() { return targetsView; }
+    public TargetField getTargetField() { return field; }
+    public List<Bullet> getBullets() { return bulletsView; }
+    public ParticleSystem getParticles() { return particles; }
+    /** Sum of the {@link Ring#getPoints() ring points} of all hits. */
+    public int getScore() { return score; }
+    public int getHits() { return hits; }
+    public int getMisses() { return misses; }
+    public long getTick() { return tick; }
+
+    /** Time the last {@link #step()} spent in a simulation phase; 0 for phases outside the simulation. */
+    public long getPhaseNanos(Phase phase) { return phaseNanos[phase.ordinal()]; }
+    public int getTickRate() { return tickRate; }
+    public int getTargetCount() { return field.size(); }
+    public double getTimeStep() { return dt; }
+}
@@ -0,0 +1,20 @@
+package rs.dobrosav.targetmaster.sim;
+
+/**
+ * Callbacks for things the view has to react to. All methods run on the thread stepping the world.
+ * Bullets and impacts are reused, so they must not be kept after the callback returns.
+ */
+public interface WorldListener {
+
+    WorldListener NONE = new WorldListener() { };
+
+    default void shotFired(Bullet bullet) { }
+
+    /** A target was hit; it is still at the position where it was hit. */
+    default void targetHit(Target target, Impact impact) { }
+
+    /** A target was moved to a new spawn position. */
+    default void targetSpawned(Target target) { }
+
+    default void bulletMissed(Bullet bullet) { }
+}
@@ -0,0 +1,45 @@
+package rs.dobrosav.targetmaster.snapshot;
+
+import java.nio.ByteBuffer;
+
+/** Reads the bit fields a {@link BitWriter} wrote. */
+final class BitReader {
+
+    private static final int[] UNSIGNED_BITS = {4, 8, 16, 32};
+    private static final int[] SIGNED_BITS = {0, 8, 16, 32};
+
+    private ByteBuffer buf;
+    private long bits;
+    private int count;
+
+    void reset(ByteBuffer buf) {
+        this.buf = buf;
+        bits = 0;
+        count = 0;
+    }
+
+    /** Reads {@code width} bits, at most 32, as an unsigned value. */
+    long read(int width) {
+        while (count < width) {
+            bits |= (buf.get() & 0xFFL) << count;
+            count += 8;
+        }
+        long value = bits & (1L << width) - 1;
+        bits >>>= width;
+        count -= width;
+        return value;
+    }
+
+    boolean readBit() {
+        return read(1) != 0;
+    }
+
+    long readUnsigned() {
+        return read(UNSIGNED_BITS[(int) read(2)]);
+    }
+
+    long readSigned() {
+        long zigzag = read(SIGNED_BITS[(int) read(2)]);
+        return zigzag >>> 1 ^ -(zigzag & 1);
+    }
+}
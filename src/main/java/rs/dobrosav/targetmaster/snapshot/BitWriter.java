@@ -0,0 +1,71 @@
+package rs.dobrosav.targetmaster.snapshot;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packs bit fields, least significant bit first, into a {@link ByteBuffer}. Integers are
+ * written with a 2-bit size class in front, so small values and small deltas take few
+ * bits. Bytes are put as they fill up; {@link #flush()} writes the last partial byte.
+ */
+final class BitWriter {
+
+    /** Upper bound in bits of any {@link #writeUnsigned} or {@link #writeSigned} field. */
+    static final int MAX_FIELD_BITS = 34;
+
+    private static final int[] UNSIGNED_BITS = {4, 8, 16, 32};
+    private static final int[] SIGNED_BITS = {0, 8, 16, 32};
+
+    private ByteBuffer buf;
+    private long bits;
+    private int count;
+
+    void reset(ByteBuffer buf) {
+        this.buf = buf;
+        bits = 0;
+        count = 0;
+    }
+
+    /** Writes the low {@code width} bits of {@code value}, {@code width} at most 32. */
+    void write(long value, int width) {
+        bits |= (value & (1L << width) - 1) << count;
+        count += width;
+        while (count >= 8) {
+            buf.put((byte) bits);
+            bits >>>= 8;
+            count -= 8;
+        }
+    }
+
+    void writeBit(boolean value) {
+        write(value ? 1 : 0, 1);
+    }
+
+    /** Writes {@code value} in [0, 2^32) with 6 to 34 bits. */
+    void writeUnsigned(long value) {
+        write(value, classed(value, UNSIGNED_BITS));
+    }
+
+    /** Writes {@code value} in [-2^31, 2^31) with 2 to 34 bits; zero takes 2, a value in [-128, 128) 10. */
+    void writeSigned(long value) {
+        long zigzag = value << 1 ^ value >> 63;
+        write(zigzag, classed(zigzag, SIGNED_BITS));
+    }
+
+    private int classed(long value, int[] widths) {
+        int size = 0;
+        while (size < 3 && value >>> widths[size] != 0) {
+            size++;
+        }
+        write(size, 2);
+        return widths[size];
+    }
+
+    /** Writes the pending bits, padded to a whole byte. */
+    void flush() {
+        if (count > 0) {
+            buf.put((byte) bits);
+        }
+        bits = 0;
+        count = 0;
+    }
+}
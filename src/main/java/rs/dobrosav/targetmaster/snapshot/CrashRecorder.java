@@ -0,0 +1,49 @@
+package rs.dobrosav.targetmaster.snapshot;
+
+import rs.dobrosav.targetmaster.sim.World;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Keeps the snapshots of the last few seconds in memory and writes them out on demand,
+ * typically from an uncaught exception handler, so a crash comes with the state that led
+ * up to it. Recording a tick costs one {@link Snapshot#capture}; encoding only happens
+ * when dumping.
+ */
+public final class CrashRecorder {
+
+    private final Snapshot[] ring;
+    private Snapshot last;
+    private long recorded;
+
+    /** @param ticks how many of the most recent ticks to keep */
+    public CrashRecorder(int ticks) {
+        if (ticks < 1) {
+            throw new IllegalArgumentException("ticks must be positive");
+        }
+        ring = new Snapshot[ticks];
+        for (int i = 0; i < ticks; i++) {
+            ring[i] = new Snapshot();
+        }
+    }
+
+    /** Captures the current tick of {@code world}, dropping the oldest one kept. */
+    public void record(World world) {
+        Snapshot slot = ring[(int) (recorded % ring.length)];
+        slot.capture(world, slot != last ? last : null);
+        last = slot;
+        recorded++;
+    }
+
+    /** Writes the kept snapshots, oldest first, to {@code file}; returns how many. */
+    public int dump(Path file) throws IOException {
+        int count = (int) Math.min(recorded, ring.length);
+        try (SnapshotWriter writer = new SnapshotWriter(file, ring.length)) {
+            for (long i = recorded - count; i < recorded; i++) {
+                writer.write(ring[(int) (i % ring.length)]);
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,239 @@
+package rs.dobrosav.targetmaster.snapshot;
+
+import rs.dobrosav.targetmaster.sim.Aim;
+import rs.dobrosav.targetmaster.sim.Bullet;
+import rs.dobrosav.targetmaster.sim.Target;
+import rs.dobrosav.targetmaster.sim.World;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The visible state of a {@link World} at one tick, quantized: target positions and
+ * visibility, bullets in flight, score and aim. Positions are stored in steps of
+ * {@link #POSITION_QUANTUM}, so two snapshots compare and delta-encode exactly.
+ * <p>
+ * Bullets fly in straight lines, so a bullet is stored as an anchor (tick, position,
+ * direction) and its position at the snapshot tick is extrapolated from that. When
+ * capturing, a bullet keeps the anchor it had in the previous snapshot for as long as
+ * the extrapolation stays within {@link #BULLET_TOLERANCE}; a delta then only has to
+ * mention bullets that appeared, vanished or drifted.
+ * <p>
+ * Instances are reusable: arrays grow as needed and are never shrunk.
+ */
+public final class Snapshot {
+
+    public static final double POSITION_QUANTUM = 1.0 / 16;
+    public static final double ANGLE_QUANTUM = 0.01;
+    /** Largest extrapolation error, in scene units, before a bullet is re-anchored. */
+    public static final double BULLET_TOLERANCE = 0.5;
+    /** Direction components are stored as signed 16-bit fractions of this. */
+    static final int DIRECTION_SCALE = 32767;
+    static final int FULL_TURN = (int) Math.round(360 / ANGLE_QUANTUM);
+
+    long tick;
+    int tickRate;
+    int score;
+    int hits;
+    int misses;
+    boolean scoped;
+    int pitch;
+    /** In [0, FULL_TURN). */
+    int yaw;
+
+    int targetCount;
+    int[] targetX = new int[0];
+    int[] targetY = new int[0];
+    int[] targetZ = new int[0];
+    boolean[] targetUp = new boolean[0];
+
+    /** Sorted by id. */
+    int bulletCount;
+    int[] bulletId = new int[0];
+    long[] anchorTick = new long[0];
+    int[] anchorX = new int[0];
+    int[] anchorY = new int[0];
+    int[] anchorZ = new int[0];
+    short[] dirX = new short[0];
+    short[] dirY = new short[0];
+    short[] dirZ = new short[0];
+    private long[] sortKeys = new long[0];
+
+    /**
+     * Captures {@code world} as it is now.
+     *
+     * @param previous the snapshot captured before this one, whose bullet anchors are
+     *                 kept where still accurate, or {@code null}
+     */
+    public void capture(World world, Snapshot previous) {
+        if (previous == this) {
+            throw new IllegalArgumentException("previous must be another snapshot");
+        }
+        tick = world.getTick();
+        tickRate = world.getTickRate();
+        score = world.getScore();
+        hits = world.getHits();
+        misses = world.getMisses();
+        scoped = world.getScope().isScoped();
+        Aim aim = world.getAim();
+        pitch = (int) Math.round(aim.getPitch() / ANGLE_QUANTUM);
+        yaw = Math.floorMod(Math.round(aim.getYaw() / ANGLE_QUANTUM), FULL_TURN);
+
+        List<Target> targets = world.getTargets();
+        ensureTargets(targets.size());
+        for (int i = 0; i < targetCount; i++) {
+            Target target = targets.get(i);
+            targetX[i] = quantize(target.getX());
+            targetY[i] = quantize(target.getY());
+            targetZ[i] = quantize(target.getZ());
+            targetUp[i] = target.isUp();
+        }
+
+        List<Bullet> bullets = world.getBullets();
+        int count = bullets.size();
+        ensureBullets(count);
+        if (sortKeys.length < count) {
+            sortKeys = new long[Math.max(count, sortKeys.length * 2)];
+        }
+        // World keeps bullets unordered; sort indices by id, ids in the high half
+        for (int i = 0; i < count; i++) {
+            sortKeys[i] = (long) bullets.get(i).getId() << 32 | i;
+        }
+        Arrays.sort(sortKeys, 0, count);
+        int p = 0;
+        for (int k = 0; k < count; k++) {
+            Bullet bullet = bullets.get((int) sortKeys[k]);
+            int id = bullet.getId();
+            bulletId[k] = id;
+            if (previous != null) {
+                while (p < previous.bulletCount && previous.bulletId[p] < id) {
+                    p++;
+                }
+                if (p < previous.bulletCount && previous.bulletId[p] == id && previous.tickRate == tickRate
+                        && Math.abs(previous.bulletX(p, tick) - bullet.getX()) <= BULLET_TOLERANCE
+                        && Math.abs(previous.bulletY(p, tick) - bullet.getY()) <= BULLET_TOLERANCE
+                        && Math.abs(previous.bulletZ(p, tick) - bullet.getZ()) <= BULLET_TOLERANCE) {
+                    anchorTick[k] = previous.anchorTick[p];
+                    anchorX[k] = previous.anchorX[p];
+                    anchorY[k] = previous.anchorY[p];
+                    anchorZ[k] = previous.anchorZ[p];
+                    dirX[k] = previous.dirX[p];
+                    dirY[k] = previous.dirY[p];
+                    dirZ[k] = previous.dirZ[p];
+                    continue;
+                }
+            }
+            anchorTick[k] = tick;
+            anchorX[k] = quantize(bullet.getX());
+            anchorY[k] = quantize(bullet.getY());
+            anchorZ[k] = quantize(bullet.getZ());
+            dirX[k] = (short) Math.round(bullet.getDirX() * DIRECTION_SCALE);
+            dirY[k] = (short) Math.round(bullet.getDirY() * DIRECTION_SCALE);
+            dirZ[k] = (short) Math.round(bullet.getDirZ() * DIRECTION_SCALE);
+        }
+    }
+
+    /** Makes this an exact copy of {@code other}. */
+    public void copyFrom(Snapshot other) {
+        tick = other.tick;
+        tickRate = other.tickRate;
+        score = other.score;
+        hits = other.hits;
+        misses = other.misses;
+        scoped = other.scoped;
+        pitch = other.pitch;
+        yaw = other.yaw;
+        ensureTargets(other.targetCount);
+        System.arraycopy(other.targetX, 0, targetX, 0, targetCount);
+        System.arraycopy(other.targetY, 0, targetY, 0, targetCount);
+        System.arraycopy(other.targetZ, 0, targetZ, 0, targetCount);
+        System.arraycopy(other.targetUp, 0, targetUp, 0, targetCount);
+        ensureBullets(other.bulletCount);
+        System.arraycopy(other.bulletId, 0, bulletId, 0, bulletCount);
+        System.arraycopy(other.anchorTick, 0, anchorTick, 0, bulletCount);
+        System.arraycopy(other.anchorX, 0, anchorX, 0, bulletCount);
+        System.arraycopy(other.anchorY, 0, anchorY, 0, bulletCount);
+        System.arraycopy(other.anchorZ, 0, anchorZ, 0, bulletCount);
+        System.arraycopy(other.dirX, 0, dirX, 0, bulletCount);
+        System.arraycopy(other.dirY, 0, dirY, 0, bulletCount);
+        System.arraycopy(other.dirZ, 0, dirZ, 0, bulletCount);
+    }
+
+    /** Empties this snapshot, as the baseline of a key frame. */
+    void clear() {
+        tick = 0;
+        tickRate = 0;
+        score = hits = misses = 0;
+        scoped = false;
+        pitch = yaw = 0;
+        targetCount = 0;
+        bulletCount = 0;
+    }
+
+    void ensureTargets(int count) {
+        if (targetX.length < count) {
+            targetX = Arrays.copyOf(targetX, count);
+            targetY = Arrays.copyOf(targetY, count);
+            targetZ = Arrays.copyOf(targetZ, count);
+            targetUp = Arrays.copyOf(targetUp, count);
+        }
+        targetCount = count;
+    }
+
+    void ensureBullets(int count) {
+        if (bulletId.length < count) {
+            int capacity = Math.max(count, bulletId.length * 2);
+            bulletId = Arrays.copyOf(bulletId, capacity);
+            anchorTick = Arrays.copyOf(anchorTick, capacity);
+            anchorX = Arrays.copyOf(anchorX, capacity);
+            anchorY = Arrays.copyOf(anchorY, capacity);
+            anchorZ = Arrays.copyOf(anchorZ, capacity);
+            dirX = Arrays.copyOf(dirX, capacity);
+            dirY = Arrays.copyOf(dirY, capacity);
+            dirZ = Arrays.copyOf(dirZ, capacity);
+        }
+        bulletCount = count;
+    }
+
+    static int quantize(double position) {
+        return (int) Math.round(position / POSITION_QUANTUM);
+    }
+
+    private double bulletX(int i, long atTick) {
+        return anchorX[i] * POSITION_QUANTUM + travel(i, atTick) * dirX[i] / DIRECTION_SCALE;
+    }
+
+    private double bulletY(int i, long atTick) {
+        return anchorY[i] * POSITION_QUANTUM + travel(i, atTick) * dirY[i] / DIRECTION_SCALE;
+    }
+
+    private double bulletZ(int i, long atTick) {
+        return anchorZ[i] * POSITION_QUANTUM + travel(i, atTick) * dirZ[i] / DIRECTION_SCALE;
+    }
+
+    private double travel(int i, long atTick) {
+        return World.BULLET_SPEED / tickRate * (atTick - anchorTick[i]);
+    }
+
+    public long getTick() { return tick; }
+    public int getTickRate() { return tickRate; }
+    public int getScore() { return score; }
+    public int getHits() { return hits; }
+    public int getMisses() { return misses; }
+    public boolean isScoped() { return scoped; }
+    public double getPitch() { return pitch * ANGLE_QUANTUM; }
+    /** In [0, 360). */
+    public double getYaw() { return yaw * ANGLE_QUANTUM; }
+
+    public int getTargetCount() { return targetCount; }
+    public double getTargetX(int i) { return targetX[i] * POSITION_QUANTUM; }
+    public double getTargetY(int i) { return targetY[i] * POSITION_QUANTUM; }
+    public double getTargetZ(int i) { return targetZ[i] * POSITION_QUANTUM; }
+    public boolean isTargetUp(int i) { return targetUp[i]; }
+
+    public int getBulletCount() { return bulletCount; }
+    public int getBulletId(int i) { return bulletId[i]; }
+    public double getBulletX(int i) { return bulletX(i, tick); }
+    public double getBulletY(int i) { return bulletY(i, tick); }
+    public double getBulletZ(int i) { return bulletZ(i, tick); }
+}
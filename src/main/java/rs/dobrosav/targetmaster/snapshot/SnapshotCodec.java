@@ -0,0 +1,306 @@
+package rs.dobrosav.targetmaster.snapshot;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Binary encoding of a {@link Snapshot} as a delta against an earlier one the receiver
+ * already has, its baseline. Without a baseline the snapshot is a key frame, a delta
+ * against the empty state. Only what differs is written: targets whose position or
+ * visibility changed, bullets that appeared, vanished or were re-anchored, and changes
+ * of score and aim. All fields are bit-packed with small size classes, so an unchanged
+ * target costs nothing and a slowly moving one a few bytes.
+ * <pre>
+ * long tick, then bit fields:
+ *   u baseline age (tick - baseline tick; 0 for a key frame), u tick rate
+ *   s score, s hits, s misses (deltas), bit scoped, s pitch, s yaw (deltas, yaw wrapped)
+ *   u target count, u changed targets, per changed target:
+ *     u index gap, bit up, s x, s y, s z (deltas, in position quanta)
+ *   u removed bullets, per removed bullet: u id gap
+ *   u updated bullets, per updated bullet:
+ *     u id gap, u anchor age, s x, s y, s z (absolute), 16 bits each direction x, y, z
+ * </pre>
+ * {@code u} and {@code s} are unsigned and zigzag signed integers with a 2-bit size
+ * class, see {@link BitWriter}. Index and id gaps count from one past the previous entry.
+ * If the target count differs from the baseline's, every target is a delta from zero.
+ * <p>
+ * An instance holds reusable scratch space and is not thread-safe.
+ */
+public final class SnapshotCodec {
+
+    /** Sanity limit on counts read, so corrupt input cannot ask for huge arrays. */
+    private static final int MAX_COUNT = 1 << 24;
+
+    private final BitWriter writer = new BitWriter();
+    private final BitReader reader = new BitReader();
+    private final Snapshot empty = new Snapshot();
+    private int[] changed = new int[64];
+    private int[] removed = new int[64];
+    private int[] updated = new int[64];
+    private final Snapshot updates = new Snapshot();
+
+    /** Upper bound of the encoded size of {@code current} against {@code baseline} (may be {@code null}). */
+    public static int maxSize(Snapshot current, Snapshot baseline) {
+        long bits = 12L * BitWriter.MAX_FIELD_BITS
+                + current.targetCount * (2L + 4 * BitWriter.MAX_FIELD_BITS)
+                + (baseline == null ? 0 : baseline.bulletCount) * (long) BitWriter.MAX_FIELD_BITS
+                + current.bulletCount * (5L * BitWriter.MAX_FIELD_BITS + 48);
+        return (int) Math.min(Integer.MAX_VALUE, 8 + (bits + 7) / 8);
+    }
+
+    /** Tick of the snapshot at the position of {@code in}, without consuming it. */
+    public static long tick(ByteBuffer in) {
+        return in.getLong(in.position());
+    }
+
+    /**
+     * Tick of the baseline the snapshot at the position of {@code in} was encoded against,
+     * or -1 for a key frame; does not consume it.
+     */
+    public long baselineTick(ByteBuffer in) {
+        long tick = in.getLong(in.position());
+        reader.reset(in.duplicate().position(in.position() + 8));
+        long age = reader.readUnsigned();
+        return age == 0 ? -1 : tick - age;
+    }
+
+    /**
+     * Appends {@code current} to {@code out} as a delta against {@code baseline}, or as a
+     * key frame if {@code baseline} is {@code null}. {@code out} needs at least
+     * {@link #maxSize} bytes remaining.
+     */
+    public void encode(Snapshot current, Snapshot baseline, ByteBuffer out) {
+        Snapshot base = baseline != null ? baseline : empty;
+        if (baseline != null && baseline.tick >= current.tick) {
+            throw new IllegalArgumentException("Baseline tick " + baseline.tick + " not before " + current.tick);
+        }
+        out.putLong(current.tick);
+        BitWriter w = writer;
+        w.reset(out);
+        w.writeUnsigned(baseline == null ? 0 : current.tick - baseline.tick);
+        w.writeUnsigned(current.tickRate);
+        w.writeSigned(current.score - base.score);
+        w.writeSigned(current.hits - base.hits);
+        w.writeSigned(current.misses - base.misses);
+        w.writeBit(current.scoped);
+        w.writeSigned(current.pitch - base.pitch);
+        w.writeSigned(wrapYaw(current.yaw - base.yaw));
+
+        int n = current.targetCount;
+        boolean sameTargets = n == base.targetCount;
+        if (changed.length < n) {
+            changed = new int[n];
+        }
+        int changedCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (sameTargets
+                    ? current.targetX[i] != base.targetX[i] || current.targetY[i] != base.targetY[i]
+                            || current.targetZ[i] != base.targetZ[i] || current.targetUp[i] != base.targetUp[i]
+                    : current.targetX[i] != 0 || current.targetY[i] != 0 || current.targetZ[i] != 0
+                            || current.targetUp[i]) {
+                changed[changedCount++] = i;
+            }
+        }
+        w.writeUnsigned(n);
+        w.writeUnsigned(changedCount);
+        int previous = -1;
+        for (int k = 0; k < changedCount; k++) {
+            int i = changed[k];
+            w.writeUnsigned(i - previous - 1);
+            w.writeBit(current.targetUp[i]);
+            w.writeSigned(current.targetX[i] - (sameTargets ? base.targetX[i] : 0));
+            w.writeSigned(current.targetY[i] - (sameTargets ? base.targetY[i] : 0));
+            w.writeSigned(current.targetZ[i] - (sameTargets ? base.targetZ[i] : 0));
+            previous = i;
+        }
+
+        // Both bullet lists are sorted by id: one merge finds what vanished and what is new
+        if (removed.length < base.bulletCount) {
+            removed = new int[Math.max(base.bulletCount, removed.length * 2)];
+        }
+        if (updated.length < current.bulletCount) {
+            updated = new int[Math.max(current.bulletCount, updated.length * 2)];
+        }
+        int removedCount = 0;
+        int updatedCount = 0;
+        int b = 0;
+        int c = 0;
+        while (b < base.bulletCount || c < current.bulletCount) {
+            if (c == current.bulletCount || b < base.bulletCount && base.bulletId[b] < current.bulletId[c]) {
+                removed[removedCount++] = b++;
+            } else if (b == base.bulletCount || current.bulletId[c] < base.bulletId[b]) {
+                updated[updatedCount++] = c++;
+            } else {
+                if (!sameAnchor(current, c, base, b)) {
+                    updated[updatedCount++] = c;
+                }
+                b++;
+                c++;
+            }
+        }
+        w.writeUnsigned(removedCount);
+        previous = -1;
+        for (int k = 0; k < removedCount; k++) {
+            int id = base.bulletId[removed[k]];
+            w.writeUnsigned(id - previous - 1);
+            previous = id;
+        }
+        w.writeUnsigned(updatedCount);
+        previous = -1;
+        for (int k = 0; k < updatedCount; k++) {
+            int i = updated[k];
+            int id = current.bulletId[i];
+            w.writeUnsigned(id - previous - 1);
+            w.writeUnsigned(current.tick - current.anchorTick[i]);
+            w.writeSigned(current.anchorX[i]);
+            w.writeSigned(current.anchorY[i]);
+            w.writeSigned(current.anchorZ[i]);
+            w.write(current.dirX[i], 16);
+            w.write(current.dirY[i], 16);
+            w.write(current.dirZ[i], 16);
+            previous = id;
+        }
+        w.flush();
+    }
+
+    /**
+     * Reads the snapshot at the position of {@code in} into {@code out}.
+     *
+     * @param baseline the snapshot of {@link #baselineTick}; ignored for a key frame
+     * @throws IllegalArgumentException if {@code baseline} is not the one the snapshot
+     *                                  was encoded against, or the data is corrupt
+     */
+    public void decode(ByteBuffer in, Snapshot baseline, Snapshot out) {
+        long tick = in.getLong();
+        BitReader r = reader;
+        r.reset(in);
+        long age = r.readUnsigned();
+        Snapshot base = empty;
+        if (age != 0) {
+            if (baseline == null || baseline.tick != tick - age) {
+                throw new IllegalArgumentException("Snapshot of tick " + tick + " needs baseline tick " + (tick - age)
+                        + ", have " + (baseline == null ? "none" : baseline.tick));
+            }
+            base = baseline;
+        }
+        if (out == base) {
+            throw new IllegalArgumentException("Cannot decode into the baseline");
+        }
+        out.tick = tick;
+        out.tickRate = (int) r.readUnsigned();
+        out.score = (int) (base.score + r.readSigned());
+        out.hits = (int) (base.hits + r.readSigned());
+        out.misses = (int) (base.misses + r.readSigned());
+        out.scoped = r.readBit();
+        out.pitch = (int) (base.pitch + r.readSigned());
+        out.yaw = Math.floorMod(base.yaw + r.readSigned(), Snapshot.FULL_TURN);
+
+        int n = count(r.readUnsigned());
+        out.ensureTargets(n);
+        if (n == base.targetCount) {
+            System.arraycopy(base.targetX, 0, out.targetX, 0, n);
+            System.arraycopy(base.targetY, 0, out.targetY, 0, n);
+            System.arraycopy(base.targetZ, 0, out.targetZ, 0, n);
+            System.arraycopy(base.targetUp, 0, out.targetUp, 0, n);
+        } else {
+            Arrays.fill(out.targetX, 0, n, 0);
+            Arrays.fill(out.targetY, 0, n, 0);
+            Arrays.fill(out.targetZ, 0, n, 0);
+            Arrays.fill(out.targetUp, 0, n, false);
+        }
+        long changedCount = r.readUnsigned();
+        long index = -1;
+        for (long k = 0; k < changedCount; k++) {
+            index += r.readUnsigned() + 1;
+            if (index >= n) {
+                throw new IllegalArgumentException("Target index " + index + " out of " + n);
+            }
+            int i = (int) index;
+            out.targetUp[i] = r.readBit();
+            out.targetX[i] += (int) r.readSigned();
+            out.targetY[i] += (int) r.readSigned();
+            out.targetZ[i] += (int) r.readSigned();
+        }
+
+        int removedCount = count(r.readUnsigned());
+        if (removed.length < removedCount) {
+            removed = new int[removedCount];
+        }
+        long id = -1;
+        for (int k = 0; k < removedCount; k++) {
+            id += r.readUnsigned() + 1;
+            removed[k] = (int) id;
+        }
+        int updatedCount = count(r.readUnsigned());
+        Snapshot u = updates;
+        u.ensureBullets(updatedCount);
+        id = -1;
+        for (int k = 0; k < updatedCount; k++) {
+            id += r.readUnsigned() + 1;
+            u.bulletId[k] = (int) id;
+            u.anchorTick[k] = tick - r.readUnsigned();
+            u.anchorX[k] = (int) r.readSigned();
+            u.anchorY[k] = (int) r.readSigned();
+            u.anchorZ[k] = (int) r.readSigned();
+            u.dirX[k] = (short) r.read(16);
+            u.dirY[k] = (short) r.read(16);
+            u.dirZ[k] = (short) r.read(16);
+        }
+
+        // Merge the baseline's bullets, less the removed ones, with the updates, by id
+        out.ensureBullets(base.bulletCount + updatedCount);
+        int count = 0;
+        int b = 0;
+        int x = 0;
+        int k = 0;
+        while (b < base.bulletCount || k < updatedCount) {
+            if (k == updatedCount || b < base.bulletCount && base.bulletId[b] < u.bulletId[k]) {
+                int bid = base.bulletId[b];
+                while (x < removedCount && removed[x] < bid) {
+                    x++;
+                }
+                if (x < removedCount && removed[x] == bid) {
+                    x++;
+                } else {
+                    copyBullet(base, b, out, count++);
+                }
+                b++;
+            } else {
+                if (b < base.bulletCount && base.bulletId[b] == u.bulletId[k]) {
+                    b++;
+                }
+                copyBullet(u, k++, out, count++);
+            }
+        }
+        out.bulletCount = count;
+    }
+
+    private static int count(long value) {
+        if (value > MAX_COUNT) {
+            throw new IllegalArgumentException("Count " + value + " out of range");
+        }
+        return (int) value;
+    }
+
+    private static int wrapYaw(int delta) {
+        int half = Snapshot.FULL_TURN / 2;
+        return Math.floorMod(delta + half, Snapshot.FULL_TURN) - half;
+    }
+
+    private static boolean sameAnchor(Snapshot a, int i, Snapshot b, int j) {
+        return a.anchorTick[i] == b.anchorTick[j]
+                && a.anchorX[i] == b.anchorX[j] && a.anchorY[i] == b.anchorY[j] && a.anchorZ[i] == b.anchorZ[j]
+                && a.dirX[i] == b.dirX[j] && a.dirY[i] == b.dirY[j] && a.dirZ[i] == b.dirZ[j];
+    }
+
+    private static void copyBullet(Snapshot from, int i, Snapshot to, int j) {
+        to.bulletId[j] = from.bulletId[i];
+        to.anchorTick[j] = from.anchorTick[i];
+        to.anchorX[j] = from.anchorX[i];
+        to.anchorY[j] = from.anchorY[i];
+        to.anchorZ[j] = from.anchorZ[i];
+        to.dirX[j] = from.dirX[i];
+        to.dirY[j] = from.dirY[i];
+        to.dirZ[j] = from.dirZ[i];
+    }
+}
@@ -0,0 +1,40 @@
+package rs.dobrosav.targetmaster.snapshot;
+
+/**
+ * The snapshots of the last few ticks, in a ring indexed by tick, for finding the
+ * baseline a delta refers to. The sender keeps what it sent, the receiver what it
+ * decoded; as long as the sender only encodes against ticks the receiver acknowledged
+ * within {@link #size()} ticks, both sides find the same baseline.
+ */
+public final class SnapshotHistory {
+
+    private final Snapshot[] ring;
+
+    public SnapshotHistory(int size) {
+        ring = new Snapshot[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Snapshot();
+            ring[i].tick = -1;
+        }
+    }
+
+    /** The slot to capture or decode the snapshot of {@code tick} into, evicting the oldest. */
+    public Snapshot slot(long tick) {
+        Snapshot snapshot = ring[Math.floorMod(tick, ring.length)];
+        snapshot.tick = -1;
+        return snapshot;
+    }
+
+    /** The snapshot of {@code tick}, or {@code null} if it is not, or no longer, in the history. */
+    public Snapshot get(long tick) {
+        if (tick < 0) {
+            return null;
+        }
+        Snapshot snapshot = ring[Math.floorMod(tick, ring.length)];
+        return snapshot.tick == tick ? snapshot : null;
+    }
+
+    public int size() {
+        return ring.length;
+    }
+}
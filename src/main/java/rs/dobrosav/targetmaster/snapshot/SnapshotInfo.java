@@ -0,0 +1,77 @@
+package rs.dobrosav.targetmaster.snapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Reads a snapshot file, such as a crash dump or the state track of a replay, and prints
+ * what it covers, how large its snapshots are, and the last state in it.
+ * <pre>
+ * java -cp ... rs.dobrosav.targetmaster.snapshot.SnapshotInfo crash.tms
+ * </pre>
+ */
+public final class SnapshotInfo {
+
+    private SnapshotInfo() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: SnapshotInfo <snapshot file>");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[0]);
+        long count = 0;
+        long keyFrames = 0;
+        long keyFrameBytes = 0;
+        long deltaBytes = 0;
+        long objects = 0;
+        long firstTick = -1;
+        Snapshot last = null;
+        long start = System.nanoTime();
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            for (Snapshot snapshot = reader.next(); snapshot != null; snapshot = reader.next()) {
+                if (firstTick < 0) {
+                    firstTick = snapshot.getTick();
+                }
+                count++;
+                objects += snapshot.getTargetCount() + snapshot.getBulletCount();
+                if (reader.isLastKeyFrame()) {
+                    keyFrames++;
+                    keyFrameBytes += reader.getLastSize();
+                } else {
+                    deltaBytes += reader.getLastSize();
+                }
+                last = snapshot;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (last == null) {
+            System.out.println(file + ": no snapshots");
+            return;
+        }
+        long deltas = count - keyFrames;
+        System.out.printf("%s: %d bytes, %d snapshots, ticks %d to %d at %d Hz (%.1f s)%n",
+                file, Files.size(file), count, firstTick, last.getTick(), last.getTickRate(),
+                (last.getTick() - firstTick + 1) / (double) last.getTickRate());
+        System.out.printf("Key frames: %d, %.0f bytes each; deltas: %d, %.1f bytes each; %.2f bytes per object%n",
+                keyFrames, keyFrameBytes / (double) Math.max(1, keyFrames), deltas,
+                deltaBytes / (double) Math.max(1, deltas), (keyFrameBytes + deltaBytes) / (double) Math.max(1, objects));
+        System.out.printf("Decoded in %.1f ms, %.0f snapshots/s%n", elapsed / 1e6, count * 1e9 / Math.max(1, elapsed));
+        System.out.printf("Last: score %d, hits %d, misses %d, %s, aim %.2f/%.2f, %d targets (%d up), %d bullets%n",
+                last.getScore(), last.getHits(), last.getMisses(), last.isScoped() ? "scoped" : "not scoped",
+                last.getPitch(), last.getYaw(), last.getTargetCount(), countUp(last), last.getBulletCount());
+    }
+
+    private static int countUp(Snapshot snapshot) {
+        int up = 0;
+        for (int i = 0; i < snapshot.getTargetCount(); i++) {
+            if (snapshot.isTargetUp(i)) {
+                up++;
+            }
+        }
+        return up;
+    }
+}
@@ -0,0 +1,124 @@
+package rs.dobrosav.targetmaster.snapshot;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads back the snapshots a {@link SnapshotWriter} wrote, in order, through one reusable
+ * direct buffer. A file that was cut off mid-record, as a crash dump may be, simply ends
+ * at the last complete snapshot.
+ */
+public final class SnapshotReader implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final FileChannel channel;
+    private final SnapshotCodec codec = new SnapshotCodec();
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private Snapshot current = new Snapshot();
+    private Snapshot previous = new Snapshot();
+    private boolean started;
+    private boolean eof;
+    private int lastSize;
+    private boolean lastKeyFrame;
+
+    private SnapshotReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        buffer.flip();
+        if (!fill(6)) {
+            throw new EOFException("Not a snapshot file");
+        }
+        if (buffer.getInt() != SnapshotWriter.MAGIC) {
+            throw new IOException("Not a snapshot file");
+        }
+        short version = buffer.getShort();
+        if (version != SnapshotWriter.VERSION) {
+            throw new IOException("Unsupported snapshot file version " + version);
+        }
+    }
+
+    public static SnapshotReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new SnapshotReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * The next snapshot, or {@code null} at the end of the file. The instance returned
+     * is only valid until the call after next.
+     *
+     * @throws IOException if the file is corrupt
+     */
+    public Snapshot next() throws IOException {
+        if (!fill(4)) {
+            return null;
+        }
+        int length = buffer.getInt(buffer.position());
+        if (length <= 8 || length > SnapshotWriter.MAX_RECORD) {
+            throw new IOException("Bad snapshot length " + length);
+        }
+        if (!fill(4 + length)) {
+            return null;
+        }
+        buffer.position(buffer.position() + 4);
+        int end = buffer.position() + length;
+        ByteBuffer record = buffer.slice(buffer.position(), length);
+        buffer.position(end);
+        Snapshot decoded = previous;
+        lastKeyFrame = codec.baselineTick(record) < 0;
+        try {
+            codec.decode(record, started ? current : null, decoded);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt snapshot: " + e.getMessage(), e);
+        }
+        previous = current;
+        current = decoded;
+        started = true;
+        lastSize = 4 + length;
+        return current;
+    }
+
+    /** Size in bytes, length field included, of the snapshot {@link #next()} returned last. */
+    public int getLastSize() {
+        return lastSize;
+    }
+
+    /** Whether the snapshot {@link #next()} returned last was a key frame. */
+    public boolean isLastKeyFrame() {
+        return lastKeyFrame;
+    }
+
+    /** Makes at least {@code bytes} bytes available; {@code false} at the end of the file. */
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        if (buffer.capacity() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(bytes);
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+        while (buffer.position() < bytes && !eof) {
+            if (channel.read(buffer) < 0) {
+                eof = true;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
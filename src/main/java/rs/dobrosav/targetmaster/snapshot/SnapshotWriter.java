@@ -0,0 +1,108 @@
+package rs.dobrosav.targetmaster.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a stream of snapshots to a file, each a delta against the one written before
+ * it, with a key frame every so often so a reader can start there. All writes go
+ * through one reusable direct buffer straight to the file channel.
+ * <pre>
+ * header:  int magic "TMSS", short version
+ * records: int length, at most {@link #MAX_RECORD}, then a snapshot as encoded by {@link SnapshotCodec}
+ * </pre>
+ * Numbers outside the snapshots are big-endian. Not thread-safe.
+ */
+public final class SnapshotWriter implements AutoCloseable {
+
+    static final int MAGIC = 0x544D5353; // "TMSS"
+    static final short VERSION = 1;
+    /** Largest snapshot accepted, length field excluded; far above a key frame of a large world. */
+    static final int MAX_RECORD = 1 << 24;
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final FileChannel channel;
+    private final int keyFrameInterval;
+    private final SnapshotCodec codec = new SnapshotCodec();
+    private final Snapshot baseline = new Snapshot();
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private boolean hasBaseline;
+    private int sinceKeyFrame;
+    private long written;
+
+    /**
+     * Creates {@code file}, replacing an existing one.
+     *
+     * @param keyFrameInterval snapshots between key frames, counting the key frame
+     */
+    public SnapshotWriter(Path file, int keyFrameInterval) throws IOException {
+        if (keyFrameInterval < 1) {
+            throw new IllegalArgumentException("keyFrameInterval must be positive");
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.keyFrameInterval = keyFrameInterval;
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+    }
+
+    /**
+     * Appends {@code snapshot}, which must be of a later tick than the previous one.
+     *
+     * @throws IOException also if it encodes to more than {@link #MAX_RECORD} bytes
+     */
+    public void write(Snapshot snapshot) throws IOException {
+        boolean keyFrame = !hasBaseline || sinceKeyFrame >= keyFrameInterval;
+        Snapshot base = keyFrame ? null : baseline;
+        int size = 4 + SnapshotCodec.maxSize(snapshot, base);
+        if (buffer.remaining() < size) {
+            drain();
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocateDirect(size);
+            }
+        }
+        int start = buffer.position();
+        buffer.putInt(0);
+        codec.encode(snapshot, base, buffer);
+        int length = buffer.position() - start - 4;
+        if (length > MAX_RECORD) {
+            buffer.position(start);
+            throw new IOException("Snapshot of " + length + " bytes is too large");
+        }
+        buffer.putInt(start, length);
+        baseline.copyFrom(snapshot);
+        hasBaseline = true;
+        sinceKeyFrame = keyFrame ? 1 : sinceKeyFrame + 1;
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /** Bytes in the file so far, buffered ones included. */
+    public long size() {
+        return written + buffer.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+}
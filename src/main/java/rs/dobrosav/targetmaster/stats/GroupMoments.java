@@ -0,0 +1,120 @@
+package rs.dobrosav.targetmaster.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Running mean and covariance of 2D points, updated in O(1) per point with Welford's
+ * method, so it stays accurate over any number of points without keeping them. Two sets
+ * of moments combine exactly, see {@link #add(GroupMoments)}.
+ * <p>
+ * For a shot group the mean is its bias from the aim point, and the spread, as standard
+ * deviations along the principal axes of the covariance, its size and shape.
+ * <p>
+ * Not thread-safe.
+ */
+public final class GroupMoments {
+
+    private long count;
+    private double meanX;
+    private double meanY;
+    // Sums of squared and cross deviations from the mean
+    private double m2x;
+    private double m2y;
+    private double cxy;
+
+    public void add(double x, double y) {
+        count++;
+        double dx = x - meanX;
+        meanX += dx / count;
+        double dy = y - meanY;
+        meanY += dy / count;
+        m2x += dx * (x - meanX);
+        m2y += dy * (y - meanY);
+        cxy += dx * (y - meanY);
+    }
+
+    /** Adds all points of {@code other} (Chan et al.'s pairwise update). */
+    public void add(GroupMoments other) {
+        if (other.count == 0) {
+            return;
+        }
+        long n = count + other.count;
+        double dx = other.meanX - meanX;
+        double dy = other.meanY - meanY;
+        double weight = (double) count * other.count / n;
+        meanX += dx * other.count / n;
+        meanY += dy * other.count / n;
+        m2x += other.m2x + dx * dx * weight;
+        m2y += other.m2y + dy * dy * weight;
+        cxy += other.cxy + dx * dy * weight;
+        count = n;
+    }
+
+    public long getCount() { return count; }
+    public double getMeanX() { return meanX; }
+    public double getMeanY() { return meanY; }
+
+    /** Sample variance along x, 0 for fewer than two points; likewise below. */
+    public double getVarianceX() { return count < 2 ? 0 : m2x / (count - 1); }
+    public double getVarianceY() { return count < 2 ? 0 : m2y / (count - 1); }
+    public double getCovariance() { return count < 2 ? 0 : cxy / (count - 1); }
+
+    /** Root mean square distance of the points from their mean. */
+    public double getRadius() {
+        return Math.sqrt(getVarianceX() + getVarianceY());
+    }
+
+    /** Standard deviation along the axis of largest spread. */
+    public double getMajorSigma() {
+        return Math.sqrt(eigenvalue(1));
+    }
+
+    /** Standard deviation across the axis of largest spread. */
+    public double getMinorSigma() {
+        return Math.sqrt(eigenvalue(-1));
+    }
+
+    /** Angle of the axis of largest spread from the x axis, in degrees in (-90, 90]. */
+    public double getMajorAngle() {
+        return Math.toDegrees(0.5 * Math.atan2(2 * getCovariance(), getVarianceX() - getVarianceY()));
+    }
+
+    private double eigenvalue(int sign) {
+        double vx = getVarianceX();
+        double vy = getVarianceY();
+        double c = getCovariance();
+        double half = (vx - vy) / 2;
+        return Math.max(0, (vx + vy) / 2 + sign * Math.sqrt(half * half + c * c));
+    }
+
+    public void reset() {
+        count = 0;
+        meanX = meanY = m2x = m2y = cxy = 0;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeDouble(meanX);
+        out.writeDouble(meanY);
+        out.writeDouble(m2x);
+        out.writeDouble(m2y);
+        out.writeDouble(cxy);
+    }
+
+    /** Adds the moments written by {@link #write(DataOutput)}. */
+    void read(DataInput in) throws IOException {
+        GroupMoments read = new GroupMoments();
+        read.count = in.readLong();
+        read.meanX = in.readDouble();
+        read.meanY = in.readDouble();
+        read.m2x = in.readDouble();
+        read.m2y = in.readDouble();
+        read.cxy = in.readDouble();
+        if (read.count < 0 || !Double.isFinite(read.meanX + read.meanY + read.m2x + read.m2y + read.cxy)) {
+            throw new IOException("Bad moments");
+        }
+        add(read);
+    }
+}
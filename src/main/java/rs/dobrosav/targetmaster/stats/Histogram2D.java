@@ -0,0 +1,178 @@
+package rs.dobrosav.targetmaster.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Counts of points over a fixed grid of bins covering {@code [minX, maxX) x [minY, maxY)};
+ * points outside are only counted. Memory is fixed by the grid, however many points are
+ * added. Bins are numbered row by row, {@code row * width + column}, with rows following
+ * {@code y} upwards from {@code minY}, which is downwards on screen in scene coordinates.
+ * <p>
+ * Bins changed since the last {@link #clearDirty()} are listed, each once, so a view of
+ * the histogram can redraw only those.
+ * <p>
+ * Not thread-safe.
+ */
+public final class Histogram2D {
+
+    private final int width;
+    private final int height;
+    private final double minX;
+    private final double minY;
+    private final double binsPerX;
+    private final double binsPerY;
+    private final int[] counts;
+    private final int[] dirty;
+    private final boolean[] marked;
+    private int dirtyCount;
+    private long total;
+    private long outside;
+    private int max;
+
+    public Histogram2D(int width, int height, double minX, double minY, double maxX, double maxY) {
+        if (width < 1 || height < 1 || !(maxX > minX) || !(maxY > minY)) {
+            throw new IllegalArgumentException("Empty histogram");
+        }
+        this.width = width;
+        this.height = height;
+        this.minX = minX;
+        this.minY = minY;
+        binsPerX = width / (maxX - minX);
+        binsPerY = height / (maxY - minY);
+        counts = new int[width * height];
+        dirty = new int[counts.length];
+        marked = new boolean[counts.length];
+    }
+
+    /**
+     * Counts the point {@code (x, y)}.
+     *
+     * @return its bin, or -1 if it lies outside the grid
+     */
+    public int add(double x, double y) {
+        total++;
+        double column = (x - minX) * binsPerX;
+        double row = (y - minY) * binsPerY;
+        // Negated so that NaN also counts as outside
+        if (!(column >= 0 && column < width && row >= 0 && row < height)) {
+            outside++;
+            return -1;
+        }
+        int bin = (int) row * width + (int) column;
+        int count = ++counts[bin];
+        if (count > max) {
+            max = count;
+        }
+        mark(bin);
+        return bin;
+    }
+
+    private void mark(int bin) {
+        if (!marked[bin]) {
+            marked[bin] = true;
+            dirty[dirtyCount++] = bin;
+        }
+    }
+
+    /** Adds all points counted in {@code other}, which must have the same grid. */
+    public void add(Histogram2D other) {
+        if (other.width != width || other.height != height
+                || other.minX != minX || other.minY != minY
+                || other.binsPerX != binsPerX || other.binsPerY != binsPerY) {
+            throw new IllegalArgumentException("Histograms have different grids");
+        }
+        for (int bin = 0; bin < counts.length; bin++) {
+            if (other.counts[bin] != 0) {
+                counts[bin] += other.counts[bin];
+                max = Math.max(max, counts[bin]);
+                mark(bin);
+            }
+        }
+        total += other.total;
+        outside += other.outside;
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getBins() { return counts.length; }
+    public int get(int bin) { return counts[bin]; }
+    public int get(int column, int row) { return counts[row * width + column]; }
+    /** Points added, including those outside the grid. */
+    public long getTotal() { return total; }
+    public long getOutside() { return outside; }
+    /** Largest count of any bin. */
+    public int getMax() { return max; }
+
+    /** Number of bins changed since the last {@link #clearDirty()}. */
+    public int getDirtyCount() { return dirtyCount; }
+
+    /** The {@code i}-th changed bin, {@code 0 <= i < getDirtyCount()}, in the order they first changed. */
+    public int getDirty(int i) { return dirty[i]; }
+
+    public void clearDirty() {
+        for (int i = 0; i < dirtyCount; i++) {
+            marked[dirty[i]] = false;
+        }
+        dirtyCount = 0;
+    }
+
+    public void reset() {
+        for (int bin = 0; bin < counts.length; bin++) {
+            if (counts[bin] != 0) {
+                counts[bin] = 0;
+                mark(bin);
+            }
+        }
+        total = 0;
+        outside = 0;
+        max = 0;
+    }
+
+    /** Writes the counts, listing only bins that are not empty. */
+    void write(DataOutput out) throws IOException {
+        int used = 0;
+        for (int count : counts) {
+            if (count != 0) {
+                used++;
+            }
+        }
+        out.writeShort(width);
+        out.writeShort(height);
+        out.writeLong(total);
+        out.writeLong(outside);
+        out.writeInt(used);
+        for (int bin = 0; bin < counts.length; bin++) {
+            if (counts[bin] != 0) {
+                out.writeInt(bin);
+                out.writeInt(counts[bin]);
+            }
+        }
+    }
+
+    /** Adds the counts written by {@link #write(DataOutput)} of a histogram with the same grid. */
+    void read(DataInput in) throws IOException {
+        int w = in.readUnsignedShort();
+        int h = in.readUnsignedShort();
+        if (w != width || h != height) {
+            throw new IOException("Histogram of " + w + "x" + h + " bins, expected " + width + "x" + height);
+        }
+        total += in.readLong();
+        outside += in.readLong();
+        int used = in.readInt();
+        if (used < 0 || used > counts.length) {
+            throw new IOException("Bad bin count " + used);
+        }
+        for (int i = 0; i < used; i++) {
+            int bin = in.readInt();
+            int count = in.readInt();
+            if (bin < 0 || bin >= counts.length || count <= 0) {
+                throw new IOException("Bad bin " + bin + " = " + count);
+            }
+            counts[bin] += count;
+            max = Math.max(max, counts[bin]);
+            mark(bin);
+        }
+    }
+}
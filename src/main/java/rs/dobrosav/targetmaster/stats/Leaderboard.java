@@ -0,0 +1,98 @@
+package rs.dobrosav.targetmaster.stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The best {@code k} sessions by score, kept sorted as totals come in. A session's score
+ * only grows, so an update moves its entry up at most; anything below the last place is
+ * rejected in constant time. Thread-safe.
+ */
+public final class Leaderboard {
+
+    /**
+     * Totals of one session.
+     *
+     * @param firstMillis time of its first recorded shot
+     * @param lastMillis  time of its last recorded shot
+     */
+    public record Entry(long session, int score, int hits, int shots, long firstMillis, long lastMillis) {
+
+        public double hitRate() {
+            return shots == 0 ? 0 : (double) hits / shots;
+        }
+
+        /** Whether this entry ranks above {@code other}: higher score, then the earlier session. */
+        boolean beats(Entry other) {
+            return score != other.score ? score > other.score : session < other.session;
+        }
+    }
+
+    private final Entry[] entries;
+    private int size;
+
+    public Leaderboard(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        entries = new Entry[k];
+    }
+
+    /**
+     * Puts in the latest totals of {@code entry}'s session, replacing earlier ones.
+     *
+     * @return whether the session is on the board
+     */
+    public synchronized boolean offer(Entry entry) {
+        int i = indexOf(entry.session());
+        if (i < 0) {
+            if (size == entries.length) {
+                if (!entry.beats(entries[size - 1])) {
+                    return false;
+                }
+                size--;
+            }
+            i = size++;
+        }
+        entries[i] = entry;
+        // Totals grow, so an entry normally moves up; down only if given older totals
+        while (i > 0 && entry.beats(entries[i - 1])) {
+            entries[i] = entries[i - 1];
+            entries[--i] = entry;
+        }
+        while (i < size - 1 && entries[i + 1].beats(entry)) {
+            entries[i] = entries[i + 1];
+            entries[++i] = entry;
+        }
+        return true;
+    }
+
+    private int indexOf(long session) {
+        for (int i = 0; i < size; i++) {
+            if (entries[i].session() == session) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** The board entry of {@code session}, or {@code null} if it is not on the board. */
+    public synchronized Entry get(long session) {
+        int i = indexOf(session);
+        return i < 0 ? null : entries[i];
+    }
+
+    /** The best {@code n} entries, best first. */
+    public synchronized List<Entry> top(int n) {
+        return new ArrayList<>(Arrays.asList(entries).subList(0, Math.min(n, size)));
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,235 @@
+package rs.dobrosav.targetmaster.stats;
+
+import rs.dobrosav.targetmaster.sim.Aim;
+import rs.dobrosav.targetmaster.sim.Bullet;
+import rs.dobrosav.targetmaster.sim.Impact;
+import rs.dobrosav.targetmaster.sim.Target;
+import rs.dobrosav.targetmaster.telemetry.LatencyHistogram;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Streaming analysis of where shots land, fed from the world listener as shots resolve.
+ * Every accumulator has a fixed size, so recording a shot costs the same however many
+ * came before it:
+ * <ul>
+ * <li>a histogram of hits and near misses on the target face, in offsets from the
+ *     center, over all targets and per target</li>
+ * <li>the mean and covariance of those offsets, which give the group's bias and size</li>
+ * <li>a histogram of the directions of all misses across the range, as seen from the shooter</li>
+ * <li>a {@link LatencyHistogram} of reaction times, from a target appearing to it being hit,
+ *     for quantiles within about 3%</li>
+ * </ul>
+ * A near miss is a bullet that crossed a target's face plane outside the disc, see
+ * {@link Bullet#getNearTarget()}; it lands on the face histogram if within
+ * {@link #FACE_EXTENT} of the center.
+ * <p>
+ * Analytics of several sessions combine with {@link #add(ShotAnalytics)} and are kept
+ * between runs with {@link #save(Path)} and {@link #load(Path)}, all except the
+ * per-target histograms, which only mean something within one world.
+ * <p>
+ * Not thread-safe.
+ */
+public final class ShotAnalytics {
+
+    /** Half the side of the face histogram, centered on the target. */
+    public static final double FACE_EXTENT = 2 * Target.OUTER_RADIUS;
+    public static final int FACE_BINS = 60;
+    public static final int TARGET_FACE_BINS = 15;
+    /** Yaw either side of straight down the range covered by the range histogram, in degrees. */
+    public static final double RANGE_YAW = 40;
+    /** Pitch above and below the horizon covered by the range histogram, in degrees. */
+    public static final double RANGE_PITCH = 10;
+    public static final int RANGE_BINS_X = 160;
+    public static final int RANGE_BINS_Y = 40;
+
+    private static final int MAGIC = 0x544D414E; // "TMAN"
+    private static final short VERSION = 1;
+    /** Yaw of a shot straight down the range, towards negative z. */
+    private static final double DOWNRANGE_YAW = Aim.yawTo(0, -1);
+
+    private final Histogram2D face = faceHistogram(FACE_BINS);
+    private final Histogram2D[] targetFaces;
+    private final Histogram2D range = new Histogram2D(RANGE_BINS_X, RANGE_BINS_Y,
+            -RANGE_YAW, -RANGE_PITCH, RANGE_YAW, RANGE_PITCH);
+    private final GroupMoments group = new GroupMoments();
+    private final LatencyHistogram reaction = new LatencyHistogram();
+    private long hits;
+    private long misses;
+    private long nearMisses;
+
+    /** Analytics without per-target histograms. */
+    public ShotAnalytics() {
+        this(0);
+    }
+
+    /** Analytics with a face histogram for each of the first {@code targetCount} targets. */
+    public ShotAnalytics(int targetCount) {
+        targetFaces = new Histogram2D[targetCount];
+    }
+
+    private static Histogram2D faceHistogram(int bins) {
+        return new Histogram2D(bins, bins, -FACE_EXTENT, -FACE_EXTENT, FACE_EXTENT, FACE_EXTENT);
+    }
+
+    /**
+     * Records a hit on {@code target} at {@code impact}.
+     *
+     * @param reactionSeconds how long the target had been at its spawn point
+     */
+    public void hit(Target target, Impact impact, double reactionSeconds) {
+        hits++;
+        onFace(target.getIndex(), target.getX() - impact.getX(), impact.getY() - target.getY());
+        reaction.record((long) (reactionSeconds * 1e9));
+    }
+
+    /** Records a bullet that left the range without hitting anything. */
+    public void miss(Bullet bullet) {
+        misses++;
+        if (bullet.getNearTarget() >= 0
+                && onFace(bullet.getNearTarget(), -bullet.getNearDx(), bullet.getNearDy())) {
+            nearMisses++;
+        }
+        // The bullet started at the eye, so its position gives its direction
+        double yaw = Aim.wrap(Aim.yawTo(bullet.getX(), bullet.getZ()) - DOWNRANGE_YAW);
+        double pitch = Aim.pitchTo(bullet.getX(), bullet.getY(), bullet.getZ());
+        // Rows go down the image, so up is negative
+        range.add(yaw, -pitch);
+    }
+
+    /**
+     * Counts a point on a face, given as the shooter sees it looking down the range: x to
+     * the right, which is towards negative x in the world, and y down.
+     */
+    private boolean onFace(int target, double dx, double dy) {
+        if (face.add(dx, dy) < 0) {
+            return false;
+        }
+        group.add(dx, dy);
+        if (target < targetFaces.length) {
+            if (targetFaces[target] == null) {
+                targetFaces[target] = faceHistogram(TARGET_FACE_BINS);
+            }
+            targetFaces[target].add(dx, dy);
+        }
+        return true;
+    }
+
+    /** Adds everything recorded in {@code other} except its per-target histograms. */
+    public void add(ShotAnalytics other) {
+        face.add(other.face);
+        range.add(other.range);
+        group.add(other.group);
+        reaction.add(other.reaction);
+        hits += other.hits;
+        misses += other.misses;
+        nearMisses += other.nearMisses;
+    }
+
+    /**
+     * Hits and near misses on the target face, in offsets from the center as the shooter
+     * sees them: x to the right and y down, like the rows of an image.
+     */
+    public Histogram2D getFace() { return face; }
+
+    /** Like {@link #getFace()} for one target, or {@code null} if nothing landed on it yet. */
+    public Histogram2D getFace(int target) {
+        return target < targetFaces.length ? targetFaces[target] : null;
+    }
+
+    /**
+     * Directions of misses as yaw from straight down the range and negated pitch, both
+     * in degrees, so that up is towards row 0.
+     */
+    public Histogram2D getRange() { return range; }
+
+    /** Moments of the points on {@link #getFace()}. */
+    public GroupMoments getGroup() { return group; }
+
+    /** Reaction times in nanoseconds. */
+    public LatencyHistogram getReaction() { return reaction; }
+
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    /** Misses that landed on the face histogram. */
+    public long getNearMisses() { return nearMisses; }
+    public long getShots() { return hits + misses; }
+
+    /** {@code analytics.bin} in {@link ShotStore#defaultDirectory()}. */
+    public static Path defaultFile() {
+        return ShotStore.defaultDirectory().resolve(StatsFormat.ANALYTICS_FILE);
+    }
+
+    /**
+     * Replaces {@code file} with these analytics: int magic "TMAN", short version, the
+     * face and range histograms, the group moments, the reaction histogram, the hit, miss
+     * and near-miss counts, then int CRC32C of all before. Written to a temporary file
+     * first, so a crash leaves the previous version.
+     */
+    public void save(Path file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        face.write(out);
+        range.write(out);
+        group.write(out);
+        reaction.write(out);
+        out.writeLong(hits);
+        out.writeLong(misses);
+        out.writeLong(nearMisses);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, bytes.toByteArray());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Reads analytics written by {@link #save(Path)}, or returns empty ones if there is no such file. */
+    public static ShotAnalytics load(Path file) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return new ShotAnalytics();
+        }
+        if (bytes.length < 10) {
+            throw new IOException(file + " is truncated");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, bytes.length - 4);
+        if ((int) crc.getValue() != ByteBuffer.wrap(bytes).getInt(bytes.length - 4)) {
+            throw new IOException(file + " fails its checksum");
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+        if (in.readInt() != MAGIC) {
+            throw new IOException(file + " is not an analytics file");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException(file + " has unsupported version " + version);
+        }
+        ShotAnalytics analytics = new ShotAnalytics();
+        analytics.face.read(in);
+        analytics.range.read(in);
+        analytics.group.read(in);
+        analytics.reaction.read(in);
+        analytics.hits = in.readLong();
+        analytics.misses = in.readLong();
+        analytics.nearMisses = in.readLong();
+        return analytics;
+    }
+}
@@ -0,0 +1,24 @@
+package rs.dobrosav.targetmaster.stats;
+
+import rs.dobrosav.targetmaster.sim.Ring;
+
+/**
+ * One shot as kept in a {@link ShotStore}.
+ *
+ * @param timeMillis      wall-clock time of the outcome
+ * @param session         the session it was fired in, see {@link ShotStore#startSession()}
+ * @param ring            the ring hit, {@code null} for a miss
+ * @param distance        from the shooter to the impact, or for a miss to the target the
+ *                        shot passed closest to
+ * @param sinceSpawnSeconds how long that target had been at its spawn point
+ */
+public record ShotRecord(long timeMillis, long session, Ring ring, float distance, float sinceSpawnSeconds) {
+
+    public boolean isHit() {
+        return ring != null;
+    }
+
+    public int points() {
+        return ring == null ? 0 : ring.getPoints();
+    }
+}
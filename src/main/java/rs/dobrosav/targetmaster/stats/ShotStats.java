@@ -0,0 +1,85 @@
+package rs.dobrosav.targetmaster.stats;
+
+import rs.dobrosav.targetmaster.telemetry.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Prints the leaderboard and totals of a {@link ShotStore}, and the all-time group and
+ * reaction times of its {@link ShotAnalytics} if saved; with {@code --verify}, also
+ * rebuilds the leaderboard from the whole log and checks the index against it. Must not
+ * run while the game has the store open.
+ * <pre>
+ * java -cp ... rs.dobrosav.targetmaster.stats.ShotStats [store directory] [--verify]
+ * </pre>
+ * Exits with status 1 if verification fails.
+ */
+public final class ShotStats {
+
+    private static final int SHOWN = 10;
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")
+            .withZone(ZoneId.systemDefault());
+
+    private ShotStats() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = null;
+        boolean verify = false;
+        for (String arg : args) {
+            if (arg.equals("--verify")) {
+                verify = true;
+            } else if (dir == null && !arg.startsWith("--")) {
+                dir = Paths.get(arg);
+            } else {
+                System.err.println("Usage: ShotStats [store directory] [--verify]");
+                System.exit(2);
+            }
+        }
+        if (dir == null) {
+            dir = ShotStore.defaultDirectory();
+        }
+        long start = System.nanoTime();
+        try (ShotStore store = ShotStore.open(dir, ShotStore.DEFAULT_LEADERBOARD_SIZE)) {
+            long opened = System.nanoTime() - start;
+            System.out.printf("%s: %d shots, %d hits (%.1f%%), %d sessions; opened in %.1f ms, read %d log bytes%n",
+                    dir, store.getShots(), store.getHits(), store.getHits() * 100.0 / Math.max(1, store.getShots()),
+                    store.getLastSession(), opened / 1e6, store.getScannedBytes());
+            if (store.getDamagedCopy() != null) {
+                System.out.println("The log was damaged and is cut off there; it was copied to " + store.getDamagedCopy());
+            }
+            List<Leaderboard.Entry> top = store.getLeaderboard().top(SHOWN);
+            for (int i = 0; i < top.size(); i++) {
+                Leaderboard.Entry entry = top.get(i);
+                System.out.printf("%3d. %5d points  session %-6d %s  %d/%d hits (%.0f%%)%n", i + 1, entry.score(),
+                        entry.session(), TIME.format(Instant.ofEpochMilli(entry.firstMillis())), entry.hits(),
+                        entry.shots(), entry.hitRate() * 100);
+            }
+            ShotAnalytics analytics = ShotAnalytics.load(dir.resolve(StatsFormat.ANALYTICS_FILE));
+            if (analytics.getShots() > 0) {
+                GroupMoments group = analytics.getGroup();
+                LatencyHistogram reaction = analytics.getReaction();
+                System.out.printf("Group of %d on the face: radius %.1f, %.1f x %.1f at %.0f deg, bias %+.1f right %+.1f up;"
+                                + " reaction p50 %.2f s, p90 %.2f s%n", group.getCount(), group.getRadius(),
+                        group.getMajorSigma(), group.getMinorSigma(), -group.getMajorAngle(),
+                        group.getMeanX(), -group.getMeanY(), reaction.percentile(50) / 1e9, reaction.percentile(90) / 1e9);
+            }
+            if (verify) {
+                start = System.nanoTime();
+                List<Leaderboard.Entry> rebuilt = store.rebuild().top(ShotStore.DEFAULT_LEADERBOARD_SIZE);
+                boolean same = rebuilt.equals(store.getLeaderboard().top(ShotStore.DEFAULT_LEADERBOARD_SIZE));
+                System.out.printf("Full scan in %.1f ms: index %s%n", (System.nanoTime() - start) / 1e6,
+                        same ? "matches the log" : "DIFFERS from the log");
+                if (!same) {
+                    System.exit(1);
+                }
+            }
+        }
+    }
+}
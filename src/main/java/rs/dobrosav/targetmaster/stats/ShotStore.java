@@ -0,0 +1,457 @@
+package rs.dobrosav.targetmaster.stats;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded store of every shot ever fired, with a leaderboard of the best sessions.
+ * <p>
+ * Shots go into an append-only, checksummed log (see {@link StatsFormat}). Callers only
+ * put them on a queue; a background thread takes whatever has queued up, appends it as
+ * one block and forces it to disk once, so many shots share one sync (group commit) and
+ * the game thread never waits for the disk. If the queue is full, shots are dropped and
+ * counted rather than blocking; so are shots recorded once the writer failed or the store
+ * closed.
+ * <p>
+ * The {@link Leaderboard} is updated as blocks are written and saved to an index file
+ * every few seconds and on close, together with how much of the log it covers. Opening
+ * the store reads the index and only the part of the log written after it, so it does
+ * not slow down as the history grows; without a usable index the whole log is scanned
+ * once to rebuild it.
+ * <p>
+ * A block torn by a crash at the end of the log is cut off when opening. A log damaged
+ * anywhere else is read up to the damage and copied aside before being cut off there,
+ * see {@link #getDamagedCopy()}.
+ * <p>
+ * The log is locked while open, so only one process writes to a store.
+ */
+public final class ShotStore implements AutoCloseable {
+
+    public static final int DEFAULT_LEADERBOARD_SIZE = 100;
+
+    private static final int QUEUE_CAPACITY = 16 * 1024;
+    private static final long INDEX_INTERVAL_NANOS = 10_000_000_000L;
+    private static final ShotRecord CLOSE = new ShotRecord(0, 0, null, 0, 0);
+
+    private final Path indexFile;
+    private final FileChannel log;
+    private final FileLock lock;
+    private final Leaderboard leaderboard;
+    private final BlockingQueue<ShotRecord> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong lastSession = new AtomicLong();
+    private final ByteBuffer block = ByteBuffer.allocateDirect(
+            StatsFormat.BLOCK_HEADER_SIZE + StatsFormat.MAX_BLOCK_RECORDS * StatsFormat.RECORD_SIZE);
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // Owned by the writer thread once started
+    private long logEnd;
+    private Tally current;
+    private long lastIndexNanos;
+
+    private volatile long shots;
+    private volatile long hits;
+    private volatile long commits;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile IOException failure;
+    private final long scannedBytes;
+    private final Path damagedCopy;
+
+    private ShotStore(Path dir, int leaderboardSize) throws IOException {
+        Files.createDirectories(dir);
+        indexFile = dir.resolve(StatsFormat.INDEX_FILE);
+        leaderboard = new Leaderboard(leaderboardSize);
+        log = FileChannel.open(dir.resolve(StatsFormat.LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            lock = log.tryLock();
+            if (lock == null) {
+                throw new IOException("Stats store " + dir + " is in use by another process");
+            }
+            openLog();
+            long covered = readIndex();
+            long end = StatsFormat.scan(log, covered, this::apply);
+            scannedBytes = end - covered;
+            if (end < log.size()) {
+                if (StatsFormat.isTornTail(log, end)) {
+                    // A block torn by a crash; the shots in it were never acknowledged
+                    damagedCopy = null;
+                } else {
+                    // Intact blocks may follow the damage: keep them before cutting it off
+                    damagedCopy = dir.resolve(StatsFormat.LOG_FILE + "." + System.currentTimeMillis() + ".damaged");
+                    copyLog(damagedCopy);
+                }
+                log.truncate(end);
+            } else {
+                damagedCopy = null;
+            }
+            logEnd = end;
+            if (scannedBytes > 0) {
+                writeIndex();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+        writer = new Thread(this::run, "stats-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Opens the store in {@code dir}, creating it if needed. Reads the index and the end
+     * of the log, so do not call it from the FX thread.
+     *
+     * @param leaderboardSize how many sessions the leaderboard keeps; changing it rebuilds
+     *                        the index from the whole log
+     */
+    public static ShotStore open(Path dir, int leaderboardSize) throws IOException {
+        return new ShotStore(dir, leaderboardSize);
+    }
+
+    private void openLog() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(StatsFormat.LOG_HEADER_SIZE);
+        if (log.size() < StatsFormat.LOG_HEADER_SIZE) {
+            header.putInt(StatsFormat.LOG_MAGIC).putShort(StatsFormat.VERSION).flip();
+            log.truncate(0);
+            log.write(header, 0);
+            log.force(true);
+            return;
+        }
+        StatsFormat.readFully(log, header, 0);
+        if (header.getInt(0) != StatsFormat.LOG_MAGIC) {
+            throw new IOException("Not a shot log");
+        }
+        if (header.getShort(4) != StatsFormat.VERSION) {
+            throw new IOException("Unsupported shot log version " + header.getShort(4));
+        }
+    }
+
+    /** Copies the whole log through its own channel, which the lock does not block. */
+    private void copyLog(Path target) throws IOException {
+        try (FileChannel copy = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = log.size();
+            long position = 0;
+            while (position < size) {
+                position += log.transferTo(position, size - position, copy);
+            }
+            copy.force(true);
+        }
+    }
+
+    /** Loads the index; returns the log offset it covers, or the start of the log if unusable. */
+    private long readIndex() throws IOException {
+        if (!Files.isRegularFile(indexFile)) {
+            return StatsFormat.LOG_HEADER_SIZE;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+        try {
+            int end = buf.limit() - 4;
+            if (buf.getInt() != StatsFormat.INDEX_MAGIC || buf.getShort() != StatsFormat.VERSION
+                    || StatsFormat.crc(buf, 0, end) != buf.getInt(end)) {
+                return StatsFormat.LOG_HEADER_SIZE;
+            }
+            int size = buf.getInt();
+            long covered = buf.getLong();
+            long last = buf.getLong();
+            long indexedShots = buf.getLong();
+            long indexedHits = buf.getLong();
+            int count = buf.getInt();
+            if (size != leaderboard.capacity() || count > size
+                    || covered < StatsFormat.LOG_HEADER_SIZE || covered > log.size()) {
+                return StatsFormat.LOG_HEADER_SIZE;
+            }
+            for (int i = 0; i < count; i++) {
+                leaderboard.offer(StatsFormat.getEntry(buf));
+            }
+            current = buf.get() != 0 ? new Tally(StatsFormat.getEntry(buf)) : null;
+            lastSession.set(last);
+            shots = indexedShots;
+            hits = indexedHits;
+            return covered;
+        } catch (BufferUnderflowException e) {
+            return StatsFormat.LOG_HEADER_SIZE;
+        }
+    }
+
+    private void apply(ByteBuffer records, int count, long endOffset) throws IOException {
+        for (int i = 0; i < count; i++) {
+            add(StatsFormat.getRecord(records));
+        }
+        if (current != null) {
+            leaderboard.offer(current.entry());
+        }
+        logEnd = endOffset;
+    }
+
+    private void add(ShotRecord shot) {
+        if (current == null || current.session != shot.session()) {
+            if (current != null) {
+                leaderboard.offer(current.entry());
+            }
+            Leaderboard.Entry known = leaderboard.get(shot.session());
+            current = known != null ? new Tally(known) : new Tally(shot.session());
+        }
+        current.add(shot);
+        lastSession.accumulateAndGet(shot.session(), Math::max);
+        shots++;
+        if (shot.isHit()) {
+            hits++;
+        }
+    }
+
+    /** {@code targetmaster.statsDir}, by default {@code ~/.targetmaster/stats}. */
+    public static Path defaultDirectory() {
+        return Paths.get(System.getProperty("targetmaster.statsDir",
+                Paths.get(System.getProperty("user.home"), ".targetmaster", "stats").toString()));
+    }
+
+    /** A new session number, higher than any in the store. */
+    public long startSession() {
+        return lastSession.incrementAndGet();
+    }
+
+    /**
+     * Queues {@code shot} for writing; never blocks.
+     *
+     * @return {@code false} if it was dropped because the writer is behind, failed or the store is closed
+     */
+    public boolean record(ShotRecord shot) {
+        if (closed || failure != null || !queue.offer(shot)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        if (closed && !writer.isAlive()) {
+            // Raced close() and was queued after the writer stopped
+            return !dropQueued(shot);
+        }
+        return true;
+    }
+
+    /** Counts everything left in the queue as dropped; returns whether {@code shot} was among it. */
+    private boolean dropQueued(ShotRecord shot) {
+        boolean found = false;
+        ShotRecord left;
+        while ((left = queue.poll()) != null) {
+            if (left != CLOSE) {
+                dropped.incrementAndGet();
+            }
+            found |= left == shot;
+        }
+        return found;
+    }
+
+    private void run() {
+        List<ShotRecord> batch = new ArrayList<>(StatsFormat.MAX_BLOCK_RECORDS);
+        lastIndexNanos = System.nanoTime();
+        boolean closing = false;
+        while (!closing) {
+            try {
+                ShotRecord first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, StatsFormat.MAX_BLOCK_RECORDS - 1);
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (batch.get(i) == CLOSE) {
+                            // Shots behind it raced close() and are not stored
+                            dropped.addAndGet(batch.size() - i - 1);
+                            batch.subList(i, batch.size()).clear();
+                            closing = true;
+                            break;
+                        }
+                    }
+                    if (failure != null) {
+                        dropped.addAndGet(batch.size());
+                    } else if (!batch.isEmpty()) {
+                        commit(batch);
+                    }
+                    batch.clear();
+                }
+                if (failure == null && (closing || System.nanoTime() - lastIndexNanos >= INDEX_INTERVAL_NANOS)) {
+                    writeIndex();
+                    lastIndexNanos = System.nanoTime();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                failure = e;
+                // The batch being written, if any, was not stored
+                dropped.addAndGet(batch.size());
+                batch.clear();
+                System.err.println("Shot stats stopped: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Appends {@code batch} as one block and syncs it: the group commit. */
+    private void commit(List<ShotRecord> batch) throws IOException {
+        block.clear();
+        block.putInt(batch.size() * StatsFormat.RECORD_SIZE);
+        block.putInt(0);
+        for (ShotRecord shot : batch) {
+            StatsFormat.putRecord(block, shot);
+        }
+        block.putInt(4, StatsFormat.crc(block, StatsFormat.BLOCK_HEADER_SIZE, block.position()));
+        block.flip();
+        long position = logEnd;
+        while (block.hasRemaining()) {
+            position += log.write(block, position);
+        }
+        log.force(false);
+        commits++;
+        for (ShotRecord shot : batch) {
+            add(shot);
+        }
+        leaderboard.offer(current.entry());
+        logEnd = position;
+    }
+
+    private void writeIndex() throws IOException {
+        List<Leaderboard.Entry> entries = leaderboard.top(leaderboard.capacity());
+        ByteBuffer buf = ByteBuffer.allocate(4 + 2 + 4 + 8 * 4 + 4 + (entries.size() + 1) * StatsFormat.ENTRY_SIZE + 1 + 4);
+        buf.putInt(StatsFormat.INDEX_MAGIC);
+        buf.putShort(StatsFormat.VERSION);
+        buf.putInt(leaderboard.capacity());
+        buf.putLong(logEnd);
+        buf.putLong(lastSession.get());
+        buf.putLong(shots);
+        buf.putLong(hits);
+        buf.putInt(entries.size());
+        for (Leaderboard.Entry entry : entries) {
+            StatsFormat.putEntry(buf, entry);
+        }
+        buf.put((byte) (current != null ? 1 : 0));
+        if (current != null) {
+            StatsFormat.putEntry(buf, current.entry());
+        }
+        buf.putInt(StatsFormat.crc(buf, 0, buf.position()));
+        Path tmp = indexFile.resolveSibling(StatsFormat.INDEX_FILE + ".tmp");
+        Files.write(tmp, Arrays.copyOf(buf.array(), buf.position()));
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Builds a leaderboard of the same size from the whole log, ignoring the index, for
+     * checking it. Reads everything written so far; slow on a long history.
+     */
+    public Leaderboard rebuild() throws IOException {
+        Leaderboard board = new Leaderboard(leaderboard.capacity());
+        Tally[] tally = {null};
+        StatsFormat.scan(log, StatsFormat.LOG_HEADER_SIZE, (records, count, endOffset) -> {
+            for (int i = 0; i < count; i++) {
+                ShotRecord shot = StatsFormat.getRecord(records);
+                if (tally[0] == null || tally[0].session != shot.session()) {
+                    if (tally[0] != null) {
+                        board.offer(tally[0].entry());
+                    }
+                    Leaderboard.Entry known = board.get(shot.session());
+                    tally[0] = known != null ? new Tally(known) : new Tally(shot.session());
+                }
+                tally[0].add(shot);
+            }
+        });
+        if (tally[0] != null) {
+            board.offer(tally[0].entry());
+        }
+        return board;
+    }
+
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    /** Highest session number handed out or found in the store. */
+    public long getLastSession() { return lastSession.get(); }
+    /** Shots in the store, written ones only. */
+    public long getShots() { return shots; }
+    public long getHits() { return hits; }
+    /** Blocks written, each with one sync. */
+    public long getCommits() { return commits; }
+    /** Shots not stored because the queue was full, the writer failed or the store closed. */
+    public long getDropped() { return dropped.get(); }
+    /** Log bytes read when opening, beyond what the index covered. */
+    public long getScannedBytes() { return scannedBytes; }
+    /**
+     * Where the log was copied when opening found it damaged before its end, or
+     * {@code null} if it was not. The store then holds only the shots before the damage.
+     */
+    public Path getDamagedCopy() { return damagedCopy; }
+    /** The error that stopped the writer, or {@code null}. */
+    public IOException getFailure() { return failure; }
+
+    /** Writes everything queued, saves the index and closes the files. */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(CLOSE);
+            writer.join();
+            dropQueued(null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            log.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /** Running totals of one session. */
+    private static final class Tally {
+
+        final long session;
+        int score;
+        int hits;
+        int shots;
+        long first;
+        long last;
+
+        Tally(long session) {
+            this.session = session;
+        }
+
+        Tally(Leaderboard.Entry entry) {
+            this(entry.session());
+            score = entry.score();
+            hits = entry.hits();
+            shots = entry.shots();
+            first = entry.firstMillis();
+            last = entry.lastMillis();
+        }
+
+        void add(ShotRecord shot) {
+            if (shots == 0) {
+                first = shot.timeMillis();
+            }
+            shots++;
+            if (shot.isHit()) {
+                hits++;
+                score += shot.points();
+            }
+            last = shot.timeMillis();
+        }
+
+        Leaderboard.Entry entry() {
+            return new Leaderboard.Entry(session, score, hits, shots, first, last);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package rs.dobrosav.targetmaster.stats;
+
+import rs.dobrosav.targetmaster.sim.Ring;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32C;
+
+/**
+ * Layout of the files of a {@link ShotStore}. All numbers are big-endian.
+ * <pre>
+ * shots.log, append-only:
+ *   header: int magic "TMSL", short version
+ *   blocks: int payload length, int CRC32C of the payload, payload of records
+ *   record: long time millis, long session, byte ring ordinal or -1 for a miss,
+ *           float distance, float seconds since target spawn
+ * leaderboard.idx, rewritten as a whole:
+ *   int magic "TMLX", short version, int board size, long log bytes covered,
+ *   long last session, long shots, long hits, int board entries, then the entries,
+ *   byte whether a session was seen, its totals if so, then int CRC32C of all before
+ *   entry: long session, int score, int hits, int shots, long first millis, long last millis
+ * </pre>
+ * Each block is one group commit, of at most {@link #MAX_BLOCK_RECORDS} records. A block
+ * cut short by a crash runs past the end of the file; it is cut off when the store is
+ * opened. Any other bad block, failing its checksum or with an impossible length, also
+ * ends the log, but intact blocks may follow it: the log is then copied aside as
+ * {@code shots.log.<millis>.damaged} before it is cut off.
+ */
+final class StatsFormat {
+
+    static final int LOG_MAGIC = 0x544D534C; // "TMSL"
+    static final int INDEX_MAGIC = 0x544D4C58; // "TMLX"
+    static final short VERSION = 1;
+
+    static final String LOG_FILE = "shots.log";
+    static final String INDEX_FILE = "leaderboard.idx";
+    /** Written by {@link ShotAnalytics#save}, which documents its layout. */
+    static final String ANALYTICS_FILE = "analytics.bin";
+
+    static final int LOG_HEADER_SIZE = 6;
+    static final int BLOCK_HEADER_SIZE = 8;
+    static final int RECORD_SIZE = 25;
+    static final int MAX_BLOCK_RECORDS = 4096;
+    static final int ENTRY_SIZE = 36;
+
+    private static final Ring[] RINGS = Ring.values();
+
+    private StatsFormat() {
+    }
+
+    static void putRecord(ByteBuffer buf, ShotRecord shot) {
+        buf.putLong(shot.timeMillis());
+        buf.putLong(shot.session());
+        buf.put((byte) (shot.ring() == null ? -1 : shot.ring().ordinal()));
+        buf.putFloat(shot.distance());
+        buf.putFloat(shot.sinceSpawnSeconds());
+    }
+
+    static ShotRecord getRecord(ByteBuffer buf) throws IOException {
+        long time = buf.getLong();
+        long session = buf.getLong();
+        int ring = buf.get();
+        if (ring < -1 || ring >= RINGS.length) {
+            throw new IOException("Bad ring " + ring);
+        }
+        return new ShotRecord(time, session, ring < 0 ? null : RINGS[ring], buf.getFloat(), buf.getFloat());
+    }
+
+    static void putEntry(ByteBuffer buf, Leaderboard.Entry entry) {
+        buf.putLong(entry.session());
+        buf.putInt(entry.score());
+        buf.putInt(entry.hits());
+        buf.putInt(entry.shots());
+        buf.putLong(entry.firstMillis());
+        buf.putLong(entry.lastMillis());
+    }
+
+    static Leaderboard.Entry getEntry(ByteBuffer buf) {
+        return new Leaderboard.Entry(buf.getLong(), buf.getInt(), buf.getInt(), buf.getInt(), buf.getLong(),
+                buf.getLong());
+    }
+
+    static int crc(ByteBuffer buf, int from, int to) {
+        CRC32C crc = new CRC32C();
+        crc.update(buf.duplicate().limit(to).position(from));
+        return (int) crc.getValue();
+    }
+
+    /** Receives the records of a log scan, one block at a time. */
+    interface BlockVisitor {
+        void block(ByteBuffer records, int count, long endOffset) throws IOException;
+    }
+
+    /**
+     * Reads the blocks of the log from {@code offset} on, checking each checksum.
+     *
+     * @return the offset after the last intact block
+     */
+    static long scan(FileChannel channel, long offset, BlockVisitor visitor) throws IOException {
+        ByteBuffer header = ByteBuffer.allocateDirect(BLOCK_HEADER_SIZE);
+        ByteBuffer payload = ByteBuffer.allocateDirect(64 * 1024);
+        long size = channel.size();
+        while (offset + BLOCK_HEADER_SIZE <= size) {
+            header.clear();
+            readFully(channel, header, offset);
+            int length = header.getInt(0);
+            int crc = header.getInt(4);
+            if (!validLength(length) || offset + BLOCK_HEADER_SIZE + length > size) {
+                break;
+            }
+            if (payload.capacity() < length) {
+                payload = ByteBuffer.allocateDirect(Math.max(length, payload.capacity() * 2));
+            }
+            payload.clear().limit(length);
+            readFully(channel, payload, offset + BLOCK_HEADER_SIZE);
+            if (crc(payload, 0, length) != crc) {
+                break;
+            }
+            offset += BLOCK_HEADER_SIZE + length;
+            payload.flip();
+            visitor.block(payload, length / RECORD_SIZE, offset);
+        }
+        return offset;
+    }
+
+    /**
+     * Whether the log from {@code offset}, where {@link #scan} stopped, is only a block cut
+     * short by a crash: a header or a block that runs past the end of the file. Anything
+     * else is damage that intact blocks may follow.
+     */
+    static boolean isTornTail(FileChannel channel, long offset) throws IOException {
+        long size = channel.size();
+        if (offset + BLOCK_HEADER_SIZE > size) {
+            return true;
+        }
+        ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+        readFully(channel, header, offset);
+        int length = header.getInt(0);
+        return validLength(length) && offset + BLOCK_HEADER_SIZE + length > size;
+    }
+
+    private static boolean validLength(int length) {
+        return length > 0 && length % RECORD_SIZE == 0 && length <= MAX_BLOCK_RECORDS * RECORD_SIZE;
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int read = channel.read(buf, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            position += read;
+        }
+    }
+}
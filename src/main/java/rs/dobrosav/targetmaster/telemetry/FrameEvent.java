@@ -0,0 +1,33 @@
+package rs.dobrosav.targetmaster.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("rs.dobrosav.targetmaster.Frame")
+@Label("Frame")
+@Description("One JavaFX pulse of the game loop")
+@Category("TargetMaster")
+@StackTrace(false)
+final class FrameEvent extends Event {
+
+    @Label("Frame Time")
+    @Description("Time since the previous pulse")
+    @Timespan(Timespan.NANOSECONDS)
+    long frameTime;
+
+    @Label("Simulation")
+    @Timespan(Timespan.NANOSECONDS)
+    long simulation;
+
+    @Label("Render")
+    @Timespan(Timespan.NANOSECONDS)
+    long render;
+
+    @Label("Ticks")
+    int ticks;
+}
@@ -0,0 +1,92 @@
+package rs.dobrosav.targetmaster.telemetry;
+
+import rs.dobrosav.targetmaster.sim.World;
+
+/**
+ * Collects per-phase timings of the game loop into one {@link LatencyHistogram} per
+ * {@link Phase} and mirrors them as JDK Flight Recorder events
+ * ({@code rs.dobrosav.targetmaster.Tick} and {@code rs.dobrosav.targetmaster.Frame}),
+ * which cost next to nothing unless a recording has them enabled.
+ * <p>
+ * Meant to be used from the thread running the game loop.
+ */
+public final class FrameTelemetry {
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Phase.VALUES.length];
+    // Pulse times come from nanoTime and may be negative, so they cannot mark "no pulse yet"
+    private boolean started;
+    private long lastPulse;
+
+    public FrameTelemetry() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /** Records the phase timings of the tick {@code world} has just completed. */
+    public void recordTick(World world) {
+        long total = 0;
+        for (Phase phase : Phase.VALUES) {
+            if (phase == Phase.TICK) {
+                break;
+            }
+            long nanos = world.getPhaseNanos(phase);
+            histograms[phase.ordinal()].record(nanos);
+            total += nanos;
+        }
+        histograms[Phase.TICK.ordinal()].record(total);
+
+        TickEvent event = new TickEvent();
+        if (event.shouldCommit()) {
+            event.tick = world.getTick();
+            event.scope = world.getPhaseNanos(Phase.SCOPE);
+            event.targets = world.getPhaseNanos(Phase.TARGETS);
+            event.bullets = world.getPhaseNanos(Phase.BULLETS);
+            event.collision = world.getPhaseNanos(Phase.COLLISION);
+            event.particles = world.getPhaseNanos(Phase.PARTICLES);
+            event.bulletCount = world.getBullets().size();
+            event.particleCount = world.getParticles().size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Records one pulse. {@code pulseNanos} is the pulse timestamp as passed to
+     * {@code AnimationTimer.handle}; the frame time is measured between consecutive pulses.
+     */
+    public void recordPulse(long pulseNanos, long simulationNanos, long renderNanos, int ticks) {
+        long frameTime = started ? pulseNanos - lastPulse : 0;
+        started = true;
+        lastPulse = pulseNanos;
+        if (frameTime > 0) {
+            histograms[Phase.FRAME.ordinal()].record(frameTime);
+        }
+        histograms[Phase.RENDER.ordinal()].record(renderNanos);
+        histograms[Phase.PULSE.ordinal()].record(simulationNanos + renderNanos);
+
+        FrameEvent event = new FrameEvent();
+        if (event.shouldCommit()) {
+            event.frameTime = frameTime;
+            event.simulation = simulationNanos;
+            event.render = renderNanos;
+            event.ticks = ticks;
+            event.commit();
+        }
+    }
+
+    /** Records one input-to-frame delay, {@link Phase#LOOK_LATENCY} or {@link Phase#SHOT_LATENCY}. */
+    public void recordLatency(Phase phase, long nanos) {
+        histograms[phase.ordinal()].record(nanos);
+    }
+
+    public LatencyHistogram get(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    /** Clears all histograms, starting a new measurement window. */
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+}
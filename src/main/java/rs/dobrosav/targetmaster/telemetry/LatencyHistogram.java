@@ -0,0 +1,151 @@
+package rs.dobrosav.targetmaster.telemetry;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Histogram of non-negative durations in nanoseconds with fixed memory. Values are
+ * grouped by power of two and each octave is split into {@value #SUB_BUCKETS} linear
+ * sub-buckets, so any recorded value is reported within about 3% of its true value,
+ * across the whole {@code long} range, with a constant 15 KB footprint and an O(1)
+ * allocation-free {@link #record(long)}.
+ * <p>
+ * Not thread-safe.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long max;
+    private long sum;
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[index(nanos)]++;
+        count++;
+        sum += nanos;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    /**
+     * Value at the given percentile, {@code 0 < percentile <= 100}, or 0 when empty.
+     * The result is the midpoint of the bucket the value fell into, capped at {@link #getMax()}.
+     */
+    public long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        if (rank >= count) {
+            return max;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, midpoint(i));
+            }
+        }
+        return max;
+    }
+
+    public long getCount() { return count; }
+    public long getMax() { return max; }
+    public double getMean() { return count == 0 ? 0 : (double) sum / count; }
+
+    /** Adds all values recorded in {@code other}, e.g. to combine per-thread histograms. */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /** Writes the recorded values, listing only buckets that are not empty. */
+    public void write(DataOutput out) throws IOException {
+        int used = 0;
+        for (long c : counts) {
+            if (c != 0) {
+                used++;
+            }
+        }
+        out.writeLong(count);
+        out.writeLong(sum);
+        out.writeLong(max);
+        out.writeShort(used);
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] != 0) {
+                out.writeShort(i);
+                out.writeLong(counts[i]);
+            }
+        }
+    }
+
+    /** Adds the values written by {@link #write(DataOutput)}, like {@link #add(LatencyHistogram)}. */
+    public void read(DataInput in) throws IOException {
+        LatencyHistogram read = new LatencyHistogram();
+        read.count = in.readLong();
+        read.sum = in.readLong();
+        read.max = in.readLong();
+        int used = in.readUnsignedShort();
+        long seen = 0;
+        for (int i = 0; i < used; i++) {
+            int index = in.readUnsignedShort();
+            long c = in.readLong();
+            if (index >= BUCKETS || c <= 0) {
+                throw new IOException("Bad bucket " + index + " = " + c);
+            }
+            read.counts[index] += c;
+            seen += c;
+        }
+        if (seen != read.count) {
+            throw new IOException("Bucket counts add up to " + seen + ", expected " + read.count);
+        }
+        add(read);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        max = 0;
+        sum = 0;
+    }
+
+    static int index(long v) {
+        if (v < SUB_BUCKETS) {
+            return (int) v;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exp - SUB_BITS) * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exp = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BITS;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return (1L << exp) + ((long) sub << (exp - SUB_BITS));
+    }
+
+    private static long midpoint(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exp = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BITS;
+        return lowerBound(index) + (1L << (exp - SUB_BITS)) / 2;
+    }
+}
@@ -0,0 +1,38 @@
+package rs.dobrosav.targetmaster.telemetry;
+
+/**
+ * Timed parts of a frame. The first five run inside {@code World.step()} once per tick;
+ * the others are measured by the view once per JavaFX pulse, except the two input
+ * latencies, which are recorded per input event.
+ */
+public enum Phase {
+    SCOPE("scope"),
+    TARGETS("targets"),
+    BULLETS("bullets"),
+    COLLISION("collision"),
+    PARTICLES("particles"),
+    /** Whole simulation tick. */
+    TICK("tick"),
+    /** Copying the world state into the scene graph. */
+    RENDER("render"),
+    /** Work done in one pulse: all ticks plus render. */
+    PULSE("pulse"),
+    /** Time between two consecutive pulses, i.e. the frame time. */
+    FRAME("frame"),
+    /** From a mouse movement to the end of the first pulse that renders it. */
+    LOOK_LATENCY("look>frame"),
+    /** From a click to the end of the first pulse that renders its shot. */
+    SHOT_LATENCY("shot>frame");
+
+    public static final Phase[] VALUES = values();
+
+    private final String label;
+
+    Phase(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
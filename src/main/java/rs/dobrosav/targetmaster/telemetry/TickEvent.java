@@ -0,0 +1,46 @@
+package rs.dobrosav.targetmaster.telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("rs.dobrosav.targetmaster.Tick")
+@Label("Simulation Tick")
+@Description("Time spent in each phase of one fixed simulation tick")
+@Category("TargetMaster")
+@StackTrace(false)
+final class TickEvent extends Event {
+
+    @Label("Tick")
+    long tick;
+
+    @Label("Scope")
+    @Timespan(Timespan.NANOSECONDS)
+    long scope;
+
+    @Label("Targets")
+    @Timespan(Timespan.NANOSECONDS)
+    long targets;
+
+    @Label("Bullets")
+    @Timespan(Timespan.NANOSECONDS)
+    long bullets;
+
+    @Label("Collision")
+    @Timespan(Timespan.NANOSECONDS)
+    long collision;
+
+    @Label("Particles")
+    @Timespan(Timespan.NANOSECONDS)
+    long particles;
+
+    @Label("Bullets In Flight")
+    int bulletCount;
+
+    @Label("Live Particles")
+    int particleCount;
+}
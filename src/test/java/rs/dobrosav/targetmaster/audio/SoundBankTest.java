@@ -0,0 +1,79 @@
+package rs.dobrosav.targetmaster.audio;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SoundBankTest {
+
+    private static final String FIRST = "/sound/a.mp3";
+
+    @TempDir
+    Path dir;
+
+    private Path writeBank() throws IOException {
+        Path file = dir.resolve("sounds.bank");
+        SoundBank.write(file, List.of(
+                PcmSound.tone(FIRST, 440, 0.05, 0.5),
+                PcmSound.tone("/sound/b.wav", 880, 0.02, 0.25)));
+        return file;
+    }
+
+    @Test
+    void soundsRoundTrip() throws IOException {
+        PcmSound tone = PcmSound.tone(FIRST, 440, 0.05, 0.5);
+        SoundBank bank = SoundBank.open(writeBank());
+        assertEquals(2, bank.getNames().size());
+        PcmSound read = bank.get(FIRST);
+        assertEquals(tone.getFrames(), read.getFrames());
+        ShortBuffer expected = tone.samples();
+        ShortBuffer actual = read.samples();
+        for (int i = 0; i < expected.limit(); i++) {
+            assertEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    void damagedSamplesFailTheChecksum() throws IOException {
+        Path file = writeBank();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 10] ^= 1;
+        Files.write(file, bytes);
+        IOException e = assertThrows(IOException.class, () -> SoundBank.open(file));
+        assertTrue(e.getMessage().contains("checksum"), e.getMessage());
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> SoundBank.open(file));
+    }
+
+    @Test
+    void soundOutsideTheFileIsRejected() throws IOException {
+        Path file = writeBank();
+        byte[] bytes = Files.readAllBytes(file);
+        int entry = 24 + 2 + FIRST.getBytes(StandardCharsets.UTF_8).length;
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+
+        // With a valid checksum, so only the bounds checks can catch them
+        for (int[] bad : new int[][] {{-4, 10}, {bytes.length - 4, 10}, {24, -1}, {24, Integer.MAX_VALUE}}) {
+            buf.putInt(entry, bad[0]).putInt(entry + 4, bad[1]);
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 24, bytes.length - 24);
+            buf.putInt(20, (int) crc.getValue());
+            Files.write(file, bytes);
+            assertThrows(IOException.class, () -> SoundBank.open(file));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package rs.dobrosav.targetmaster.input;
+
+import org.junit.jupiter.api.Test;
+import rs.dobrosav.targetmaster.sim.TickInput;
+import rs.dobrosav.targetmaster.telemetry.FrameTelemetry;
+import rs.dobrosav.targetmaster.telemetry.LatencyHistogram;
+import rs.dobrosav.targetmaster.telemetry.Phase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InputBufferTest {
+
+    @Test
+    void lookLatencyOnANegativeClockIsRecorded() {
+        InputBuffer buffer = new InputBuffer();
+        FrameTelemetry telemetry = new FrameTelemetry();
+        buffer.look(0.1, 0.2, -30_000_000);
+        buffer.look(0.1, 0.2, -25_000_000);
+        buffer.frameShown(-20_000_000, telemetry);
+        // Nothing moved since the last frame
+        buffer.frameShown(-4_000_000, telemetry);
+        buffer.look(0.1, 0.2, -1_000_000);
+        buffer.frameShown(12_000_000, telemetry);
+
+        LatencyHistogram looks = telemetry.get(Phase.LOOK_LATENCY);
+        assertEquals(2, looks.getCount());
+        assertEquals(13_000_000, looks.getMax());
+    }
+
+    @Test
+    void shotLatencyIsRecordedOnceTheShotIsDrained() {
+        InputBuffer buffer = new InputBuffer();
+        FrameTelemetry telemetry = new FrameTelemetry();
+        TickInput input = new TickInput();
+        buffer.fire(-9_000_000);
+        buffer.frameShown(-8_000_000, telemetry);
+        assertEquals(0, telemetry.get(Phase.SHOT_LATENCY).getCount());
+
+        buffer.drainInto(input);
+        assertEquals(1, input.getCommandCount());
+        buffer.frameShown(-1_000_000, telemetry);
+        assertEquals(1, telemetry.get(Phase.SHOT_LATENCY).getCount());
+        assertEquals(8_000_000, telemetry.get(Phase.SHOT_LATENCY).getMax());
+    }
+}
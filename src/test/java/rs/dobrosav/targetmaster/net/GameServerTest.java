@@ -0,0 +1,86 @@
+package rs.dobrosav.targetmaster.net;
+
+import org.junit.jupiter.api.Test;
+import rs.dobrosav.targetmaster.sim.Command;
+import rs.dobrosav.targetmaster.sim.TickInput;
+import rs.dobrosav.targetmaster.sim.World;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A hand-written client that cheats for lag compensation: it never reports a newer view
+ * than the one it joined with, and forges a pong claiming a long round trip.
+ */
+class GameServerTest {
+
+    private static final long TICK_NANOS = 1_000_000_000L / World.DEFAULT_TICK_RATE;
+    private static final long PLAY_NANOS = 1_000_000_000L;
+
+    @Test
+    void forgedPongAndStaleViewBuyNoRewind() throws IOException, InterruptedException {
+        GameServer server = LoadDriver.startServer(true);
+        try (SocketChannel channel = SocketChannel.open(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()))) {
+            ByteBuffer out = ByteBuffer.allocate(1024);
+            int start = Protocol.begin(out, Protocol.HELLO);
+            out.putInt(Protocol.VERSION);
+            Protocol.end(out, start);
+            // Answers no ping the server sent
+            start = Protocol.begin(out, Protocol.PONG);
+            out.putLong(System.nanoTime() - 2 * PLAY_NANOS);
+            Protocol.end(out, start);
+            send(channel, out);
+            channel.configureBlocking(false);
+
+            ByteBuffer in = ByteBuffer.allocate(Protocol.MAX_FRAME);
+            TickInput input = new TickInput();
+            input.command(Command.FIRE);
+            long end = System.nanoTime() + PLAY_NANOS;
+            long nextInput = System.nanoTime();
+            while (System.nanoTime() - end < 0) {
+                channel.read(in);
+                in.flip();
+                // Pings are answered honestly, the moment they arrive
+                while (in.remaining() >= 4 && in.remaining() >= 4 + in.getInt(in.position())) {
+                    int frameEnd = in.position() + 4 + in.getInt();
+                    if (in.get() == Protocol.PING) {
+                        start = Protocol.begin(out, Protocol.PONG);
+                        out.putLong(in.getLong());
+                        Protocol.end(out, start);
+                    }
+                    in.position(frameEnd);
+                }
+                in.compact();
+                if (System.nanoTime() - nextInput >= 0) {
+                    start = Protocol.begin(out, Protocol.INPUT);
+                    out.putLong(-1);
+                    Protocol.putInput(out, input);
+                    Protocol.end(out, start);
+                    nextInput += TICK_NANOS;
+                }
+                send(channel, out);
+                Thread.sleep(1);
+            }
+        } finally {
+            server.close();
+        }
+
+        assertTrue(server.getShots() > 10, server.getShots() + " shots");
+        long rewind = server.getRewinds().getMax();
+        assertTrue(rewind <= 3 * TICK_NANOS, "rewound " + rewind / 1e6 + " ms");
+    }
+
+    private static void send(SocketChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+}
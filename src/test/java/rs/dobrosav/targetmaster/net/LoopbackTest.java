@@ -0,0 +1,64 @@
+package rs.dobrosav.targetmaster.net;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End to end over loopback: a few {@link ScriptedClient}s play a short game against a
+ * {@link GameServer}, and every shot must be accounted for the same way on both ends.
+ */
+class LoopbackTest {
+
+    private static final int CLIENTS = 4;
+    private static final long LATENCY_NANOS = 60_000_000L;
+    private static final double SECONDS = 4;
+
+    @Test
+    void shotOutcomesMatchWithLagCompensation() throws IOException {
+        playAndCompare(true);
+    }
+
+    @Test
+    void shotOutcomesMatchWithoutLagCompensation() throws IOException {
+        playAndCompare(false);
+    }
+
+    private static void playAndCompare(boolean lagCompensation) throws IOException {
+        GameServer server = LoadDriver.startServer(lagCompensation);
+        List<ScriptedClient> bots = new ArrayList<>();
+        try {
+            LoadDriver.play(server, bots, CLIENTS, LATENCY_NANOS, SECONDS);
+        } finally {
+            server.close();
+            for (ScriptedClient bot : bots) {
+                bot.client.close();
+            }
+        }
+
+        long fired = 0;
+        long resolved = 0;
+        long hits = 0;
+        long late = 0;
+        long misses = 0;
+        for (ScriptedClient bot : bots) {
+            fired += bot.fired;
+            resolved += bot.resolved;
+            hits += bot.hits;
+            late += bot.late;
+            misses += bot.misses;
+        }
+        assertTrue(fired > 0, "no shots fired");
+        assertEquals(fired, server.getShots(), "shots fired");
+        assertEquals(fired, resolved, "outcomes received");
+        assertEquals(server.getHits(), hits, "hits");
+        assertEquals(server.getLateHits(), late, "late hits");
+        assertEquals(server.getMisses(), misses, "misses");
+        assertTrue(server.getSnapshotBytes() > 0, "no snapshots sent");
+    }
+}
@@ -0,0 +1,96 @@
+package rs.dobrosav.targetmaster.net;
+
+import org.junit.jupiter.api.Test;
+import rs.dobrosav.targetmaster.sim.Command;
+import rs.dobrosav.targetmaster.sim.TickInput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProtocolTest {
+
+    private static ByteBuffer encode(TickInput input) {
+        ByteBuffer buf = ByteBuffer.allocate(Protocol.inputSize(input));
+        Protocol.putInput(buf, input);
+        assertEquals(buf.capacity(), buf.position());
+        return buf.flip();
+    }
+
+    @Test
+    void inputRoundTrips() throws IOException {
+        TickInput input = new TickInput();
+        input.look(1.5, -2.25);
+        input.command(Command.FIRE);
+        input.command(Command.TOGGLE_SCOPE);
+        input.look(-0.5, 3);
+
+        TickInput read = new TickInput();
+        Protocol.getInput(encode(input), read, 16);
+        assertEquals(2, read.getCommandCount());
+        assertEquals(Command.FIRE, read.getCommand(0));
+        assertEquals(1.5, read.getPitchBefore(0));
+        assertEquals(-2.25, read.getYawBefore(0));
+        assertEquals(Command.TOGGLE_SCOPE, read.getCommand(1));
+        assertEquals(0.0, read.getYawBefore(1));
+        assertEquals(-0.5, read.getPitch());
+        assertEquals(3.0, read.getYaw());
+    }
+
+    @Test
+    void commandsBeyondLimitAreDropped() throws IOException {
+        TickInput input = new TickInput();
+        for (int i = 0; i < 5; i++) {
+            input.command(Command.FIRE);
+        }
+        TickInput read = new TickInput();
+        Protocol.getInput(encode(input), read, 3);
+        assertEquals(3, read.getCommandCount());
+    }
+
+    @Test
+    void manyCommandsRoundTrip() throws IOException {
+        // More than a one-byte count can hold, as a full input buffer gives
+        TickInput input = new TickInput();
+        for (int i = 0; i < 256; i++) {
+            input.command(i % 3 == 0 ? Command.TOGGLE_SCOPE : Command.FIRE);
+        }
+        input.look(0.25, 0);
+        TickInput read = new TickInput();
+        Protocol.getInput(encode(input), read, 1000);
+        assertEquals(256, read.getCommandCount());
+        for (int i = 0; i < 256; i++) {
+            assertEquals(input.getCommand(i), read.getCommand(i));
+        }
+        assertEquals(0.25, read.getPitch());
+    }
+
+    @Test
+    void nonFiniteLookIsRejected() {
+        for (double bad : new double[] {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY}) {
+            TickInput before = new TickInput();
+            before.look(bad, 0);
+            before.command(Command.FIRE);
+            assertThrows(IOException.class, () -> Protocol.getInput(encode(before), new TickInput(), 16));
+
+            TickInput trailing = new TickInput();
+            trailing.look(0, bad);
+            assertThrows(IOException.class, () -> Protocol.getInput(encode(trailing), new TickInput(), 16));
+        }
+    }
+
+    @Test
+    void oversizedLookIsRejected() {
+        TickInput input = new TickInput();
+        input.look(0, Protocol.MAX_LOOK + 1);
+        assertThrows(IOException.class, () -> Protocol.getInput(encode(input), new TickInput(), 16));
+    }
+
+    @Test
+    void unknownCommandIsRejected() {
+        ByteBuffer buf = ByteBuffer.allocate(2).put((byte) (1 << 1)).put((byte) 0x7F).flip();
+        assertThrows(IOException.class, () -> Protocol.getInput(buf, new TickInput(), 16));
+    }
+}
@@ -0,0 +1,60 @@
+package rs.dobrosav.targetmaster.render;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QualityControllerTest {
+
+    private static final long SLOW_FRAME = 30_000_000L;
+    private static final long FAST_FRAME = 10_000_000L;
+
+    /** Feeds {@code count} pulses {@code frame} apart from {@code start}; returns the last pulse. */
+    private static long pulses(QualityController controller, long start, long frame, int count) {
+        long now = start;
+        for (int i = 0; i < count; i++) {
+            controller.recordFrame(now);
+            now += frame;
+        }
+        return now - frame;
+    }
+
+    @Test
+    void slowFramesOnANegativeClockDowngrade() {
+        QualityController controller = new QualityController(60, QualityLevel.HIGH);
+        List<QualityChange> changes = new ArrayList<>();
+        controller.addListener(changes::add);
+
+        // Two and a half windows of 30 ms frames, all before zero
+        pulses(controller, -10_000_000_000L, SLOW_FRAME, 45);
+        assertEquals(1, changes.size());
+        assertEquals(QualityLevel.MEDIUM, controller.getLevel());
+        assertTrue(changes.get(0).isDowngrade());
+        assertTrue(changes.get(0).frameTimeNanos() >= SLOW_FRAME);
+    }
+
+    @Test
+    void fastFramesAcrossZeroUpgrade() {
+        QualityController controller = new QualityController(60, QualityLevel.LOW);
+        List<QualityChange> changes = new ArrayList<>();
+        controller.addListener(changes::add);
+
+        // A little over ten windows, crossing zero halfway
+        pulses(controller, -2_600_000_000L, FAST_FRAME, 560);
+        assertEquals(1, changes.size());
+        assertEquals(QualityLevel.LOW, changes.get(0).from());
+        assertEquals(QualityLevel.MEDIUM, controller.getLevel());
+    }
+
+    @Test
+    void disabledControllerKeepsTheLevel() {
+        QualityController controller = new QualityController(60, QualityLevel.HIGH);
+        controller.setEnabled(false);
+        pulses(controller, -1, SLOW_FRAME, 200);
+        assertEquals(QualityLevel.HIGH, controller.getLevel());
+    }
+}
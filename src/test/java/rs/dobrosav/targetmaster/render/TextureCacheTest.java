@@ -0,0 +1,82 @@
+package rs.dobrosav.targetmaster.render;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextureCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private static void gradient(int[] pixels) {
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | i * 7919;
+        }
+    }
+
+    @Test
+    void storedPixelsAreReadBack() {
+        TextureCache cache = new TextureCache(dir);
+        int[] generated = cache.get("floor 64x32", 64, 32, TextureCacheTest::gradient);
+        assertEquals(1, cache.getMisses());
+
+        int[] read = new TextureCache(dir).get("floor 64x32", 64, 32, pixels -> Arrays.fill(pixels, 1));
+        assertArrayEquals(generated, read);
+
+        // Another size under the same key is a miss
+        TextureCache other = new TextureCache(dir);
+        other.get("floor 64x32", 32, 64, TextureCacheTest::gradient);
+        assertEquals(1, other.getMisses());
+        assertEquals(0, other.getHits());
+    }
+
+    @Test
+    void differentKeysGenerateInParallel() throws Exception {
+        TextureCache cache = new TextureCache(dir);
+        CountDownLatch both = new CountDownLatch(2);
+        // Each generator waits for the other to start, which a cache-wide lock would prevent
+        Runnable meet = () -> {
+            both.countDown();
+            try {
+                assertTrue(both.await(10, TimeUnit.SECONDS), "generators ran one after the other");
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        };
+        CompletableFuture<int[]> floor = CompletableFuture.supplyAsync(
+                () -> cache.get("floor", 16, 16, pixels -> { meet.run(); gradient(pixels); }));
+        CompletableFuture<int[]> sky = CompletableFuture.supplyAsync(
+                () -> cache.get("sky", 16, 16, pixels -> { meet.run(); Arrays.fill(pixels, 5); }));
+        floor.get(20, TimeUnit.SECONDS);
+        sky.get(20, TimeUnit.SECONDS);
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    void failedWriteLeavesNoTemporaryFile() throws IOException {
+        // A non-empty directory where the file should go makes the final move fail
+        Path blocker = dir.resolve("sky.tex");
+        Files.createDirectories(blocker);
+        Files.writeString(blocker.resolve("keep"), "x");
+
+        TextureCache cache = new TextureCache(dir);
+        int[] pixels = cache.get("sky", 8, 8, TextureCacheTest::gradient);
+        assertEquals(64, pixels.length);
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+}
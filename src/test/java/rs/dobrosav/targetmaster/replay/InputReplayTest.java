@@ -0,0 +1,143 @@
+package rs.dobrosav.targetmaster.replay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import rs.dobrosav.targetmaster.sim.Command;
+import rs.dobrosav.targetmaster.sim.TickInput;
+import rs.dobrosav.targetmaster.sim.World;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InputReplayTest {
+
+    private static final int TICKS = 1200;
+    /** A tick whose input holds more commands than a one-byte count could. */
+    private static final int BURST_TICK = 300;
+    private static final int BURST = 256;
+
+    @TempDir
+    Path dir;
+
+    /** Input of tick {@code t}: sweeps the aim, fires now and then, scopes rarely. */
+    private static void input(int t, TickInput input) {
+        input.clear();
+        if (t % 5 != 0) {
+            input.look(Math.sin(t * 0.03) * 0.4, Math.cos(t * 0.02) * 0.9);
+        }
+        if (t == BURST_TICK) {
+            for (int i = 0; i < BURST; i++) {
+                input.command(Command.FIRE);
+                input.look(0.01, -0.02);
+            }
+        } else if (t % 11 == 0) {
+            input.command(Command.FIRE);
+        }
+        if (t % 97 == 0) {
+            input.command(Command.TOGGLE_SCOPE);
+            input.look(-0.1, 0.3);
+        }
+    }
+
+    /** Plays {@link #TICKS} ticks into {@code file}; returns the checksum after every tick. */
+    private List<Long> record(Path file) throws IOException {
+        World world = new World(99, World.DEFAULT_TICK_RATE, 15, true);
+        List<Long> checksums = new ArrayList<>();
+        TickInput input = new TickInput();
+        InputRecorder recorder = new InputRecorder(file, world);
+        for (int t = 0; t < TICKS; t++) {
+            input(t, input);
+            world.step(input);
+            recorder.record(world.getTick(), input);
+            checksums.add(world.checksum());
+        }
+        recorder.close(world);
+        return checksums;
+    }
+
+    @Test
+    void replayReproducesTheSession() throws IOException {
+        Path file = dir.resolve("session.tmr");
+        List<Long> checksums = record(file);
+
+        TickInput input = new TickInput();
+        TickInput expected = new TickInput();
+        try (InputReplay replay = InputReplay.open(file)) {
+            World world = replay.createWorld();
+            int t = 0;
+            while (replay.next(input)) {
+                input(t, expected);
+                assertEquals(expected.getCommandCount(), input.getCommandCount(), "commands of tick " + t);
+                world.step(input);
+                assertEquals((long) checksums.get(t), world.checksum(), "checksum after tick " + t);
+                t++;
+            }
+            assertEquals(TICKS, t);
+            assertTrue(replay.isVerifiable());
+            assertTrue(replay.matches(world));
+        }
+    }
+
+    @Test
+    void cutOffRecordingReplaysWhatIsThere() throws IOException {
+        Path file = dir.resolve("session.tmr");
+        List<Long> checksums = record(file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length * 2 / 3));
+
+        TickInput input = new TickInput();
+        try (InputReplay replay = InputReplay.open(file)) {
+            World world = replay.createWorld();
+            int t = 0;
+            while (replay.next(input)) {
+                world.step(input);
+                t++;
+            }
+            assertTrue(t > BURST_TICK && t < TICKS, t + " ticks");
+            assertFalse(replay.isVerifiable());
+            // Every tick returned was complete
+            assertEquals((long) checksums.get(t - 1), world.checksum());
+        }
+    }
+
+    @Test
+    void versionOneIsStillRead() throws IOException {
+        Path file = dir.resolve("old.tmr");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(ReplayFormat.MAGIC);
+            out.writeShort(1);
+            out.writeLong(5);
+            out.writeInt(World.DEFAULT_TICK_RATE);
+            out.writeInt(3);
+            out.writeBoolean(false);
+            // Tick 2: 100 commands and a trailing look, the count in one byte
+            out.writeByte(2);
+            out.writeByte(ReplayFormat.KIND_INPUT);
+            out.writeByte(100 << 1 | 1);
+            for (int i = 0; i < 100; i++) {
+                out.writeByte(Command.FIRE.ordinal());
+            }
+            out.writeDouble(1.5);
+            out.writeDouble(-2);
+        }
+        TickInput input = new TickInput();
+        try (InputReplay replay = InputReplay.open(file)) {
+            assertTrue(replay.next(input));
+            assertTrue(input.isEmpty());
+            assertTrue(replay.next(input));
+            assertEquals(100, input.getCommandCount());
+            assertEquals(1.5, input.getPitch());
+            assertEquals(-2.0, input.getYaw());
+            assertFalse(replay.next(input));
+        }
+    }
+}
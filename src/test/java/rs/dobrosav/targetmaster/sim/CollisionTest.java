@@ -0,0 +1,101 @@
+package rs.dobrosav.targetmaster.sim;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CollisionTest {
+
+    private static final double CX = 3;
+    private static final double CY = 20;
+    private static final double CZ = -500;
+    private static final double FRONT = CZ + Target.THICKNESS / 2;
+    private static final double BACK = CZ - Target.THICKNESS / 2;
+    /** Small enough to graze a ring, large enough to survive the offset from the center. */
+    private static final double GRAZE = 1e-9;
+
+    private final Impact impact = new Impact();
+
+    /** Sweeps straight down the range, towards negative z, at offset {@code (dx, dy)} from the center. */
+    private boolean sweepDown(double dx, double dy, double z0, double z1) {
+        return Collision.sweepDisc(CX + dx, CY + dy, z0, CX + dx, CY + dy, z1, CX, CY, CZ, impact);
+    }
+
+    @Test
+    void tunnellingStepStillHitsTheFace() {
+        // One step covers far more than the disc's thickness and ends well behind it
+        double step = World.BULLET_SPEED / World.DEFAULT_TICK_RATE;
+        assertTrue(step > Target.THICKNESS);
+        assertTrue(sweepDown(1, -2, CZ + step / 3, CZ - 2 * step / 3));
+        assertEquals(FRONT, impact.getZ());
+        assertEquals(CX + 1, impact.getX());
+        assertEquals(CY - 2, impact.getY());
+        assertEquals(Ring.RED, impact.getRing());
+        assertEquals((step / 3 - Target.THICKNESS / 2) / step, impact.getT(), 1e-12);
+
+        // Both ends beyond the disc, neither inside it
+        assertTrue(sweepDown(0, 0, CZ + 1000, CZ - 1000));
+        assertEquals(0.5 - Target.THICKNESS / 2 / 2000, impact.getT(), 1e-12);
+    }
+
+    @Test
+    void grazingHitsOnRingBoundaries() {
+        double[] radii = {Target.OUTER_RADIUS, Target.MIDDLE_RADIUS, Target.INNER_RADIUS};
+        Ring[] rings = {Ring.WHITE, Ring.BLUE, Ring.RED};
+        Ring[] outside = {null, Ring.WHITE, Ring.BLUE};
+        for (int i = 0; i < radii.length; i++) {
+            double r = radii[i];
+            assertTrue(sweepDown(r, 0, FRONT + 10, FRONT - 10));
+            assertEquals(rings[i], impact.getRing(), "on " + r);
+            assertEquals(r, impact.getRadius());
+
+            assertTrue(sweepDown(0, -r, FRONT + 10, FRONT - 10));
+            assertEquals(rings[i], impact.getRing(), "on " + r + " below");
+
+            boolean hit = sweepDown(r + GRAZE, 0, FRONT + 10, FRONT - 10);
+            assertEquals(outside[i] != null, hit, "just outside " + r);
+            if (hit) {
+                assertEquals(outside[i], impact.getRing(), "just outside " + r);
+            }
+        }
+        // The face plane is crossed all the same, outside the disc
+        double x = CX + Target.OUTER_RADIUS + GRAZE;
+        assertTrue(Collision.sweepFacePlane(x, CY, FRONT + 10, x, CY, FRONT - 10, CX, CY, CZ, impact));
+        assertNull(impact.getRing());
+    }
+
+    @Test
+    void segmentEndingOnTheFaceHits() {
+        assertTrue(sweepDown(0, 0, FRONT + 5, FRONT));
+        assertEquals(1.0, impact.getT());
+        assertFalse(sweepDown(0, 0, FRONT + 5, Math.nextUp(FRONT)));
+    }
+
+    @Test
+    void parallelRayNeverHits() {
+        // Along the face plane, through the center
+        assertFalse(Collision.sweepDisc(CX - 50, CY, FRONT, CX + 50, CY, FRONT, CX, CY, CZ, impact));
+        assertFalse(Collision.sweepDisc(CX, CY - 50, CZ, CX, CY + 50, CZ, CX, CY, CZ, impact));
+        assertFalse(Collision.sweepFacePlane(CX, CY, CZ, CX, CY, CZ, CX, CY, CZ, impact));
+    }
+
+    @Test
+    void backFaceCrossing() {
+        // Coming from behind, the face towards the bullet is the back one
+        assertTrue(sweepDown(2, 2, BACK - 10, BACK + 10));
+        assertEquals(BACK, impact.getZ());
+        assertEquals(0.5, impact.getT());
+        assertEquals(Ring.RED, impact.getRing());
+
+        // Starting inside the disc or past its front face, a bullet moving on does not hit
+        assertFalse(sweepDown(0, 0, CZ, CZ - 50));
+        assertFalse(sweepDown(0, 0, FRONT - 0.1, CZ - 50));
+        assertFalse(sweepDown(0, 0, BACK, BACK - 50));
+        // Nor does a segment that stops short of the face
+        assertFalse(sweepDown(0, 0, FRONT + 50, Math.nextUp(FRONT)));
+        assertFalse(sweepDown(0, 0, BACK - 50, Math.nextDown(BACK)));
+    }
+}
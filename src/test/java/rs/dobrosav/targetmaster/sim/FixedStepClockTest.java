@@ -0,0 +1,47 @@
+package rs.dobrosav.targetmaster.sim;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FixedStepClockTest {
+
+    @Test
+    void negativeTimestampsAreNotMistakenForAStart() {
+        FixedStepClock clock = new FixedStepClock(100);
+        assertEquals(0, clock.advance(-20_000_000));
+        assertEquals(1, clock.advance(-5_000_000));
+        assertEquals(0.5, clock.alpha(), 1e-9);
+        // Across zero
+        assertEquals(2, clock.advance(15_000_000));
+        assertEquals(0.5, clock.alpha(), 1e-9);
+    }
+
+    @Test
+    void catchUpIsCappedAndCounted() {
+        FixedStepClock clock = new FixedStepClock(100, 3);
+        clock.advance(Long.MIN_VALUE + 1);
+        assertEquals(3, clock.advance(Long.MIN_VALUE + 1 + 105_000_000));
+        assertEquals(7, clock.getDroppedTicks());
+        assertEquals(0.5, clock.alpha(), 1e-9);
+    }
+
+    @Test
+    void resetStartsOver() {
+        FixedStepClock clock = new FixedStepClock(100);
+        clock.advance(-1);
+        clock.advance(-1 + 25_000_000);
+        clock.reset();
+        assertEquals(0, clock.advance(-1));
+        assertEquals(0.0, clock.alpha());
+        assertEquals(1, clock.advance(-1 + 10_000_000));
+    }
+
+    @Test
+    void timeGoingBackIsIgnored() {
+        FixedStepClock clock = new FixedStepClock(100);
+        clock.advance(1_000_000_000);
+        assertEquals(0, clock.advance(900_000_000));
+        assertEquals(1, clock.advance(910_000_000));
+    }
+}
@@ -0,0 +1,40 @@
+package rs.dobrosav.targetmaster.sim;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LagCompensatorTest {
+
+    private int missed;
+
+    private final LagCompensator.Listener listener = new LagCompensator.Listener() {
+        @Override
+        public void hit(int shooter, int shot, Target target, Impact impact) {
+        }
+
+        @Override
+        public void missed(int shooter, int shot) {
+            missed++;
+        }
+
+        @Override
+        public void late(int shooter, int shot, Target target) {
+        }
+    };
+
+    @Test
+    void nonFiniteShotIsRetiredAsMiss() {
+        World world = new World(1, World.DEFAULT_TICK_RATE, 1, false);
+        LagCompensator compensator = new LagCompensator(world, 8);
+        Shooter shooter = new Shooter(world.getTickRate());
+        shooter.getAim().setAngles(Double.NaN, 0);
+        compensator.fire(shooter, 0, 1, 0);
+
+        world.step();
+        compensator.record();
+        compensator.step(listener);
+        assertEquals(1, missed);
+        assertEquals(0, compensator.getShotsInFlight());
+    }
+}
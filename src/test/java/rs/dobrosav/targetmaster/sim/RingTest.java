@@ -0,0 +1,38 @@
+package rs.dobrosav.targetmaster.sim;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RingTest {
+
+    private static double squared(double r) {
+        return r * r;
+    }
+
+    @Test
+    void boundariesBelongToTheInnerRing() {
+        assertEquals(Ring.RED, Ring.at(0));
+        assertEquals(Ring.RED, Ring.at(squared(Target.INNER_RADIUS)));
+        assertEquals(Ring.BLUE, Ring.at(Math.nextUp(squared(Target.INNER_RADIUS))));
+        assertEquals(Ring.BLUE, Ring.at(squared(Target.MIDDLE_RADIUS)));
+        assertEquals(Ring.WHITE, Ring.at(Math.nextUp(squared(Target.MIDDLE_RADIUS))));
+        assertEquals(Ring.WHITE, Ring.at(squared(Target.OUTER_RADIUS)));
+        assertNull(Ring.at(Math.nextUp(squared(Target.OUTER_RADIUS))));
+    }
+
+    @Test
+    void pointsGrowInwards() {
+        assertEquals(1, Ring.WHITE.getPoints());
+        assertEquals(2, Ring.BLUE.getPoints());
+        assertEquals(3, Ring.RED.getPoints());
+        assertEquals(Target.OUTER_RADIUS, Ring.WHITE.getRadius());
+        assertEquals(Target.INNER_RADIUS, Ring.RED.getRadius());
+    }
+
+    @Test
+    void notANumberIsOutside() {
+        assertNull(Ring.at(Double.NaN));
+    }
+}
@@ -0,0 +1,60 @@
+package rs.dobrosav.targetmaster.sim;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TargetFieldTest {
+
+    private static final double DT = 1.0 / World.DEFAULT_TICK_RATE;
+
+    @Test
+    void respawnedSineTargetStartsFromItsSpawnPoint() {
+        TargetField field = new TargetField(1);
+        double speed = TargetField.MAX_SPEED;
+        double amplitude = TargetField.MAX_AMPLITUDE;
+        field.place(0, 0, -20, -600);
+        field.setMotion(0, Motion.SINE, speed / amplitude, amplitude, 1.0, 0);
+        for (int tick = 0; tick < 1000; tick++) {
+            field.step(DT);
+        }
+
+        for (double phase : new double[] {0, 1.0, Math.PI / 2, 4.0}) {
+            field.place(0, 75, -20, -500);
+            field.setMotion(0, Motion.SINE, speed / amplitude, amplitude, phase, 0);
+            double previous = 75;
+            for (int tick = 0; tick < 100; tick++) {
+                field.step(DT);
+                // No faster than the sine's peak speed, from the first tick on
+                assertTrue(Math.abs(field.x[0] - previous) <= speed * DT + 1e-9,
+                        "moved " + (field.x[0] - previous) + " in tick " + tick + " at phase " + phase);
+                previous = field.x[0];
+            }
+        }
+    }
+
+    @Test
+    void parallelStepMatchesSerial() {
+        int count = 3000;
+        TargetField serial = new TargetField(count);
+        TargetField parallel = new TargetField(count);
+        serial.setParallelThreshold(Integer.MAX_VALUE);
+        parallel.setParallelThreshold(0);
+        for (TargetField field : new TargetField[] {serial, parallel}) {
+            for (int i = 0; i < count; i++) {
+                field.place(i, i % 400 - 200, -20, -400 - i % 500);
+                Motion motion = Motion.VALUES[1 + i % (Motion.VALUES.length - 1)];
+                field.setMotion(i, motion, 50 + i % 100, 100, i * 0.01, i % 3);
+            }
+        }
+        for (int tick = 0; tick < 200; tick++) {
+            serial.step(DT);
+            parallel.step(DT);
+        }
+        assertArrayEquals(serial.x, parallel.x);
+        assertArrayEquals(serial.up, parallel.up);
+        assertEquals(serial.size(), parallel.size());
+    }
+}
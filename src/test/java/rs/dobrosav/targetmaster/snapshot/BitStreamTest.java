@@ -0,0 +1,77 @@
+package rs.dobrosav.targetmaster.snapshot;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BitStreamTest {
+
+    private static final long[] UNSIGNED = {0, 1, 15, 16, 255, 256, 65535, 65536, 0xFFFFFFFFL};
+    private static final long[] SIGNED = {0, 1, -1, 127, -128, 128, -129, 32767, -32768, 32768,
+            Integer.MAX_VALUE, Integer.MIN_VALUE};
+
+    @Test
+    void fieldsRoundTripAcrossSizeClasses() {
+        ByteBuffer buf = ByteBuffer.allocate(256);
+        BitWriter writer = new BitWriter();
+        writer.reset(buf);
+        for (long value : UNSIGNED) {
+            writer.writeUnsigned(value);
+        }
+        for (long value : SIGNED) {
+            writer.writeSigned(value);
+        }
+        writer.writeBit(true);
+        writer.write(0x5A5, 12);
+        writer.writeBit(false);
+        writer.write(0xDEADBEEFL, 32);
+        writer.flush();
+        buf.flip();
+
+        BitReader reader = new BitReader();
+        reader.reset(buf);
+        for (long value : UNSIGNED) {
+            assertEquals(value, reader.readUnsigned());
+        }
+        for (long value : SIGNED) {
+            assertEquals(value, reader.readSigned());
+        }
+        assertTrue(reader.readBit());
+        assertEquals(0x5A5, reader.read(12));
+        assertFalse(reader.readBit());
+        assertEquals(0xDEADBEEFL, reader.read(32));
+        assertEquals(0, buf.remaining());
+    }
+
+    @Test
+    void smallValuesTakeFewBits() {
+        assertEquals(2, bits(w -> w.writeSigned(0)));
+        assertEquals(10, bits(w -> w.writeSigned(-128)));
+        assertEquals(18, bits(w -> w.writeSigned(128)));
+        assertEquals(6, bits(w -> w.writeUnsigned(15)));
+        assertEquals(10, bits(w -> w.writeUnsigned(16)));
+        assertEquals(BitWriter.MAX_FIELD_BITS, bits(w -> w.writeUnsigned(0xFFFFFFFFL)));
+        assertEquals(BitWriter.MAX_FIELD_BITS, bits(w -> w.writeSigned(Integer.MIN_VALUE)));
+    }
+
+    /** Bits {@code field} takes: the padding after which {@link BitWriter#flush()} has nothing left to write. */
+    private static int bits(Consumer<BitWriter> field) {
+        for (int padding = 0; ; padding++) {
+            ByteBuffer buf = ByteBuffer.allocate(16);
+            BitWriter writer = new BitWriter();
+            writer.reset(buf);
+            field.accept(writer);
+            writer.write(0, padding);
+            int whole = buf.position();
+            writer.flush();
+            if (buf.position() == whole) {
+                return whole * 8 - padding;
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package rs.dobrosav.targetmaster.snapshot;
+
+import org.junit.jupiter.api.Test;
+import rs.dobrosav.targetmaster.sim.Bullet;
+import rs.dobrosav.targetmaster.sim.World;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotCodecTest {
+
+    private final SnapshotCodec codec = new SnapshotCodec();
+
+    @Test
+    void keyFrameRoundTrips() {
+        Snapshot snapshot = snapshot(100, 3, 2);
+        Snapshot decoded = roundTrip(snapshot, null);
+        assertSnapshotEquals(snapshot, decoded);
+    }
+
+    @Test
+    void targetDeltasRoundTrip() {
+        Snapshot base = snapshot(100, 4, 0);
+        Snapshot current = new Snapshot();
+        current.copyFrom(base);
+        current.tick = 103;
+        current.score = 250;
+        current.hits = 3;
+        current.pitch = -150;
+        current.targetX[1] += 7;
+        current.targetZ[1] -= 300;
+        current.targetUp[2] = false;
+        current.targetY[3] = 0;
+
+        assertSnapshotEquals(current, roundTrip(current, base));
+    }
+
+    @Test
+    void unchangedTargetsCostNothing() {
+        int[] sizes = new int[2];
+        int[] targets = {1, 1000};
+        for (int k = 0; k < 2; k++) {
+            Snapshot base = snapshot(100, targets[k], 0);
+            Snapshot current = new Snapshot();
+            current.copyFrom(base);
+            current.tick = 101;
+            ByteBuffer buf = encode(current, base);
+            sizes[k] = buf.remaining();
+            assertSnapshotEquals(current, decode(buf, base));
+        }
+        // Only the target count itself grows
+        assertTrue(sizes[1] - sizes[0] <= 2, sizes[0] + " and " + sizes[1] + " bytes");
+    }
+
+    @Test
+    void targetCountChangeRoundTrips() {
+        Snapshot base = snapshot(100, 5, 0);
+        Snapshot current = snapshot(101, 3, 0);
+        current.targetX[0] = 0;
+        current.targetY[0] = 0;
+        current.targetZ[0] = 0;
+        current.targetUp[0] = false;
+
+        assertSnapshotEquals(current, roundTrip(current, base));
+    }
+
+    @Test
+    void bulletsAppearVanishAndReAnchor() {
+        Snapshot base = snapshot(100, 2, 0);
+        base.ensureBullets(3);
+        bullet(base, 0, 4, 90);
+        bullet(base, 1, 7, 95);
+        bullet(base, 2, 9, 99);
+
+        Snapshot current = new Snapshot();
+        current.copyFrom(base);
+        current.tick = 104;
+        current.ensureBullets(4);
+        // 4 kept as is, 7 vanished, 9 re-anchored, 12 and 40 appeared
+        bullet(current, 0, 4, 90);
+        bullet(current, 1, 9, 104);
+        current.anchorX[1] += 5;
+        bullet(current, 2, 12, 102);
+        bullet(current, 3, 40, 104);
+
+        assertSnapshotEquals(current, roundTrip(current, base));
+    }
+
+    @Test
+    void allBulletsVanish() {
+        Snapshot base = snapshot(100, 1, 0);
+        base.ensureBullets(2);
+        bullet(base, 0, 0, 99);
+        bullet(base, 1, 1, 100);
+        Snapshot current = snapshot(101, 1, 0);
+
+        Snapshot decoded = roundTrip(current, base);
+        assertEquals(0, decoded.bulletCount);
+        assertSnapshotEquals(current, decoded);
+    }
+
+    @Test
+    void yawWrapsAround() {
+        Snapshot base = snapshot(100, 0, 0);
+        Snapshot current = new Snapshot();
+        current.copyFrom(base);
+        current.tick = 101;
+
+        base.yaw = 10;
+        current.yaw = 35;
+        int plain = encode(current, base).remaining();
+
+        // 25 quanta across zero, either way, is as small a delta as 25 quanta anywhere else
+        base.yaw = Snapshot.FULL_TURN - 10;
+        current.yaw = 15;
+        assertEquals(plain, encode(current, base).remaining());
+        assertSnapshotEquals(current, roundTrip(current, base));
+
+        base.yaw = 15;
+        current.yaw = Snapshot.FULL_TURN - 10;
+        assertEquals(plain, encode(current, base).remaining());
+        assertSnapshotEquals(current, roundTrip(current, base));
+
+        base.yaw = 0;
+        current.yaw = Snapshot.FULL_TURN / 2;
+        assertSnapshotEquals(current, roundTrip(current, base));
+    }
+
+    @Test
+    void baselineMismatchIsRejected() {
+        Snapshot base = snapshot(100, 2, 1);
+        Snapshot current = snapshot(102, 2, 1);
+        ByteBuffer buf = encode(current, base);
+        assertEquals(100, codec.baselineTick(buf));
+
+        Snapshot other = new Snapshot();
+        other.copyFrom(base);
+        other.tick = 101;
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(buf.duplicate(), other, new Snapshot()));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(buf.duplicate(), null, new Snapshot()));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(buf.duplicate(), base, base));
+    }
+
+    @Test
+    void keyFrameIgnoresBaseline() {
+        Snapshot current = snapshot(100, 2, 1);
+        ByteBuffer buf = encode(current, null);
+        assertEquals(-1, codec.baselineTick(buf));
+        assertSnapshotEquals(current, decode(buf, snapshot(42, 5, 3)));
+    }
+
+    @Test
+    void capturedWorldRoundTrips() {
+        World world = new World(7, World.DEFAULT_TICK_RATE, 12, false);
+        Snapshot previous = new Snapshot();
+        Snapshot current = new Snapshot();
+        Snapshot received = new Snapshot();
+        Snapshot decoded = new Snapshot();
+        current.capture(world, null);
+        codec.decode(encode(current, null), null, received);
+        int bullets = 0;
+        for (int t = 0; t < 600; t++) {
+            world.getAim().setAngles(Math.sin(t * 0.05) * 5, t * 0.7);
+            if (t % 7 == 0) {
+                world.fire();
+            }
+            world.step();
+            Snapshot swap = previous;
+            previous = current;
+            current = swap;
+            current.capture(world, previous);
+
+            codec.decode(encode(current, received), received, decoded);
+            assertSnapshotEquals(current, decoded);
+            swap = received;
+            received = decoded;
+            decoded = swap;
+
+            // Kept anchors still place every bullet within the tolerance
+            for (Bullet bullet : world.getBullets()) {
+                int i = indexOf(received, bullet.getId());
+                double tolerance = Snapshot.BULLET_TOLERANCE + Snapshot.POSITION_QUANTUM;
+                assertEquals(bullet.getX(), received.getBulletX(i), tolerance);
+                assertEquals(bullet.getY(), received.getBulletY(i), tolerance);
+                assertEquals(bullet.getZ(), received.getBulletZ(i), tolerance);
+            }
+            bullets = Math.max(bullets, received.getBulletCount());
+        }
+        assertTrue(bullets > 1);
+    }
+
+    private static int indexOf(Snapshot snapshot, int id) {
+        for (int i = 0; i < snapshot.bulletCount; i++) {
+            if (snapshot.bulletId[i] == id) {
+                return i;
+            }
+        }
+        throw new AssertionError("No bullet " + id);
+    }
+
+    private ByteBuffer encode(Snapshot current, Snapshot baseline) {
+        ByteBuffer buf = ByteBuffer.allocate(SnapshotCodec.maxSize(current, baseline));
+        codec.encode(current, baseline, buf);
+        return buf.flip();
+    }
+
+    private Snapshot decode(ByteBuffer buf, Snapshot baseline) {
+        Snapshot out = new Snapshot();
+        codec.decode(buf, baseline, out);
+        return out;
+    }
+
+    private Snapshot roundTrip(Snapshot current, Snapshot baseline) {
+        return decode(encode(current, baseline), baseline);
+    }
+
+    /** A snapshot with distinct, partly negative values in every field. */
+    static Snapshot snapshot(long tick, int targets, int bullets) {
+        Snapshot s = new Snapshot();
+        s.tick = tick;
+        s.tickRate = World.DEFAULT_TICK_RATE;
+        s.score = 120;
+        s.hits = 2;
+        s.misses = 5;
+        s.scoped = true;
+        s.pitch = -321;
+        s.yaw = 17000;
+        s.ensureTargets(targets);
+        for (int i = 0; i < targets; i++) {
+            s.targetX[i] = i * 37 - 400;
+            s.targetY[i] = 16 + i % 5;
+            s.targetZ[i] = -1600 - i * 97;
+            s.targetUp[i] = i % 3 != 0;
+        }
+        s.ensureBullets(bullets);
+        for (int i = 0; i < bullets; i++) {
+            bullet(s, i, i * 3 + 1, tick - i);
+        }
+        return s;
+    }
+
+    static void bullet(Snapshot s, int i, int id, long anchorTick) {
+        s.bulletId[i] = id;
+        s.anchorTick[i] = anchorTick;
+        s.anchorX[i] = id * 5 - 20;
+        s.anchorY[i] = 26;
+        s.anchorZ[i] = -id * 11;
+        s.dirX[i] = (short) (id * 100 - 900);
+        s.dirY[i] = (short) 1200;
+        s.dirZ[i] = (short) -32000;
+    }
+
+    static void assertSnapshotEquals(Snapshot expected, Snapshot actual) {
+        assertEquals(expected.tick, actual.tick, "tick");
+        assertEquals(expected.tickRate, actual.tickRate, "tick rate");
+        assertEquals(expected.score, actual.score, "score");
+        assertEquals(expected.hits, actual.hits, "hits");
+        assertEquals(expected.misses, actual.misses, "misses");
+        assertEquals(expected.scoped, actual.scoped, "scoped");
+        assertEquals(expected.pitch, actual.pitch, "pitch");
+        assertEquals(expected.yaw, actual.yaw, "yaw");
+        assertEquals(expected.targetCount, actual.targetCount, "target count");
+        for (int i = 0; i < expected.targetCount; i++) {
+            assertEquals(expected.targetX[i], actual.targetX[i], "target x " + i);
+            assertEquals(expected.targetY[i], actual.targetY[i], "target y " + i);
+            assertEquals(expected.targetZ[i], actual.targetZ[i], "target z " + i);
+            assertEquals(expected.targetUp[i], actual.targetUp[i], "target up " + i);
+        }
+        assertEquals(expected.bulletCount, actual.bulletCount, "bullet count");
+        for (int i = 0; i < expected.bulletCount; i++) {
+            assertEquals(expected.bulletId[i], actual.bulletId[i], "bullet id " + i);
+            assertEquals(expected.anchorTick[i], actual.anchorTick[i], "anchor tick " + i);
+            assertEquals(expected.anchorX[i], actual.anchorX[i], "anchor x " + i);
+            assertEquals(expected.anchorY[i], actual.anchorY[i], "anchor y " + i);
+            assertEquals(expected.anchorZ[i], actual.anchorZ[i], "anchor z " + i);
+            assertEquals(expected.dirX[i], actual.dirX[i], "dir x " + i);
+            assertEquals(expected.dirY[i], actual.dirY[i], "dir y " + i);
+            assertEquals(expected.dirZ[i], actual.dirZ[i], "dir z " + i);
+        }
+    }
+}
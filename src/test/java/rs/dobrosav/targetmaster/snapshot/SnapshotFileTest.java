@@ -0,0 +1,148 @@
+package rs.dobrosav.targetmaster.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static rs.dobrosav.targetmaster.snapshot.SnapshotCodecTest.assertSnapshotEquals;
+import static rs.dobrosav.targetmaster.snapshot.SnapshotCodecTest.bullet;
+import static rs.dobrosav.targetmaster.snapshot.SnapshotCodecTest.snapshot;
+
+class SnapshotFileTest {
+
+    private static final int COUNT = 25;
+    private static final int KEY_FRAME_INTERVAL = 10;
+
+    @TempDir
+    Path dir;
+
+    /** Snapshots of consecutive ticks with a target moving and bullets coming and going. */
+    private static List<Snapshot> sequence() {
+        List<Snapshot> snapshots = new ArrayList<>();
+        for (int t = 0; t < COUNT; t++) {
+            Snapshot s = snapshot(1000 + t, 6, 0);
+            s.score = t * 10;
+            s.yaw = Math.floorMod(t * 900 - 5000, Snapshot.FULL_TURN);
+            s.targetX[2] += t * 3;
+            s.targetUp[4] = t % 4 < 2;
+            int bullets = t % 5;
+            s.ensureBullets(bullets);
+            for (int i = 0; i < bullets; i++) {
+                bullet(s, i, t / 5 * 5 + i, 1000 + t / 5 * 5 + i);
+            }
+            snapshots.add(s);
+        }
+        return snapshots;
+    }
+
+    private Path write(List<Snapshot> snapshots) throws IOException {
+        Path file = dir.resolve("snapshots.tmss");
+        SnapshotWriter writer = new SnapshotWriter(file, KEY_FRAME_INTERVAL);
+        for (Snapshot snapshot : snapshots) {
+            writer.write(snapshot);
+        }
+        writer.close();
+        assertEquals(writer.size(), Files.size(file));
+        return file;
+    }
+
+    @Test
+    void snapshotsRoundTrip() throws IOException {
+        List<Snapshot> snapshots = sequence();
+        Path file = write(snapshots);
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            for (int i = 0; i < COUNT; i++) {
+                Snapshot read = reader.next();
+                assertSnapshotEquals(snapshots.get(i), read);
+                assertEquals(i % KEY_FRAME_INTERVAL == 0, reader.isLastKeyFrame(), "key frame " + i);
+            }
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void truncatedFileEndsAtLastCompleteSnapshot() throws IOException {
+        List<Snapshot> snapshots = sequence();
+        Path file = write(snapshots);
+        long size = Files.size(file);
+        int last;
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            for (int i = 0; i < COUNT; i++) {
+                reader.next();
+            }
+            last = reader.getLastSize();
+        }
+
+        // Cut into the last record's body, then into its length field
+        for (long cut : new long[] {size - 1, size - last + 5, size - last + 2}) {
+            truncate(file, cut);
+            try (SnapshotReader reader = SnapshotReader.open(file)) {
+                for (int i = 0; i < COUNT - 1; i++) {
+                    assertSnapshotEquals(snapshots.get(i), reader.next());
+                }
+                assertNull(reader.next());
+            }
+        }
+    }
+
+    @Test
+    void badLengthIsRejected() throws IOException {
+        Path file = write(sequence());
+        for (int length : new int[] {0, 8, -1, SnapshotWriter.MAX_RECORD + 1}) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(4).putInt(0, length), 6);
+            }
+            try (SnapshotReader reader = SnapshotReader.open(file)) {
+                IOException e = assertThrows(IOException.class, reader::next);
+                assertTrue(e.getMessage().startsWith("Bad snapshot length"), e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    void corruptRecordIsRejected() throws IOException {
+        List<Snapshot> snapshots = sequence();
+        Path file = write(snapshots);
+        // Second record, a delta: make its baseline age point to a tick never read
+        int first;
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            reader.next();
+            first = reader.getLastSize();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            // Size class 1, age 0xFF: ages are the first field after the tick
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) 0xFD, 0x03}), 6 + first + 4 + 8);
+        }
+        try (SnapshotReader reader = SnapshotReader.open(file)) {
+            reader.next();
+            assertThrows(IOException.class, reader::next);
+        }
+    }
+
+    @Test
+    void notASnapshotFileIsRejected() throws IOException {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> SnapshotReader.open(file));
+        Files.write(file, new byte[0]);
+        assertThrows(IOException.class, () -> SnapshotReader.open(file));
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package rs.dobrosav.targetmaster.stats;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import rs.dobrosav.targetmaster.sim.Ring;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShotStoreTest {
+
+    private static final int BOARD = 3;
+    private static final Ring[] RINGS = Ring.values();
+
+    @TempDir
+    Path dir;
+
+    /** Records a session of {@code count} shots, hitting every {@code every}-th; returns its hits. */
+    private static int session(ShotStore store, int count, int every) {
+        long session = store.startSession();
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            Ring ring = i % every == 0 ? RINGS[i % RINGS.length] : null;
+            assertTrue(store.record(new ShotRecord(1000L * session + i, session, ring, 30 + i, 0.5f)));
+            if (ring != null) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private ShotStore open() throws IOException {
+        return ShotStore.open(dir, BOARD);
+    }
+
+    private Path log() {
+        return dir.resolve(StatsFormat.LOG_FILE);
+    }
+
+    private static void assertMatchesRebuild(ShotStore store) throws IOException {
+        assertEquals(store.rebuild().top(BOARD), store.getLeaderboard().top(BOARD));
+    }
+
+    @Test
+    void indexMatchesRebuild() throws IOException {
+        int hits = 0;
+        try (ShotStore store = open()) {
+            for (int s = 1; s <= 6; s++) {
+                hits += session(store, 10 * s, 7 - s);
+            }
+        }
+        try (ShotStore store = open()) {
+            assertEquals(0, store.getScannedBytes());
+            assertEquals(210, store.getShots());
+            assertEquals(hits, store.getHits());
+            assertEquals(6, store.getLastSession());
+            assertEquals(BOARD, store.getLeaderboard().top(BOARD).size());
+            assertMatchesRebuild(store);
+
+            hits += session(store, 40, 1);
+        }
+        try (ShotStore store = open()) {
+            assertEquals(250, store.getShots());
+            assertEquals(hits, store.getHits());
+            assertEquals(7, store.getLastSession());
+            assertEquals(6, store.getLeaderboard().top(1).get(0).session());
+            assertMatchesRebuild(store);
+        }
+    }
+
+    @Test
+    void tornTailIsCutOff() throws IOException {
+        try (ShotStore store = open()) {
+            session(store, 50, 2);
+        }
+        long size = Files.size(log());
+        // A block of 10 records of which the crash left only part
+        ByteBuffer torn = ByteBuffer.allocate(StatsFormat.BLOCK_HEADER_SIZE + 3 * StatsFormat.RECORD_SIZE);
+        torn.putInt(0, 10 * StatsFormat.RECORD_SIZE).putInt(4, 0x12345678);
+        append(torn);
+
+        try (ShotStore store = open()) {
+            assertNull(store.getDamagedCopy());
+            assertEquals(size, Files.size(log()));
+            assertEquals(50, store.getShots());
+            session(store, 5, 1);
+        }
+        try (ShotStore store = open()) {
+            assertEquals(55, store.getShots());
+            assertMatchesRebuild(store);
+        }
+        // Only part of a block header
+        append(ByteBuffer.allocate(5));
+        try (ShotStore store = open()) {
+            assertNull(store.getDamagedCopy());
+            assertEquals(55, store.getShots());
+        }
+    }
+
+    @Test
+    void damageBeforeTheEndIsCopiedAside() throws IOException {
+        long[] ends = new long[3];
+        for (int s = 0; s < 3; s++) {
+            try (ShotStore store = open()) {
+                session(store, 20, 2);
+            }
+            ends[s] = Files.size(log());
+        }
+        Files.delete(dir.resolve(StatsFormat.INDEX_FILE));
+        byte[] original = Files.readAllBytes(log());
+        // The first record of the second session fails its checksum; the third is intact
+        try (FileChannel channel = FileChannel.open(log(), StandardOpenOption.WRITE)) {
+            int at = (int) ends[0] + StatsFormat.BLOCK_HEADER_SIZE;
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) ~original[at]}), at);
+        }
+
+        try (ShotStore store = open()) {
+            Path copy = store.getDamagedCopy();
+            assertNotNull(copy);
+            assertEquals(original.length, Files.size(copy));
+            assertEquals(ends[0], Files.size(log()));
+            assertEquals(20, store.getShots());
+            assertEquals(1, store.getLeaderboard().top(BOARD).size());
+            assertMatchesRebuild(store);
+        }
+        try (ShotStore store = open()) {
+            assertNull(store.getDamagedCopy());
+        }
+    }
+
+    @Test
+    void impossibleLengthIsDamageNotTornTail() throws IOException {
+        try (ShotStore store = open()) {
+            session(store, 10, 1);
+        }
+        long size = Files.size(log());
+        ByteBuffer bad = ByteBuffer.allocate(StatsFormat.BLOCK_HEADER_SIZE + 100);
+        bad.putInt(0, 7);
+        append(bad);
+
+        try (ShotStore store = open()) {
+            assertNotNull(store.getDamagedCopy());
+            assertEquals(size, Files.size(log()));
+            assertEquals(10, store.getShots());
+        }
+    }
+
+    @Test
+    void indexIsRebuiltWhenCorrupt() throws IOException {
+        int hits = 0;
+        try (ShotStore store = open()) {
+            for (int s = 1; s <= 5; s++) {
+                hits += session(store, 10 + s, s);
+            }
+        }
+        List<Leaderboard.Entry> board;
+        try (ShotStore store = open()) {
+            board = store.getLeaderboard().top(BOARD);
+        }
+        Path index = dir.resolve(StatsFormat.INDEX_FILE);
+        byte[] bytes = Files.readAllBytes(index);
+        bytes[bytes.length / 2] ^= 0x40;
+        Files.write(index, bytes);
+
+        try (ShotStore store = open()) {
+            assertEquals(Files.size(log()) - StatsFormat.LOG_HEADER_SIZE, store.getScannedBytes());
+            assertEquals(65, store.getShots());
+            assertEquals(hits, store.getHits());
+            assertEquals(5, store.getLastSession());
+            assertEquals(board, store.getLeaderboard().top(BOARD));
+            assertMatchesRebuild(store);
+        }
+        // The rebuilt index was saved
+        try (ShotStore store = open()) {
+            assertEquals(0, store.getScannedBytes());
+            assertEquals(board, store.getLeaderboard().top(BOARD));
+        }
+    }
+
+    @Test
+    void indexOfAnotherBoardSizeIsRebuilt() throws IOException {
+        try (ShotStore store = open()) {
+            for (int s = 1; s <= 5; s++) {
+                session(store, 10, s);
+            }
+        }
+        try (ShotStore store = ShotStore.open(dir, BOARD + 2)) {
+            assertTrue(store.getScannedBytes() > 0);
+            assertEquals(5, store.getLeaderboard().top(BOARD + 2).size());
+            assertEquals(store.rebuild().top(BOARD + 2), store.getLeaderboard().top(BOARD + 2));
+        }
+    }
+
+    @Test
+    void shotsRacingCloseAreStoredOrCounted() throws IOException, InterruptedException {
+        int threads = 4;
+        int perThread = 5000;
+        ShotStore store = open();
+        long session = store.startSession();
+        CountDownLatch recording = new CountDownLatch(threads);
+        List<Thread> shooters = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int base = t * perThread;
+            Thread shooter = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    store.record(new ShotRecord(base + i + 1, session, RINGS[i % RINGS.length], 30, 0.5f));
+                    if (i == 100) {
+                        recording.countDown();
+                    }
+                }
+            });
+            shooters.add(shooter);
+            shooter.start();
+        }
+        recording.await();
+        store.close();
+        for (Thread shooter : shooters) {
+            shooter.join();
+        }
+        long dropped = store.getDropped();
+        assertFalse(store.record(new ShotRecord(1, session, null, 30, 0.5f)));
+        assertEquals(dropped + 1, store.getDropped());
+
+        try (ShotStore reopened = open()) {
+            assertEquals(threads * perThread + 1, reopened.getShots() + store.getDropped());
+        }
+    }
+
+    private void append(ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(log(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(bytes.clear());
+        }
+    }
+}
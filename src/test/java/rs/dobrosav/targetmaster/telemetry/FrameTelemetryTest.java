@@ -0,0 +1,35 @@
+package rs.dobrosav.targetmaster.telemetry;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FrameTelemetryTest {
+
+    private static final long FRAME = 16_000_000L;
+
+    @Test
+    void framesOnANegativeClockAreMeasured() {
+        FrameTelemetry telemetry = new FrameTelemetry();
+        // Five pulses, the last one across zero
+        for (long now = -4 * FRAME + 5_000_000; now < FRAME; now += FRAME) {
+            telemetry.recordPulse(now, 1_000_000, 2_000_000, 1);
+        }
+        LatencyHistogram frames = telemetry.get(Phase.FRAME);
+        assertEquals(4, frames.getCount());
+        assertEquals(FRAME, frames.getMax());
+        assertEquals(5, telemetry.get(Phase.RENDER).getCount());
+    }
+
+    @Test
+    void resetKeepsMeasuringFromTheLastPulse() {
+        FrameTelemetry telemetry = new FrameTelemetry();
+        telemetry.recordPulse(-3 * FRAME, 0, 0, 0);
+        telemetry.recordPulse(-2 * FRAME, 0, 0, 0);
+        telemetry.reset();
+        assertEquals(0, telemetry.get(Phase.FRAME).getCount());
+        telemetry.recordPulse(-FRAME, 0, 0, 0);
+        assertEquals(1, telemetry.get(Phase.FRAME).getCount());
+        assertEquals(FRAME, telemetry.get(Phase.FRAME).getMax());
+    }
+}